@@ -0,0 +1,15 @@
+package com.example.inventory.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import java.time.Clock;
+
+// 日付に依存する処理（期限までの日数、日付の切り替わり）の基準時計
+@Configuration
+public class ClockConfig {
+
+    @Bean
+    public Clock clock() {
+        return Clock.systemDefaultZone();
+    }
+}
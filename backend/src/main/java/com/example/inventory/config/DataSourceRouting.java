@@ -0,0 +1,43 @@
+package com.example.inventory.config;
+
+import java.util.function.Supplier;
+
+// 読み取り専用トランザクションの振り分け先をプライマリに固定する（スレッド単位）
+// 書き込み直後の読み取り（read-your-writes）や、レプリカの遅延を許容できない読み取りで使う
+// トランザクション開始前（接続取得前）に設定する必要がある
+public final class DataSourceRouting {
+
+    private static final ThreadLocal<Integer> PRIMARY_DEPTH = ThreadLocal.withInitial(() -> 0);
+
+    private DataSourceRouting() {
+    }
+
+    public static boolean isPrimaryForced() {
+        return PRIMARY_DEPTH.get() > 0;
+    }
+
+    // try-with-resources で使う（入れ子可）
+    public static Scope forcePrimary() {
+        PRIMARY_DEPTH.set(PRIMARY_DEPTH.get() + 1);
+        return () -> {
+            int depth = PRIMARY_DEPTH.get() - 1;
+            if (depth > 0) {
+                PRIMARY_DEPTH.set(depth);
+            } else {
+                PRIMARY_DEPTH.remove();
+            }
+        };
+    }
+
+    public static <T> T onPrimary(Supplier<T> action) {
+        try (Scope scope = forcePrimary()) {
+            return action.get();
+        }
+    }
+
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
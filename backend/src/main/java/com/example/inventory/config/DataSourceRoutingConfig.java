@@ -0,0 +1,80 @@
+package com.example.inventory.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+import javax.sql.DataSource;
+import java.util.Map;
+
+// プライマリ / レプリカの振り分け（inventory.datasource.replica.url が設定されている場合のみ有効）
+// 未設定なら Spring Boot 標準の単一データソースのまま動作する
+@Configuration
+@ConditionalOnProperty(prefix = "inventory.datasource.replica", name = "url")
+public class DataSourceRoutingConfig {
+
+    // プライマリは spring.datasource.*（接続プールの設定は spring.datasource.hikari.*）
+    @Bean(defaultCandidate = false)
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean(defaultCandidate = false)
+    @ConfigurationProperties("inventory.datasource.replica")
+    public DataSourceProperties replicaDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    // レプリカは inventory.datasource.replica.*（ユーザー名・パスワードは未指定ならプライマリと同じ）
+    @Bean(defaultCandidate = false)
+    @ConfigurationProperties("inventory.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Qualifier("replicaDataSourceProperties") DataSourceProperties replicaProperties) {
+        if (!StringUtils.hasText(replicaProperties.getUsername())) {
+            replicaProperties.setUsername(properties.determineUsername());
+        }
+        if (!StringUtils.hasText(replicaProperties.getPassword())) {
+            replicaProperties.setPassword(properties.determinePassword());
+        }
+        HikariDataSource dataSource = replicaProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                               @Value("${inventory.datasource.replica.max-lag-ms:1000}") long maxLagMillis) {
+        return new ReplicaLagMonitor(replicaDataSource, maxLagMillis);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                 ReplicaLagMonitor replicaLagMonitor) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(replicaLagMonitor);
+        routing.setTargetDataSources(Map.of(
+                ReadWriteRoutingDataSource.Route.PRIMARY, primaryDataSource,
+                ReadWriteRoutingDataSource.Route.REPLICA, replicaDataSource));
+        routing.setDefaultTargetDataSource(primaryDataSource);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(ReplicaLagMonitor replicaLagMonitor,
+                                                     @Value("${inventory.datasource.read-your-writes-window-ms:5000}") long windowMillis) {
+        return new ReadYourWritesFilter(replicaLagMonitor, windowMillis);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.inventory.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+import java.util.Set;
+
+// read-your-writes 用のリクエストフィルタ
+// - 書き込みリクエスト（GET/HEAD/OPTIONS 以外）は処理中の読み取りもすべてプライマリで行い、書き込み時刻を Cookie に残す
+// - その Cookie を持つクライアントは、一定時間（window とレプリカ遅延の大きい方）読み取りもプライマリで行う
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE_NAME = "inventory_last_write";
+
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final long windowMillis;
+
+    public ReadYourWritesFilter(ReplicaLagMonitor lagMonitor, long windowMillis) {
+        this.lagMonitor = lagMonitor;
+        this.windowMillis = windowMillis;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long now = System.currentTimeMillis();
+        boolean write = !SAFE_METHODS.contains(request.getMethod());
+        if (!write && !wroteRecently(request, now)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        if (write) {
+            // レスポンス本文の書き込み前に設定する
+            Cookie cookie = new Cookie(COOKIE_NAME, Long.toString(now));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, (windowMillis + 999) / 1000));
+            response.addCookie(cookie);
+        }
+        try (DataSourceRouting.Scope scope = DataSourceRouting.forcePrimary()) {
+            chain.doFilter(request, response);
+        }
+    }
+
+    private boolean wroteRecently(HttpServletRequest request, long now) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return false;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                try {
+                    long elapsed = now - Long.parseLong(cookie.getValue());
+                    return elapsed < Math.max(windowMillis, lagMonitor.getLagMillis());
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+}
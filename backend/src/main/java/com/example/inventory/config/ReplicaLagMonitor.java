@@ -0,0 +1,66 @@
+package com.example.inventory.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import javax.sql.DataSource;
+
+// レプリカの遅延監視
+// 遅延が max-lag-ms を超えた、または接続できない間は読み取りもプライマリへ戻す
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    // WAL の受信位置まで適用済みなら遅延なし、それ以外は最後に適用したトランザクションからの経過時間
+    // プライマリ（リカバリ中でないDB）に向けた場合は 0 になる
+    private static final String LAG_SQL =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END";
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final long maxLagMillis;
+
+    // 初回の確認が終わるまではレプリカを使わない
+    private volatile long lagMillis = Long.MAX_VALUE;
+
+    public ReplicaLagMonitor(DataSource replicaDataSource, long maxLagMillis) {
+        this.replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.datasource.replica.lag-check-interval-ms:1000}")
+    public void check() {
+        long previous = lagMillis;
+        try {
+            Number lag = replicaJdbcTemplate.queryForObject(LAG_SQL, Number.class);
+            lagMillis = lag != null ? lag.longValue() : 0;
+        } catch (DataAccessException e) {
+            lagMillis = Long.MAX_VALUE;
+            if (previous != Long.MAX_VALUE) {
+                log.warn("レプリカの遅延を確認できません。読み取りをプライマリへ切り替えます", e);
+            }
+            return;
+        }
+
+        boolean usable = lagMillis <= maxLagMillis;
+        boolean wasUsable = previous <= maxLagMillis;
+        if (usable != wasUsable) {
+            if (usable) {
+                log.info("レプリカへの読み取りを再開します（遅延 {} ms）", lagMillis);
+            } else {
+                log.warn("レプリカの遅延が大きいため読み取りをプライマリへ切り替えます（遅延 {} ms）", lagMillis);
+            }
+        }
+    }
+
+    public boolean isReplicaUsable() {
+        return lagMillis <= maxLagMillis;
+    }
+
+    // 直近に確認した遅延（確認できない場合は Long.MAX_VALUE）
+    public long getLagMillis() {
+        return lagMillis;
+    }
+}
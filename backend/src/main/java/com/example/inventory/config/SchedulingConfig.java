@@ -0,0 +1,10 @@
+package com.example.inventory.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// バックグラウンドジョブ（@Scheduled）の有効化
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
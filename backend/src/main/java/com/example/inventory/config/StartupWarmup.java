@@ -0,0 +1,55 @@
+package com.example.inventory.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+import java.util.List;
+
+// 起動時のウォームアップ
+// ApplicationRunner は readiness が ACCEPTING_TRAFFIC になる前に実行されるため、ここで主要な画面のAPIを一度ずつ呼んでおく
+// （遅延初期化のビーン、DispatcherServlet、JSON変換、Hibernate のクエリ計画などが最初の利用者のリクエストで作られないようにする）
+@Component
+public class StartupWarmup implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupWarmup.class);
+
+    private final Environment environment;
+    private final boolean enabled;
+    private final List<String> paths;
+
+    public StartupWarmup(Environment environment,
+                         @Value("${inventory.startup.warmup.enabled:false}") boolean enabled,
+                         @Value("${inventory.startup.warmup.paths:}") List<String> paths) {
+        this.environment = environment;
+        this.enabled = enabled;
+        this.paths = paths;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Integer port = environment.getProperty("local.server.port", Integer.class);
+        if (!enabled || port == null || paths.isEmpty()) {
+            return;  // 無効、または組み込みサーバーなしで起動した場合（テストなど）
+        }
+        RestClient client = RestClient.create("http://localhost:" + port
+                + environment.getProperty("server.servlet.context-path", ""));
+        long total = System.nanoTime();
+        for (String path : paths) {
+            long start = System.nanoTime();
+            try {
+                client.get().uri(path).retrieve().toBodilessEntity();
+                log.info("ウォームアップ: GET {} {} ms", path, (System.nanoTime() - start) / 1_000_000);
+            } catch (RestClientException e) {
+                // ウォームアップの失敗で起動は止めない
+                log.warn("ウォームアップに失敗しました: GET {}", path, e);
+            }
+        }
+        log.info("ウォームアップ完了: {} 件 {} ms", paths.size(), (System.nanoTime() - total) / 1_000_000);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.inventory.controller;
+
+import com.example.inventory.dto.AlertChangePage;
+import com.example.inventory.service.AlertStateService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+@RequestMapping("/alerts")
+public class AlertController {
+
+    private final AlertStateService alertStateService;
+
+    public AlertController(AlertStateService alertStateService) {
+        this.alertStateService = alertStateService;
+    }
+
+    // アラートの差分（在庫・商品のアラートの発生・解消）
+    // 初回は since なしで現在のアラートすべて、以降は前回レスポンスの token を since に指定する
+    @GetMapping("/changes")
+    public AlertChangePage getChanges(@RequestParam(required = false) String since) {
+        try {
+            return alertStateService.getChangesSince(since);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+}
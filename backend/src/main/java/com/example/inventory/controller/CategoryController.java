@@ -1,48 +1,94 @@
 package com.example.inventory.controller;
 
+import com.example.inventory.dto.CategoryStockSummary;
+import com.example.inventory.dto.DeletionResult;
 import com.example.inventory.entity.Category;
+import com.example.inventory.entity.Item;
+import com.example.inventory.entity.Stock;
+import com.example.inventory.service.CategoryTreeService;
+import com.example.inventory.service.ResourceVersionService;
 import com.example.inventory.service.CategoryService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/categories")
 public class CategoryController {
 
     private final CategoryService categoryService;
+    private final CategoryTreeService categoryTreeService;
+    private final ResourceVersionService resourceVersionService;
+    private final ConditionalGetSupport conditionalGetSupport;
 
-    public CategoryController(CategoryService categoryService) {
+    public CategoryController(CategoryService categoryService,
+                              CategoryTreeService categoryTreeService,
+                              ResourceVersionService resourceVersionService,
+                              ConditionalGetSupport conditionalGetSupport) {
         this.categoryService = categoryService;
+        this.categoryTreeService = categoryTreeService;
+        this.resourceVersionService = resourceVersionService;
+        this.conditionalGetSupport = conditionalGetSupport;
     }
 
     @GetMapping
-    public List<Category> getAll() {
-        return categoryService.findAll();
+    public ResponseEntity<byte[]> getAll(WebRequest request) {
+        return conditionalGetSupport.collection(request, "categories",
+                resourceVersionService.categoriesETag(), categoryService::findAll);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Category> getById(@PathVariable Long id) {
-        Optional<Category> category = categoryService.findById(id);
-        return category.map(ResponseEntity::ok)
-                      .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<Category> getById(@PathVariable Long id, WebRequest request) {
+        return conditionalGetSupport.detail(request, resourceVersionService.categoryStamp(id),
+                () -> categoryService.findById(id));
     }
 
+    // parentId で親カテゴリを指定する（省略時は最上位）
     @PostMapping
     public Category create(@RequestBody Category category) {
-        return categoryService.save(category);
+        return badRequestOnInvalid(() -> categoryService.save(category));
     }
 
+    // parentId の変更は配下ごとの移動
     @PutMapping("/{id}")
     public Category update(@PathVariable Long id, @RequestBody Category category) {
         category.setId(id);
-        return categoryService.save(category);
+        return badRequestOnInvalid(() -> categoryService.save(category));
     }
 
+    // 子カテゴリは親へ繰り上げる
+
     @DeleteMapping("/{id}")
-    public void delete(@PathVariable Long id) {
-        categoryService.delete(id);
+    public DeletionResult delete(@PathVariable Long id) {
+        return categoryService.delete(id);
+    }
+
+    // ===== 階層（子孫のカテゴリを含む） =====
+
+    @GetMapping("/{id}/descendants")
+    public List<Category> getDescendants(@PathVariable Long id) {
+        return categoryTreeService.findDescendants(id);
+    }
+
+    @GetMapping("/{id}/items")
+    public List<Item> getItems(@PathVariable Long id) {
+        return categoryTreeService.findItems(id);
+    }
+
+    @GetMapping("/{id}/stock-summary")
+    public CategoryStockSummary getStockSummary(@PathVariable Long id) {
+        return categoryTreeService.getStockSummary(id);
+    }
+
+    // 在庫少・期限近・期限切れの在庫（期限の早い順）
+    @GetMapping("/{id}/alerts")
+    public List<Stock> getAlerts(@PathVariable Long id) {
+        return categoryTreeService.findAlerts(id);
     }
 
     // ===== カスタム検索機能 =====
@@ -63,4 +109,12 @@ public class CategoryController {
     public boolean existsByName(@PathVariable String name) {
         return categoryService.existsByName(name);
     }
+
+    private static <T> T badRequestOnInvalid(Supplier<T> action) {
+        try {
+            return action.get();
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
 }
@@ -0,0 +1,79 @@
+package com.example.inventory.controller;
+
+import com.example.inventory.dto.ResourceStamp;
+import com.example.inventory.service.ResourceVersionService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// 条件付きGETの共通処理
+// ETag が一致すればエンティティをロード・シリアライズせずに 304 を返す
+@Component
+public class ConditionalGetSupport {
+
+    private final ObjectMapper objectMapper;
+
+    // 一覧のシリアライズ結果（ETag が変わるまで=書き込みがあるまで再利用）
+    private final Map<String, CachedBody> bodyCache = new ConcurrentHashMap<>();
+
+    public ConditionalGetSupport(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    // 一覧用
+    // 一覧は削除を Last-Modified で表現できないため、ETag のみで判定する
+    public ResponseEntity<byte[]> collection(WebRequest request, String cacheKey, String etag, Supplier<?> loader) {
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        CachedBody cached = bodyCache.get(cacheKey);
+        if (cached == null || !cached.etag().equals(etag)) {
+            // バージョンを先に計算しているので、ロードした内容は必ずそのバージョン以降のもの
+            cached = new CachedBody(etag, serialize(loader.get()));
+            bodyCache.put(cacheKey, cached);
+        }
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .body(cached.body());
+    }
+
+    // 詳細用（ETag + Last-Modified）
+    public <T> ResponseEntity<T> detail(WebRequest request, Optional<ResourceStamp> stamp, Supplier<Optional<T>> loader) {
+        if (stamp.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String etag = ResourceVersionService.etagOf(stamp.get().updatedAt());
+        long lastModified = stamp.get().updatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (request.checkNotModified(etag, lastModified)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).lastModified(lastModified).build();
+        }
+
+        return loader.get()
+                .map(body -> ResponseEntity.ok().eTag(etag).lastModified(lastModified).body(body))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("レスポンスのシリアライズに失敗しました", e);
+        }
+    }
+
+    private record CachedBody(String etag, byte[] body) {
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.inventory.controller;
+
+import com.example.inventory.dto.DashboardSummary;
+import com.example.inventory.service.DashboardService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/dashboard")
+public class DashboardController {
+
+    private final DashboardService dashboardService;
+
+    public DashboardController(DashboardService dashboardService) {
+        this.dashboardService = dashboardService;
+    }
+
+    // 在庫状況（正常・在庫少・期限近・期限切れ）ごとのロット数、カテゴリ別と全体
+    @GetMapping
+    public DashboardSummary getSummary() {
+        return dashboardService.getSummary();
+    }
+}
@@ -1,54 +1,104 @@
 package com.example.inventory.controller;
 
+import com.example.inventory.dto.DeletionResult;
+import com.example.inventory.dto.ScannedItem;
 import com.example.inventory.entity.Item;
+import com.example.inventory.service.ItemBarcodeService;
+import com.example.inventory.service.ItemViewService;
+import com.example.inventory.service.ResourceVersionService;
 import com.example.inventory.service.ItemService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Clock;
+import java.time.LocalDate;
 import java.util.List;
-import java.util.Optional;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/items")
 public class ItemController {
 
     private final ItemService itemService;
-
-    public ItemController(ItemService itemService) {
+    private final ItemBarcodeService itemBarcodeService;
+    private final ItemViewService itemViewService;
+    private final ResourceVersionService resourceVersionService;
+    private final ConditionalGetSupport conditionalGetSupport;
+    private final Clock clock;
+
+    public ItemController(ItemService itemService,
+                          ItemBarcodeService itemBarcodeService,
+                          ItemViewService itemViewService,
+                          ResourceVersionService resourceVersionService,
+                          ConditionalGetSupport conditionalGetSupport,
+                          Clock clock) {
         this.itemService = itemService;
+        this.itemBarcodeService = itemBarcodeService;
+        this.itemViewService = itemViewService;
+        this.resourceVersionService = resourceVersionService;
+        this.conditionalGetSupport = conditionalGetSupport;
+        this.clock = clock;
     }
 
-    // 全件取得
+    // 全件取得（ETag による条件付きGET対応）
+    // fields=name,categoryName,... で項目を選び、include=stockSummary で在庫サマリーを含める（いずれも1回のクエリ）
     @GetMapping
-    public List<Item> getAllItems() {
-        return itemService.findAll();
+    public ResponseEntity<byte[]> getAllItems(@RequestParam(required = false) String fields,
+                                              @RequestParam(required = false) String include,
+                                              WebRequest request) {
+        if (fields == null && include == null) {
+            return conditionalGetSupport.collection(request, "items",
+                    resourceVersionService.itemsETag(), itemService::findAll);
+        }
+
+        ItemViewService.View view = badRequestOnInvalid(() -> ItemViewService.parse(fields, include));
+        String etag = view.stockSummary()
+                ? resourceVersionService.itemsWithStockSummaryETag(LocalDate.now(clock))
+                : resourceVersionService.itemsETag();
+        return conditionalGetSupport.collection(request, "items?" + view.cacheKey(), etag,
+                () -> itemViewService.findAll(view));
     }
 
-    // ID指定で取得
+    // ID指定で取得（ETag / Last-Modified による条件付きGET対応）
+    // fields / include は一覧と同じ。在庫サマリーを含める場合は在庫の更新日時が商品に反映されないため条件付きGETにしない
     @GetMapping("/{id}")
-    public ResponseEntity<Item> getItemById(@PathVariable Long id) {
-        Optional<Item> item = itemService.findById(id);
-        return item.map(ResponseEntity::ok)
-                  .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<?> getItemById(@PathVariable Long id,
+                                         @RequestParam(required = false) String fields,
+                                         @RequestParam(required = false) String include,
+                                         WebRequest request) {
+        if (fields == null && include == null) {
+            return conditionalGetSupport.detail(request, resourceVersionService.itemStamp(id),
+                    () -> itemService.findById(id));
+        }
+
+        ItemViewService.View view = badRequestOnInvalid(() -> ItemViewService.parse(fields, include));
+        if (view.stockSummary()) {
+            return ResponseEntity.of(itemViewService.findById(id, view));
+        }
+        return conditionalGetSupport.detail(request, resourceVersionService.itemStamp(id),
+                () -> itemViewService.findById(id, view));
     }
 
     // 新規作成
     @PostMapping
     public Item createItem(@RequestBody Item item) {
-        return itemService.save(item);
+        return badRequestOnInvalid(() -> itemService.save(item));
     }
 
     // 更新
     @PutMapping("/{id}")
     public Item updateItem(@PathVariable Long id, @RequestBody Item item) {
         item.setId(id); // PathVariableのIDを設定
-        return itemService.save(item);
+        return badRequestOnInvalid(() -> itemService.save(item));
     }
 
     // 削除
     @DeleteMapping("/{id}")
-    public void deleteItem(@PathVariable Long id) {
-        itemService.delete(id);
+    public DeletionResult deleteItem(@PathVariable Long id) {
+        return itemService.delete(id);
     }
 
     // ===== ビジネスロジックAPI =====
@@ -59,6 +109,22 @@ public class ItemController {
         return itemService.getItemsWithLowStock();
     }
 
+    // バーコード検索（レジで読み取ったコードから商品を引く）
+    @GetMapping("/barcode/{code}")
+    public ScannedItem getItemByBarcode(@PathVariable String code) {
+        ScannedItem item = badRequestOnInvalid(() -> itemBarcodeService.lookup(code));
+        if (!item.found()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "未登録のバーコードです: " + item.barcode());
+        }
+        return item;
+    }
+
+    // かご1つ分のバーコードをまとめて検索（本文はバーコードの配列、結果は同じ順序で未登録は itemId が null）
+    @PostMapping("/barcode/lookup")
+    public List<ScannedItem> lookupBarcodes(@RequestBody List<String> codes) {
+        return badRequestOnInvalid(() -> itemBarcodeService.lookupAll(codes));
+    }
+
     // カスタム検索機能
     @GetMapping("/category/{categoryId}")
     public List<Item> getItemsByCategoryId(@PathVariable Long categoryId) {
@@ -89,4 +155,12 @@ public class ItemController {
     public List<Item> getItemsByThreshold(@PathVariable int threshold) {
         return itemService.findByThresholdLessThan(threshold);
     }
+
+    private static <T> T badRequestOnInvalid(Supplier<T> action) {
+        try {
+            return action.get();
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
 }
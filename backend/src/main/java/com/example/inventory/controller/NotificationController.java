@@ -0,0 +1,25 @@
+package com.example.inventory.controller;
+
+import com.example.inventory.service.SseExpiryNotificationSink;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/notifications")
+public class NotificationController {
+
+    private final SseExpiryNotificationSink sseExpiryNotificationSink;
+
+    public NotificationController(SseExpiryNotificationSink sseExpiryNotificationSink) {
+        this.sseExpiryNotificationSink = sseExpiryNotificationSink;
+    }
+
+    // 期限の通知（Server-Sent Events、イベント名 expiry、接続後に時刻の来た通知から送る）
+    @GetMapping(value = "/expiry", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamExpiryNotifications() {
+        return sseExpiryNotificationSink.connect();
+    }
+}
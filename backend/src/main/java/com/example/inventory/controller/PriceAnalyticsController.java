@@ -0,0 +1,48 @@
+package com.example.inventory.controller;
+
+import com.example.inventory.dto.ItemPriceAnalytics;
+import com.example.inventory.dto.PriceSummary;
+import com.example.inventory.service.PriceAnalyticsService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+@RestController
+@RequestMapping("/price-analytics")
+public class PriceAnalyticsController {
+
+    private final PriceAnalyticsService priceAnalyticsService;
+
+    public PriceAnalyticsController(PriceAnalyticsService priceAnalyticsService) {
+        this.priceAnalyticsService = priceAnalyticsService;
+    }
+
+    // 複数商品の価格分析（本文は商品IDの配列、数百件をまとめて問い合わせる想定）
+    @PostMapping("/items")
+    public List<ItemPriceAnalytics> getAnalytics(@RequestBody List<Long> itemIds) {
+        return badRequestOnInvalid(() -> priceAnalyticsService.getAnalytics(itemIds));
+    }
+
+    // 複数商品の最安店舗（商品ID → 店舗別サマリー）
+    @PostMapping("/cheapest-stores")
+    public Map<Long, PriceSummary> getCheapestStores(@RequestBody List<Long> itemIds) {
+        return badRequestOnInvalid(() -> priceAnalyticsService.getCheapestStores(itemIds));
+    }
+
+    // 価格サマリーを購入履歴から作り直す（作成された行数を返す）
+    @PostMapping("/rebuild")
+    public int rebuild() {
+        return priceAnalyticsService.rebuildAll();
+    }
+
+    private static <T> T badRequestOnInvalid(Supplier<T> action) {
+        try {
+            return action.get();
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+}
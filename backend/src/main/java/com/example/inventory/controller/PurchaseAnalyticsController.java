@@ -0,0 +1,39 @@
+package com.example.inventory.controller;
+
+import com.example.inventory.dto.PurchaseGroupTotals;
+import com.example.inventory.service.PurchaseAnalyticsService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/purchase-analytics")
+public class PurchaseAnalyticsController {
+
+    private final PurchaseAnalyticsService purchaseAnalyticsService;
+
+    public PurchaseAnalyticsController(PurchaseAnalyticsService purchaseAnalyticsService) {
+        this.purchaseAnalyticsService = purchaseAnalyticsService;
+    }
+
+    // 期間（from〜to の日付、両端を含む）の購入の合計
+    // groupBy=none / item / category / store。itemId・categoryId・storeId で絞り込める
+    @GetMapping
+    public List<PurchaseGroupTotals> aggregate(@RequestParam LocalDate from,
+                                               @RequestParam LocalDate to,
+                                               @RequestParam(defaultValue = "category") String groupBy,
+                                               @RequestParam(required = false) Long itemId,
+                                               @RequestParam(required = false) Long categoryId,
+                                               @RequestParam(required = false) Long storeId) {
+        try {
+            return purchaseAnalyticsService.aggregate(from, to,
+                    PurchaseAnalyticsService.GroupBy.valueOf(groupBy.toUpperCase(Locale.ROOT)),
+                    itemId, categoryId, storeId);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+}
@@ -1,34 +1,50 @@
 package com.example.inventory.controller;
 
+import com.example.inventory.dto.ItemPurchaseHistory;
+import com.example.inventory.dto.PurchaseTotals;
 import com.example.inventory.entity.PurchaseHistory;
+import com.example.inventory.entity.PurchaseHistorySummary;
+import com.example.inventory.service.ResourceVersionService;
 import com.example.inventory.service.PurchaseHistoryService;
+import com.example.inventory.service.PurchaseTotalsService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
 
 @RestController
 @RequestMapping("/purchaseHistories")
 public class PurchaseHistoryController {
 
     private final PurchaseHistoryService purchaseHistoryService;
+    private final ResourceVersionService resourceVersionService;
+    private final ConditionalGetSupport conditionalGetSupport;
+    private final PurchaseTotalsService purchaseTotalsService;
 
-    public PurchaseHistoryController(PurchaseHistoryService purchaseHistoryService) {
+    public PurchaseHistoryController(PurchaseHistoryService purchaseHistoryService,
+                                     ResourceVersionService resourceVersionService,
+                                     ConditionalGetSupport conditionalGetSupport,
+                                     PurchaseTotalsService purchaseTotalsService) {
         this.purchaseHistoryService = purchaseHistoryService;
+        this.resourceVersionService = resourceVersionService;
+        this.conditionalGetSupport = conditionalGetSupport;
+        this.purchaseTotalsService = purchaseTotalsService;
     }
 
     @GetMapping
-    public List<PurchaseHistory> getAll() {
-        return purchaseHistoryService.findAll();
+    public ResponseEntity<byte[]> getAll(WebRequest request) {
+        return conditionalGetSupport.collection(request, "purchaseHistories",
+                resourceVersionService.purchaseHistoriesETag(), purchaseHistoryService::findAll);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<PurchaseHistory> getById(@PathVariable Long id) {
-        Optional<PurchaseHistory> purchaseHistory = purchaseHistoryService.findById(id);
-        return purchaseHistory.map(ResponseEntity::ok)
-                             .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<PurchaseHistory> getById(@PathVariable Long id, WebRequest request) {
+        return conditionalGetSupport.detail(request, resourceVersionService.purchaseHistoryStamp(id),
+                () -> purchaseHistoryService.findById(id));
     }
 
     @PostMapping
@@ -54,6 +70,23 @@ public class PurchaseHistoryController {
         return purchaseHistoryService.findByItemId(itemId);
     }
 
+    @GetMapping("/item/{itemId}/recent")
+    public List<PurchaseHistory> getRecentByItemId(@PathVariable Long itemId,
+                                                   @RequestParam(defaultValue = "90") int days) {
+        return purchaseHistoryService.findRecentByItemId(itemId, days);
+    }
+
+    // 明細 + 保持期間を過ぎた月次サマリー
+    @GetMapping("/item/{itemId}/full")
+    public ItemPurchaseHistory getFullHistory(@PathVariable Long itemId) {
+        return purchaseHistoryService.getFullHistory(itemId);
+    }
+
+    @GetMapping("/summaries")
+    public List<PurchaseHistorySummary> getSummaries(@RequestParam LocalDate from, @RequestParam LocalDate to) {
+        return purchaseHistoryService.findSummariesBetween(from, to);
+    }
+
     @GetMapping("/item/{itemId}/expiry-not-null")
     public List<PurchaseHistory> getByItemIdAndExpiryDateIsNotNull(@PathVariable Long itemId) {
         return purchaseHistoryService.findByItemIdAndExpiryDateIsNotNull(itemId);
@@ -66,6 +99,20 @@ public class PurchaseHistoryController {
         return purchaseHistoryService.findByPurchasedAtBetween(start, end);
     }
 
+    // 期間（from〜to の日付、両端を含む）の購入件数・数量・金額の合計
+    // itemId・categoryId のどちらかで絞り込む（未指定なら全商品）。保持期間内の明細が対象
+    @GetMapping("/totals")
+    public PurchaseTotals getTotals(@RequestParam LocalDate from,
+                                    @RequestParam LocalDate to,
+                                    @RequestParam(required = false) Long itemId,
+                                    @RequestParam(required = false) Long categoryId) {
+        try {
+            return purchaseTotalsService.getTotals(from, to, itemId, categoryId);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
     @GetMapping("/expired")
     public List<PurchaseHistory> getByExpiryDateBefore(@RequestParam LocalDate date) {
         return purchaseHistoryService.findByExpiryDateBefore(date);
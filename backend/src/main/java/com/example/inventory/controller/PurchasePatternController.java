@@ -0,0 +1,36 @@
+package com.example.inventory.controller;
+
+import com.example.inventory.dto.ExpectedPurchase;
+import com.example.inventory.entity.PurchasePattern;
+import com.example.inventory.service.PurchasePatternService;
+import org.springframework.web.bind.annotation.*;
+import java.util.List;
+
+@RestController
+@RequestMapping("/purchase-patterns")
+public class PurchasePatternController {
+
+    private final PurchasePatternService purchasePatternService;
+
+    public PurchasePatternController(PurchasePatternService purchasePatternService) {
+        this.purchasePatternService = purchasePatternService;
+    }
+
+    // 検出した購入周期（次回の購入予定日順）
+    @GetMapping
+    public List<PurchasePattern> getAll() {
+        return purchasePatternService.findAll();
+    }
+
+    // 今週買う見込みの商品（家族全体の買い物リスト用、予定日順）
+    @GetMapping("/this-week")
+    public List<ExpectedPurchase> getExpectedThisWeek() {
+        return purchasePatternService.getExpectedThisWeek();
+    }
+
+    // 全商品の購入周期を分析し直す（通常は定期ジョブが差分だけ分析する、分析した商品数を返す）
+    @PostMapping("/rebuild")
+    public int rebuild() {
+        return purchasePatternService.rebuild();
+    }
+}
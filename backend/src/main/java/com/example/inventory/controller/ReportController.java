@@ -0,0 +1,48 @@
+package com.example.inventory.controller;
+
+import com.example.inventory.service.AnnualReportService;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/reports")
+public class ReportController {
+
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
+    private final AnnualReportService annualReportService;
+
+    public ReportController(AnnualReportService annualReportService) {
+        this.annualReportService = annualReportService;
+    }
+
+    // 年間支出レポート（format=json または csv、集計が終わった月から順に送る）
+    @GetMapping("/annual/{year}")
+    public ResponseEntity<StreamingResponseBody> getAnnual(@PathVariable int year,
+                                                           @RequestParam(defaultValue = "json") String format) {
+        AnnualReportService.Format reportFormat;
+        try {
+            reportFormat = AnnualReportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+            annualReportService.validateYear(year);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+
+        String extension = reportFormat.name().toLowerCase(Locale.ROOT);
+        return ResponseEntity.ok()
+                .contentType(reportFormat == AnnualReportService.Format.CSV ? TEXT_CSV : MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("spending-" + year + "." + extension)
+                        .build()
+                        .toString())
+                .body(out -> annualReportService.write(year, reportFormat, out));
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.inventory.controller;
+
+import com.example.inventory.dto.SnapshotCounts;
+import com.example.inventory.service.SnapshotService;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+@RestController
+@RequestMapping("/snapshot")
+public class SnapshotController {
+
+    private final SnapshotService snapshotService;
+
+    public SnapshotController(SnapshotService snapshotService) {
+        this.snapshotService = snapshotService;
+    }
+
+    // 全データのスナップショット（一時ファイルに書き出してから送る）
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> export() throws IOException {
+        Path file = Files.createTempFile("household-snapshot", ".bin");
+        try {
+            snapshotService.export(file);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(Files.size(file))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("household-snapshot.bin")
+                        .build()
+                        .toString())
+                .body(out -> {
+                    try {
+                        Files.copy(file, out);
+                    } finally {
+                        Files.deleteIfExists(file);
+                    }
+                });
+    }
+
+    // スナップショットからの復元（データが登録されていない DB のみ）
+    @PostMapping(consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public SnapshotCounts restore(InputStream body) throws IOException {
+        Path file = Files.createTempFile("household-snapshot", ".bin");
+        try {
+            Files.copy(body, file, StandardCopyOption.REPLACE_EXISTING);
+            return snapshotService.restore(file);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage(), e);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -1,10 +1,20 @@
 package com.example.inventory.controller;
 
+import com.example.inventory.dto.StockCompactionResult;
+import com.example.inventory.dto.StockPatch;
+import com.example.inventory.dto.StockPatchResult;
+import com.example.inventory.dto.UseFirstStock;
 import com.example.inventory.entity.Stock;
+import com.example.inventory.service.ResourceVersionService;
+import com.example.inventory.service.StockAlertService;
+import com.example.inventory.service.StockCompactionService;
 import com.example.inventory.service.StockService;
+import com.example.inventory.service.StockWriteBehindService;
+import com.example.inventory.service.UseFirstRankingService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 import java.time.LocalDate;
 import java.util.List;
@@ -15,21 +25,45 @@ import java.util.Optional;
 public class StockController {
 
     private final StockService stockService;
-
-    public StockController(StockService stockService) {
+    private final StockAlertService stockAlertService;
+    private final StockCompactionService stockCompactionService;
+    private final UseFirstRankingService useFirstRankingService;
+    private final StockWriteBehindService stockWriteBehindService;
+    private final ResourceVersionService resourceVersionService;
+    private final ConditionalGetSupport conditionalGetSupport;
+
+    public StockController(StockService stockService,
+                           StockAlertService stockAlertService,
+                           StockCompactionService stockCompactionService,
+                           UseFirstRankingService useFirstRankingService,
+                           StockWriteBehindService stockWriteBehindService,
+                           ResourceVersionService resourceVersionService,
+                           ConditionalGetSupport conditionalGetSupport) {
         this.stockService = stockService;
+        this.stockAlertService = stockAlertService;
+        this.stockCompactionService = stockCompactionService;
+        this.useFirstRankingService = useFirstRankingService;
+        this.stockWriteBehindService = stockWriteBehindService;
+        this.resourceVersionService = resourceVersionService;
+        this.conditionalGetSupport = conditionalGetSupport;
     }
 
     @GetMapping
-    public List<Stock> getAll() {
-        return stockService.findAll();
+    public ResponseEntity<byte[]> getAll(WebRequest request) {
+        return conditionalGetSupport.collection(request, "stocks",
+                resourceVersionService.stocksETag(), stockService::findAll);
+    }
+
+    // 在庫状況での絞り込み（GET /stocks?status=EXPIRING、期限の早い順）
+    @GetMapping(params = "status")
+    public List<Stock> getByStatus(@RequestParam StockService.StockStatus status) {
+        return stockService.findByStatus(status);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Stock> getById(@PathVariable Long id) {
-        Optional<Stock> stock = stockService.findById(id);
-        return stock.map(ResponseEntity::ok)
-                   .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<Stock> getById(@PathVariable Long id, WebRequest request) {
+        return conditionalGetSupport.detail(request, resourceVersionService.stockStamp(id),
+                () -> stockService.findById(id));
     }
 
     @PostMapping
@@ -43,6 +77,25 @@ public class StockController {
         return stockService.save(stock);
     }
 
+    // 一括部分更新（在庫数の増減・期限のみを送る、1トランザクションで適用）
+    @PatchMapping
+    public List<StockPatchResult> patchAll(@RequestBody List<StockPatch> patches) {
+        return stockService.patchAll(patches);
+    }
+
+    // 在庫数の増減（画面のタップ用、POST /stocks/{id}/adjust?delta=-1）
+    // まとめて書き込む設定では受け付けた時点で 202 を返す（反映は inventory.stock.write-behind.max-latency-ms 以内）
+    @PostMapping("/{id}/adjust")
+    public ResponseEntity<StockPatchResult> adjust(@PathVariable Long id, @RequestParam int delta) {
+        try {
+            return stockWriteBehindService.adjust(id, delta)
+                    .map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.accepted().build());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
     @DeleteMapping("/{id}")
     public void delete(@PathVariable Long id) {
         stockService.delete(id);
@@ -50,10 +103,10 @@ public class StockController {
 
     // ===== ビジネスロジックAPI =====
 
-    // 在庫アラート機能
+    // 在庫アラート機能（同時リクエストは1回の計算にまとめる）
     @GetMapping("/alerts/low-stock")
     public List<Stock> getLowStockAlerts() {
-        return stockService.getLowStockAlerts();
+        return stockAlertService.getLowStockAlerts();
     }
 
     @GetMapping("/alerts/low-stock/{itemId}")
@@ -64,12 +117,24 @@ public class StockController {
     // 期限切れチェック機能
     @GetMapping("/alerts/expiring")
     public List<Stock> getExpiringStocks(@RequestParam(defaultValue = "3") int daysAhead) {
-        return stockService.getExpiringStocks(daysAhead);
+        return stockAlertService.getExpiringStocks(daysAhead);
     }
 
     @GetMapping("/alerts/expired")
     public List<Stock> getExpiredStocks() {
-        return stockService.getExpiredStocks();
+        return stockAlertService.getExpiredStocks();
+    }
+
+    // 先に使うべき在庫（期限・残数・消費ペースから計算した上位N件、ホーム画面用）
+    @GetMapping("/use-first")
+    public List<UseFirstStock> getUseFirst(@RequestParam(defaultValue = "10") int limit) {
+        return useFirstRankingService.getTop(limit);
+    }
+
+    // 在庫コンパクション（通常はスケジュール実行、手動実行用）
+    @PostMapping("/compaction")
+    public StockCompactionResult compact() {
+        return stockCompactionService.compact();
     }
 
     // 在庫状況判定
@@ -77,7 +142,7 @@ public class StockController {
     public ResponseEntity<StockService.StockStatus> getStockStatus(@PathVariable Long id) {
         Optional<Stock> stock = stockService.findById(id);
         if (stock.isPresent()) {
-            StockService.StockStatus status = stockService.getStockStatus(stock.get());
+            StockService.StockStatus status = stockService.getStatus(stock.get());
             return ResponseEntity.ok(status);
         }
         return ResponseEntity.notFound().build();
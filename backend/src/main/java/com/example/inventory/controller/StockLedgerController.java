@@ -0,0 +1,50 @@
+package com.example.inventory.controller;
+
+import com.example.inventory.dto.StockMovementRequest;
+import com.example.inventory.entity.StockMovement;
+import com.example.inventory.service.StockLedgerService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/stock-ledger")
+public class StockLedgerController {
+
+    private final StockLedgerService stockLedgerService;
+
+    public StockLedgerController(StockLedgerService stockLedgerService) {
+        this.stockLedgerService = stockLedgerService;
+    }
+
+    // 増減の追記（在庫数がマイナスになる増減は 400。在庫一覧の quantity には次回のスナップショットで反映される）
+    @PostMapping("/movements")
+    public List<StockMovement> append(@RequestBody List<StockMovementRequest> requests) {
+        try {
+            return stockLedgerService.append(requests);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    // ロットの増減履歴（新しい順）
+    @GetMapping("/stocks/{stockId}/movements")
+    public List<StockMovement> getMovements(@PathVariable Long stockId,
+                                            @RequestParam(defaultValue = "100") int limit) {
+        return stockLedgerService.findMovements(stockId, limit);
+    }
+
+    // 履歴から計算した現在の在庫数（本文はロットIDの配列）
+    @PostMapping("/quantities")
+    public Map<Long, Integer> getQuantities(@RequestBody List<Long> stockIds) {
+        return stockLedgerService.getQuantities(stockIds);
+    }
+
+    // スナップショットを破棄して在庫数を履歴から作り直す（処理した商品数を返す）
+    @PostMapping("/rebuild")
+    public int rebuild() {
+        return stockLedgerService.rebuild();
+    }
+}
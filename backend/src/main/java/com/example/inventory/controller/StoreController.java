@@ -1,9 +1,11 @@
 package com.example.inventory.controller;
 
 import com.example.inventory.entity.Store;
+import com.example.inventory.service.ResourceVersionService;
 import com.example.inventory.service.StoreService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,21 +14,27 @@ import java.util.Optional;
 public class StoreController {
 
     private final StoreService storeService;
+    private final ResourceVersionService resourceVersionService;
+    private final ConditionalGetSupport conditionalGetSupport;
 
-    public StoreController(StoreService storeService) {
+    public StoreController(StoreService storeService,
+                           ResourceVersionService resourceVersionService,
+                           ConditionalGetSupport conditionalGetSupport) {
         this.storeService = storeService;
+        this.resourceVersionService = resourceVersionService;
+        this.conditionalGetSupport = conditionalGetSupport;
     }
 
     @GetMapping
-    public List<Store> getAll() {
-        return storeService.findAll();
+    public ResponseEntity<byte[]> getAll(WebRequest request) {
+        return conditionalGetSupport.collection(request, "stores",
+                resourceVersionService.storesETag(), storeService::findAll);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Store> getById(@PathVariable Long id) {
-        Optional<Store> store = storeService.findById(id);
-        return store.map(ResponseEntity::ok)
-                   .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<Store> getById(@PathVariable Long id, WebRequest request) {
+        return conditionalGetSupport.detail(request, resourceVersionService.storeStamp(id),
+                () -> storeService.findById(id));
     }
 
     @PostMapping
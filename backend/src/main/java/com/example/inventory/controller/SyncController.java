@@ -0,0 +1,34 @@
+package com.example.inventory.controller;
+
+import com.example.inventory.config.DataSourceRouting;
+import com.example.inventory.dto.SyncPage;
+import com.example.inventory.service.SyncService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/sync")
+public class SyncController {
+
+    private final SyncService syncService;
+
+    public SyncController(SyncService syncService) {
+        this.syncService = syncService;
+    }
+
+    // 差分同期
+    // 初回: since を指定（省略時は全件）、2ページ目以降: 前回レスポンスの cursor を指定
+    // ウォーターマーク以前の変更を取りこぼさないよう、レプリカではなくプライマリから読む
+    @GetMapping
+    public SyncPage getChanges(@RequestParam(required = false) LocalDateTime since,
+                               @RequestParam(required = false) String cursor,
+                               @RequestParam(defaultValue = "500") int limit) {
+        try {
+            return DataSourceRouting.onPrimary(() -> syncService.getChanges(since, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+}
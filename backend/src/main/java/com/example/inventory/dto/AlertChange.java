@@ -0,0 +1,19 @@
+package com.example.inventory.dto;
+
+import com.example.inventory.service.StockService;
+
+// アラートの発生・解消（1件分）
+// target=STOCK は在庫（id は在庫ID、status は LOW_STOCK / EXPIRING / EXPIRED）、
+// target=ITEM は商品（id は商品ID、status は LOW_STOCK）。状況が変わった場合は解消と発生の2件になる
+public record AlertChange(Target target, Long id, Long itemId, StockService.StockStatus status, Action action) {
+
+    public enum Target {
+        STOCK,
+        ITEM
+    }
+
+    public enum Action {
+        RAISED,   // 発生
+        CLEARED   // 解消
+    }
+}
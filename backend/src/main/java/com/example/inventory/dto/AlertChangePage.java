@@ -0,0 +1,10 @@
+package com.example.inventory.dto;
+
+import java.util.List;
+
+// アラートの差分APIのレスポンス
+// reset が false なら changes は前回の token 以降の発生・解消（発生順）、
+// true なら changes は現在のアラートすべて（RAISED のみ）で、手元のアラートを置き換える
+// token は次回の since として保存する
+public record AlertChangePage(String token, boolean reset, List<AlertChange> changes) {
+}
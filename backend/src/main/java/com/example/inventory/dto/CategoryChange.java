@@ -0,0 +1,7 @@
+package com.example.inventory.dto;
+
+import java.time.LocalDateTime;
+
+// 差分同期用のカテゴリ（関連は含めない）
+public record CategoryChange(Long id, String name, Long parentId, LocalDateTime updatedAt) implements SyncChange {
+}
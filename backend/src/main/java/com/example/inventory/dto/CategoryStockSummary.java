@@ -0,0 +1,9 @@
+package com.example.inventory.dto;
+
+import java.time.LocalDate;
+
+// カテゴリ配下（子孫のカテゴリを含む）の在庫サマリー
+// ロット数・合計・期限は在庫のある（数量 > 0）ロットのみ、在庫状況ごとの数は stocks.status で数える
+public record CategoryStockSummary(long itemCount, long lotCount, long totalQuantity, LocalDate earliestExpiry,
+                                   long lowStockLots, long expiringLots, long expiredLots) {
+}
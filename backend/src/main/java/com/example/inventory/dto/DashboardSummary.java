@@ -0,0 +1,28 @@
+package com.example.inventory.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// ホーム画面のダッシュボード（有効な在庫ロットを在庫状況ごとに数えたもの、カテゴリ別と全体）
+// 在庫状況の判定は StockService.getStockStatus と同じ（期限切れ → 期限近 → 在庫少 → 正常の順）
+public record DashboardSummary(LocalDate date, Counts total, List<CategoryCounts> categories, LocalDateTime computedAt) {
+
+    public record Counts(long normal, long lowStock, long expiring, long expired) {
+
+        public static final Counts ZERO = new Counts(0, 0, 0, 0);
+
+        public long total() {
+            return normal + lowStock + expiring + expired;
+        }
+
+        public Counts plus(Counts other) {
+            return new Counts(normal + other.normal, lowStock + other.lowStock,
+                    expiring + other.expiring, expired + other.expired);
+        }
+    }
+
+    // categoryId が null の行はカテゴリ未設定の商品
+    public record CategoryCounts(Long categoryId, Counts counts) {
+    }
+}
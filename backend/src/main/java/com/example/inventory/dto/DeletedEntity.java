@@ -0,0 +1,15 @@
+package com.example.inventory.dto;
+
+import com.example.inventory.entity.Tombstone;
+import java.time.LocalDateTime;
+
+// 差分同期用の削除記録
+public record DeletedEntity(Long id, Tombstone.EntityType entityType, Long entityId,
+                            LocalDateTime deletedAt) implements SyncChange {
+
+    // ページングのキーとしては削除日時を使う（JSONには出力されない）
+    @Override
+    public LocalDateTime updatedAt() {
+        return deletedAt;
+    }
+}
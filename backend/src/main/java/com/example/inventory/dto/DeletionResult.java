@@ -0,0 +1,5 @@
+package com.example.inventory.dto;
+
+// カスケード削除の結果（テーブルごとの削除件数）
+public record DeletionResult(int categories, int items, int stocks, int purchaseHistories) {
+}
@@ -0,0 +1,9 @@
+package com.example.inventory.dto;
+
+import java.time.LocalDate;
+
+// 購入予定（購入周期から見て、今週買う見込みの商品）
+// nextExpectedOn が今日より前なら、予定日を過ぎてまだ買っていない
+public record ExpectedPurchase(Long itemId, String itemName, Long categoryId, LocalDate lastPurchasedOn,
+                               LocalDate nextExpectedOn, double meanIntervalDays, double intervalStdDevDays) {
+}
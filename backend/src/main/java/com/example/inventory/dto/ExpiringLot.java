@@ -0,0 +1,7 @@
+package com.example.inventory.dto;
+
+import java.time.LocalDate;
+
+// 使い切り優先ランキング・期限の通知の対象（期限があり在庫の残っているロット、エンティティはロードしない）
+public record ExpiringLot(Long stockId, Long itemId, String itemName, int quantity, LocalDate expiryDate) {
+}
@@ -0,0 +1,9 @@
+package com.example.inventory.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// 期限の通知（daysBefore 日前になったロット、0 は期限当日）
+public record ExpiryNotification(Long stockId, Long itemId, String itemName, int quantity,
+                                 LocalDate expiryDate, int daysBefore, LocalDateTime dueAt) {
+}
@@ -0,0 +1,8 @@
+package com.example.inventory.dto;
+
+import java.time.LocalDateTime;
+
+// 差分同期用の商品（category / store はIDのみ）
+public record ItemChange(Long id, String name, String note, String barcode, Long categoryId, Long storeId,
+                         int threshold, boolean hasExpiry, LocalDateTime updatedAt) implements SyncChange {
+}
@@ -0,0 +1,9 @@
+package com.example.inventory.dto;
+
+import java.util.List;
+
+// 商品ごとの価格分析（商品全体 + 店舗別、最安店舗）
+// 価格が記録された購入がない商品は overall が null、stores が空になる
+public record ItemPriceAnalytics(Long itemId, PriceSummary overall, List<PriceSummary> stores,
+                                 Long cheapestStoreId) {
+}
@@ -0,0 +1,11 @@
+package com.example.inventory.dto;
+
+import com.example.inventory.entity.PurchaseHistory;
+import com.example.inventory.entity.PurchaseHistorySummary;
+import java.util.List;
+
+// 商品の全購入履歴（保持期間内の明細 + 保持期間を過ぎた月次サマリー）
+public record ItemPurchaseHistory(Long itemId,
+                                  List<PurchaseHistory> recent,
+                                  List<PurchaseHistorySummary> summarized) {
+}
@@ -0,0 +1,8 @@
+package com.example.inventory.dto;
+
+import com.example.inventory.service.StockService;
+import java.time.LocalDate;
+
+// 商品の在庫サマリー（在庫のあるロットの合計・最も早い期限・最も悪いロットの在庫状況）
+public record ItemStockSummary(long totalQuantity, LocalDate earliestExpiry, StockService.StockStatus status) {
+}
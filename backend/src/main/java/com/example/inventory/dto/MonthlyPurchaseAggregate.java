@@ -0,0 +1,6 @@
+package com.example.inventory.dto;
+
+// 購入履歴の商品別集計（月次サマリー作成用）
+public record MonthlyPurchaseAggregate(Long itemId, Long purchaseCount, Long totalQuantity,
+                                       Long totalPrice, Long pricedQuantity) {
+}
@@ -0,0 +1,14 @@
+package com.example.inventory.dto;
+
+import java.time.LocalDateTime;
+
+// 単価サマリー（storeId が null なら商品全体）
+public record PriceSummary(Long storeId, long purchaseCount, double minUnitPrice, double lastUnitPrice,
+                           LocalDateTime lastPurchasedAt, double movingAverage, Trend trend) {
+
+    public enum Trend {
+        UP,    // 値上がり傾向
+        DOWN,  // 値下がり傾向
+        FLAT   // 横ばい
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.inventory.dto;
+
+// 購入の集計（グループごと）。id は集計単位の商品ID・カテゴリID・店舗ID（全体、または未設定なら null）
+// totalPrice は金額が記録された購入だけの合計、pricedQuantity はその数量（平均単価 = totalPrice / pricedQuantity）
+public record PurchaseGroupTotals(Long id, long purchaseCount, long totalQuantity, long totalPrice, long pricedQuantity) {
+}
@@ -0,0 +1,10 @@
+package com.example.inventory.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// 差分同期用の購入履歴（item / store はIDのみ）
+public record PurchaseHistoryChange(Long id, Long itemId, Long storeId, int quantity, Integer totalPrice,
+                                    LocalDateTime purchasedAt, LocalDate expiryDate,
+                                    LocalDateTime updatedAt) implements SyncChange {
+}
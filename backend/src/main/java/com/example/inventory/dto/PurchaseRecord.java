@@ -0,0 +1,17 @@
+package com.example.inventory.dto;
+
+import java.time.LocalDateTime;
+
+// 購入履歴の変更前後の比較用（関連はIDのみ、永続化コンテキストに載せずに取得する）
+public record PurchaseRecord(Long id, Long itemId, Long categoryId, Long storeId,
+                             int quantity, Integer totalPrice, LocalDateTime purchasedAt) {
+
+    // 単価を計算できる購入か（金額未入力・数量0は価格分析の対象外）
+    public boolean hasUnitPrice() {
+        return itemId != null && totalPrice != null && quantity > 0;
+    }
+
+    public double unitPrice() {
+        return (double) totalPrice / quantity;
+    }
+}
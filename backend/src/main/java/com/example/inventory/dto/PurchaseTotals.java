@@ -0,0 +1,13 @@
+package com.example.inventory.dto;
+
+import java.time.LocalDate;
+
+// 期間（from〜to、両端を含む）の購入合計。itemId / categoryId がどちらも null なら全商品
+public record PurchaseTotals(LocalDate from, LocalDate to, Long itemId, Long categoryId,
+                             long purchaseCount, long totalQuantity, long totalPrice) {
+
+    public static PurchaseTotals of(LocalDate from, LocalDate to, Long itemId, Long categoryId, SpendingTotals totals) {
+        return new PurchaseTotals(from, to, itemId, categoryId,
+                totals.purchaseCount(), totals.totalQuantity(), totals.totalPrice());
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.inventory.dto;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Objects;
+
+// 詳細APIの ETag / Last-Modified 計算用の更新日時
+// JSONに埋め込まれる関連エンティティ（category, store など）の更新日時も含めて最大値を採用する
+public record ResourceStamp(LocalDateTime updatedAt) {
+
+    public ResourceStamp(LocalDateTime a, LocalDateTime b) {
+        this(latest(a, b));
+    }
+
+    public ResourceStamp(LocalDateTime a, LocalDateTime b, LocalDateTime c) {
+        this(latest(a, b, c));
+    }
+
+    public ResourceStamp(LocalDateTime a, LocalDateTime b, LocalDateTime c, LocalDateTime d) {
+        this(latest(a, b, c, d));
+    }
+
+    public ResourceStamp(LocalDateTime a, LocalDateTime b, LocalDateTime c, LocalDateTime d, LocalDateTime e) {
+        this(latest(a, b, c, d, e));
+    }
+
+    private static LocalDateTime latest(LocalDateTime... values) {
+        return Arrays.stream(values)
+                .filter(Objects::nonNull)
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.inventory.dto;
+
+// バーコード読み取り結果（購入登録で使う項目のみ、未登録のバーコードは itemId が null）
+public record ScannedItem(String barcode, Long itemId, String name, Long categoryId, boolean hasExpiry) {
+
+    public static ScannedItem notFound(String barcode) {
+        return new ScannedItem(barcode, null, null, null, false);
+    }
+
+    public boolean found() {
+        return itemId != null;
+    }
+}
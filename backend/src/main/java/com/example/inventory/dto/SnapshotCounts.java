@@ -0,0 +1,19 @@
+package com.example.inventory.dto;
+
+import com.example.inventory.repository.SnapshotRepository.Table;
+import java.util.Map;
+
+// スナップショットの書き出し・復元の結果（テーブルごとの行数）
+public record SnapshotCounts(long categories, long stores, long items, long stocks,
+                             long purchaseHistories, long purchaseHistorySummaries) {
+
+    public static SnapshotCounts of(Map<Table, Long> counts) {
+        return new SnapshotCounts(
+                counts.getOrDefault(Table.CATEGORIES, 0L),
+                counts.getOrDefault(Table.STORES, 0L),
+                counts.getOrDefault(Table.ITEMS, 0L),
+                counts.getOrDefault(Table.STOCKS, 0L),
+                counts.getOrDefault(Table.PURCHASE_HISTORIES, 0L),
+                counts.getOrDefault(Table.PURCHASE_HISTORY_SUMMARIES, 0L));
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.inventory.dto;
+
+// 支出の集計値（購入件数・数量・金額）。年間支出レポートの行・月計・年計で使う
+// 月次サマリーへ集約された月の購入件数は、集約前の明細の件数
+public record SpendingTotals(long purchaseCount, long totalQuantity, long totalPrice) {
+
+    public static final SpendingTotals ZERO = new SpendingTotals(0, 0, 0);
+
+    public SpendingTotals plus(SpendingTotals other) {
+        return new SpendingTotals(purchaseCount + other.purchaseCount, totalQuantity + other.totalQuantity,
+                totalPrice + other.totalPrice);
+    }
+}
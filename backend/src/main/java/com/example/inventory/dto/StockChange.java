@@ -0,0 +1,9 @@
+package com.example.inventory.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// 差分同期用の在庫（item はIDのみ）
+public record StockChange(Long id, Long itemId, int quantity, LocalDate expiryDate,
+                          LocalDateTime updatedAt) implements SyncChange {
+}
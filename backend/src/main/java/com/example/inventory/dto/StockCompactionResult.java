@@ -0,0 +1,5 @@
+package com.example.inventory.dto;
+
+// 在庫コンパクションの結果（アーカイブへ移動した件数）
+public record StockCompactionResult(int depleted, int expired, int merged) {
+}
@@ -0,0 +1,15 @@
+package com.example.inventory.dto;
+
+import com.example.inventory.entity.StockMovement;
+
+// 在庫の増減の追記リクエスト（1件分）
+// quantity は PURCHASE / CONSUME / DISCARD では正の数、ADJUST では符号付きの増減数
+public record StockMovementRequest(Long stockId, StockMovement.Type type, int quantity) {
+
+    public int signedDelta() {
+        return switch (type) {
+            case PURCHASE, ADJUST -> quantity;
+            case CONSUME, DISCARD -> -quantity;
+        };
+    }
+}
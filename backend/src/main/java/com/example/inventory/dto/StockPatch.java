@@ -0,0 +1,16 @@
+package com.example.inventory.dto;
+
+import java.time.LocalDate;
+
+// 在庫の一括部分更新（1行分）
+// quantityDelta: 在庫数の増減（null なら変更なし）、expiryDate: 新しい期限（null なら変更なし）
+public record StockPatch(Long id, Integer quantityDelta, LocalDate expiryDate) {
+
+    public int delta() {
+        return quantityDelta != null ? quantityDelta : 0;
+    }
+
+    public boolean hasChanges() {
+        return delta() != 0 || expiryDate != null;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.inventory.dto;
+
+import java.time.LocalDate;
+
+// 在庫の一括部分更新の結果（1行分）
+public record StockPatchResult(Long id, Status status, Integer quantity, LocalDate expiryDate) {
+
+    public enum Status {
+        UPDATED,    // 更新成功
+        NOT_FOUND,  // 該当する在庫なし
+        REJECTED    // 在庫数がマイナスになる、または変更内容なし
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.inventory.dto;
+
+import java.time.LocalDateTime;
+
+// 差分同期用の店舗（関連は含めない）
+public record StoreChange(Long id, String name, String location, LocalDateTime updatedAt) implements SyncChange {
+}
@@ -0,0 +1,11 @@
+package com.example.inventory.dto;
+
+import java.time.LocalDateTime;
+
+// 差分同期の1行（ページングのキー = 更新日時 + ID）
+public interface SyncChange {
+
+    Long id();
+
+    LocalDateTime updatedAt();
+}
@@ -0,0 +1,18 @@
+package com.example.inventory.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// 差分同期APIのレスポンス
+// hasMore が false になるまで cursor を渡して取得を続け、最後に watermark を次回の since として保存する
+public record SyncPage(
+        LocalDateTime watermark,
+        String cursor,
+        boolean hasMore,
+        List<CategoryChange> categories,
+        List<StoreChange> stores,
+        List<ItemChange> items,
+        List<StockChange> stocks,
+        List<PurchaseHistoryChange> purchaseHistories,
+        List<DeletedEntity> deleted) {
+}
@@ -0,0 +1,8 @@
+package com.example.inventory.dto;
+
+import java.time.LocalDateTime;
+
+// テーブル単位のバージョン情報（件数 + 最終更新日時）
+// 一覧APIの ETag 計算に使用する。削除は件数、追加・更新は最終更新日時の変化で検知できる
+public record TableVersion(Long count, LocalDateTime maxUpdatedAt) {
+}
@@ -0,0 +1,9 @@
+package com.example.inventory.dto;
+
+import java.time.LocalDate;
+
+// 「先に使うべき在庫」ランキングの1行
+// dailyConsumption は直近の消費ペース（個/日）、expectedLeftover は今のペースで期限までに使い切れない見込み数
+public record UseFirstStock(Long stockId, Long itemId, String itemName, int quantity, LocalDate expiryDate,
+                            long daysToExpiry, double dailyConsumption, double expectedLeftover, double score) {
+}
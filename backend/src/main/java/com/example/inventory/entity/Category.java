@@ -1,5 +1,6 @@
 package com.example.inventory.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
@@ -8,7 +9,10 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "categories")
+@Table(name = "categories", indexes = {
+        @Index(name = "idx_categories_updated_at", columnList = "updated_at"),  // 差分同期用
+        @Index(name = "idx_categories_parent_id", columnList = "parent_id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -25,6 +29,10 @@ public class Category {
     @Column(nullable = false, length = 100, unique = true)
     private String name;
 
+    // 親カテゴリ（null は最上位）。祖先・子孫の関係は category_closure に展開して持つ（CategoryTreeService が更新する）
+    @Column(name = "parent_id")
+    private Long parentId;
+
     @Column(nullable = false, updatable = false)
     @CreationTimestamp
     private LocalDateTime createdAt;
@@ -33,6 +41,9 @@ public class Category {
     @UpdateTimestamp
     private LocalDateTime updatedAt;
 
-    @OneToMany(mappedBy = "category", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    // 逆方向の関連はJSONに含めない（循環参照防止）
+    // 商品の削除は CategoryService が一括削除で行うため、カスケード・orphanRemoval は付けない
+    @JsonIgnore
+    @OneToMany(mappedBy = "category", fetch = FetchType.LAZY)
     private List<Item> items;
 }
@@ -0,0 +1,35 @@
+package com.example.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// カテゴリの祖先・子孫の組（閉包テーブル、CategoryTreeService がカテゴリの登録・移動・削除時に差分更新する）
+// 自分自身との組（depth = 0）も持つため、配下のカテゴリは ancestor_id の一致だけで引ける
+@Entity
+@Getter
+@Setter
+@Table(name = "category_closure",
+       uniqueConstraints = @UniqueConstraint(name = "uk_category_closure_ancestor_descendant",
+                                             columnNames = {"ancestor_id", "descendant_id"}),
+       indexes = @Index(name = "idx_category_closure_descendant_id", columnList = "descendant_id"))
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+@EqualsAndHashCode
+public class CategoryClosure {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "ancestor_id", nullable = false)
+    private Long ancestorId;
+
+    @Column(name = "descendant_id", nullable = false)
+    private Long descendantId;
+
+    // 祖先から何段下か（自分自身は 0、子は 1）
+    @Column(nullable = false)
+    private int depth;
+}
@@ -1,5 +1,6 @@
 package com.example.inventory.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
@@ -8,7 +9,11 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "items")
+@Table(name = "items", indexes = {
+        @Index(name = "idx_items_updated_at", columnList = "updated_at"),  // 差分同期用
+        @Index(name = "uk_items_barcode", columnList = "barcode", unique = true),  // バーコード検索用（未設定は重複可）
+        @Index(name = "idx_items_category_id", columnList = "category_id")  // カテゴリ配下の絞り込み用
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -27,6 +32,10 @@ public class Item {
 
     @Column(length = 500)  // 任意フィールド
     private String note;
+
+    @Column(length = 14)  // JAN/EAN（任意、数字のみで保存）
+    private String barcode;
+
     @ManyToOne
     @JoinColumn(name = "category_id")
     private Category category;
@@ -49,10 +58,14 @@ public class Item {
     @UpdateTimestamp
     private LocalDateTime updatedAt;
 
-    @OneToMany(mappedBy = "item", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    // 逆方向の関連はJSONに含めない（循環参照防止）
+    // 在庫・購入履歴の削除は ItemService が一括削除で行うため、カスケード・orphanRemoval は付けない
+    @JsonIgnore
+    @OneToMany(mappedBy = "item", fetch = FetchType.LAZY)
     private List<Stock> stocks;
 
-    @OneToMany(mappedBy = "item", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @JsonIgnore
+    @OneToMany(mappedBy = "item", fetch = FetchType.LAZY)
     private List<PurchaseHistory> purchaseHistories;
 }
 
@@ -0,0 +1,60 @@
+package com.example.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+import java.time.LocalDateTime;
+
+// 商品別・店舗別の単価サマリー（PriceAnalyticsService が購入履歴の登録時に差分更新する）
+// store_id が ALL_STORES（0）の行は店舗をまたいだ商品全体のサマリー
+// （NULL だと一意制約が効かず、同時登録で商品全体の行が重複するため番兵値を使う）
+@Entity
+@Getter
+@Setter
+@Table(name = "item_price_summaries",
+       uniqueConstraints = @UniqueConstraint(name = "uk_item_price_summaries_item_store",
+                                             columnNames = {"item_id", "store_id"}))
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+@EqualsAndHashCode
+public class ItemPriceSummary {
+
+    // 商品全体の行の store_id（店舗IDは1から採番されるため重ならない）
+    public static final Long ALL_STORES = 0L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // 商品・店舗削除時は各サービス側で削除する
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Column(name = "store_id", nullable = false)
+    private Long storeId;
+
+    @Column(nullable = false)
+    private long purchaseCount;
+
+    @Column(nullable = false)
+    private double minUnitPrice;
+
+    @Column(nullable = false)
+    private double lastUnitPrice;
+
+    @Column(nullable = false)
+    private LocalDateTime lastPurchasedAt;
+
+    // 単価の指数移動平均（短期・長期、傾向は両者の比較で判定する）
+    @Column(nullable = false)
+    private double movingAverage;
+
+    @Column(nullable = false)
+    private double baselineAverage;
+
+    @Column(nullable = false)
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+}
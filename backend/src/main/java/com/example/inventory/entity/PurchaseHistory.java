@@ -8,7 +8,11 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "purchase_histories")
+@Table(name = "purchase_histories", indexes = {
+        @Index(name = "idx_purchase_histories_updated_at", columnList = "updated_at"),  // 差分同期用
+        @Index(name = "idx_purchase_histories_item_id_purchased_at", columnList = "item_id, purchased_at"),
+        @Index(name = "idx_purchase_histories_purchased_at", columnList = "purchased_at")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -33,6 +37,11 @@ public class PurchaseHistory {
     @JoinColumn(name = "item_id")
     private Item item;
 
+    // 購入した店舗（未指定なら商品の店舗を使用、店舗別の価格分析用）
+    @ManyToOne
+    @JoinColumn(name = "store_id", nullable = true)
+    private Store store;
+
    
 
     @Column(nullable = false, updatable = false)
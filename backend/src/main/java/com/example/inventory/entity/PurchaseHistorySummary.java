@@ -0,0 +1,57 @@
+package com.example.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// 購入履歴の月次サマリー（商品 × 月）
+// 保持期間を過ぎた購入履歴はこのテーブルへ集約してから削除する（PurchaseHistoryRetentionService）
+@Entity
+@Getter
+@Setter
+@Table(name = "purchase_history_summaries",
+       uniqueConstraints = @UniqueConstraint(name = "uk_purchase_history_summaries_item_month",
+                                             columnNames = {"item_id", "summary_month"}))
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+@EqualsAndHashCode
+public class PurchaseHistorySummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // 商品削除時は ItemService 側で削除する
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    // 対象月（月初日）
+    @Column(name = "summary_month", nullable = false)
+    private LocalDate month;
+
+    @Column(nullable = false)
+    private long purchaseCount;
+
+    @Column(nullable = false)
+    private long totalQuantity;
+
+    // 金額が記録されていた購入の合計金額・合計個数（単価計算用）
+    @Column(nullable = false)
+    private long totalPrice;
+
+    @Column(nullable = false)
+    private long pricedQuantity;
+
+    @Column(nullable = false, updatable = false)
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+}
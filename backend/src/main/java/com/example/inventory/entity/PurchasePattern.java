@@ -0,0 +1,60 @@
+package com.example.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// 商品ごとの購入周期（PurchasePatternService が購入履歴から定期的に検出する）
+// 購入日が min-purchases 日に満たない商品の行は作らない
+@Entity
+@Getter
+@Setter
+@Table(name = "purchase_patterns",
+       uniqueConstraints = @UniqueConstraint(name = "uk_purchase_patterns_item", columnNames = "item_id"),
+       indexes = @Index(name = "idx_purchase_patterns_next_expected_on", columnList = "next_expected_on"))
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+@EqualsAndHashCode
+public class PurchasePattern {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // 商品・カテゴリ削除時は各サービス側で削除する
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    // 分析に使った購入日の数（同じ日の購入は1回と数える）
+    @Column(nullable = false)
+    private int purchaseCount;
+
+    // 購入間隔（日）の平均と標準偏差
+    @Column(nullable = false)
+    private double meanIntervalDays;
+
+    @Column(nullable = false)
+    private double intervalStdDevDays;
+
+    @Column(nullable = false)
+    private LocalDate lastPurchasedOn;
+
+    @Column(name = "next_expected_on", nullable = false)
+    private LocalDate nextExpectedOn;
+
+    // 間隔のばらつきが小さく、定期的に買っているとみなせる
+    @Column(nullable = false)
+    private boolean regular;
+
+    // どの時点までの購入履歴の更新を反映したか（NULL は購入履歴の更新・削除による再分析待ち）
+    @Column(name = "analyzed_through")
+    private LocalDateTime analyzedThrough;
+
+    @Column(nullable = false)
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+}
@@ -1,5 +1,6 @@
 package com.example.inventory.entity;
 
+import com.example.inventory.service.StockService;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
@@ -10,7 +11,12 @@ import java.time.LocalDateTime;
 @Entity
 @Getter
 @Setter
-@Table(name = "stocks")
+@Table(name = "stocks", indexes = {
+        @Index(name = "idx_stocks_updated_at", columnList = "updated_at"),  // 差分同期用
+        @Index(name = "idx_stocks_item_id_expiry_date", columnList = "item_id, expiry_date"),  // 同一ロット統合用
+        @Index(name = "idx_stocks_status_expiry_date", columnList = "status, expiry_date"),  // 在庫状況での絞り込み・日次更新用
+        @Index(name = "idx_stocks_expiry_date", columnList = "expiry_date")  // 期限の通知・使い切り優先ランキングの読み込み用
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
@@ -32,6 +38,11 @@ public class Stock {
     @JoinColumn(name = "item_id", nullable = false)
     private Item item;
 
+    // 在庫状況（StockStatusService が書き込み時と日付の切り替わりに更新する列、JPA からは書き込まない）
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, insertable = false, updatable = false)
+    private StockService.StockStatus status;
+
     @Column(nullable = false, updatable = false)
     @CreationTimestamp
     private LocalDateTime createdAt;
@@ -0,0 +1,61 @@
+package com.example.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// アーカイブ済み在庫（在庫0・期限切れから時間が経ったロット、統合で消えたロット）
+// stocks テーブルを小さく保つため、コンパクションジョブがここへ移動する
+@Entity
+@Getter
+@Setter
+@Table(name = "stock_archives", indexes = {
+        @Index(name = "idx_stock_archives_item_id", columnList = "item_id")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+@EqualsAndHashCode
+public class StockArchive {
+
+    // アーカイブ理由
+    public enum Reason {
+        DEPLETED,  // 在庫0
+        EXPIRED,   // 期限切れから一定期間経過
+        MERGED     // 同一商品・同一期限のロットに統合
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // 元の在庫ID（stocks からは削除済み）
+    @Column(name = "stock_id", nullable = false)
+    private Long stockId;
+
+    // 商品削除後も残せるよう外部キーにはしない
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Column(name = "expiry_date")
+    private LocalDate expiryDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Reason reason;
+
+    // 統合先の在庫ID（reason = MERGED の場合のみ）
+    @Column(name = "merged_into_stock_id")
+    private Long mergedIntoStockId;
+
+    @Column(name = "stock_created_at")
+    private LocalDateTime stockCreatedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,52 @@
+package com.example.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+// 在庫の増減履歴（追記のみ、更新・削除しない）
+// ロットの在庫数は「スナップショット + それ以降の増減の合計」で求められる（StockLedgerService）
+@Entity
+@Getter
+@Setter
+@Table(name = "stock_movements", indexes = {
+        @Index(name = "idx_stock_movements_item_id_id", columnList = "item_id, id"),    // 商品単位の再集計用
+        @Index(name = "idx_stock_movements_stock_id_id", columnList = "stock_id, id"),  // ロット単位の在庫数計算用
+        @Index(name = "idx_stock_movements_recorded_at", columnList = "recorded_at")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+@EqualsAndHashCode
+public class StockMovement {
+
+    public enum Type {
+        PURCHASE,  // 購入（ロット登録）
+        CONSUME,   // 消費
+        ADJUST,    // 棚卸し・手動修正・ロット統合
+        DISCARD    // 廃棄（期限切れ・ロット削除）
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // 商品・ロットは外部キーにしない（ロット削除後も履歴として残す、商品削除時は ItemService 側で削除する）
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Column(name = "stock_id", nullable = false)
+    private Long stockId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "movement_type", nullable = false, length = 20)
+    private Type type;
+
+    // 増減数（消費・廃棄はマイナス）
+    @Column(name = "quantity_delta", nullable = false)
+    private int quantityDelta;
+
+    @Column(name = "recorded_at", nullable = false)
+    private LocalDateTime recordedAt;
+}
@@ -0,0 +1,37 @@
+package com.example.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+// ロットごとの在庫数スナップショット（last_movement_id までの増減を集計済み）
+// 定期ジョブが上書きする。履歴から再構築できるため削除しても在庫数は失われない
+@Entity
+@Getter
+@Setter
+@Table(name = "stock_snapshots", indexes = {
+        @Index(name = "idx_stock_snapshots_item_id", columnList = "item_id")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+@EqualsAndHashCode
+public class StockSnapshot {
+
+    @Id
+    @Column(name = "stock_id")
+    private Long stockId;
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Column(name = "last_movement_id", nullable = false)
+    private long lastMovementId;
+
+    @Column(name = "snapshot_at", nullable = false)
+    private LocalDateTime snapshotAt;
+}
@@ -1,5 +1,6 @@
 package com.example.inventory.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
@@ -10,7 +11,9 @@ import java.util.List;
 @Entity
 @Getter
 @Setter
-@Table(name = "stores")
+@Table(name = "stores", indexes = {
+        @Index(name = "idx_stores_updated_at", columnList = "updated_at")  // 差分同期用
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
@@ -37,6 +40,8 @@ public class Store {
     @UpdateTimestamp
     private LocalDateTime updatedAt;
 
+    // 逆方向の関連はJSONに含めない（循環参照防止）
+    @JsonIgnore
     @OneToMany(mappedBy = "store", fetch = FetchType.LAZY)
     private List<Item> items;
 
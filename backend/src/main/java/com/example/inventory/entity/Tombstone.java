@@ -0,0 +1,43 @@
+package com.example.inventory.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+// 削除記録（差分同期で削除をクライアントへ伝えるためのもの）
+@Entity
+@Getter
+@Setter
+@Table(name = "tombstones", indexes = {
+        @Index(name = "idx_tombstones_deleted_at", columnList = "deleted_at")
+})
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString
+@EqualsAndHashCode
+public class Tombstone {
+
+    // 同期対象のエンティティ種別
+    public enum EntityType {
+        CATEGORY,
+        STORE,
+        ITEM,
+        STOCK,
+        PURCHASE_HISTORY
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private EntityType entityType;
+
+    @Column(nullable = false)
+    private Long entityId;
+
+    @Column(nullable = false)
+    private LocalDateTime deletedAt;
+}
@@ -0,0 +1,17 @@
+package com.example.inventory.event;
+
+import java.util.Collection;
+import java.util.Set;
+
+// 登録・更新・削除された商品（名前・バーコードなど商品自体の項目）
+// 書き込みと同じトランザクション内で発行し、受け取る側はコミット後に商品単位で読み直す
+public record ItemChangedEvent(Set<Long> itemIds) {
+
+    public static ItemChangedEvent of(Long itemId) {
+        return new ItemChangedEvent(Set.of(itemId));
+    }
+
+    public static ItemChangedEvent of(Collection<Long> itemIds) {
+        return new ItemChangedEvent(Set.copyOf(itemIds));
+    }
+}
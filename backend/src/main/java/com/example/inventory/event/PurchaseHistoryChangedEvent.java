@@ -0,0 +1,17 @@
+package com.example.inventory.event;
+
+import java.util.Collection;
+import java.util.Set;
+
+// 購入履歴が変わった商品（購入の登録・更新・削除、月次サマリーへの集約による明細の削除）
+// 書き込みと同じトランザクション内で発行し、受け取る側はコミット後に商品単位で読み直す
+public record PurchaseHistoryChangedEvent(Set<Long> itemIds) {
+
+    public static PurchaseHistoryChangedEvent of(Long itemId) {
+        return new PurchaseHistoryChangedEvent(Set.of(itemId));
+    }
+
+    public static PurchaseHistoryChangedEvent of(Collection<Long> itemIds) {
+        return new PurchaseHistoryChangedEvent(Set.copyOf(itemIds));
+    }
+}
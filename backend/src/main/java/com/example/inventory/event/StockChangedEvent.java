@@ -0,0 +1,17 @@
+package com.example.inventory.event;
+
+import java.util.Collection;
+import java.util.Set;
+
+// 在庫が変わった商品（在庫数・期限・ロットの追加削除、消費の記録）
+// 書き込みと同じトランザクション内で発行し、受け取る側はコミット後に商品単位で再計算する
+public record StockChangedEvent(Set<Long> itemIds) {
+
+    public static StockChangedEvent of(Long itemId) {
+        return new StockChangedEvent(Set.of(itemId));
+    }
+
+    public static StockChangedEvent of(Collection<Long> itemIds) {
+        return new StockChangedEvent(Set.copyOf(itemIds));
+    }
+}
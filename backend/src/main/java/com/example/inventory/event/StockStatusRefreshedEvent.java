@@ -0,0 +1,8 @@
+package com.example.inventory.event;
+
+import java.time.LocalDate;
+
+// 日付の切り替わり（起動時・日次）で StockStatusService が stocks.status を判定し直した後（コミット済み）
+// 保存済みの在庫状況を読んで結果を保持している側は、これを受けて読み直す
+public record StockStatusRefreshedEvent(LocalDate date, int updated) {
+}
@@ -0,0 +1,45 @@
+package com.example.inventory.repository;
+
+import com.example.inventory.service.StockService;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
+
+// アラート状態の追跡用の読み取り（AlertStateService が使う、エンティティはロードしない）
+// itemIds が null なら全商品
+@Repository
+public class AlertStateRepository {
+
+    // 在庫のあるロットのうち、保存済みの在庫状況（StockStatusService が判定した stocks.status）が正常以外のもの
+    private static final String STOCK_ALERTS =
+            "SELECT s.id, s.item_id, s.status FROM stocks s " +
+            "WHERE s.status IN ('LOW_STOCK', 'EXPIRING', 'EXPIRED') AND s.quantity > 0%s";
+
+    // 在庫少の商品（StockRepository.LOW_STOCK_CONDITION、在庫のあるロットがない商品は対象外）
+    // 期限近・期限切れのロットは在庫状況が在庫少にならないため、ロットの status からではなく同じ条件で判定する
+    private static final String ITEM_ALERTS =
+            "SELECT s.item_id FROM (SELECT DISTINCT item_id FROM stocks WHERE quantity > 0%s) s " +
+            "WHERE " + StockRepository.LOW_STOCK_CONDITION;
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public AlertStateRepository(NamedParameterJdbcTemplate namedJdbcTemplate) {
+        this.namedJdbcTemplate = namedJdbcTemplate;
+    }
+
+    public List<StockAlertRow> findStockAlerts(Collection<Long> itemIds) {
+        String sql = String.format(STOCK_ALERTS, itemIds != null ? " AND s.item_id IN (:itemIds)" : "");
+        return namedJdbcTemplate.query(sql, new MapSqlParameterSource("itemIds", itemIds), (rs, rowNum) -> new StockAlertRow(
+                rs.getLong(1), rs.getLong(2), StockService.StockStatus.valueOf(rs.getString(3))));
+    }
+
+    public List<Long> findLowStockItemIds(Collection<Long> itemIds) {
+        String sql = String.format(ITEM_ALERTS, itemIds != null ? " AND item_id IN (:itemIds)" : "");
+        return namedJdbcTemplate.queryForList(sql, new MapSqlParameterSource("itemIds", itemIds), Long.class);
+    }
+
+    public record StockAlertRow(Long stockId, Long itemId, StockService.StockStatus status) {
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.inventory.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.YearMonth;
+
+// 年間支出レポート用（1か月分の購入を1行ずつ読む、エンティティはロードしない）
+// PostgreSQL ではトランザクション内で実行すると fetch-size 行ずつカーソルで読むため、月の購入件数に関係なくメモリは一定
+@Repository
+public class AnnualReportRepository {
+
+    // 月の範囲で絞り込むため、パーティション化されていれば該当月のパーティションだけを読む
+    private static final String PURCHASES_SQL =
+            "SELECT i.category_id, p.store_id, p.quantity, p.total_price " +
+            "FROM purchase_histories p LEFT JOIN items i ON i.id = p.item_id " +
+            "WHERE p.purchased_at >= :from AND p.purchased_at < :to";
+
+    // 保持期間を過ぎて月次サマリーへ集約された月（店舗は記録されていない）
+    private static final String SUMMARIES_SQL =
+            "SELECT i.category_id, s.purchase_count, s.total_quantity, s.total_price " +
+            "FROM purchase_history_summaries s LEFT JOIN items i ON i.id = s.item_id " +
+            "WHERE s.summary_month = :month";
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public AnnualReportRepository(DataSource dataSource,
+                                  @Value("${inventory.report.fetch-size:1000}") int fetchSize) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    // 月の購入（明細と月次サマリー）を1行ずつ handler へ渡す
+    public void forEachPurchase(YearMonth month, PurchaseRowHandler handler) {
+        MapSqlParameterSource range = new MapSqlParameterSource()
+                .addValue("from", month.atDay(1).atStartOfDay())
+                .addValue("to", month.plusMonths(1).atDay(1).atStartOfDay());
+        namedJdbcTemplate.query(PURCHASES_SQL, range, rs -> {
+            handler.accept(getLong(rs, 1), getLong(rs, 2), 1, rs.getLong(3), rs.getLong(4));
+        });
+        namedJdbcTemplate.query(SUMMARIES_SQL, new MapSqlParameterSource("month", month.atDay(1)), rs -> {
+            handler.accept(getLong(rs, 1), null, rs.getLong(2), rs.getLong(3), rs.getLong(4));
+        });
+    }
+
+    private static Long getLong(ResultSet rs, int column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    // 金額が記録されていない購入の totalPrice は 0
+    @FunctionalInterface
+    public interface PurchaseRowHandler {
+        void accept(Long categoryId, Long storeId, long purchaseCount, long quantity, long totalPrice);
+    }
+}
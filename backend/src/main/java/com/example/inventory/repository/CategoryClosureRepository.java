@@ -0,0 +1,71 @@
+package com.example.inventory.repository;
+
+import com.example.inventory.entity.CategoryClosure;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.Optional;
+
+// カテゴリの閉包テーブル（更新は CategoryTreeService から、カテゴリの更新と同じトランザクションで行う）
+@Repository
+public interface CategoryClosureRepository extends JpaRepository<CategoryClosure, Long> {
+
+  @Query("SELECT cc.ancestorId FROM CategoryClosure cc WHERE cc.descendantId = :id AND cc.depth = 1")
+  Optional<Long> findParentId(@Param("id") Long id);
+
+  // descendantId が ancestorId 自身かその配下か
+  boolean existsByAncestorIdAndDescendantId(Long ancestorId, Long descendantId);
+
+  // 閉包テーブルに登録済みのカテゴリ数（自分自身との組の数）
+  long countByDepth(int depth);
+
+  // ===== 登録 =====
+
+  @Modifying
+  @Query(value = "INSERT INTO category_closure (ancestor_id, descendant_id, depth) VALUES (:id, :id, 0)", nativeQuery = true)
+  int insertSelf(@Param("id") Long id);
+
+  // 親の祖先（親自身を含む）すべての下に追加する
+  @Modifying
+  @Query(value = "INSERT INTO category_closure (ancestor_id, descendant_id, depth) " +
+                 "SELECT ancestor_id, :id, depth + 1 FROM category_closure WHERE descendant_id = :parentId", nativeQuery = true)
+  int insertUnder(@Param("id") Long id, @Param("parentId") Long parentId);
+
+  // ===== 移動（配下ごと） =====
+
+  // 配下（自分自身を含む）と、その外側の祖先との組を削除する（配下の中の組は残す）
+  @Modifying
+  @Query(value = "DELETE FROM category_closure WHERE descendant_id IN " +
+                 "(SELECT descendant_id FROM category_closure WHERE ancestor_id = :id) " +
+                 "AND ancestor_id NOT IN (SELECT descendant_id FROM category_closure WHERE ancestor_id = :id)", nativeQuery = true)
+  int detachSubtree(@Param("id") Long id);
+
+  // 新しい親の祖先（親自身を含む）と配下のすべての組を追加する
+  @Modifying
+  @Query(value = "INSERT INTO category_closure (ancestor_id, descendant_id, depth) " +
+                 "SELECT p.ancestor_id, s.descendant_id, p.depth + s.depth + 1 " +
+                 "FROM category_closure p CROSS JOIN category_closure s " +
+                 "WHERE p.descendant_id = :parentId AND s.ancestor_id = :id", nativeQuery = true)
+  int attachSubtree(@Param("id") Long id, @Param("parentId") Long parentId);
+
+  // ===== 削除（子は削除するカテゴリの親へ繰り上げる） =====
+
+  // 削除するカテゴリを経由する組（外側の祖先 → 配下）を1段短くする
+  @Modifying
+  @Query(value = "UPDATE category_closure SET depth = depth - 1 WHERE ancestor_id IN " +
+                 "(SELECT ancestor_id FROM category_closure WHERE descendant_id = :id AND ancestor_id <> :id) " +
+                 "AND descendant_id IN " +
+                 "(SELECT descendant_id FROM category_closure WHERE ancestor_id = :id AND descendant_id <> :id)", nativeQuery = true)
+  int shortenPathsThrough(@Param("id") Long id);
+
+  @Modifying
+  @Query("DELETE FROM CategoryClosure cc WHERE cc.ancestorId = :id OR cc.descendantId = :id")
+  int deleteByCategoryId(@Param("id") Long id);
+
+  // 作り直し用
+  @Modifying
+  @Query("DELETE FROM CategoryClosure cc")
+  int deleteAllRows();
+}
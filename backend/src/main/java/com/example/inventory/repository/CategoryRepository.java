@@ -1,9 +1,17 @@
 // CategoryRepository.java
 package com.example.inventory.repository;
 
+import com.example.inventory.dto.CategoryChange;
+import com.example.inventory.dto.ResourceStamp;
+import com.example.inventory.dto.TableVersion;
 import com.example.inventory.entity.Category;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,4 +23,40 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
   boolean existsByName(String name);
   // 名前部分一致検索
   List<Category> findByNameContainingIgnoreCase(String name);
+
+  // 一括削除（商品を先に削除してから実行する、実行後に永続化コンテキストをクリアする）
+  @Modifying(clearAutomatically = true)
+  @Query("DELETE FROM Category c WHERE c.id = :id")
+  int deleteCategoryById(@Param("id") Long id);
+
+  // ===== 階層 =====
+
+  // 配下のカテゴリ（自分自身は含めない、浅い順・名前順）
+  @Query("SELECT c FROM Category c JOIN CategoryClosure cc ON cc.descendantId = c.id " +
+         "WHERE cc.ancestorId = :id AND cc.depth > 0 ORDER BY cc.depth, c.name")
+  List<Category> findDescendants(@Param("id") Long id);
+
+  // 閉包テーブルの作り直し用（[id, parentId]）
+  @Query("SELECT c.id, c.parentId FROM Category c")
+  List<Object[]> findParentIds();
+
+  // カテゴリ削除時に子を繰り上げる（差分同期で検知できるよう updated_at も更新する）
+  @Modifying(flushAutomatically = true)
+  @Query("UPDATE Category c SET c.parentId = :parentId, c.updatedAt = :now WHERE c.parentId = :id")
+  int reparentChildren(@Param("id") Long id, @Param("parentId") Long parentId, @Param("now") LocalDateTime now);
+
+  // 条件付きGET用（一覧の件数・最終更新日時）
+  @Query("SELECT new com.example.inventory.dto.TableVersion(COUNT(c), MAX(c.updatedAt)) FROM Category c")
+  TableVersion getTableVersion();
+
+  // 条件付きGET用（詳細の更新日時のみ取得、エンティティはロードしない）
+  @Query("SELECT new com.example.inventory.dto.ResourceStamp(c.updatedAt) FROM Category c WHERE c.id = :id")
+  Optional<ResourceStamp> findStampById(@Param("id") Long id);
+
+  // 差分同期（更新日時 + ID のキーセットページング）
+  @Query("SELECT new com.example.inventory.dto.CategoryChange(c.id, c.name, c.parentId, c.updatedAt) FROM Category c " +
+         "WHERE (c.updatedAt > :afterTs OR (c.updatedAt = :afterTs AND c.id > :afterId)) AND c.updatedAt <= :until " +
+         "ORDER BY c.updatedAt, c.id")
+  List<CategoryChange> findChangesAfter(@Param("afterTs") LocalDateTime afterTs, @Param("afterId") Long afterId,
+                                        @Param("until") LocalDateTime until, Pageable pageable);
 }
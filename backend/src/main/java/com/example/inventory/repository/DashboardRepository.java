@@ -0,0 +1,38 @@
+// DashboardRepository.java
+package com.example.inventory.repository;
+
+import com.example.inventory.dto.DashboardSummary;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+// ダッシュボードの集計（在庫状況ごとのロット数をカテゴリ別に1回のクエリで数える）
+@Repository
+public class DashboardRepository {
+
+    // 在庫状況は保存済みの stocks.status（StockStatusService が StockRepository.STATUS_EXPRESSION で判定したもの）
+    // 未判定のロットは正常として数える
+    private static final String STATUS_COUNTS_SQL =
+            "SELECT i.category_id, " +
+            "SUM(CASE WHEN s.status IN ('LOW_STOCK', 'EXPIRING', 'EXPIRED') THEN 0 ELSE 1 END) AS normal_count, " +
+            "SUM(CASE WHEN s.status = 'LOW_STOCK' THEN 1 ELSE 0 END) AS low_stock_count, " +
+            "SUM(CASE WHEN s.status = 'EXPIRING' THEN 1 ELSE 0 END) AS expiring_count, " +
+            "SUM(CASE WHEN s.status = 'EXPIRED' THEN 1 ELSE 0 END) AS expired_count " +
+            "FROM stocks s JOIN items i ON i.id = s.item_id " +
+            "WHERE s.quantity > 0 " +
+            "GROUP BY i.category_id " +
+            "ORDER BY i.category_id";
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public DashboardRepository(NamedParameterJdbcTemplate namedJdbcTemplate) {
+        this.namedJdbcTemplate = namedJdbcTemplate;
+    }
+
+    public List<DashboardSummary.CategoryCounts> countByCategory() {
+        return namedJdbcTemplate.query(STATUS_COUNTS_SQL, new MapSqlParameterSource(), (rs, rowNum) -> new DashboardSummary.CategoryCounts(
+                rs.getObject(1) != null ? rs.getLong(1) : null,
+                new DashboardSummary.Counts(rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getLong(5))));
+    }
+}
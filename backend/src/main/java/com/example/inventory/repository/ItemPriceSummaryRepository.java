@@ -0,0 +1,51 @@
+// ItemPriceSummaryRepository.java
+package com.example.inventory.repository;
+
+import com.example.inventory.entity.ItemPriceSummary;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ItemPriceSummaryRepository extends JpaRepository<ItemPriceSummary, Long> {
+  // 一括取得（商品全体 + 店舗別の行をまとめて返す）
+  List<ItemPriceSummary> findByItemIdIn(Collection<Long> itemIds);
+
+  // 差分更新・再計算の対象行をロックして取得（storeId は店舗ID または ItemPriceSummary.ALL_STORES）
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT s FROM ItemPriceSummary s WHERE s.itemId = :itemId AND s.storeId = :storeId")
+  Optional<ItemPriceSummary> findForUpdate(@Param("itemId") Long itemId, @Param("storeId") Long storeId);
+
+  // 行がなければ購入0件の行を作る（同時登録でも一意制約で1行に揃い、続く findForUpdate で順に更新する）
+  @Modifying
+  @Query(value = "INSERT INTO item_price_summaries (item_id, store_id, purchase_count, min_unit_price, last_unit_price, " +
+                 "last_purchased_at, moving_average, baseline_average, updated_at) " +
+                 "VALUES (:itemId, :storeId, 0, 0, 0, :purchasedAt, 0, 0, :now) " +
+                 "ON CONFLICT (item_id, store_id) DO NOTHING", nativeQuery = true)
+  int insertIfAbsent(@Param("itemId") Long itemId, @Param("storeId") Long storeId,
+                     @Param("purchasedAt") LocalDateTime purchasedAt, @Param("now") LocalDateTime now);
+
+  // 商品全体の行を store_id NULL で持っていた頃の行が残っているか（起動時に作り直す）
+  boolean existsByStoreIdIsNull();
+
+  // 商品・カテゴリ・店舗削除時（item_id / store_id は外部キーではないため明示的に削除する）
+  @Modifying
+  @Query("DELETE FROM ItemPriceSummary s WHERE s.itemId = :itemId")
+  int deleteByItemId(@Param("itemId") Long itemId);
+
+  @Modifying
+  @Query("DELETE FROM ItemPriceSummary s WHERE s.itemId IN (SELECT i.id FROM Item i WHERE i.category.id = :categoryId)")
+  int deleteByCategoryId(@Param("categoryId") Long categoryId);
+
+  @Modifying
+  @Query("DELETE FROM ItemPriceSummary s WHERE s.storeId = :storeId")
+  int deleteByStoreId(@Param("storeId") Long storeId);
+}
@@ -1,13 +1,21 @@
 
 package com.example.inventory.repository;
 
+import com.example.inventory.dto.ItemChange;
+import com.example.inventory.dto.ResourceStamp;
+import com.example.inventory.dto.ScannedItem;
+import com.example.inventory.dto.TableVersion;
 import com.example.inventory.entity.Item;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ItemRepository extends JpaRepository<Item, Long> {
@@ -22,8 +30,61 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
   List<Item> findByThresholdLessThan(int threshold);
 
  // Store 削除用（関連を解除する一括更新）
+ // 一括更新は @UpdateTimestamp が効かないため、差分同期で検知できるよう updatedAt も明示的に更新する
   @Modifying
-  @Query("UPDATE Item i SET i.store = null WHERE i.store.id = :storeId")
-  int updateStoreToNull(@Param("storeId") Long storeId);
+  @Query("UPDATE Item i SET i.store = null, i.updatedAt = :now WHERE i.store.id = :storeId")
+  int updateStoreToNull(@Param("storeId") Long storeId, @Param("now") LocalDateTime now);
+
+ // バーコード検索用（エンティティはロードしない、未登録のバーコードは結果に含まれない）
+  @Query("SELECT new com.example.inventory.dto.ScannedItem(i.barcode, i.id, i.name, c.id, i.hasExpiry) " +
+         "FROM Item i LEFT JOIN i.category c WHERE i.barcode IS NOT NULL")
+  List<ScannedItem> findAllScannedItems();
+
+  @Query("SELECT new com.example.inventory.dto.ScannedItem(i.barcode, i.id, i.name, c.id, i.hasExpiry) " +
+         "FROM Item i LEFT JOIN i.category c WHERE i.barcode IN :barcodes")
+  List<ScannedItem> findScannedItemsByBarcodeIn(@Param("barcodes") Collection<String> barcodes);
+
+  @Query("SELECT new com.example.inventory.dto.ScannedItem(i.barcode, i.id, i.name, c.id, i.hasExpiry) " +
+         "FROM Item i LEFT JOIN i.category c WHERE i.id IN :ids AND i.barcode IS NOT NULL")
+  List<ScannedItem> findScannedItemsByIdIn(@Param("ids") Collection<Long> ids);
+
+  @Query("SELECT i.id FROM Item i WHERE i.barcode = :barcode")
+  Optional<Long> findIdByBarcode(@Param("barcode") String barcode);
+
+ // カテゴリ配下（子孫のカテゴリを含む）の商品
+  @Query("SELECT i FROM Item i WHERE i.category.id IN " +
+         "(SELECT cc.descendantId FROM CategoryClosure cc WHERE cc.ancestorId = :categoryId) ORDER BY i.id")
+  List<Item> findByCategorySubtree(@Param("categoryId") Long categoryId);
+
+ // カテゴリ削除時に、一緒に消える商品を通知するため
+  @Query("SELECT i.id FROM Item i WHERE i.category.id = :categoryId")
+  List<Long> findIdsByCategoryId(@Param("categoryId") Long categoryId);
+
+ // 一括削除（在庫・購入履歴を先に削除してから実行する）
+ // 削除済みのエンティティが永続化コンテキストに残らないよう実行後にクリアする
+  @Modifying(clearAutomatically = true)
+  @Query("DELETE FROM Item i WHERE i.id = :id")
+  int deleteItemById(@Param("id") Long id);
+
+  @Modifying
+  @Query("DELETE FROM Item i WHERE i.category.id = :categoryId")
+  int deleteByCategoryId(@Param("categoryId") Long categoryId);
+
+ // 条件付きGET用（一覧の件数・最終更新日時）
+  @Query("SELECT new com.example.inventory.dto.TableVersion(COUNT(i), MAX(i.updatedAt)) FROM Item i")
+  TableVersion getTableVersion();
+
+ // 条件付きGET用（JSONに含まれる category / store の更新日時も考慮）
+  @Query("SELECT new com.example.inventory.dto.ResourceStamp(i.updatedAt, c.updatedAt, s.updatedAt) " +
+         "FROM Item i LEFT JOIN i.category c LEFT JOIN i.store s WHERE i.id = :id")
+  Optional<ResourceStamp> findStampById(@Param("id") Long id);
+
+  // 差分同期（更新日時 + ID のキーセットページング）
+  @Query("SELECT new com.example.inventory.dto.ItemChange(i.id, i.name, i.note, i.barcode, c.id, s.id, i.threshold, i.hasExpiry, i.updatedAt) " +
+         "FROM Item i LEFT JOIN i.category c LEFT JOIN i.store s " +
+         "WHERE (i.updatedAt > :afterTs OR (i.updatedAt = :afterTs AND i.id > :afterId)) AND i.updatedAt <= :until " +
+         "ORDER BY i.updatedAt, i.id")
+  List<ItemChange> findChangesAfter(@Param("afterTs") LocalDateTime afterTs, @Param("afterId") Long afterId,
+                                    @Param("until") LocalDateTime until, Pageable pageable);
 
 }
\ No newline at end of file
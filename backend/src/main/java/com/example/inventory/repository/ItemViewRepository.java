@@ -0,0 +1,124 @@
+package com.example.inventory.repository;
+
+import com.example.inventory.dto.ItemStockSummary;
+import com.example.inventory.service.StockService;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// 商品画面用の読み取り（指定された項目だけを1回のクエリで読む、エンティティはロードしない）
+// カテゴリ名・店舗名は指定されたときだけ結合し、在庫サマリーは商品ごとの集計を結合して同じクエリで返す
+@Repository
+public class ItemViewRepository {
+
+    // 項目名（JSON のキー）と列。JOIN は項目が必要とする結合
+    public enum Field {
+        ID("id", "i.id", Long.class, Join.NONE),
+        NAME("name", "i.name", String.class, Join.NONE),
+        NOTE("note", "i.note", String.class, Join.NONE),
+        BARCODE("barcode", "i.barcode", String.class, Join.NONE),
+        CATEGORY_ID("categoryId", "i.category_id", Long.class, Join.NONE),
+        CATEGORY_NAME("categoryName", "c.name", String.class, Join.CATEGORY),
+        STORE_ID("storeId", "i.store_id", Long.class, Join.NONE),
+        STORE_NAME("storeName", "st.name", String.class, Join.STORE),
+        THRESHOLD("threshold", "i.threshold", Integer.class, Join.NONE),
+        HAS_EXPIRY("hasExpiry", "i.has_expiry", Boolean.class, Join.NONE),
+        CREATED_AT("createdAt", "i.created_at", LocalDateTime.class, Join.NONE),
+        UPDATED_AT("updatedAt", "i.updated_at", LocalDateTime.class, Join.NONE);
+
+        private final String key;
+        private final String column;
+        private final Class<?> type;
+        private final Join join;
+
+        Field(String key, String column, Class<?> type, Join join) {
+            this.key = key;
+            this.column = column;
+            this.type = type;
+            this.join = join;
+        }
+
+        public String key() {
+            return key;
+        }
+    }
+
+    private enum Join {
+        NONE,
+        CATEGORY,
+        STORE
+    }
+
+    // 在庫のある（数量 > 0）ロットの合計・最も早い期限・最も重い在庫状況（StockRepository.STATUS_SEVERITY）
+    private static final String STOCK_SUMMARY_JOIN =
+            " LEFT JOIN (SELECT s.item_id, SUM(s.quantity) AS total_quantity, MIN(s.expiry_date) AS earliest_expiry, " +
+            "MAX(" + StockRepository.STATUS_SEVERITY + ") AS severity " +
+            "FROM stocks s WHERE s.quantity > 0%s GROUP BY s.item_id) t ON t.item_id = i.id";
+
+    // 商品の在庫状況は最も悪いロットの保存済みの状況（StockStatusService が判定した stocks.status、在庫がなければ正常）
+    private static final String STOCK_STATUS_COLUMN =
+            "CASE t.severity WHEN 3 THEN 'EXPIRED' WHEN 2 THEN 'EXPIRING' WHEN 1 THEN 'LOW_STOCK' ELSE 'NORMAL' END";
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public ItemViewRepository(NamedParameterJdbcTemplate namedJdbcTemplate) {
+        this.namedJdbcTemplate = namedJdbcTemplate;
+    }
+
+    // 全件（ID 順）。値は項目の順の Map で、在庫サマリーは "stockSummary" に入れる
+    public List<Map<String, Object>> findAll(Set<Field> fields, boolean stockSummary) {
+        return query(fields, stockSummary, null);
+    }
+
+    public List<Map<String, Object>> findById(Long id, Set<Field> fields, boolean stockSummary) {
+        return query(fields, stockSummary, id);
+    }
+
+    private List<Map<String, Object>> query(Set<Field> fields, boolean stockSummary, Long id) {
+        List<Field> columns = List.copyOf(fields);
+        StringBuilder sql = new StringBuilder("SELECT ");
+        for (Field field : columns) {
+            sql.append(field.column).append(", ");
+        }
+        if (stockSummary) {
+            sql.append("COALESCE(t.total_quantity, 0), t.earliest_expiry, ").append(STOCK_STATUS_COLUMN).append(", ");
+        }
+        sql.setLength(sql.length() - 2);
+        sql.append(" FROM items i");
+        if (columns.stream().anyMatch(field -> field.join == Join.CATEGORY)) {
+            sql.append(" LEFT JOIN categories c ON c.id = i.category_id");
+        }
+        if (columns.stream().anyMatch(field -> field.join == Join.STORE)) {
+            sql.append(" LEFT JOIN stores st ON st.id = i.store_id");
+        }
+        if (stockSummary) {
+            sql.append(String.format(STOCK_SUMMARY_JOIN, id != null ? " AND s.item_id = :id" : ""));
+        }
+        sql.append(id != null ? " WHERE i.id = :id" : " ORDER BY i.id");
+
+        return namedJdbcTemplate.query(sql.toString(), new MapSqlParameterSource("id", id), (rs, rowNum) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < columns.size(); i++) {
+                row.put(columns.get(i).key, rs.getObject(i + 1, columns.get(i).type));
+            }
+            if (stockSummary) {
+                row.put("stockSummary", readStockSummary(rs, columns.size() + 1));
+            }
+            return row;
+        });
+    }
+
+    private static ItemStockSummary readStockSummary(ResultSet rs, int column) throws SQLException {
+        return new ItemStockSummary(rs.getLong(column),
+                rs.getObject(column + 1, LocalDate.class),
+                StockService.StockStatus.valueOf(rs.getString(column + 2)));
+    }
+}
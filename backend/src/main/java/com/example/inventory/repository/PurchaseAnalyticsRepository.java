@@ -0,0 +1,56 @@
+package com.example.inventory.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.Collection;
+
+// 購入履歴の集計ストア用（購入を1行ずつプリミティブ値で渡す、エンティティはロードしない）
+// 商品が紐づいていない購入は対象外
+@Repository
+public class PurchaseAnalyticsRepository {
+
+    private static final String PURCHASES_SQL =
+            "SELECT p.item_id, i.category_id, p.store_id, CAST(p.purchased_at AS date), p.quantity, p.total_price " +
+            "FROM purchase_histories p JOIN items i ON i.id = p.item_id";
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public PurchaseAnalyticsRepository(DataSource dataSource,
+                                       @Value("${inventory.report.fetch-size:1000}") int fetchSize) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    // 全購入（起動時の読み込み用、PostgreSQL ではトランザクション内で実行すると fetch-size 行ずつ読む）
+    public void forEachPurchase(PurchaseRowHandler handler) {
+        namedJdbcTemplate.query(PURCHASES_SQL, new MapSqlParameterSource(), rowCallback(handler));
+    }
+
+    // 指定した商品の購入（書き込み後の読み直し用）
+    public void forEachPurchaseOfItems(Collection<Long> itemIds, PurchaseRowHandler handler) {
+        namedJdbcTemplate.query(PURCHASES_SQL + " WHERE p.item_id IN (:itemIds)",
+                new MapSqlParameterSource("itemIds", itemIds), rowCallback(handler));
+    }
+
+    private static RowCallbackHandler rowCallback(PurchaseRowHandler handler) {
+        return rs -> {
+            int totalPrice = rs.getInt(6);
+            boolean hasPrice = !rs.wasNull();
+            handler.accept(rs.getLong(1), rs.getLong(2), rs.getLong(3),
+                    (int) rs.getObject(4, LocalDate.class).toEpochDay(), rs.getInt(5), totalPrice, hasPrice);
+        };
+    }
+
+    // カテゴリ・店舗が未設定なら 0
+    @FunctionalInterface
+    public interface PurchaseRowHandler {
+        void accept(long itemId, long categoryId, long storeId, int epochDay, int quantity, int totalPrice, boolean hasPrice);
+    }
+}
@@ -0,0 +1,69 @@
+// PurchaseHistoryPartitionRepository.java
+package com.example.inventory.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+// purchase_histories の月別パーティション操作（PostgreSQL のDDL）
+// テーブルがパーティション化されていない環境（既存DBなど）では isPartitioned() が false になる
+@Repository
+public class PurchaseHistoryPartitionRepository {
+
+    private static final String PARENT = "purchase_histories";
+    private static final String DEFAULT_PARTITION = "purchase_histories_default";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PurchaseHistoryPartitionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public boolean isPartitioned() {
+        Boolean partitioned = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table pt JOIN pg_class c ON c.oid = pt.partrelid " +
+                "WHERE c.relname = ?)", Boolean.class, PARENT);
+        return Boolean.TRUE.equals(partitioned);
+    }
+
+    public boolean partitionExists(YearMonth month) {
+        Boolean exists = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = ? AND c.relname = ?)",
+                Boolean.class, PARENT, partitionName(month));
+        return Boolean.TRUE.equals(exists);
+    }
+
+    // 月別パーティションを作成
+    // デフォルトパーティションに該当月の行があると直接 PARTITION OF で作成できないため、
+    // 別テーブルとして作成 → 該当行を移動 → ATTACH の順で行う（呼び出し側のトランザクション内で実行すること）
+    public void createPartition(YearMonth month) {
+        String name = partitionName(month);
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE " + PARENT + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        jdbcTemplate.update("INSERT INTO " + name + " SELECT * FROM " + DEFAULT_PARTITION +
+                " WHERE purchased_at >= ? AND purchased_at < ?", from, to);
+        jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE purchased_at >= ? AND purchased_at < ?", from, to);
+        jdbcTemplate.execute("ALTER TABLE " + PARENT + " ATTACH PARTITION " + name +
+                " FOR VALUES FROM ('" + from.toLocalDate() + "') TO ('" + to.toLocalDate() + "')");
+    }
+
+    // 月別パーティションを削除（集約済みの月のみ）
+    public void dropPartition(YearMonth month) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + partitionName(month));
+    }
+
+    // 期間内の行を削除（パーティション化されていない場合、およびデフォルトパーティションに残った行用）
+    public int deleteBetween(LocalDate from, LocalDate to) {
+        return jdbcTemplate.update("DELETE FROM " + PARENT + " WHERE purchased_at >= ? AND purchased_at < ?",
+                from.atStartOfDay(), to.atStartOfDay());
+    }
+
+    private static String partitionName(YearMonth month) {
+        return String.format("%s_y%04dm%02d", PARENT, month.getYear(), month.getMonthValue());
+    }
+}
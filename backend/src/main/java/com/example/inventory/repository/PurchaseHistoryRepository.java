@@ -1,10 +1,21 @@
 // PurchaseHistoryRepository.java
 package com.example.inventory.repository;
 
+import com.example.inventory.dto.MonthlyPurchaseAggregate;
+import com.example.inventory.dto.PurchaseHistoryChange;
+import com.example.inventory.dto.PurchaseRecord;
+import com.example.inventory.dto.ResourceStamp;
+import com.example.inventory.dto.TableVersion;
 import com.example.inventory.entity.PurchaseHistory;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.time.LocalDateTime;
 import java.time.LocalDate;
 
@@ -16,9 +27,105 @@ public interface PurchaseHistoryRepository extends JpaRepository<PurchaseHistory
   // 賞味期限付き商品の購入履歴
   List<PurchaseHistory> findByItemIdAndExpiryDateIsNotNullOrderByExpiryDateAsc(Long itemId);
 
+  // 商品ごとの直近の購入履歴（purchased_at の範囲指定でパーティションを絞り込む）
+  List<PurchaseHistory> findByItemIdAndPurchasedAtGreaterThanEqualOrderByPurchasedAtDesc(Long itemId, LocalDateTime since);
+
   // 期間別購入履歴（統計機能で重要）
   List<PurchaseHistory> findByPurchasedAtBetween(LocalDateTime start, LocalDateTime end);
 
+  // ===== 保持期間・月次サマリー用 =====
+
+  // 指定日時より前で最も古い購入日時
+  @Query("SELECT MIN(p.purchasedAt) FROM PurchaseHistory p WHERE p.purchasedAt < :before")
+  LocalDateTime findOldestPurchasedAtBefore(@Param("before") LocalDateTime before);
+
+  // 期間内の商品別集計（商品が紐づいていない行は対象外）
+  @Query("SELECT new com.example.inventory.dto.MonthlyPurchaseAggregate(p.item.id, COUNT(p), SUM(p.quantity), " +
+         "SUM(p.totalPrice), SUM(CASE WHEN p.totalPrice IS NOT NULL THEN p.quantity ELSE 0 END)) " +
+         "FROM PurchaseHistory p WHERE p.item IS NOT NULL AND p.purchasedAt >= :from AND p.purchasedAt < :to " +
+         "GROUP BY p.item.id")
+  List<MonthlyPurchaseAggregate> aggregateByItemBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
 // 期限切れ近い購入品
   List<PurchaseHistory> findByExpiryDateBefore(LocalDate date);
+
+  // ===== 価格分析用 =====
+
+  // 変更前の内容（保存前に取得するため、エンティティではなくDTOで返す）
+  @Query("SELECT new com.example.inventory.dto.PurchaseRecord(p.id, i.id, c.id, s.id, p.quantity, p.totalPrice, p.purchasedAt) " +
+         "FROM PurchaseHistory p LEFT JOIN p.item i LEFT JOIN i.category c LEFT JOIN p.store s WHERE p.id = :id")
+  Optional<PurchaseRecord> findRecordById(@Param("id") Long id);
+
+  // 単価を計算できる購入（古い順、商品全体）
+  @Query("SELECT new com.example.inventory.dto.PurchaseRecord(p.id, i.id, c.id, s.id, p.quantity, p.totalPrice, p.purchasedAt) " +
+         "FROM PurchaseHistory p JOIN p.item i LEFT JOIN i.category c LEFT JOIN p.store s " +
+         "WHERE i.id = :itemId AND p.totalPrice IS NOT NULL AND p.quantity > 0 ORDER BY p.purchasedAt, p.id")
+  List<PurchaseRecord> findPricedRecordsByItemId(@Param("itemId") Long itemId);
+
+  // 単価を計算できる購入（古い順、店舗別）
+  @Query("SELECT new com.example.inventory.dto.PurchaseRecord(p.id, i.id, c.id, s.id, p.quantity, p.totalPrice, p.purchasedAt) " +
+         "FROM PurchaseHistory p JOIN p.item i LEFT JOIN i.category c JOIN p.store s " +
+         "WHERE i.id = :itemId AND s.id = :storeId AND p.totalPrice IS NOT NULL AND p.quantity > 0 ORDER BY p.purchasedAt, p.id")
+  List<PurchaseRecord> findPricedRecordsByItemIdAndStoreId(@Param("itemId") Long itemId, @Param("storeId") Long storeId);
+
+  // 価格サマリーの再構築対象（商品ID, 店舗ID。店舗未設定は店舗IDが null）
+  @Query("SELECT DISTINCT p.item.id, s.id FROM PurchaseHistory p LEFT JOIN p.store s " +
+         "WHERE p.item IS NOT NULL AND p.totalPrice IS NOT NULL AND p.quantity > 0")
+  List<Object[]> findPricedItemStorePairs();
+
+  // 購入周期の分析対象（全商品、または期間内に登録・更新された購入履歴のある商品）
+  @Query("SELECT DISTINCT p.item.id FROM PurchaseHistory p WHERE p.item IS NOT NULL")
+  List<Long> findPurchasedItemIds();
+
+  @Query("SELECT DISTINCT p.item.id FROM PurchaseHistory p " +
+         "WHERE p.item IS NOT NULL AND p.updatedAt > :since AND p.updatedAt <= :until")
+  List<Long> findItemIdsUpdatedBetween(@Param("since") LocalDateTime since, @Param("until") LocalDateTime until);
+
+  // 購入周期の分析用（[商品ID, 購入日時]、商品・購入日時順）
+  @Query("SELECT p.item.id, p.purchasedAt FROM PurchaseHistory p WHERE p.item.id IN :itemIds " +
+         "ORDER BY p.item.id, p.purchasedAt")
+  List<Object[]> findPurchaseTimesByItemIdIn(@Param("itemIds") Collection<Long> itemIds);
+
+  // 日別の購入合計（[商品ID, カテゴリID, 購入日, 件数, 数量, 金額]、商品順。商品が紐づいていない行は対象外）
+  @Query("SELECT i.id, c.id, CAST(p.purchasedAt AS LocalDate), COUNT(p), SUM(p.quantity), SUM(COALESCE(p.totalPrice, 0)) " +
+         "FROM PurchaseHistory p JOIN p.item i LEFT JOIN i.category c " +
+         "GROUP BY i.id, c.id, CAST(p.purchasedAt AS LocalDate) ORDER BY i.id")
+  List<Object[]> aggregateDailyByItem();
+
+  @Query("SELECT i.id, c.id, CAST(p.purchasedAt AS LocalDate), COUNT(p), SUM(p.quantity), SUM(COALESCE(p.totalPrice, 0)) " +
+         "FROM PurchaseHistory p JOIN p.item i LEFT JOIN i.category c WHERE i.id IN :itemIds " +
+         "GROUP BY i.id, c.id, CAST(p.purchasedAt AS LocalDate) ORDER BY i.id")
+  List<Object[]> aggregateDailyByItemIdIn(@Param("itemIds") Collection<Long> itemIds);
+
+  // 商品・カテゴリ削除用（ORMのカスケードを使わず一括削除する。最初に実行するため未反映の変更を先に flush する）
+  @Modifying(flushAutomatically = true)
+  @Query("DELETE FROM PurchaseHistory p WHERE p.item.id = :itemId")
+  int deleteByItemId(@Param("itemId") Long itemId);
+
+  @Modifying(flushAutomatically = true)
+  @Query("DELETE FROM PurchaseHistory p WHERE p.item.id IN (SELECT i.id FROM Item i WHERE i.category.id = :categoryId)")
+  int deleteByCategoryId(@Param("categoryId") Long categoryId);
+
+  // Store 削除用（購入店舗の関連を解除する一括更新、差分同期で検知できるよう updatedAt も更新する）
+  @Modifying
+  @Query("UPDATE PurchaseHistory p SET p.store = null, p.updatedAt = :now WHERE p.store.id = :storeId")
+  int updateStoreToNull(@Param("storeId") Long storeId, @Param("now") LocalDateTime now);
+
+  // 条件付きGET用（一覧の件数・最終更新日時）
+  @Query("SELECT new com.example.inventory.dto.TableVersion(COUNT(p), MAX(p.updatedAt)) FROM PurchaseHistory p")
+  TableVersion getTableVersion();
+
+  // 条件付きGET用（JSONに含まれる item / category / store / 購入店舗の更新日時も考慮）
+  @Query("SELECT new com.example.inventory.dto.ResourceStamp(p.updatedAt, i.updatedAt, c.updatedAt, st.updatedAt, ps.updatedAt) " +
+         "FROM PurchaseHistory p LEFT JOIN p.item i LEFT JOIN i.category c LEFT JOIN i.store st LEFT JOIN p.store ps " +
+         "WHERE p.id = :id")
+  Optional<ResourceStamp> findStampById(@Param("id") Long id);
+
+  // 差分同期（更新日時 + ID のキーセットページング）
+  @Query("SELECT new com.example.inventory.dto.PurchaseHistoryChange(p.id, i.id, s.id, p.quantity, p.totalPrice, p.purchasedAt, p.expiryDate, p.updatedAt) " +
+         "FROM PurchaseHistory p LEFT JOIN p.item i LEFT JOIN p.store s " +
+         "WHERE (p.updatedAt > :afterTs OR (p.updatedAt = :afterTs AND p.id > :afterId)) AND p.updatedAt <= :until " +
+         "ORDER BY p.updatedAt, p.id")
+  List<PurchaseHistoryChange> findChangesAfter(@Param("afterTs") LocalDateTime afterTs, @Param("afterId") Long afterId,
+                                               @Param("until") LocalDateTime until, Pageable pageable);
 }
@@ -0,0 +1,37 @@
+// PurchaseHistorySummaryRepository.java
+package com.example.inventory.repository;
+
+import com.example.inventory.entity.PurchaseHistorySummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PurchaseHistorySummaryRepository extends JpaRepository<PurchaseHistorySummary, Long> {
+  // 商品ごとの月次サマリー（新しい月から）
+  List<PurchaseHistorySummary> findByItemIdOrderByMonthDesc(Long itemId);
+
+  // 期間別の月次サマリー
+  List<PurchaseHistorySummary> findByMonthBetweenOrderByMonthAsc(LocalDate from, LocalDate to);
+
+  // 集約時の既存サマリー検索（同じ月に遅れて登録された購入を加算するため）
+  Optional<PurchaseHistorySummary> findByItemIdAndMonth(Long itemId, LocalDate month);
+
+  // 価格サマリーの再構築対象（金額が記録された月次サマリーを持つ商品）
+  @Query("SELECT DISTINCT s.itemId FROM PurchaseHistorySummary s WHERE s.pricedQuantity > 0")
+  List<Long> findPricedItemIds();
+
+  // 商品・カテゴリ削除時（item_id は外部キーではないため明示的に削除する）
+  @Modifying
+  @Query("DELETE FROM PurchaseHistorySummary s WHERE s.itemId = :itemId")
+  int deleteByItemId(@Param("itemId") Long itemId);
+
+  @Modifying
+  @Query("DELETE FROM PurchaseHistorySummary s WHERE s.itemId IN (SELECT i.id FROM Item i WHERE i.category.id = :categoryId)")
+  int deleteByCategoryId(@Param("categoryId") Long categoryId);
+}
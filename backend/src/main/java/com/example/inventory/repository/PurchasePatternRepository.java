@@ -0,0 +1,52 @@
+package com.example.inventory.repository;
+
+import com.example.inventory.dto.ExpectedPurchase;
+import com.example.inventory.entity.PurchasePattern;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PurchasePatternRepository extends JpaRepository<PurchasePattern, Long> {
+
+  List<PurchasePattern> findByItemIdIn(Collection<Long> itemIds);
+
+  List<PurchasePattern> findAllByOrderByNextExpectedOnAscItemIdAsc();
+
+  // 定期購入とみなした商品のうち、予定日が until 以前のもの（予定日順）
+  @Query("SELECT new com.example.inventory.dto.ExpectedPurchase(i.id, i.name, c.id, p.lastPurchasedOn, " +
+         "p.nextExpectedOn, p.meanIntervalDays, p.intervalStdDevDays) " +
+         "FROM PurchasePattern p JOIN Item i ON i.id = p.itemId LEFT JOIN i.category c " +
+         "WHERE p.regular = true AND p.nextExpectedOn <= :until ORDER BY p.nextExpectedOn, i.id")
+  List<ExpectedPurchase> findExpectedUntil(@Param("until") LocalDate until);
+
+  // 差分分析用（前回までに反映した購入履歴の更新日時、再分析待ちの商品）
+  @Query("SELECT MAX(p.analyzedThrough) FROM PurchasePattern p")
+  LocalDateTime findMaxAnalyzedThrough();
+
+  @Query("SELECT p.itemId FROM PurchasePattern p")
+  List<Long> findItemIds();
+
+  @Query("SELECT p.itemId FROM PurchasePattern p WHERE p.analyzedThrough IS NULL")
+  List<Long> findStaleItemIds();
+
+  // 購入履歴の更新・削除時（変更前の商品を再分析待ちにする）
+  @Modifying
+  @Query("UPDATE PurchasePattern p SET p.analyzedThrough = null WHERE p.itemId = :itemId")
+  int markStale(@Param("itemId") Long itemId);
+
+  // 商品・カテゴリ削除時（item_id は外部キーではないため明示的に削除する）
+  @Modifying
+  @Query("DELETE FROM PurchasePattern p WHERE p.itemId = :itemId")
+  int deleteByItemId(@Param("itemId") Long itemId);
+
+  @Modifying
+  @Query("DELETE FROM PurchasePattern p WHERE p.itemId IN (SELECT i.id FROM Item i WHERE i.category.id = :categoryId)")
+  int deleteByCategoryId(@Param("categoryId") Long categoryId);
+}
@@ -0,0 +1,149 @@
+package com.example.inventory.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+// スナップショット（全データの書き出し・復元）用の JDBC アクセス
+// テーブルごとの列と型を Table に定義し、書き出し・復元とも同じ定義で1行ずつ扱う（エンティティはロードしない）
+@Repository
+public class SnapshotRepository {
+
+    public enum ColumnType {
+        BIGINT(Types.BIGINT),
+        INTEGER(Types.INTEGER),
+        BOOLEAN(Types.BOOLEAN),
+        VARCHAR(Types.VARCHAR),
+        DATE(Types.DATE),
+        TIMESTAMP(Types.TIMESTAMP);
+
+        private final int sqlType;
+
+        ColumnType(int sqlType) {
+            this.sqlType = sqlType;
+        }
+    }
+
+    // 復元は定義順（参照される側が先）。stocks.status・カテゴリの閉包テーブルは復元後に作り直すため含めない
+    // 列を追加するときは末尾に足す（足す前のスナップショットは、足りない列を NULL として復元する）
+    public enum Table {
+        CATEGORIES("categories", "id, name, created_at, updated_at, parent_id",
+                ColumnType.BIGINT, ColumnType.VARCHAR, ColumnType.TIMESTAMP, ColumnType.TIMESTAMP, ColumnType.BIGINT),
+        STORES("stores", "id, name, location, created_at, updated_at",
+                ColumnType.BIGINT, ColumnType.VARCHAR, ColumnType.VARCHAR, ColumnType.TIMESTAMP, ColumnType.TIMESTAMP),
+        ITEMS("items", "id, name, note, barcode, category_id, store_id, threshold, has_expiry, created_at, updated_at",
+                ColumnType.BIGINT, ColumnType.VARCHAR, ColumnType.VARCHAR, ColumnType.VARCHAR, ColumnType.BIGINT,
+                ColumnType.BIGINT, ColumnType.INTEGER, ColumnType.BOOLEAN, ColumnType.TIMESTAMP, ColumnType.TIMESTAMP),
+        STOCKS("stocks", "id, item_id, quantity, expiry_date, created_at, updated_at",
+                ColumnType.BIGINT, ColumnType.BIGINT, ColumnType.INTEGER, ColumnType.DATE,
+                ColumnType.TIMESTAMP, ColumnType.TIMESTAMP),
+        PURCHASE_HISTORIES("purchase_histories",
+                "id, item_id, store_id, quantity, total_price, purchased_at, expiry_date, created_at, updated_at",
+                ColumnType.BIGINT, ColumnType.BIGINT, ColumnType.BIGINT, ColumnType.INTEGER, ColumnType.INTEGER,
+                ColumnType.TIMESTAMP, ColumnType.DATE, ColumnType.TIMESTAMP, ColumnType.TIMESTAMP),
+        PURCHASE_HISTORY_SUMMARIES("purchase_history_summaries",
+                "id, item_id, summary_month, purchase_count, total_quantity, total_price, priced_quantity, created_at, updated_at",
+                ColumnType.BIGINT, ColumnType.BIGINT, ColumnType.DATE, ColumnType.BIGINT, ColumnType.BIGINT,
+                ColumnType.BIGINT, ColumnType.BIGINT, ColumnType.TIMESTAMP, ColumnType.TIMESTAMP);
+
+        private final String tableName;
+        private final String columns;
+        private final List<ColumnType> types;
+
+        Table(String tableName, String columns, ColumnType... types) {
+            this.tableName = tableName;
+            this.columns = columns;
+            this.types = List.of(types);
+        }
+
+        public String tableName() {
+            return tableName;
+        }
+
+        // 1列目は id
+        public List<ColumnType> types() {
+            return types;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SnapshotRepository(DataSource dataSource,
+                              @Value("${inventory.report.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    // ===== 書き出し =====
+
+    // ID 順に1行ずつ渡す（値は型に応じて Long / Integer / Boolean / String / LocalDate / LocalDateTime、NULL は null）
+    // PostgreSQL ではトランザクション内で実行すると fetch-size 行ずつカーソルで読む
+    public void forEachRow(Table table, Consumer<Object[]> handler) {
+        Object[] values = new Object[table.types.size()];
+        jdbcTemplate.query("SELECT " + table.columns + " FROM " + table.tableName + " ORDER BY id", rs -> {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = read(rs, i + 1, table.types.get(i));
+            }
+            handler.accept(values);
+        });
+    }
+
+    private static Object read(ResultSet rs, int column, ColumnType type) throws SQLException {
+        return switch (type) {
+            case BIGINT -> rs.getObject(column, Long.class);
+            case INTEGER -> rs.getObject(column, Integer.class);
+            case BOOLEAN -> rs.getObject(column, Boolean.class);
+            case VARCHAR -> rs.getString(column);
+            case DATE -> rs.getObject(column, LocalDate.class);
+            case TIMESTAMP -> rs.getObject(column, LocalDateTime.class);
+        };
+    }
+
+    // ===== 復元 =====
+
+    public boolean isEmpty(Table table) {
+        return jdbcTemplate.queryForList("SELECT id FROM " + table.tableName + " LIMIT 1", Long.class).isEmpty();
+    }
+
+    // ID を指定して INSERT する（値の並びは Table の列の順）
+    public void insert(Table table, List<Object[]> rows) {
+        String placeholders = String.join(", ", Collections.nCopies(table.types.size(), "?"));
+        jdbcTemplate.batchUpdate("INSERT INTO " + table.tableName + " (" + table.columns + ") VALUES (" + placeholders + ")",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Object[] values = rows.get(i);
+                        for (int column = 0; column < values.length; column++) {
+                            ColumnType type = table.types.get(column);
+                            if (values[column] == null) {
+                                ps.setNull(column + 1, type.sqlType);
+                            } else {
+                                ps.setObject(column + 1, values[column]);
+                            }
+                        }
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                });
+    }
+
+    // ID を指定して INSERT した後、自動採番を最大の ID の次から始める
+    public void restartIdentity(Table table) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table.tableName, Long.class);
+        jdbcTemplate.execute("ALTER TABLE " + table.tableName + " ALTER COLUMN id RESTART WITH " + (maxId != null ? maxId + 1 : 1));
+    }
+}
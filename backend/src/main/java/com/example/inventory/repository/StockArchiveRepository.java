@@ -0,0 +1,38 @@
+// StockArchiveRepository.java
+package com.example.inventory.repository;
+
+import com.example.inventory.entity.StockArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StockArchiveRepository extends JpaRepository<StockArchive, Long> {
+
+  // 商品ごとのアーカイブ履歴
+  List<StockArchive> findByItemIdOrderByArchivedAtDesc(Long itemId);
+
+  // 商品・カテゴリ削除時（item_id は外部キーではないため明示的に削除する）
+  @Modifying
+  @Query("DELETE FROM StockArchive a WHERE a.itemId = :itemId")
+  int deleteByItemId(@Param("itemId") Long itemId);
+
+  @Modifying
+  @Query("DELETE FROM StockArchive a WHERE a.itemId IN (SELECT i.id FROM Item i WHERE i.category.id = :categoryId)")
+  int deleteByCategoryId(@Param("categoryId") Long categoryId);
+
+  // 在庫を行ごとアーカイブへコピー（この後 stocks から削除する）
+  @Modifying
+  @Query(value = "INSERT INTO stock_archives (stock_id, item_id, quantity, expiry_date, reason, merged_into_stock_id, stock_created_at, archived_at) " +
+                 "SELECT s.id, s.item_id, s.quantity, s.expiry_date, :reason, :mergedInto, s.created_at, :now " +
+                 "FROM stocks s WHERE s.id IN (:stockIds)", nativeQuery = true)
+  int archiveStocks(@Param("stockIds") Collection<Long> stockIds,
+                    @Param("reason") String reason,
+                    @Param("mergedInto") Long mergedInto,
+                    @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,48 @@
+// StockBatchRepository.java
+package com.example.inventory.repository;
+
+import com.example.inventory.dto.StockPatch;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// 在庫のJDBCバッチ更新（JPAを経由せず、1回のラウンドトリップでまとめて更新する）
+@Repository
+public class StockBatchRepository {
+
+    // 在庫数がマイナスになる更新は WHERE 句で弾く（更新件数 0 になる）
+    private static final String PATCH_SQL =
+            "UPDATE stocks SET quantity = quantity + ?, expiry_date = COALESCE(?, expiry_date), updated_at = ? " +
+            "WHERE id = ? AND quantity + ? >= 0";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StockBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // 戻り値は patches と同じ順序の更新件数
+    public int[] applyPatches(List<StockPatch> patches, LocalDateTime now) {
+        return jdbcTemplate.batchUpdate(PATCH_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                StockPatch patch = patches.get(i);
+                ps.setInt(1, patch.delta());
+                ps.setObject(2, patch.expiryDate(), Types.DATE);
+                ps.setObject(3, now);
+                ps.setLong(4, patch.id());
+                ps.setInt(5, patch.delta());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return patches.size();
+            }
+        });
+    }
+}
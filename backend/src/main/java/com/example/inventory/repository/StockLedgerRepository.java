@@ -0,0 +1,188 @@
+// StockLedgerRepository.java
+package com.example.inventory.repository;
+
+import com.example.inventory.entity.StockMovement;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// 在庫の増減履歴（stock_movements）とスナップショット（stock_snapshots）のJDBCアクセス
+// 追記・スナップショット更新とも対象の stocks の行をロックしてから行う（ロットID順）。集計・スナップショット更新は商品単位で行う
+@Repository
+public class StockLedgerRepository {
+
+    private static final String APPEND_SQL =
+            "INSERT INTO stock_movements (item_id, stock_id, movement_type, quantity_delta, recorded_at) VALUES (?, ?, ?, ?, ?)";
+
+    // 履歴のないロット（履歴の導入前から存在する在庫）の期首残高
+    private static final String OPENING_BALANCE_SQL =
+            "INSERT INTO stock_movements (item_id, stock_id, movement_type, quantity_delta, recorded_at) " +
+            "SELECT s.item_id, s.id, 'ADJUST', s.quantity, ? FROM stocks s " +
+            "WHERE s.quantity <> 0 AND NOT EXISTS (SELECT 1 FROM stock_movements m WHERE m.stock_id = s.id)";
+
+    // スナップショットに未反映の増減（既存のロットのみ）
+    private static final String PENDING_ITEMS_SQL =
+            "SELECT DISTINCT m.item_id FROM stock_movements m JOIN stocks s ON s.id = m.stock_id " +
+            "LEFT JOIN stock_snapshots sn ON sn.stock_id = m.stock_id " +
+            "WHERE m.id > COALESCE(sn.last_movement_id, 0) AND m.id <= ?";
+
+    private static final String PENDING_DELTAS_SQL =
+            "SELECT m.stock_id, SUM(m.quantity_delta), MAX(m.id) FROM stock_movements m JOIN stocks s ON s.id = m.stock_id " +
+            "LEFT JOIN stock_snapshots sn ON sn.stock_id = m.stock_id " +
+            "WHERE m.item_id = ? AND m.id > COALESCE(sn.last_movement_id, 0) AND m.id <= ? " +
+            "GROUP BY m.stock_id";
+
+    // 現在の在庫数 = スナップショット + それ以降のすべての増減
+    private static final String DERIVED_QUANTITY_SELECT =
+            "SELECT s.id, COALESCE(sn.quantity, 0) + COALESCE((SELECT SUM(m.quantity_delta) FROM stock_movements m " +
+            "WHERE m.stock_id = s.id AND m.id > COALESCE(sn.last_movement_id, 0)), 0) AS quantity, s.quantity AS stored " +
+            "FROM stocks s LEFT JOIN stock_snapshots sn ON sn.stock_id = s.id ";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public StockLedgerRepository(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+    }
+
+    // ===== 追記 =====
+
+    public void append(List<StockMovement> movements) {
+        jdbcTemplate.batchUpdate(APPEND_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                StockMovement movement = movements.get(i);
+                ps.setLong(1, movement.getItemId());
+                ps.setLong(2, movement.getStockId());
+                ps.setString(3, movement.getType().name());
+                ps.setInt(4, movement.getQuantityDelta());
+                ps.setObject(5, movement.getRecordedAt());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return movements.size();
+            }
+        });
+    }
+
+    public int recordOpeningBalances(LocalDateTime now) {
+        return jdbcTemplate.update(OPENING_BALANCE_SQL, now);
+    }
+
+    // ロットをロックして ロットID → 商品ID を返す（存在するロットのみ）
+    public Map<Long, Long> lockStocks(Collection<Long> stockIds) {
+        Map<Long, Long> itemIds = new HashMap<>();
+        namedJdbcTemplate.query("SELECT id, item_id FROM stocks WHERE id IN (:ids) ORDER BY id FOR UPDATE",
+                new MapSqlParameterSource("ids", stockIds),
+                rs -> {
+                    itemIds.put(rs.getLong(1), rs.getLong(2));
+                });
+        return itemIds;
+    }
+
+    // ===== 在庫数の計算 =====
+
+    public Map<Long, Integer> findQuantities(Collection<Long> stockIds) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        namedJdbcTemplate.query(DERIVED_QUANTITY_SELECT + "WHERE s.id IN (:ids)",
+                new MapSqlParameterSource("ids", stockIds),
+                rs -> {
+                    quantities.put(rs.getLong(1), rs.getInt(2));
+                });
+        return quantities;
+    }
+
+    // 期間内に消費として記録された数（商品ID → 消費数）。itemIds が null なら全商品
+    public Map<Long, Long> findConsumedQuantities(LocalDateTime since, Collection<Long> itemIds) {
+        MapSqlParameterSource params = new MapSqlParameterSource("since", since);
+        String sql = "SELECT item_id, -SUM(quantity_delta) FROM stock_movements " +
+                "WHERE movement_type = 'CONSUME' AND recorded_at >= :since ";
+        if (itemIds != null) {
+            sql += "AND item_id IN (:itemIds) ";
+            params.addValue("itemIds", itemIds);
+        }
+        Map<Long, Long> consumed = new HashMap<>();
+        namedJdbcTemplate.query(sql + "GROUP BY item_id", params, rs -> {
+            consumed.put(rs.getLong(1), rs.getLong(2));
+        });
+        return consumed;
+    }
+
+    // ===== スナップショット =====
+
+    // この ID 以下の増減をスナップショットへ反映する（実行中のトランザクションの追記を取りこぼさないよう、少し前の時点まで）
+    // 追記はロットのロックを持ったまま行うため、ここより小さい ID が未コミットでも反映時のロック待ちでコミットを待つ
+    public long findMaxMovementIdRecordedBefore(LocalDateTime cutoff) {
+        Long id = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(id), 0) FROM stock_movements WHERE recorded_at <= ?", Long.class, cutoff);
+        return id != null ? id : 0;
+    }
+
+    public List<Long> findItemIdsWithPendingMovements(long upToId) {
+        return jdbcTemplate.queryForList(PENDING_ITEMS_SQL, Long.class, upToId);
+    }
+
+    public List<Long> findItemIdsWithStocks() {
+        return jdbcTemplate.queryForList("SELECT DISTINCT item_id FROM stocks", Long.class);
+    }
+
+    // 商品のロットをロック（同じロットを更新する在庫の書き込み・追記と直列化する）
+    public void lockStocksOfItem(Long itemId) {
+        jdbcTemplate.queryForList("SELECT id FROM stocks WHERE item_id = ? ORDER BY id FOR UPDATE", Long.class, itemId);
+    }
+
+    public int deleteSnapshotsOfItem(Long itemId) {
+        return jdbcTemplate.update("DELETE FROM stock_snapshots WHERE item_id = ?", itemId);
+    }
+
+    // 未反映の増減をロットごとに集計してスナップショットへ加算
+    public int foldPendingMovements(Long itemId, long upToId, LocalDateTime now) {
+        List<Object[]> deltas = jdbcTemplate.query(PENDING_DELTAS_SQL,
+                (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getInt(2), rs.getLong(3)}, itemId, upToId);
+        for (Object[] delta : deltas) {
+            int updated = jdbcTemplate.update(
+                    "UPDATE stock_snapshots SET quantity = quantity + ?, last_movement_id = ?, snapshot_at = ? WHERE stock_id = ?",
+                    delta[1], delta[2], now, delta[0]);
+            if (updated == 0) {
+                jdbcTemplate.update(
+                        "INSERT INTO stock_snapshots (stock_id, item_id, quantity, last_movement_id, snapshot_at) VALUES (?, ?, ?, ?, ?)",
+                        delta[0], itemId, delta[1], delta[2], now);
+            }
+        }
+        return deltas.size();
+    }
+
+    // 計算した在庫数を stocks.quantity へ反映（在庫数はマイナスにしない）
+    public int materializeQuantities(Long itemId, LocalDateTime now) {
+        List<Object[]> changed = new ArrayList<>();
+        jdbcTemplate.query(DERIVED_QUANTITY_SELECT + "WHERE s.item_id = ?", rs -> {
+            int quantity = Math.max(0, rs.getInt(2));
+            if (quantity != rs.getInt(3)) {
+                changed.add(new Object[]{quantity, now, rs.getLong(1)});
+            }
+        }, itemId);
+        if (changed.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate("UPDATE stocks SET quantity = ?, updated_at = ? WHERE id = ?", changed);
+        return changed.size();
+    }
+
+    // 削除されたロットのスナップショット
+    public int deleteOrphanSnapshots() {
+        return jdbcTemplate.update(
+                "DELETE FROM stock_snapshots WHERE NOT EXISTS (SELECT 1 FROM stocks s WHERE s.id = stock_snapshots.stock_id)");
+    }
+}
@@ -0,0 +1,27 @@
+// StockMovementRepository.java
+package com.example.inventory.repository;
+
+import com.example.inventory.entity.StockMovement;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+
+  // ロットごとの増減履歴（新しい順）
+  List<StockMovement> findByStockIdOrderByIdDesc(Long stockId, Pageable pageable);
+
+  // 商品・カテゴリ削除時（item_id は外部キーではないため明示的に削除する）
+  @Modifying
+  @Query("DELETE FROM StockMovement m WHERE m.itemId = :itemId")
+  int deleteByItemId(@Param("itemId") Long itemId);
+
+  @Modifying
+  @Query("DELETE FROM StockMovement m WHERE m.itemId IN (SELECT i.id FROM Item i WHERE i.category.id = :categoryId)")
+  int deleteByCategoryId(@Param("categoryId") Long categoryId);
+}
@@ -1,13 +1,26 @@
 // StockRepository.java
 package com.example.inventory.repository;
 
+import com.example.inventory.dto.CategoryStockSummary;
+import com.example.inventory.dto.ExpiringLot;
+import com.example.inventory.dto.StockChange;
+import com.example.inventory.dto.ResourceStamp;
+import com.example.inventory.dto.TableVersion;
 import com.example.inventory.entity.Stock;
+import com.example.inventory.service.StockService;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface StockRepository extends JpaRepository<Stock, Long> {
@@ -24,6 +37,9 @@ public interface StockRepository extends JpaRepository<Stock, Long> {
   // 在庫数0のものを除外して取得
   List<Stock> findByItemIdAndQuantityGreaterThan(Long itemId, int quantity);
 
+  // 有効な在庫（在庫数 > 0）のみ取得
+  List<Stock> findByQuantityGreaterThan(int quantity);
+
   // 在庫数が閾値以下のものを検索（アラート機能で必須）
 List<Stock> findByQuantityLessThanEqual(int quantity);
 
@@ -33,4 +49,137 @@ List<Stock> findByExpiryDateIsNull();
 // 商品の現在在庫合計を計算（重要！）
 @Query("SELECT SUM(s.quantity) FROM Stock s WHERE s.item.id = :itemId AND s.quantity > 0")
 Integer getTotalQuantityByItemId(@Param("itemId") Long itemId);
+
+// 条件付きGET用（一覧の件数・最終更新日時）
+@Query("SELECT new com.example.inventory.dto.TableVersion(COUNT(s), MAX(s.updatedAt)) FROM Stock s")
+TableVersion getTableVersion();
+
+// 条件付きGET用（JSONに含まれる item / category / store の更新日時も考慮）
+@Query("SELECT new com.example.inventory.dto.ResourceStamp(s.updatedAt, i.updatedAt, c.updatedAt, st.updatedAt) " +
+       "FROM Stock s JOIN s.item i LEFT JOIN i.category c LEFT JOIN i.store st WHERE s.id = :id")
+Optional<ResourceStamp> findStampById(@Param("id") Long id);
+
+// 差分同期（更新日時 + ID のキーセットページング）
+@Query("SELECT new com.example.inventory.dto.StockChange(s.id, s.item.id, s.quantity, s.expiryDate, s.updatedAt) FROM Stock s " +
+       "WHERE (s.updatedAt > :afterTs OR (s.updatedAt = :afterTs AND s.id > :afterId)) AND s.updatedAt <= :until " +
+       "ORDER BY s.updatedAt, s.id")
+List<StockChange> findChangesAfter(@Param("afterTs") LocalDateTime afterTs, @Param("afterId") Long afterId,
+                                   @Param("until") LocalDateTime until, Pageable pageable);
+
+// 一括部分更新後の状態取得（エンティティはロードしない）
+@Query("SELECT new com.example.inventory.dto.StockChange(s.id, s.item.id, s.quantity, s.expiryDate, s.updatedAt) " +
+       "FROM Stock s WHERE s.id IN :ids")
+List<StockChange> findChangesByIdIn(@Param("ids") Collection<Long> ids);
+
+// 使い切り優先ランキング用（期限切れ前で在庫の残っているロット）
+@Query("SELECT new com.example.inventory.dto.ExpiringLot(s.id, i.id, i.name, s.quantity, s.expiryDate) " +
+       "FROM Stock s JOIN s.item i WHERE s.quantity > 0 AND s.expiryDate >= :today")
+List<ExpiringLot> findExpiringLots(@Param("today") LocalDate today);
+
+@Query("SELECT new com.example.inventory.dto.ExpiringLot(s.id, i.id, i.name, s.quantity, s.expiryDate) " +
+       "FROM Stock s JOIN s.item i WHERE s.quantity > 0 AND s.expiryDate >= :today AND i.id IN :itemIds")
+List<ExpiringLot> findExpiringLotsByItemIdIn(@Param("today") LocalDate today,
+                                             @Param("itemIds") Collection<Long> itemIds);
+
+// ===== 在庫状況（stocks.status） =====
+
+// 在庫少の基準（s は判定する商品の在庫の別名）。商品の在庫のあるロットの合計が閾値以下
+// 在庫のあるロットがない商品は対象外。在庫状況（STATUS_EXPRESSION）と商品単位のアラート（AlertStateRepository）の両方で使う
+String LOW_STOCK_CONDITION = "(SELECT SUM(t.quantity) FROM stocks t WHERE t.item_id = s.item_id AND t.quantity > 0) " +
+        "<= (SELECT i.threshold FROM items i WHERE i.id = s.item_id)";
+
+// 判定は StockService.getStockStatus と同じ（期限切れ → 期限近 → 在庫少 → 正常の順）
+// 保存した status はダッシュボード・商品画面・アラートの追跡がそのまま読む（読む側では判定し直さない）
+String STATUS_EXPRESSION = "CASE WHEN s.expiry_date < :today THEN 'EXPIRED' " +
+        "WHEN s.expiry_date < :expiringBefore THEN 'EXPIRING' " +
+        "WHEN " + LOW_STOCK_CONDITION + " THEN 'LOW_STOCK' " +
+        "ELSE 'NORMAL' END";
+
+// 在庫状況の重さ（正常 0 → 在庫少 1 → 期限近 2 → 期限切れ 3、未判定は 0）
+// 商品の在庫状況は、保存済みの status のうち在庫のあるロットで最も重いもの（MAX で集計する）
+String STATUS_SEVERITY = "CASE s.status WHEN 'EXPIRED' THEN 3 WHEN 'EXPIRING' THEN 2 WHEN 'LOW_STOCK' THEN 1 ELSE 0 END";
+
+// 書き込み時（商品単位、在庫少は同じ商品の全ロットに影響する）
+// 状況の変わった行だけ更新し、差分同期で検知できるよう updated_at も更新する
+@Modifying(flushAutomatically = true)
+@Query(value = "UPDATE stocks s SET status = " + STATUS_EXPRESSION + ", updated_at = :now " +
+               "WHERE s.item_id IN (:itemIds) AND s.status IS DISTINCT FROM " + STATUS_EXPRESSION, nativeQuery = true)
+int refreshStatusByItemIdIn(@Param("itemIds") Collection<Long> itemIds, @Param("today") LocalDate today,
+                            @Param("expiringBefore") LocalDate expiringBefore, @Param("now") LocalDateTime now);
+
+// 日付の切り替わり時（未判定のロットと、期限近・期限切れの境界をまたいだロットだけ）
+@Modifying
+@Query(value = "UPDATE stocks s SET status = " + STATUS_EXPRESSION + ", updated_at = :now " +
+               "WHERE (s.status IS NULL " +
+               "OR (s.status IN ('NORMAL', 'LOW_STOCK') AND s.expiry_date < :expiringBefore) " +
+               "OR (s.status = 'EXPIRING' AND s.expiry_date < :today)) " +
+               "AND s.status IS DISTINCT FROM " + STATUS_EXPRESSION, nativeQuery = true)
+int refreshStaleStatus(@Param("today") LocalDate today, @Param("expiringBefore") LocalDate expiringBefore,
+                       @Param("now") LocalDateTime now);
+
+// 在庫状況での絞り込み（期限の早い順）
+List<Stock> findByStatusAndQuantityGreaterThanOrderByExpiryDateAscIdAsc(StockService.StockStatus status, int quantity);
+
+// ===== カテゴリ配下（子孫のカテゴリを含む） =====
+
+String CATEGORY_SUBTREE = "(SELECT cc.descendantId FROM CategoryClosure cc WHERE cc.ancestorId = :categoryId)";
+
+// 在庫状況がアラート（statuses のいずれか）の在庫（期限の早い順）
+@Query("SELECT s FROM Stock s WHERE s.quantity > 0 AND s.status IN :statuses AND s.item.category.id IN " +
+       CATEGORY_SUBTREE + " ORDER BY s.expiryDate, s.id")
+List<Stock> findByCategorySubtreeAndStatusIn(@Param("categoryId") Long categoryId,
+                                             @Param("statuses") Collection<StockService.StockStatus> statuses);
+
+// 商品数・在庫のあるロットの数と合計・最も早い期限・在庫状況ごとのロット数
+@Query("SELECT new com.example.inventory.dto.CategoryStockSummary(COUNT(DISTINCT i.id), COUNT(s), " +
+       "COALESCE(SUM(s.quantity), 0L), MIN(s.expiryDate), " +
+       "COALESCE(SUM(CASE WHEN s.status = :lowStock THEN 1L ELSE 0L END), 0L), " +
+       "COALESCE(SUM(CASE WHEN s.status = :expiring THEN 1L ELSE 0L END), 0L), " +
+       "COALESCE(SUM(CASE WHEN s.status = :expired THEN 1L ELSE 0L END), 0L)) " +
+       "FROM Item i LEFT JOIN Stock s ON s.item = i AND s.quantity > 0 WHERE i.category.id IN " + CATEGORY_SUBTREE)
+CategoryStockSummary summarizeByCategorySubtree(@Param("categoryId") Long categoryId,
+                                                @Param("lowStock") StockService.StockStatus lowStock,
+                                                @Param("expiring") StockService.StockStatus expiring,
+                                                @Param("expired") StockService.StockStatus expired);
+
+// ===== コンパクション用（対象行をロックして取得、バッチサイズは Pageable で指定） =====
+
+// 在庫0のロット（スナップショットに未反映の増減があるロットは、stocks.quantity が古い可能性があるため除く）
+@Lock(LockModeType.PESSIMISTIC_WRITE)
+@Query("SELECT s FROM Stock s WHERE s.quantity = 0 AND NOT EXISTS (SELECT 1 FROM StockMovement m " +
+       "WHERE m.stockId = s.id AND m.id > COALESCE((SELECT sn.lastMovementId FROM StockSnapshot sn WHERE sn.stockId = s.id), 0)) " +
+       "ORDER BY s.id")
+List<Stock> findDepletedForUpdate(Pageable pageable);
+
+// 期限切れから一定期間経過したロット
+@Lock(LockModeType.PESSIMISTIC_WRITE)
+@Query("SELECT s FROM Stock s WHERE s.quantity > 0 AND s.expiryDate < :cutoff ORDER BY s.id")
+List<Stock> findExpiredBeforeForUpdate(@Param("cutoff") LocalDate cutoff, Pageable pageable);
+
+// 同一商品・同一期限で複数ある有効ロットのグループ（[itemId, expiryDate]）
+@Query("SELECT s.item.id, s.expiryDate FROM Stock s WHERE s.quantity > 0 " +
+       "GROUP BY s.item.id, s.expiryDate HAVING COUNT(s) > 1")
+List<Object[]> findDuplicateLotGroups(Pageable pageable);
+
+@Lock(LockModeType.PESSIMISTIC_WRITE)
+@Query("SELECT s FROM Stock s WHERE s.item.id = :itemId AND s.expiryDate = :expiryDate AND s.quantity > 0 ORDER BY s.id")
+List<Stock> findActiveLotsForUpdate(@Param("itemId") Long itemId, @Param("expiryDate") LocalDate expiryDate);
+
+@Lock(LockModeType.PESSIMISTIC_WRITE)
+@Query("SELECT s FROM Stock s WHERE s.item.id = :itemId AND s.expiryDate IS NULL AND s.quantity > 0 ORDER BY s.id")
+List<Stock> findActiveLotsWithoutExpiryForUpdate(@Param("itemId") Long itemId);
+
+// 一括削除（アーカイブ済みの行）
+@Modifying
+@Query("DELETE FROM Stock s WHERE s.id IN :ids")
+int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+
+// 商品・カテゴリ削除用（ORMのカスケードを使わず一括削除する）
+@Modifying
+@Query("DELETE FROM Stock s WHERE s.item.id = :itemId")
+int deleteByItemId(@Param("itemId") Long itemId);
+
+@Modifying
+@Query("DELETE FROM Stock s WHERE s.item.id IN (SELECT i.id FROM Item i WHERE i.category.id = :categoryId)")
+int deleteByCategoryId(@Param("categoryId") Long categoryId);
 }
@@ -1,10 +1,17 @@
 // StoreRepository.java
 package com.example.inventory.repository;
 
+import com.example.inventory.dto.StoreChange;
+import com.example.inventory.dto.ResourceStamp;
+import com.example.inventory.dto.TableVersion;
 import com.example.inventory.entity.Store;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.Optional;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -20,4 +27,19 @@ public interface StoreRepository extends JpaRepository<Store, Long> {
 
   // 場所で検索
   List<Store> findByLocationContainingIgnoreCase(String location);
+
+  // 条件付きGET用（一覧の件数・最終更新日時）
+  @Query("SELECT new com.example.inventory.dto.TableVersion(COUNT(s), MAX(s.updatedAt)) FROM Store s")
+  TableVersion getTableVersion();
+
+  // 条件付きGET用（詳細の更新日時のみ取得、エンティティはロードしない）
+  @Query("SELECT new com.example.inventory.dto.ResourceStamp(s.updatedAt) FROM Store s WHERE s.id = :id")
+  Optional<ResourceStamp> findStampById(@Param("id") Long id);
+
+  // 差分同期（更新日時 + ID のキーセットページング）
+  @Query("SELECT new com.example.inventory.dto.StoreChange(s.id, s.name, s.location, s.updatedAt) FROM Store s " +
+         "WHERE (s.updatedAt > :afterTs OR (s.updatedAt = :afterTs AND s.id > :afterId)) AND s.updatedAt <= :until " +
+         "ORDER BY s.updatedAt, s.id")
+  List<StoreChange> findChangesAfter(@Param("afterTs") LocalDateTime afterTs, @Param("afterId") Long afterId,
+                                     @Param("until") LocalDateTime until, Pageable pageable);
 }
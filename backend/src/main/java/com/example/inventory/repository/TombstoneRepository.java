@@ -0,0 +1,96 @@
+// TombstoneRepository.java
+package com.example.inventory.repository;
+
+import com.example.inventory.dto.DeletedEntity;
+import com.example.inventory.entity.Tombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TombstoneRepository extends JpaRepository<Tombstone, Long> {
+
+  // 差分同期（削除日時 + ID のキーセットページング）
+  @Query("SELECT new com.example.inventory.dto.DeletedEntity(t.id, t.entityType, t.entityId, t.deletedAt) FROM Tombstone t " +
+         "WHERE (t.deletedAt > :afterTs OR (t.deletedAt = :afterTs AND t.id > :afterId)) AND t.deletedAt <= :until " +
+         "ORDER BY t.deletedAt, t.id")
+  List<DeletedEntity> findChangesAfter(@Param("afterTs") LocalDateTime afterTs, @Param("afterId") Long afterId,
+                                       @Param("until") LocalDateTime until, Pageable pageable);
+
+  // ===== 削除記録（削除と同じトランザクションで、削除前に実行する） =====
+  // 存在する行のみ記録されるよう INSERT ... SELECT で登録する
+
+  @Modifying
+  @Query(value = "INSERT INTO tombstones (entity_type, entity_id, deleted_at) " +
+                 "SELECT 'CATEGORY', c.id, :now FROM categories c WHERE c.id = :categoryId", nativeQuery = true)
+  int recordCategory(@Param("categoryId") Long categoryId, @Param("now") LocalDateTime now);
+
+  @Modifying
+  @Query(value = "INSERT INTO tombstones (entity_type, entity_id, deleted_at) " +
+                 "SELECT 'STORE', s.id, :now FROM stores s WHERE s.id = :storeId", nativeQuery = true)
+  int recordStore(@Param("storeId") Long storeId, @Param("now") LocalDateTime now);
+
+  @Modifying
+  @Query(value = "INSERT INTO tombstones (entity_type, entity_id, deleted_at) " +
+                 "SELECT 'ITEM', i.id, :now FROM items i WHERE i.id = :itemId", nativeQuery = true)
+  int recordItem(@Param("itemId") Long itemId, @Param("now") LocalDateTime now);
+
+  @Modifying
+  @Query(value = "INSERT INTO tombstones (entity_type, entity_id, deleted_at) " +
+                 "SELECT 'STOCK', s.id, :now FROM stocks s WHERE s.id = :stockId", nativeQuery = true)
+  int recordStock(@Param("stockId") Long stockId, @Param("now") LocalDateTime now);
+
+  @Modifying
+  @Query(value = "INSERT INTO tombstones (entity_type, entity_id, deleted_at) " +
+                 "SELECT 'PURCHASE_HISTORY', p.id, :now FROM purchase_histories p WHERE p.id = :purchaseHistoryId", nativeQuery = true)
+  int recordPurchaseHistory(@Param("purchaseHistoryId") Long purchaseHistoryId, @Param("now") LocalDateTime now);
+
+  // 複数在庫（コンパクションでアーカイブした行）
+  @Modifying
+  @Query(value = "INSERT INTO tombstones (entity_type, entity_id, deleted_at) " +
+                 "SELECT 'STOCK', s.id, :now FROM stocks s WHERE s.id IN (:stockIds)", nativeQuery = true)
+  int recordStocks(@Param("stockIds") Collection<Long> stockIds, @Param("now") LocalDateTime now);
+
+  // 期間内の購入履歴（保持期間を過ぎて月次サマリーへ集約した行）
+  @Modifying
+  @Query(value = "INSERT INTO tombstones (entity_type, entity_id, deleted_at) " +
+                 "SELECT 'PURCHASE_HISTORY', p.id, :now FROM purchase_histories p " +
+                 "WHERE p.purchased_at >= :from AND p.purchased_at < :to", nativeQuery = true)
+  int recordPurchaseHistoriesBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                     @Param("now") LocalDateTime now);
+
+  // 商品に紐づく在庫・購入履歴（Item削除時のカスケード分）
+  @Modifying
+  @Query(value = "INSERT INTO tombstones (entity_type, entity_id, deleted_at) " +
+                 "SELECT 'STOCK', s.id, :now FROM stocks s WHERE s.item_id = :itemId", nativeQuery = true)
+  int recordStocksOfItem(@Param("itemId") Long itemId, @Param("now") LocalDateTime now);
+
+  @Modifying
+  @Query(value = "INSERT INTO tombstones (entity_type, entity_id, deleted_at) " +
+                 "SELECT 'PURCHASE_HISTORY', p.id, :now FROM purchase_histories p WHERE p.item_id = :itemId", nativeQuery = true)
+  int recordPurchaseHistoriesOfItem(@Param("itemId") Long itemId, @Param("now") LocalDateTime now);
+
+  // カテゴリに紐づく商品・在庫・購入履歴（Category削除時のカスケード分）
+  @Modifying
+  @Query(value = "INSERT INTO tombstones (entity_type, entity_id, deleted_at) " +
+                 "SELECT 'ITEM', i.id, :now FROM items i WHERE i.category_id = :categoryId", nativeQuery = true)
+  int recordItemsOfCategory(@Param("categoryId") Long categoryId, @Param("now") LocalDateTime now);
+
+  @Modifying
+  @Query(value = "INSERT INTO tombstones (entity_type, entity_id, deleted_at) " +
+                 "SELECT 'STOCK', s.id, :now FROM stocks s JOIN items i ON s.item_id = i.id " +
+                 "WHERE i.category_id = :categoryId", nativeQuery = true)
+  int recordStocksOfCategory(@Param("categoryId") Long categoryId, @Param("now") LocalDateTime now);
+
+  @Modifying
+  @Query(value = "INSERT INTO tombstones (entity_type, entity_id, deleted_at) " +
+                 "SELECT 'PURCHASE_HISTORY', p.id, :now FROM purchase_histories p JOIN items i ON p.item_id = i.id " +
+                 "WHERE i.category_id = :categoryId", nativeQuery = true)
+  int recordPurchaseHistoriesOfCategory(@Param("categoryId") Long categoryId, @Param("now") LocalDateTime now);
+}
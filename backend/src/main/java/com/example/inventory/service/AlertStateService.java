@@ -0,0 +1,317 @@
+package com.example.inventory.service;
+
+import com.example.inventory.config.DataSourceRouting;
+import com.example.inventory.dto.AlertChange;
+import com.example.inventory.dto.AlertChangePage;
+import com.example.inventory.event.ItemChangedEvent;
+import com.example.inventory.event.StockChangedEvent;
+import com.example.inventory.event.StockStatusRefreshedEvent;
+import com.example.inventory.repository.AlertStateRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// アラート状態の追跡（どの在庫・商品がアラート中かを持ち、発生・解消の差分をトークンで返す）
+// - 在庫のアラートは /stocks/alerts/* と同じ保存済みの在庫状況（在庫少・期限近・期限切れ）、
+//   商品のアラートは在庫少の基準（StockRepository.LOW_STOCK_CONDITION）を満たす商品
+// - 在庫・商品の書き込み（コミット後のイベント）で該当商品だけを読み直し、前の状態との差を発生・解消として記録する
+// - 日付の切り替わりでは、StockStatusService が在庫状況を判定し直した後（StockStatusRefreshedEvent）に全体を読み直す
+// - 発生・解消は通し番号付きで直近 capacity 件まで保持する。トークンより古い分が残っていない場合と、
+//   別のプロセス（再起動前など）のトークンの場合は、現在のアラートすべてを返す（reset）
+// - 差分を返した回数・すべてを返した回数を inventory.alerts.changes.requests（result=delta/reset）で出す
+@Service
+public class AlertStateService {
+
+    private static final Logger log = LoggerFactory.getLogger(AlertStateService.class);
+
+    private final AlertStateRepository alertStateRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int capacity;
+    private final Counter delta;
+    private final Counter reset;
+
+    // トークンの発行元（プロセスごとに変わる）
+    private final String epoch;
+
+    // 読み込み・読み直しは1つずつ実行する（後から読んだ内容が必ず後から反映されるように）
+    private final Object loadLock = new Object();
+
+    // 以下は stateLock で保護する
+    private final Object stateLock = new Object();
+    private final Map<Key, AlertChange> current = new LinkedHashMap<>();  // アラート中のもの（action=RAISED）
+    private final Map<Long, Set<Key>> keysByItem = new HashMap<>();       // 商品ID → その商品のアラート
+    private final ArrayDeque<Logged> changes = new ArrayDeque<>();
+    private long sequence;
+    private boolean loaded;
+
+    public AlertStateService(AlertStateRepository alertStateRepository,
+                             PlatformTransactionManager transactionManager,
+                             Clock clock,
+                             MeterRegistry meterRegistry,
+                             @Value("${inventory.alerts.changes.capacity:10000}") int capacity) {
+        this.alertStateRepository = alertStateRepository;
+        // コミット直後のイベントからも呼ぶため、元のトランザクションとは別に実行する
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate.setReadOnly(true);
+        this.capacity = Math.max(1, capacity);
+        this.delta = counter(meterRegistry, "delta");
+        this.reset = counter(meterRegistry, "reset");
+        this.epoch = Long.toString(clock.millis(), 36);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("inventory.alerts.changes.requests")
+                .description("アラートの差分のリクエスト数（reset は現在のアラートすべてを返した分）")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    // ===== 参照 =====
+
+    // since: 前回のレスポンスの token（null なら現在のアラートすべて）。不正なトークンは IllegalArgumentException
+    public AlertChangePage getChangesSince(String since) {
+        Token token = since == null || since.isBlank() ? null : Token.decode(since);
+        ensureCurrent();
+        synchronized (stateLock) {
+            String next = new Token(epoch, sequence).encode();
+            // 保持している最も古い発生・解消の直前までのトークンなら差分を返せる
+            long oldest = changes.isEmpty() ? sequence : changes.peekFirst().sequence() - 1;
+            if (token != null && token.epoch().equals(epoch)
+                    && token.sequence() >= oldest && token.sequence() <= sequence) {
+                List<AlertChange> result = new ArrayList<>();
+                Iterator<Logged> newestFirst = changes.descendingIterator();
+                while (newestFirst.hasNext()) {
+                    Logged logged = newestFirst.next();
+                    if (logged.sequence() <= token.sequence()) {
+                        break;
+                    }
+                    result.add(logged.change());
+                }
+                Collections.reverse(result);
+                delta.increment();
+                return new AlertChangePage(next, false, result);
+            }
+            reset.increment();
+            return new AlertChangePage(next, true, List.copyOf(current.values()));
+        }
+    }
+
+    // 未読み込み（起動時・読み直しの失敗後）なら読み込む
+    private void ensureCurrent() {
+        synchronized (stateLock) {
+            if (loaded) {
+                return;
+            }
+        }
+        synchronized (loadLock) {
+            synchronized (stateLock) {
+                if (loaded) {
+                    return;
+                }
+            }
+            rebuild();
+        }
+    }
+
+    // ===== 読み込み =====
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            rebuild();
+        } catch (DataAccessException | TransactionException e) {
+            // 読み込めなかった場合は次の参照時に読み込み直す
+            log.warn("アラート状態の初期化に失敗しました", e);
+        }
+    }
+
+    // 全商品を読み直し、前の状態との差を発生・解消として記録する（現在のアラート数）
+    public int rebuild() {
+        synchronized (loadLock) {
+            List<AlertChange> alerts = load(null);
+            synchronized (stateLock) {
+                apply(null, alerts);
+                loaded = true;
+                log.info("アラート状態を読み込みました: {} 件", current.size());
+                return current.size();
+            }
+        }
+    }
+
+    // ===== 書き込み時 =====
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        reload(event.itemIds());
+    }
+
+    // 閾値の変更と商品の削除
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        reload(event.itemIds());
+    }
+
+    // ===== 日付の切り替わり =====
+
+    // 保存済みの在庫状況が判定し直された後に読み直し、期限近・期限切れになった分を発生として記録する
+    @EventListener
+    public void onStockStatusRefreshed(StockStatusRefreshedEvent event) {
+        reload(null);
+    }
+
+    // itemIds が null なら全商品
+    private void reload(Set<Long> itemIds) {
+        synchronized (loadLock) {
+            synchronized (stateLock) {
+                // 未読み込みなら次の参照時にまとめて読み込む
+                if (!loaded) {
+                    return;
+                }
+            }
+            try {
+                List<AlertChange> alerts = load(itemIds);
+                synchronized (stateLock) {
+                    apply(itemIds, alerts);
+                }
+            } catch (DataAccessException | TransactionException e) {
+                // 古い状態で差分を返さないよう、次の参照時に全体を読み直す
+                log.warn("アラート状態の更新に失敗しました: itemIds={}", itemIds, e);
+                synchronized (stateLock) {
+                    loaded = false;
+                }
+            }
+        }
+    }
+
+    // 書き込み直後の状態を読むため、レプリカ構成でもプライマリから読む（itemIds が null なら全商品）
+    private List<AlertChange> load(Collection<Long> itemIds) {
+        return DataSourceRouting.onPrimary(() -> transactionTemplate.execute(status -> {
+            List<AlertChange> alerts = new ArrayList<>();
+            alertStateRepository.findStockAlerts(itemIds)
+                    .forEach(row -> alerts.add(new AlertChange(AlertChange.Target.STOCK, row.stockId(), row.itemId(),
+                            row.status(), AlertChange.Action.RAISED)));
+            alertStateRepository.findLowStockItemIds(itemIds)
+                    .forEach(itemId -> alerts.add(new AlertChange(AlertChange.Target.ITEM, itemId, itemId,
+                            StockService.StockStatus.LOW_STOCK, AlertChange.Action.RAISED)));
+            return alerts;
+        }));
+    }
+
+    // ===== 差分の記録（stateLock 内で呼ぶ） =====
+
+    // itemIds の商品（null なら全商品）のアラートを alerts に置き換える
+    private void apply(Collection<Long> itemIds, List<AlertChange> alerts) {
+        Map<Key, AlertChange> next = new LinkedHashMap<>();
+        alerts.forEach(alert -> next.put(Key.of(alert), alert));
+
+        Collection<Long> scope = itemIds != null ? itemIds : new ArrayList<>(keysByItem.keySet());
+        for (Long itemId : scope) {
+            for (Key key : new ArrayList<>(keysByItem.getOrDefault(itemId, Set.of()))) {
+                if (!next.containsKey(key)) {
+                    clear(key);
+                }
+            }
+        }
+        next.forEach((key, alert) -> {
+            AlertChange previous = current.get(key);
+            if (previous != null && previous.status() == alert.status()) {
+                if (!previous.itemId().equals(alert.itemId())) {
+                    // 別の商品へ移ったロット（アラートは続いている）
+                    unindex(key, previous.itemId());
+                    index(key, alert.itemId());
+                    current.put(key, alert);
+                }
+                return;
+            }
+            if (previous != null) {
+                clear(key);
+            }
+            current.put(key, alert);
+            index(key, alert.itemId());
+            append(alert);
+        });
+    }
+
+    private void clear(Key key) {
+        AlertChange previous = current.remove(key);
+        unindex(key, previous.itemId());
+        append(new AlertChange(previous.target(), previous.id(), previous.itemId(), previous.status(),
+                AlertChange.Action.CLEARED));
+    }
+
+    private void index(Key key, Long itemId) {
+        keysByItem.computeIfAbsent(itemId, id -> new HashSet<>()).add(key);
+    }
+
+    private void unindex(Key key, Long itemId) {
+        Set<Key> keys = keysByItem.get(itemId);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keysByItem.remove(itemId);
+            }
+        }
+    }
+
+    private void append(AlertChange change) {
+        changes.addLast(new Logged(++sequence, change));
+        if (changes.size() > capacity) {
+            changes.removeFirst();
+        }
+    }
+
+    private record Key(AlertChange.Target target, Long id) {
+
+        static Key of(AlertChange alert) {
+            return new Key(alert.target(), alert.id());
+        }
+    }
+
+    private record Logged(long sequence, AlertChange change) {
+    }
+
+    // 差分APIのトークン（発行元と、その時点で最後の通し番号）
+    private record Token(String epoch, long sequence) {
+
+        String encode() {
+            String raw = epoch + "|" + sequence;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Token decode(String value) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+                String[] parts = raw.split("\\|");
+                return new Token(parts[0], Long.parseLong(parts[1]));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("不正なトークンです: " + value, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.SpendingTotals;
+import com.example.inventory.repository.AnnualReportRepository;
+import com.example.inventory.repository.CategoryRepository;
+import com.example.inventory.repository.StoreRepository;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 年間支出レポート（月 × カテゴリ × 店舗ごとの購入件数・数量・金額、月計・年計）
+// - 年を月ごとに分け、各月を別スレッド・別トランザクションで、購入を1行ずつ読みながら集計する（parallelism 並列、既定 2）
+//   各月の集計は読み終わるまで接続プールの接続を1つ使い続けるため、並列数はそのまま通常のリクエストが使える接続を減らす
+//   （在庫履歴・購入周期の並列ジョブと合わせて、接続プールの大きさ（Hikari の既定は 10）に収まるようにする）
+// - 出力は月の順に、その月の集計が終わりしだい書き出す。保持する集計はカテゴリ × 店舗の組み合わせ数分だけで、購入件数には依存しない
+// - 保持期間を過ぎた月は月次サマリーから集計する（店舗は記録されていないため店舗なしの行になる）
+@Service
+public class AnnualReportService {
+
+    public enum Format {
+        CSV,
+        JSON
+    }
+
+    // カテゴリ → 店舗の順（未設定は最後）
+    private static final Comparator<Row> ROW_ORDER = Comparator
+            .comparing(Row::categoryId, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Row::storeId, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final AnnualReportRepository annualReportRepository;
+    private final CategoryRepository categoryRepository;
+    private final StoreRepository storeRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+
+    public AnnualReportService(AnnualReportRepository annualReportRepository,
+                               CategoryRepository categoryRepository,
+                               StoreRepository storeRepository,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${inventory.report.parallelism:2}") int parallelism) {
+        this.annualReportRepository = annualReportRepository;
+        this.categoryRepository = categoryRepository;
+        this.storeRepository = storeRepository;
+        this.objectMapper = objectMapper;
+        // カーソルで読むためトランザクション内で実行する（レプリカ構成ならレプリカから読む）
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        // 月の数より多くは使わない
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.min(12, Math.max(1, parallelism)), runnable -> {
+            Thread thread = new Thread(runnable, "annual-report-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // 出力を始める前に呼ぶ（書き出し開始後はステータスコードを返せないため）
+    public void validateYear(int year) {
+        if (year < 2000 || year > 9999) {
+            throw new IllegalArgumentException("year は 2000〜9999 で指定してください: " + year);
+        }
+    }
+
+    public void write(int year, Format format, OutputStream out) throws IOException {
+        validateYear(year);
+        Map<Long, String> categoryNames = new HashMap<>();
+        categoryRepository.findAll().forEach(category -> categoryNames.put(category.getId(), category.getName()));
+        Map<Long, String> storeNames = new HashMap<>();
+        storeRepository.findAll().forEach(store -> storeNames.put(store.getId(), store.getName()));
+
+        List<CompletableFuture<MonthReport>> months = new ArrayList<>(12);
+        for (int month = 1; month <= 12; month++) {
+            YearMonth target = YearMonth.of(year, month);
+            months.add(CompletableFuture.supplyAsync(
+                    () -> transactionTemplate.execute(status -> aggregate(target)), executor));
+        }
+
+        ReportWriter writer = format == Format.CSV
+                ? new CsvReportWriter(out, categoryNames, storeNames)
+                : new JsonReportWriter(objectMapper, out, categoryNames, storeNames);
+        try {
+            SpendingTotals total = SpendingTotals.ZERO;
+            writer.begin(year);
+            for (CompletableFuture<MonthReport> month : months) {
+                MonthReport report = join(month);
+                writer.month(report);
+                total = total.plus(report.total());
+            }
+            writer.end(total);
+        } finally {
+            // 途中で失敗した（クライアントが切断した）場合、まだ始まっていない月は集計しない
+            months.forEach(month -> month.cancel(false));
+        }
+    }
+
+    private static MonthReport join(CompletableFuture<MonthReport> month) {
+        try {
+            return month.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // 1か月分の集計（このスレッドだけが触るマップに加算していく）
+    private MonthReport aggregate(YearMonth month) {
+        Map<RowKey, long[]> sums = new HashMap<>();
+        annualReportRepository.forEachPurchase(month, (categoryId, storeId, purchaseCount, quantity, totalPrice) -> {
+            long[] sum = sums.computeIfAbsent(new RowKey(categoryId, storeId), key -> new long[3]);
+            sum[0] += purchaseCount;
+            sum[1] += quantity;
+            sum[2] += totalPrice;
+        });
+
+        List<Row> rows = new ArrayList<>(sums.size());
+        SpendingTotals total = SpendingTotals.ZERO;
+        for (Map.Entry<RowKey, long[]> entry : sums.entrySet()) {
+            long[] sum = entry.getValue();
+            SpendingTotals totals = new SpendingTotals(sum[0], sum[1], sum[2]);
+            rows.add(new Row(entry.getKey().categoryId(), entry.getKey().storeId(), totals));
+            total = total.plus(totals);
+        }
+        rows.sort(ROW_ORDER);
+        return new MonthReport(month, rows, total);
+    }
+
+    private record RowKey(Long categoryId, Long storeId) {
+    }
+
+    private record Row(Long categoryId, Long storeId, SpendingTotals totals) {
+    }
+
+    private record MonthReport(YearMonth month, List<Row> rows, SpendingTotals total) {
+    }
+
+    // ===== 出力 =====
+
+    private interface ReportWriter {
+
+        void begin(int year) throws IOException;
+
+        // 月ごとに書き出してクライアントへ送る
+        void month(MonthReport report) throws IOException;
+
+        void end(SpendingTotals total) throws IOException;
+    }
+
+    // 月 × カテゴリ × 店舗の行だけを出力する（月計・年計は表計算ソフト側で集計する）
+    // Excel で開いたときに文字化けしないよう、先頭に BOM を付ける
+    private static final class CsvReportWriter implements ReportWriter {
+
+        private final Writer writer;
+        private final Map<Long, String> categoryNames;
+        private final Map<Long, String> storeNames;
+
+        CsvReportWriter(OutputStream out, Map<Long, String> categoryNames, Map<Long, String> storeNames) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            this.categoryNames = categoryNames;
+            this.storeNames = storeNames;
+        }
+
+        @Override
+        public void begin(int year) throws IOException {
+            writer.write('\uFEFF');
+            writer.write("month,category_id,category_name,store_id,store_name,purchase_count,total_quantity,total_price\r\n");
+        }
+
+        @Override
+        public void month(MonthReport report) throws IOException {
+            for (Row row : report.rows()) {
+                writer.write(String.join(",",
+                        report.month().toString(),
+                        idOf(row.categoryId()),
+                        quote(categoryNames.get(row.categoryId())),
+                        idOf(row.storeId()),
+                        quote(storeNames.get(row.storeId())),
+                        Long.toString(row.totals().purchaseCount()),
+                        Long.toString(row.totals().totalQuantity()),
+                        Long.toString(row.totals().totalPrice())));
+                writer.write("\r\n");
+            }
+            writer.flush();
+        }
+
+        @Override
+        public void end(SpendingTotals total) throws IOException {
+            writer.flush();
+        }
+
+        private static String idOf(Long id) {
+            return id != null ? id.toString() : "";
+        }
+
+        private static String quote(String value) {
+            if (value == null) {
+                return "";
+            }
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+    }
+
+    // {"year":2025,"months":[{"month":"2025-01",...月計,"rows":[...]}],"total":{...年計}}
+    private static final class JsonReportWriter implements ReportWriter {
+
+        private final JsonGenerator generator;
+        private final Map<Long, String> categoryNames;
+        private final Map<Long, String> storeNames;
+
+        JsonReportWriter(ObjectMapper objectMapper, OutputStream out,
+                         Map<Long, String> categoryNames, Map<Long, String> storeNames) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+            this.generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            this.categoryNames = categoryNames;
+            this.storeNames = storeNames;
+        }
+
+        @Override
+        public void begin(int year) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("year", year);
+            generator.writeArrayFieldStart("months");
+        }
+
+        @Override
+        public void month(MonthReport report) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("month", report.month().toString());
+            writeTotals(report.total());
+            generator.writeArrayFieldStart("rows");
+            for (Row row : report.rows()) {
+                generator.writeStartObject();
+                writeId("categoryId", row.categoryId());
+                generator.writeStringField("categoryName", categoryNames.get(row.categoryId()));
+                writeId("storeId", row.storeId());
+                generator.writeStringField("storeName", storeNames.get(row.storeId()));
+                writeTotals(row.totals());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.flush();
+        }
+
+        @Override
+        public void end(SpendingTotals total) throws IOException {
+            generator.writeEndArray();
+            generator.writeObjectFieldStart("total");
+            writeTotals(total);
+            generator.writeEndObject();
+            generator.writeEndObject();
+            generator.close();
+        }
+
+        private void writeId(String name, Long id) throws IOException {
+            if (id != null) {
+                generator.writeNumberField(name, id);
+            } else {
+                generator.writeNullField(name);
+            }
+        }
+
+        private void writeTotals(SpendingTotals totals) throws IOException {
+            generator.writeNumberField("purchaseCount", totals.purchaseCount());
+            generator.writeNumberField("totalQuantity", totals.totalQuantity());
+            generator.writeNumberField("totalPrice", totals.totalPrice());
+        }
+    }
+}
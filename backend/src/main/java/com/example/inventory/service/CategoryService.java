@@ -1,18 +1,65 @@
 package com.example.inventory.service;
 
+import com.example.inventory.dto.DeletionResult;
 import com.example.inventory.entity.Category;
+import com.example.inventory.event.ItemChangedEvent;
+import com.example.inventory.event.StockChangedEvent;
 import com.example.inventory.repository.CategoryRepository;
+import com.example.inventory.repository.ItemPriceSummaryRepository;
+import com.example.inventory.repository.ItemRepository;
+import com.example.inventory.repository.PurchaseHistoryRepository;
+import com.example.inventory.repository.PurchaseHistorySummaryRepository;
+import com.example.inventory.repository.PurchasePatternRepository;
+import com.example.inventory.repository.StockArchiveRepository;
+import com.example.inventory.repository.StockRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
+@Transactional(readOnly = true)
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final CategoryTreeService categoryTreeService;
+    private final ItemRepository itemRepository;
+    private final StockRepository stockRepository;
+    private final StockArchiveRepository stockArchiveRepository;
+    private final PurchaseHistoryRepository purchaseHistoryRepository;
+    private final PurchaseHistorySummaryRepository purchaseHistorySummaryRepository;
+    private final ItemPriceSummaryRepository itemPriceSummaryRepository;
+    private final PurchasePatternRepository purchasePatternRepository;
+    private final StockLedgerService stockLedgerService;
+    private final TombstoneService tombstoneService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public CategoryService(CategoryRepository categoryRepository) {
+    public CategoryService(CategoryRepository categoryRepository,
+                           CategoryTreeService categoryTreeService,
+                           ItemRepository itemRepository,
+                           StockRepository stockRepository,
+                           StockArchiveRepository stockArchiveRepository,
+                           PurchaseHistoryRepository purchaseHistoryRepository,
+                           PurchaseHistorySummaryRepository purchaseHistorySummaryRepository,
+                           ItemPriceSummaryRepository itemPriceSummaryRepository,
+                           PurchasePatternRepository purchasePatternRepository,
+                           StockLedgerService stockLedgerService,
+                           TombstoneService tombstoneService,
+                           ApplicationEventPublisher eventPublisher) {
         this.categoryRepository = categoryRepository;
+        this.categoryTreeService = categoryTreeService;
+        this.itemRepository = itemRepository;
+        this.stockRepository = stockRepository;
+        this.stockArchiveRepository = stockArchiveRepository;
+        this.purchaseHistoryRepository = purchaseHistoryRepository;
+        this.purchaseHistorySummaryRepository = purchaseHistorySummaryRepository;
+        this.itemPriceSummaryRepository = itemPriceSummaryRepository;
+        this.purchasePatternRepository = purchasePatternRepository;
+        this.stockLedgerService = stockLedgerService;
+        this.tombstoneService = tombstoneService;
+        this.eventPublisher = eventPublisher;
     }
 
     // 一覧取得
@@ -25,14 +72,56 @@ public class CategoryService {
         return categoryRepository.findById(id);
     }
 
-    // 登録・更新
+    // 登録・更新（parentId の変更は配下ごとの移動、閉包テーブルも同じトランザクションで更新する）
+    // 存在しない親・自分自身や配下を親にした場合は IllegalArgumentException
+    @Transactional
     public Category save(Category category) {
-        return categoryRepository.save(category);
+        Long parentId = category.getParentId();
+        Optional<Category> existing = category.getId() != null
+                ? categoryRepository.findById(category.getId()) : Optional.empty();
+        if (existing.isEmpty()) {
+            categoryTreeService.validateParent(null, parentId);
+            Category saved = categoryRepository.save(category);
+            categoryTreeService.insert(saved.getId(), parentId);
+            return saved;
+        }
+
+        // 受け取ったエンティティをそのまま merge せず、読み込んだエンティティの項目だけを書き換える
+        // （本文に含まれない作成日時・関連を上書きしない）
+        Category current = existing.get();
+        categoryTreeService.validateParent(current.getId(), parentId);
+        Long previousParentId = current.getParentId();
+        current.setName(category.getName());
+        current.setParentId(parentId);
+        Category saved = categoryRepository.save(current);
+        if (!Objects.equals(previousParentId, parentId)) {
+            categoryTreeService.move(current.getId(), parentId);
+        }
+        return saved;
     }
 
-    // 削除
-    public void delete(Long id) {
-        categoryRepository.deleteById(id);
+    // 削除（商品・在庫・購入履歴をエンティティとして読み込まず、依存関係の順に一括削除する）
+    // 商品数に関係なく発行するSQLは固定数。差分同期用に、一緒に消える行も含めて先に削除記録を残す
+    // 子カテゴリは削除せず、削除するカテゴリの親へ繰り上げる
+    @Transactional
+    public DeletionResult delete(Long id) {
+        List<Long> itemIds = itemRepository.findIdsByCategoryId(id);
+        tombstoneService.recordCategoryDeletion(id);
+        purchaseHistorySummaryRepository.deleteByCategoryId(id);
+        itemPriceSummaryRepository.deleteByCategoryId(id);
+        purchasePatternRepository.deleteByCategoryId(id);
+        stockArchiveRepository.deleteByCategoryId(id);
+        stockLedgerService.deleteByCategoryId(id);
+        int purchaseHistories = purchaseHistoryRepository.deleteByCategoryId(id);
+        int stocks = stockRepository.deleteByCategoryId(id);
+        int items = itemRepository.deleteByCategoryId(id);
+        categoryTreeService.remove(id);
+        int categories = categoryRepository.deleteCategoryById(id);
+        if (!itemIds.isEmpty()) {
+            eventPublisher.publishEvent(ItemChangedEvent.of(itemIds));
+            eventPublisher.publishEvent(StockChangedEvent.of(itemIds));
+        }
+        return new DeletionResult(categories, items, stocks, purchaseHistories);
     }
 
     // 基本的な検索メソッド
@@ -0,0 +1,168 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.CategoryStockSummary;
+import com.example.inventory.entity.Category;
+import com.example.inventory.entity.CategoryClosure;
+import com.example.inventory.entity.Item;
+import com.example.inventory.entity.Stock;
+import com.example.inventory.repository.CategoryClosureRepository;
+import com.example.inventory.repository.CategoryRepository;
+import com.example.inventory.repository.ItemRepository;
+import com.example.inventory.repository.StockRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// カテゴリの階層（categories.parent_id）と閉包テーブル（category_closure）の維持、配下の読み取り
+// - 閉包テーブルは祖先・子孫のすべての組を持ち、配下の商品・在庫・アラートを階層をたどらず1回のクエリで引く
+// - 登録・移動・削除は CategoryService から同じトランザクションで呼び、変わる組だけを更新する
+//   （登録は祖先の数、移動は配下の数 × 祖先の数の行）
+// - 起動時に閉包テーブルに登録されていないカテゴリがあれば（階層の追加前のデータなど）全体を作り直す
+@Service
+@Transactional(readOnly = true)
+public class CategoryTreeService {
+
+    private static final Logger log = LoggerFactory.getLogger(CategoryTreeService.class);
+
+    private static final List<StockService.StockStatus> ALERT_STATUSES = List.of(
+            StockService.StockStatus.LOW_STOCK, StockService.StockStatus.EXPIRING, StockService.StockStatus.EXPIRED);
+
+    private final CategoryRepository categoryRepository;
+    private final CategoryClosureRepository categoryClosureRepository;
+    private final ItemRepository itemRepository;
+    private final StockRepository stockRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public CategoryTreeService(CategoryRepository categoryRepository,
+                               CategoryClosureRepository categoryClosureRepository,
+                               ItemRepository itemRepository,
+                               StockRepository stockRepository,
+                               PlatformTransactionManager transactionManager) {
+        this.categoryRepository = categoryRepository;
+        this.categoryClosureRepository = categoryClosureRepository;
+        this.itemRepository = itemRepository;
+        this.stockRepository = stockRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // ===== 起動時 =====
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (categoryClosureRepository.countByDepth(0) != categoryRepository.count()) {
+                    int rows = rebuild();
+                    log.info("カテゴリの閉包テーブルを作り直しました: {} 行", rows);
+                }
+            });
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("カテゴリの閉包テーブルの初期化に失敗しました", e);
+        }
+    }
+
+    // categories.parent_id から全体を作り直す（起動時・スナップショットの復元後）
+    @Transactional
+    public int rebuild() {
+        Map<Long, Long> parents = new HashMap<>();
+        for (Object[] row : categoryRepository.findParentIds()) {
+            parents.put((Long) row[0], (Long) row[1]);
+        }
+        categoryClosureRepository.deleteAllRows();
+        List<CategoryClosure> rows = new ArrayList<>();
+        parents.keySet().forEach(id -> {
+            // 親をたどって祖先と段数を並べる（存在しない親・循環があればそこで打ち切る）
+            Set<Long> visited = new HashSet<>();
+            Long ancestor = id;
+            int depth = 0;
+            while (ancestor != null && parents.containsKey(ancestor) && visited.add(ancestor)) {
+                rows.add(new CategoryClosure(null, ancestor, id, depth));
+                ancestor = parents.get(ancestor);
+                depth++;
+            }
+        });
+        categoryClosureRepository.saveAll(rows);
+        return rows.size();
+    }
+
+    // ===== 登録・移動・削除（CategoryService のトランザクション内で呼ぶ） =====
+
+    // 親（null は最上位）として指定できるか。id は移動するカテゴリ（新規なら null）
+    // 存在しない親・自分自身や配下への移動は IllegalArgumentException
+    public void validateParent(Long id, Long parentId) {
+        if (parentId == null) {
+            return;
+        }
+        if (!categoryRepository.existsById(parentId)) {
+            throw new IllegalArgumentException("親カテゴリが存在しません: " + parentId);
+        }
+        if (id != null && categoryClosureRepository.existsByAncestorIdAndDescendantId(id, parentId)) {
+            throw new IllegalArgumentException("自分自身または配下のカテゴリは親にできません: " + parentId);
+        }
+    }
+
+    // 閉包テーブル上の現在の親（未登録・最上位なら null）
+    public Long findParentId(Long id) {
+        return categoryClosureRepository.findParentId(id).orElse(null);
+    }
+
+    @Transactional
+    public void insert(Long id, Long parentId) {
+        categoryClosureRepository.insertSelf(id);
+        if (parentId != null) {
+            categoryClosureRepository.insertUnder(id, parentId);
+        }
+    }
+
+    // 配下ごと parentId（null は最上位）の下へ移す
+    @Transactional
+    public void move(Long id, Long parentId) {
+        categoryClosureRepository.detachSubtree(id);
+        if (parentId != null) {
+            categoryClosureRepository.attachSubtree(id, parentId);
+        }
+    }
+
+    // 子を削除するカテゴリの親へ繰り上げてから、削除するカテゴリの組を消す
+    @Transactional
+    public void remove(Long id) {
+        Long parentId = findParentId(id);
+        categoryRepository.reparentChildren(id, parentId, LocalDateTime.now());
+        categoryClosureRepository.shortenPathsThrough(id);
+        categoryClosureRepository.deleteByCategoryId(id);
+    }
+
+    // ===== 配下の読み取り（子孫のカテゴリを含む） =====
+
+    public List<Category> findDescendants(Long id) {
+        return categoryRepository.findDescendants(id);
+    }
+
+    public List<Item> findItems(Long id) {
+        return itemRepository.findByCategorySubtree(id);
+    }
+
+    public CategoryStockSummary getStockSummary(Long id) {
+        return stockRepository.summarizeByCategorySubtree(id, StockService.StockStatus.LOW_STOCK,
+                StockService.StockStatus.EXPIRING, StockService.StockStatus.EXPIRED);
+    }
+
+    // 在庫少・期限近・期限切れの在庫（期限の早い順）
+    public List<Stock> findAlerts(Long id) {
+        return stockRepository.findByCategorySubtreeAndStatusIn(id, ALERT_STATUSES);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.DashboardSummary;
+import com.example.inventory.event.ItemChangedEvent;
+import com.example.inventory.event.StockChangedEvent;
+import com.example.inventory.event.StockStatusRefreshedEvent;
+import com.example.inventory.repository.DashboardRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// ホーム画面のダッシュボード
+// - 集計は DashboardRepository の1クエリ。結果はメモリに保持し、在庫・商品の書き込み（コミット後のイベント）で破棄する
+// - 在庫状況は日付で変わるため、日付が変わった後の最初の参照と、StockStatusService が日次で判定し直した後にも集計し直す
+@Service
+public class DashboardService {
+
+    private final DashboardRepository dashboardRepository;
+    private final Clock clock;
+
+    // 書き込みのたびに進める。集計中に書き込みがあった結果はキャッシュしない
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Cached cached;
+
+    public DashboardService(DashboardRepository dashboardRepository, Clock clock) {
+        this.dashboardRepository = dashboardRepository;
+        this.clock = clock;
+    }
+
+    // キャッシュする値なので、レプリカ構成でも読み取り専用トランザクションにせずプライマリで集計する
+    public DashboardSummary getSummary() {
+        LocalDate today = LocalDate.now(clock);
+        Cached current = cached;
+        if (current != null && current.generation() == generation.get() && current.summary().date().equals(today)) {
+            return current.summary();
+        }
+
+        long startedAt = generation.get();
+        DashboardSummary summary = compute(today);
+        if (generation.get() == startedAt) {
+            cached = new Cached(startedAt, summary);
+        }
+        return summary;
+    }
+
+    private DashboardSummary compute(LocalDate today) {
+        List<DashboardSummary.CategoryCounts> categories = dashboardRepository.countByCategory();
+        DashboardSummary.Counts total = categories.stream()
+                .map(DashboardSummary.CategoryCounts::counts)
+                .reduce(DashboardSummary.Counts.ZERO, DashboardSummary.Counts::plus);
+        return new DashboardSummary(today, total, categories, LocalDateTime.now(clock));
+    }
+
+    // 在庫数・期限・閾値・カテゴリの変更
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        invalidate();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        invalidate();
+    }
+
+    // 日付の切り替わりで在庫状況が判定し直された
+    @EventListener
+    public void onStockStatusRefreshed(StockStatusRefreshedEvent event) {
+        invalidate();
+    }
+
+    private void invalidate() {
+        generation.incrementAndGet();
+        cached = null;
+    }
+
+    private record Cached(long generation, DashboardSummary summary) {
+    }
+}
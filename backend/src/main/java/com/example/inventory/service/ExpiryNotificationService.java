@@ -0,0 +1,315 @@
+package com.example.inventory.service;
+
+import com.example.inventory.config.DataSourceRouting;
+import com.example.inventory.dto.ExpiringLot;
+import com.example.inventory.dto.ExpiryNotification;
+import com.example.inventory.event.ItemChangedEvent;
+import com.example.inventory.event.StockChangedEvent;
+import com.example.inventory.repository.StockRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// 期限の通知（期限の days-before 日前・当日になったロットを ExpiryNotificationSink へ送る）
+// - ロットごとの通知時刻（その日の 0 時）を ExpiryTimingWheel に登録し、tick-ms ごとに時刻を進めて期限の来たものだけ送る
+//   定期的に在庫を走査しないため、通知の手間はロット数ではなく通知の件数で決まる
+// - 在庫・商品の書き込み（コミット後のイベント）で該当商品のロットを登録し直す
+//   新しいロット（期限の変更を含む）は、登録時点で過ぎている最も近い通知をすぐに送る
+// - 起動時は期限前で在庫の残っているロットを期限のインデックスで読んで登録する
+//   停止中に時刻の過ぎた通知は送らない（期限近・期限切れは /stocks/alerts で確認できる）
+// - ロットの登録は期限の翌日（読み込みの対象外になる時刻）に外す。それまでは通知済みの内容を覚えておき、
+//   読み直しで同じ通知を送り直さないようにする
+@Service
+public class ExpiryNotificationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExpiryNotificationService.class);
+
+    private static final long RETRY_INTERVAL_MILLIS = 60_000;
+
+    // 期限の翌日に登録を外すための印（daysBefore が負の通知は送らない）
+    private static final int RETIRE = -1;
+
+    private final StockRepository stockRepository;
+    private final List<ExpiryNotificationSink> sinks;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final List<Integer> daysBefore;
+    private final long tickMillis;
+    private final ScheduledExecutorService ticker;
+
+    // 読み込み・読み直しは1つずつ実行する（後から読んだ内容が必ず後から反映されるように）
+    private final Object loadLock = new Object();
+
+    // 以下は wheelLock で保護する（通知のスレッドは読み込み中も時刻を進める）
+    private final Object wheelLock = new Object();
+    private ExpiryTimingWheel<ExpiryNotification> wheel;
+    private final Map<Long, Registration> registrations = new HashMap<>();  // ロットID → 登録内容
+    private final Map<Long, Set<Long>> stockIdsByItem = new HashMap<>();    // 商品ID → ロットID
+    private boolean loaded;
+    private long nextRetryAt;
+
+    public ExpiryNotificationService(StockRepository stockRepository,
+                                     List<ExpiryNotificationSink> sinks,
+                                     PlatformTransactionManager transactionManager,
+                                     Clock clock,
+                                     @Value("${inventory.expiry.notify.days-before:3,0}") List<Integer> daysBefore,
+                                     @Value("${inventory.expiry.notify.tick-ms:1000}") long tickMillis) {
+        this.stockRepository = stockRepository;
+        this.sinks = sinks;
+        // コミット直後のイベントからも呼ぶため、元のトランザクションとは別に実行する
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate.setReadOnly(true);
+        this.clock = clock;
+        // 早い通知から順に（例: 3日前 → 当日）
+        this.daysBefore = daysBefore.stream().filter(days -> days >= 0).distinct()
+                .sorted(Comparator.reverseOrder()).toList();
+        this.tickMillis = Math.max(1, tickMillis);
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "expiry-notification");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // ===== 起動・停止 =====
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            rebuild();
+        } catch (DataAccessException | TransactionException e) {
+            // 読み込めなかった場合は tick ごとに（RETRY_INTERVAL_MILLIS おきに）読み込み直す
+            log.warn("期限の通知の初期化に失敗しました", e);
+        }
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+    }
+
+    // 期限前で在庫の残っているロットをすべて登録し直す（時刻の過ぎた通知は送らない）
+    public int rebuild() {
+        synchronized (loadLock) {
+            List<ExpiringLot> lots = load(LocalDate.now(clock), null);
+            long now = clock.millis();
+            synchronized (wheelLock) {
+                wheel = new ExpiryTimingWheel<>(tickMillis, now);
+                registrations.clear();
+                stockIdsByItem.clear();
+                lots.forEach(lot -> register(lot, now, false));
+                loaded = true;
+                // 登録を外す印（ロットごとに1件）を除いた件数
+                int notifications = wheel.size() - registrations.size();
+                log.info("期限の通知を登録しました: {} ロット、{} 件", registrations.size(), notifications);
+                return notifications;
+            }
+        }
+    }
+
+    // ===== 書き込み時 =====
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        reload(event.itemIds());
+    }
+
+    // 商品名の変更と削除
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        reload(event.itemIds());
+    }
+
+    private void reload(Set<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        synchronized (loadLock) {
+            synchronized (wheelLock) {
+                // 未読み込みなら次の tick でまとめて読み込む
+                if (!loaded) {
+                    return;
+                }
+            }
+            reloadItems(itemIds);
+        }
+    }
+
+    private void reloadItems(Set<Long> itemIds) {
+        try {
+            List<ExpiringLot> lots = load(LocalDate.now(clock), itemIds);
+            long now = clock.millis();
+            synchronized (wheelLock) {
+                if (!loaded) {
+                    return;
+                }
+                Map<Long, ExpiringLot> current = new HashMap<>();
+                lots.forEach(lot -> current.put(lot.stockId(), lot));
+                for (Long itemId : itemIds) {
+                    for (Long stockId : new ArrayList<>(stockIdsByItem.getOrDefault(itemId, Set.of()))) {
+                        if (!current.containsKey(stockId)) {
+                            unregister(stockId);
+                        }
+                    }
+                }
+                for (ExpiringLot lot : lots) {
+                    Registration previous = registrations.get(lot.stockId());
+                    if (previous != null && previous.lot().equals(lot)) {
+                        continue;
+                    }
+                    // 新しいロット・期限の変更と、すぐに送る予定の通知がまだ送られていないロット
+                    boolean notifyPassed = previous == null
+                            || !previous.lot().expiryDate().equals(lot.expiryDate())
+                            || (previous.passed() != null && previous.passed().isPending());
+                    unregister(lot.stockId());
+                    register(lot, now, notifyPassed);
+                }
+            }
+        } catch (DataAccessException | TransactionException e) {
+            // 古い内容で通知しないよう、次の tick で全体を読み込み直す
+            log.warn("期限の通知の更新に失敗しました: itemIds={}", itemIds, e);
+            synchronized (wheelLock) {
+                loaded = false;
+            }
+        }
+    }
+
+    // 書き込み直後の状態を読むため、レプリカ構成でもプライマリから読む（itemIds が null なら全商品）
+    private List<ExpiringLot> load(LocalDate today, Collection<Long> itemIds) {
+        return DataSourceRouting.onPrimary(() -> transactionTemplate.execute(status -> itemIds == null
+                ? stockRepository.findExpiringLots(today)
+                : stockRepository.findExpiringLotsByItemIdIn(today, itemIds)));
+    }
+
+    // 時刻の来ていない通知を登録する。notifyPassed なら過ぎている最も近い通知をすぐに送る
+    private void register(ExpiringLot lot, long now, boolean notifyPassed) {
+        List<ExpiryTimingWheel.Entry<ExpiryNotification>> entries = new ArrayList<>(daysBefore.size());
+        ExpiryNotification latestPassed = null;
+        for (int days : daysBefore) {
+            LocalDateTime dueAt = lot.expiryDate().minusDays(days).atStartOfDay();
+            long dueMillis = dueAt.atZone(clock.getZone()).toInstant().toEpochMilli();
+            ExpiryNotification notification = new ExpiryNotification(lot.stockId(), lot.itemId(), lot.itemName(),
+                    lot.quantity(), lot.expiryDate(), days, dueAt);
+            if (dueMillis > now) {
+                entries.add(wheel.schedule(dueMillis, notification));
+            } else {
+                latestPassed = notification;
+            }
+        }
+        ExpiryTimingWheel.Entry<ExpiryNotification> passed = null;
+        if (notifyPassed && latestPassed != null) {
+            passed = wheel.schedule(now, latestPassed);
+            entries.add(passed);
+        }
+        LocalDateTime retireAt = lot.expiryDate().plusDays(1).atStartOfDay();
+        entries.add(wheel.schedule(retireAt.atZone(clock.getZone()).toInstant().toEpochMilli(),
+                new ExpiryNotification(lot.stockId(), lot.itemId(), lot.itemName(), lot.quantity(),
+                        lot.expiryDate(), RETIRE, retireAt)));
+        registrations.put(lot.stockId(), new Registration(lot, entries, passed));
+        stockIdsByItem.computeIfAbsent(lot.itemId(), id -> new HashSet<>()).add(lot.stockId());
+    }
+
+    private void unregister(Long stockId) {
+        Registration registration = registrations.remove(stockId);
+        if (registration == null) {
+            return;
+        }
+        registration.entries().forEach(wheel::cancel);
+        Set<Long> stockIds = stockIdsByItem.get(registration.lot().itemId());
+        if (stockIds != null) {
+            stockIds.remove(stockId);
+            if (stockIds.isEmpty()) {
+                stockIdsByItem.remove(registration.lot().itemId());
+            }
+        }
+    }
+
+    // ===== 通知 =====
+
+    private void tick() {
+        try {
+            List<ExpiryNotification> due = new ArrayList<>();
+            boolean retry;
+            synchronized (wheelLock) {
+                retry = !loaded && clock.millis() >= nextRetryAt;
+                if (loaded) {
+                    wheel.advance(clock.millis(), due);
+                    due.removeIf(this::retire);
+                }
+            }
+            if (retry) {
+                retryRebuild();
+            }
+            due.forEach(this::send);
+        } catch (RuntimeException e) {
+            // 例外で定期実行が止まらないようにする
+            log.warn("期限の通知に失敗しました", e);
+        }
+    }
+
+    // 登録を外す印なら、保留中の通知が残っていないロットの登録を外す（wheelLock 内で呼ぶ）
+    private boolean retire(ExpiryNotification notification) {
+        if (notification.daysBefore() != RETIRE) {
+            return false;
+        }
+        Registration registration = registrations.get(notification.stockId());
+        if (registration != null
+                && registration.entries().stream().noneMatch(ExpiryTimingWheel.Entry::isPending)) {
+            unregister(notification.stockId());
+        }
+        return true;
+    }
+
+    private void retryRebuild() {
+        try {
+            rebuild();
+        } catch (DataAccessException | TransactionException e) {
+            synchronized (wheelLock) {
+                nextRetryAt = clock.millis() + RETRY_INTERVAL_MILLIS;
+            }
+            log.warn("期限の通知の読み込みに失敗しました", e);
+        }
+    }
+
+    private void send(ExpiryNotification notification) {
+        for (ExpiryNotificationSink sink : sinks) {
+            try {
+                sink.send(notification);
+            } catch (RuntimeException e) {
+                log.warn("期限の通知を送れませんでした: sink={}, stockId={}, daysBefore={}",
+                        sink.getClass().getSimpleName(), notification.stockId(), notification.daysBefore(), e);
+            }
+        }
+    }
+
+    // passed は登録時にすぐ送ることにした通知（なければ null）
+    private record Registration(ExpiringLot lot, List<ExpiryTimingWheel.Entry<ExpiryNotification>> entries,
+                                ExpiryTimingWheel.Entry<ExpiryNotification> passed) {
+    }
+}
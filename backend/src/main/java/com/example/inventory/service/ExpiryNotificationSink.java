@@ -0,0 +1,10 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.ExpiryNotification;
+
+// 期限の通知の送り先（ExpiryNotificationService が通知のスレッドから順に呼ぶ）
+// 例外を投げても他の送り先には送られる
+public interface ExpiryNotificationSink {
+
+    void send(ExpiryNotification notification);
+}
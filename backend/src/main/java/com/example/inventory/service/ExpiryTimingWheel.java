@@ -0,0 +1,135 @@
+package com.example.inventory.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 階層型タイミングホイール（ExpiryNotificationService がロックして使う、スレッドセーフではない）
+// - 期限は tickMillis 単位の通し番号（tick）で持ち、段ごとに 64 スロットの輪に入れる
+//   0 段目は 1 tick ごと、1 段目は 64 tick ごと、…の輪。期限までが遠いものほど上の段に入る
+// - advance で時刻を進めると、0 段目は現在の tick のスロットだけを取り出し、上の段は境界を越えたときに
+//   1スロット分を下の段へ入れ直す。登録・取り消し・発火とも登録件数に関係なく一定の手間で済む
+// - 取り消しは印を付けるだけで、スロットを取り出したときに捨てる
+final class ExpiryTimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 6;  // 64^6 tick（1秒単位なら約2000年）まで
+
+    private final long tickMillis;
+    private final List<Entry<T>>[][] buckets;
+    private final List<Entry<T>> overdue = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    ExpiryTimingWheel(long tickMillis, long nowMillis) {
+        this.tickMillis = Math.max(1, tickMillis);
+        this.buckets = new List[LEVELS][SLOTS];
+        this.currentTick = Math.floorDiv(nowMillis, this.tickMillis);
+    }
+
+    // dueMillis（エポックミリ秒）に発火させる。過ぎていれば次の advance で発火する
+    Entry<T> schedule(long dueMillis, T value) {
+        // 期限の tick（切り上げ）。tick の途中の期限はその tick の終わりに発火する
+        long tick = Math.floorDiv(dueMillis + tickMillis - 1, tickMillis);
+        Entry<T> entry = new Entry<>(tick, value);
+        if (tick <= currentTick) {
+            overdue.add(entry);
+        } else {
+            place(entry);
+        }
+        size++;
+        return entry;
+    }
+
+    void cancel(Entry<T> entry) {
+        if (!entry.cancelled && !entry.fired) {
+            entry.cancelled = true;
+            size--;
+        }
+    }
+
+    // 未発火の登録数
+    int size() {
+        return size;
+    }
+
+    // nowMillis までに期限の来たものを期限順に due へ追加する
+    void advance(long nowMillis, List<T> due) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        if (!overdue.isEmpty()) {
+            List<Entry<T>> entries = new ArrayList<>(overdue);
+            overdue.clear();
+            entries.forEach(entry -> fire(entry, due));
+        }
+        while (currentTick < targetTick) {
+            currentTick++;
+            // 上の段から順に、境界を越えたスロットを下の段へ入れ直す
+            for (int level = LEVELS - 1; level >= 1; level--) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    List<Entry<T>> entries = take(level, slotOf(currentTick, level));
+                    if (entries != null) {
+                        entries.forEach(this::place);
+                    }
+                }
+            }
+            List<Entry<T>> entries = take(0, slotOf(currentTick, 0));
+            if (entries != null) {
+                entries.forEach(entry -> fire(entry, due));
+            }
+        }
+    }
+
+    private void fire(Entry<T> entry, List<T> due) {
+        if (entry.cancelled) {
+            return;
+        }
+        entry.fired = true;
+        size--;
+        due.add(entry.value);
+    }
+
+    private void place(Entry<T> entry) {
+        if (entry.cancelled) {
+            return;
+        }
+        long delta = entry.tick - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        int slot = slotOf(entry.tick, level);
+        if (buckets[level][slot] == null) {
+            buckets[level][slot] = new ArrayList<>();
+        }
+        buckets[level][slot].add(entry);
+    }
+
+    private List<Entry<T>> take(int level, int slot) {
+        List<Entry<T>> entries = buckets[level][slot];
+        buckets[level][slot] = null;
+        return entries;
+    }
+
+    private static int slotOf(long tick, int level) {
+        return (int) ((tick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+    }
+
+    static final class Entry<T> {
+
+        private final long tick;
+        private final T value;
+        private boolean cancelled;
+        private boolean fired;
+
+        private Entry(long tick, T value) {
+            this.tick = tick;
+            this.value = value;
+        }
+
+        // 取り消されておらず、まだ発火していない
+        boolean isPending() {
+            return !cancelled && !fired;
+        }
+    }
+}
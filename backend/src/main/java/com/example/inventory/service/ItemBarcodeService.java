@@ -0,0 +1,177 @@
+package com.example.inventory.service;
+
+import com.example.inventory.config.DataSourceRouting;
+import com.example.inventory.dto.ScannedItem;
+import com.example.inventory.event.ItemChangedEvent;
+import com.example.inventory.repository.ItemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// バーコード（JAN/EAN）から商品を引く（レジでの読み取り → 購入登録用）
+// - 起動時に全商品のバーコードをメモリ上のハッシュマップへ読み込み、読み取りはマップだけで返す
+// - マップにないバーコードは items のユニークインデックスで引き、見つかればマップへ追加する
+// - 商品の登録・更新・削除（ItemChangedEvent）はコミット後に該当商品だけ読み直して反映する
+@Service
+public class ItemBarcodeService {
+
+    private static final Logger log = LoggerFactory.getLogger(ItemBarcodeService.class);
+
+    private final ItemRepository itemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBatchSize;
+
+    private final Map<String, ScannedItem> itemsByBarcode = new ConcurrentHashMap<>();
+    private final Map<Long, String> barcodesByItem = new ConcurrentHashMap<>();
+
+    public ItemBarcodeService(ItemRepository itemRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${inventory.item.barcode.max-batch-size:200}") int maxBatchSize) {
+        this.itemRepository = itemRepository;
+        // コミット直後のイベントからも呼ぶため、元のトランザクションとは別に実行する
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate.setReadOnly(true);
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    // ===== 読み取り =====
+
+    public ScannedItem lookup(String code) {
+        String barcode = normalize(code);
+        if (barcode == null) {
+            throw new IllegalArgumentException("バーコードを指定してください");
+        }
+        return lookupAll(List.of(barcode)).get(0);
+    }
+
+    // かご1つ分のバーコードをまとめて引く（結果は codes と同じ順序、未登録は itemId が null）
+    // マップにないものだけを1回のクエリで引く
+    public List<ScannedItem> lookupAll(List<String> codes) {
+        if (codes == null || codes.isEmpty()) {
+            throw new IllegalArgumentException("バーコードを指定してください");
+        }
+        if (codes.size() > maxBatchSize) {
+            throw new IllegalArgumentException("バーコードは " + maxBatchSize + " 件以下で指定してください");
+        }
+        List<String> barcodes = new ArrayList<>(codes.size());
+        for (String code : codes) {
+            String barcode = normalize(code);
+            if (barcode == null) {
+                throw new IllegalArgumentException("空のバーコードが含まれています");
+            }
+            barcodes.add(barcode);
+        }
+
+        Set<String> misses = new LinkedHashSet<>();
+        for (String barcode : barcodes) {
+            if (!itemsByBarcode.containsKey(barcode)) {
+                misses.add(barcode);
+            }
+        }
+        if (!misses.isEmpty()) {
+            transactionTemplate.execute(status -> itemRepository.findScannedItemsByBarcodeIn(misses))
+                    .forEach(this::put);
+        }
+
+        return barcodes.stream()
+                .map(barcode -> itemsByBarcode.getOrDefault(barcode, ScannedItem.notFound(barcode)))
+                .toList();
+    }
+
+    // ===== マップの維持 =====
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            List<ScannedItem> items = transactionTemplate.execute(status -> itemRepository.findAllScannedItems());
+            items.forEach(this::put);
+            log.info("バーコードを読み込みました: {} 件", items.size());
+        } catch (DataAccessException e) {
+            // 読み込めなかった分は、読み取り時にインデックスから引いて追加される
+            log.warn("バーコードの読み込みに失敗しました", e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        if (event.itemIds().isEmpty()) {
+            return;
+        }
+        try {
+            // 書き込み直後の状態を読むため、レプリカ構成でもプライマリから読む
+            List<ScannedItem> items = DataSourceRouting.onPrimary(() -> transactionTemplate.execute(
+                    status -> itemRepository.findScannedItemsByIdIn(event.itemIds())));
+            synchronized (this) {
+                event.itemIds().forEach(this::remove);
+                items.forEach(this::put);
+            }
+        } catch (DataAccessException e) {
+            // 古いエントリが残らないよう、読み直せなかった商品はマップから外す（次の読み取りでインデックスから引く）
+            log.warn("バーコードの更新に失敗しました: itemIds={}", event.itemIds(), e);
+            synchronized (this) {
+                event.itemIds().forEach(this::remove);
+            }
+        }
+    }
+
+    private synchronized void put(ScannedItem item) {
+        String previous = barcodesByItem.put(item.itemId(), item.barcode());
+        if (previous != null && !previous.equals(item.barcode())) {
+            itemsByBarcode.remove(previous);
+        }
+        itemsByBarcode.put(item.barcode(), item);
+    }
+
+    private synchronized void remove(Long itemId) {
+        String barcode = barcodesByItem.remove(itemId);
+        if (barcode != null) {
+            itemsByBarcode.remove(barcode);
+        }
+    }
+
+    // ===== 形式チェック =====
+
+    // 区切り文字（空白・ハイフン）を除いた数字のみの形にする。空なら null
+    // JAN/EAN-8, UPC-A(12桁), JAN/EAN-13, ITF-14 のみ受け付け、チェックデジットも検証する
+    public static String normalize(String code) {
+        if (code == null) {
+            return null;
+        }
+        String barcode = code.replaceAll("[\\s-]", "");
+        if (barcode.isEmpty()) {
+            return null;
+        }
+        if (!barcode.matches("\\d{8}|\\d{12,14}")) {
+            throw new IllegalArgumentException("バーコードは8・12・13・14桁の数字で指定してください: " + code);
+        }
+        if (!hasValidCheckDigit(barcode)) {
+            throw new IllegalArgumentException("バーコードのチェックデジットが正しくありません: " + code);
+        }
+        return barcode;
+    }
+
+    // GTIN のチェックデジット（右から数えて偶数桁を3倍した合計が10の倍数になる）
+    private static boolean hasValidCheckDigit(String barcode) {
+        int sum = 0;
+        for (int i = 0; i < barcode.length(); i++) {
+            int digit = barcode.charAt(barcode.length() - 1 - i) - '0';
+            sum += (i % 2 == 1) ? digit * 3 : digit;
+        }
+        return sum % 10 == 0;
+    }
+}
@@ -1,19 +1,58 @@
 package com.example.inventory.service;
 
+import com.example.inventory.dto.DeletionResult;
 import com.example.inventory.entity.Item;
+import com.example.inventory.event.ItemChangedEvent;
+import com.example.inventory.event.StockChangedEvent;
+import com.example.inventory.repository.ItemPriceSummaryRepository;
 import com.example.inventory.repository.ItemRepository;
+import com.example.inventory.repository.PurchaseHistoryRepository;
+import com.example.inventory.repository.PurchaseHistorySummaryRepository;
+import com.example.inventory.repository.PurchasePatternRepository;
+import com.example.inventory.repository.StockArchiveRepository;
+import com.example.inventory.repository.StockRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Service
+@Transactional(readOnly = true)
 public class ItemService {
 
     private final ItemRepository itemRepository;
-
-    public ItemService(ItemRepository itemRepository) {
+    private final StockRepository stockRepository;
+    private final StockArchiveRepository stockArchiveRepository;
+    private final PurchaseHistoryRepository purchaseHistoryRepository;
+    private final PurchaseHistorySummaryRepository purchaseHistorySummaryRepository;
+    private final ItemPriceSummaryRepository itemPriceSummaryRepository;
+    private final PurchasePatternRepository purchasePatternRepository;
+    private final StockLedgerService stockLedgerService;
+    private final TombstoneService tombstoneService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ItemService(ItemRepository itemRepository,
+                       StockRepository stockRepository,
+                       StockArchiveRepository stockArchiveRepository,
+                       PurchaseHistoryRepository purchaseHistoryRepository,
+                       PurchaseHistorySummaryRepository purchaseHistorySummaryRepository,
+                       ItemPriceSummaryRepository itemPriceSummaryRepository,
+                       PurchasePatternRepository purchasePatternRepository,
+                       StockLedgerService stockLedgerService,
+                       TombstoneService tombstoneService,
+                       ApplicationEventPublisher eventPublisher) {
         this.itemRepository = itemRepository;
+        this.stockRepository = stockRepository;
+        this.stockArchiveRepository = stockArchiveRepository;
+        this.purchaseHistoryRepository = purchaseHistoryRepository;
+        this.purchaseHistorySummaryRepository = purchaseHistorySummaryRepository;
+        this.itemPriceSummaryRepository = itemPriceSummaryRepository;
+        this.purchasePatternRepository = purchasePatternRepository;
+        this.stockLedgerService = stockLedgerService;
+        this.tombstoneService = tombstoneService;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<Item> findAll() {
@@ -24,12 +63,56 @@ public class ItemService {
         return itemRepository.findById(id);
     }
 
+    // 登録・更新（バーコードは数字のみに揃え、他の商品と重複していれば登録しない）
+    // 商品名・バーコードはバーコード検索・使い切り優先ランキングでも保持しているため、変更を通知する
+    @Transactional
     public Item save(Item item) {
-        return itemRepository.save(item);
+        String barcode = ItemBarcodeService.normalize(item.getBarcode());
+        if (barcode != null) {
+            itemRepository.findIdByBarcode(barcode)
+                    .filter(existingId -> !existingId.equals(item.getId()))
+                    .ifPresent(existingId -> {
+                        throw new IllegalArgumentException("バーコードは他の商品で登録済みです: itemId=" + existingId);
+                    });
+        }
+        item.setBarcode(barcode);
+
+        // 更新は受け取ったエンティティをそのまま merge せず、読み込んだエンティティの項目だけを書き換える
+        // （本文に含まれない作成日時・在庫・購入履歴の関連を上書きしない）
+        Item target = Optional.ofNullable(item.getId())
+                .flatMap(itemRepository::findById)
+                .map(current -> {
+                    current.setName(item.getName());
+                    current.setNote(item.getNote());
+                    current.setBarcode(barcode);
+                    current.setCategory(item.getCategory());
+                    current.setStore(item.getStore());
+                    current.setThreshold(item.getThreshold());
+                    current.setHasExpiry(item.isHasExpiry());
+                    return current;
+                })
+                .orElse(item);
+        Item saved = itemRepository.save(target);
+        eventPublisher.publishEvent(ItemChangedEvent.of(saved.getId()));
+        return saved;
     }
 
-    public void delete(Long id) {
-        itemRepository.deleteById(id);
+    // 削除（在庫・購入履歴をエンティティとして読み込まず、依存関係の順に一括削除する）
+    // 差分同期用に、一緒に消える在庫・購入履歴も含めて先に削除記録を残す
+    @Transactional
+    public DeletionResult delete(Long id) {
+        tombstoneService.recordItemDeletion(id);
+        purchaseHistorySummaryRepository.deleteByItemId(id);
+        itemPriceSummaryRepository.deleteByItemId(id);
+        purchasePatternRepository.deleteByItemId(id);
+        stockArchiveRepository.deleteByItemId(id);
+        stockLedgerService.deleteByItemId(id);
+        int purchaseHistories = purchaseHistoryRepository.deleteByItemId(id);
+        int stocks = stockRepository.deleteByItemId(id);
+        int items = itemRepository.deleteItemById(id);
+        eventPublisher.publishEvent(ItemChangedEvent.of(id));
+        eventPublisher.publishEvent(StockChangedEvent.of(id));
+        return new DeletionResult(0, items, stocks, purchaseHistories);
     }
 
     // 基本的な検索メソッド
@@ -62,7 +145,7 @@ public class ItemService {
     // Store削除時の関連解除
     @Transactional
     public int updateStoreToNull(Long storeId) {
-        return itemRepository.updateStoreToNull(storeId);
+        return itemRepository.updateStoreToNull(storeId, LocalDateTime.now());
     }
 
     // ===== ビジネスロジック =====
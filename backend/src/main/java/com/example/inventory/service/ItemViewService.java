@@ -0,0 +1,80 @@
+package com.example.inventory.service;
+
+import com.example.inventory.repository.ItemViewRepository;
+import com.example.inventory.repository.ItemViewRepository.Field;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// 商品画面用の項目選択（fields）と在庫サマリーの埋め込み（include=stockSummary）
+// 商品ごとに在庫合計を問い合わせる代わりに、指定の組み合わせに合わせた1回のクエリで返す
+@Service
+@Transactional(readOnly = true)
+public class ItemViewService {
+
+    public static final String STOCK_SUMMARY = "stockSummary";
+
+    private final ItemViewRepository itemViewRepository;
+
+    public ItemViewService(ItemViewRepository itemViewRepository) {
+        this.itemViewRepository = itemViewRepository;
+    }
+
+    public List<Map<String, Object>> findAll(View view) {
+        return itemViewRepository.findAll(view.fields(), view.stockSummary());
+    }
+
+    public Optional<Map<String, Object>> findById(Long id, View view) {
+        return itemViewRepository.findById(id, view.fields(), view.stockSummary()).stream().findFirst();
+    }
+
+    // fields はカンマ区切りの項目名（省略時は全項目、id は常に含める）、include は stockSummary のみ
+    // 未知の項目名は IllegalArgumentException
+    public static View parse(String fields, String include) {
+        Set<Field> selected = EnumSet.of(Field.ID);
+        if (fields == null || fields.isBlank()) {
+            selected = EnumSet.allOf(Field.class);
+        } else {
+            for (String name : fields.split(",")) {
+                selected.add(fieldOf(name.trim()));
+            }
+        }
+
+        boolean stockSummary = false;
+        if (include != null && !include.isBlank()) {
+            for (String name : include.split(",")) {
+                if (!name.trim().equals(STOCK_SUMMARY)) {
+                    throw new IllegalArgumentException("include に指定できるのは " + STOCK_SUMMARY + " のみです: " + name.trim());
+                }
+                stockSummary = true;
+            }
+        }
+        return new View(selected, stockSummary);
+    }
+
+    private static Field fieldOf(String name) {
+        for (Field field : Field.values()) {
+            if (field.key().equals(name)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("未知の項目です: " + name + "（指定できる項目: "
+                + Arrays.stream(Field.values()).map(Field::key).collect(Collectors.joining(", ")) + "）");
+    }
+
+    // 項目の組み合わせ（EnumSet なので項目は定義順）
+    public record View(Set<Field> fields, boolean stockSummary) {
+
+        // 一覧のレスポンスを使い回すときのキー
+        public String cacheKey() {
+            return fields.stream().map(Field::key).collect(Collectors.joining(","))
+                    + (stockSummary ? ";" + STOCK_SUMMARY : "");
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.ExpiryNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+// 期限の通知をログに出す
+@Component
+public class LogExpiryNotificationSink implements ExpiryNotificationSink {
+
+    private static final Logger log = LoggerFactory.getLogger(LogExpiryNotificationSink.class);
+
+    @Override
+    public void send(ExpiryNotification notification) {
+        if (notification.daysBefore() == 0) {
+            log.info("期限当日の在庫があります: {}（{} 個、期限 {}、ロット {}）", notification.itemName(),
+                    notification.quantity(), notification.expiryDate(), notification.stockId());
+        } else {
+            log.info("期限 {} 日前の在庫があります: {}（{} 個、期限 {}、ロット {}）", notification.daysBefore(),
+                    notification.itemName(), notification.quantity(), notification.expiryDate(), notification.stockId());
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.ItemPriceAnalytics;
+import com.example.inventory.dto.PriceSummary;
+import com.example.inventory.dto.PurchaseRecord;
+import com.example.inventory.entity.ItemPriceSummary;
+import com.example.inventory.entity.PurchaseHistorySummary;
+import com.example.inventory.repository.ItemPriceSummaryRepository;
+import com.example.inventory.repository.PurchaseHistoryRepository;
+import com.example.inventory.repository.PurchaseHistorySummaryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// 価格分析（商品別・店舗別の単価サマリー）
+// - 購入履歴の登録時は item_price_summaries を差分更新する（明細を読み直さない）
+// - 更新・削除・過去日付での登録時は、該当する商品（・店舗）だけ明細から再計算する
+// - 参照APIは item_price_summaries だけを読むため、数百商品をまとめて問い合わせても明細には触れない
+// - 更新する行は行ロックを取ってから読み直す（同じ商品の購入が同時に登録されても差分が失われない）
+@Service
+public class PriceAnalyticsService {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceAnalyticsService.class);
+
+    // 最安単価の昇順（同じなら直近に購入した店舗を優先）
+    private static final Comparator<PriceSummary> CHEAPEST_FIRST = Comparator
+            .comparingDouble(PriceSummary::minUnitPrice)
+            .thenComparing(PriceSummary::lastPurchasedAt, Comparator.reverseOrder());
+
+    private final ItemPriceSummaryRepository itemPriceSummaryRepository;
+    private final PurchaseHistoryRepository purchaseHistoryRepository;
+    private final PurchaseHistorySummaryRepository purchaseHistorySummaryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final double shortAlpha;
+    private final double longAlpha;
+    private final double trendThreshold;
+    private final int maxBatchSize;
+
+    public PriceAnalyticsService(ItemPriceSummaryRepository itemPriceSummaryRepository,
+                                 PurchaseHistoryRepository purchaseHistoryRepository,
+                                 PurchaseHistorySummaryRepository purchaseHistorySummaryRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${inventory.price-analytics.short-alpha:0.3}") double shortAlpha,
+                                 @Value("${inventory.price-analytics.long-alpha:0.1}") double longAlpha,
+                                 @Value("${inventory.price-analytics.trend-threshold:0.03}") double trendThreshold,
+                                 @Value("${inventory.price-analytics.max-batch-size:1000}") int maxBatchSize) {
+        this.itemPriceSummaryRepository = itemPriceSummaryRepository;
+        this.purchaseHistoryRepository = purchaseHistoryRepository;
+        this.purchaseHistorySummaryRepository = purchaseHistorySummaryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shortAlpha = shortAlpha;
+        this.longAlpha = longAlpha;
+        this.trendThreshold = trendThreshold;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    // ===== 参照 =====
+
+    // 複数商品の価格分析（指定順に返す）
+    @Transactional(readOnly = true)
+    public List<ItemPriceAnalytics> getAnalytics(Collection<Long> itemIds) {
+        List<Long> ids = validateItemIds(itemIds);
+        Map<Long, List<ItemPriceSummary>> byItem = itemPriceSummaryRepository.findByItemIdIn(ids).stream()
+                .collect(Collectors.groupingBy(ItemPriceSummary::getItemId));
+
+        List<ItemPriceAnalytics> results = new ArrayList<>(ids.size());
+        for (Long itemId : ids) {
+            List<ItemPriceSummary> rows = byItem.getOrDefault(itemId, List.of());
+            PriceSummary overall = rows.stream()
+                    .filter(row -> ItemPriceSummary.ALL_STORES.equals(row.getStoreId()))
+                    .findFirst()
+                    .map(this::toPriceSummary)
+                    .orElse(null);
+            List<PriceSummary> stores = rows.stream()
+                    .filter(row -> !ItemPriceSummary.ALL_STORES.equals(row.getStoreId()))
+                    .sorted(Comparator.comparing(ItemPriceSummary::getStoreId))
+                    .map(this::toPriceSummary)
+                    .toList();
+            results.add(new ItemPriceAnalytics(itemId, overall, stores, cheapestStoreId(stores)));
+        }
+        return results;
+    }
+
+    // 複数商品の最安店舗（最安単価が同じなら直近に購入した店舗、店舗別の記録がない商品は含めない）
+    @Transactional(readOnly = true)
+    public Map<Long, PriceSummary> getCheapestStores(Collection<Long> itemIds) {
+        List<Long> ids = validateItemIds(itemIds);
+        return itemPriceSummaryRepository.findByItemIdIn(ids).stream()
+                .filter(row -> !ItemPriceSummary.ALL_STORES.equals(row.getStoreId()))
+                .map(row -> Map.entry(row.getItemId(), toPriceSummary(row)))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue,
+                        (a, b) -> CHEAPEST_FIRST.compare(a, b) <= 0 ? a : b));
+    }
+
+    private static Long cheapestStoreId(List<PriceSummary> stores) {
+        return stores.stream().min(CHEAPEST_FIRST).map(PriceSummary::storeId).orElse(null);
+    }
+
+    private List<Long> validateItemIds(Collection<Long> itemIds) {
+        if (itemIds == null || itemIds.isEmpty()) {
+            throw new IllegalArgumentException("itemIds を指定してください");
+        }
+        List<Long> ids = itemIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (ids.size() > maxBatchSize) {
+            throw new IllegalArgumentException("itemIds は " + maxBatchSize + " 件以下で指定してください");
+        }
+        return ids;
+    }
+
+    private PriceSummary toPriceSummary(ItemPriceSummary row) {
+        Long storeId = ItemPriceSummary.ALL_STORES.equals(row.getStoreId()) ? null : row.getStoreId();
+        return new PriceSummary(storeId, row.getPurchaseCount(), row.getMinUnitPrice(),
+                row.getLastUnitPrice(), row.getLastPurchasedAt(), row.getMovingAverage(), trendOf(row));
+    }
+
+    // 短期の移動平均が長期の移動平均から trend-threshold 以上離れていれば上昇・下降とみなす
+    private PriceSummary.Trend trendOf(ItemPriceSummary row) {
+        double baseline = row.getBaselineAverage();
+        if (row.getPurchaseCount() < 2 || baseline <= 0) {
+            return PriceSummary.Trend.FLAT;
+        }
+        double ratio = (row.getMovingAverage() - baseline) / baseline;
+        if (ratio >= trendThreshold) {
+            return PriceSummary.Trend.UP;
+        }
+        if (ratio <= -trendThreshold) {
+            return PriceSummary.Trend.DOWN;
+        }
+        return PriceSummary.Trend.FLAT;
+    }
+
+    // ===== 更新（PurchaseHistoryService から同一トランザクションで呼ばれる） =====
+
+    // 登録・更新後（before は新規登録なら null）
+    public void onPurchaseSaved(PurchaseRecord before, PurchaseRecord after) {
+        if (before == null) {
+            apply(after);
+            return;
+        }
+        // 更新は変更前の値を差し引けないため、変更前後に関係する行を再計算する
+        Set<SummaryKey> keys = new LinkedHashSet<>();
+        keys.addAll(keysOf(before));
+        keys.addAll(keysOf(after));
+        keys.forEach(this::recompute);
+    }
+
+    // 削除後
+    public void onPurchaseDeleted(PurchaseRecord before) {
+        if (before != null) {
+            keysOf(before).forEach(this::recompute);
+        }
+    }
+
+    // 店舗削除時（購入履歴の店舗が解除されるため店舗別の行を削除する）
+    public int deleteByStoreId(Long storeId) {
+        return itemPriceSummaryRepository.deleteByStoreId(storeId);
+    }
+
+    private void apply(PurchaseRecord record) {
+        for (SummaryKey key : keysOf(record)) {
+            ItemPriceSummary summary = lock(key, record.purchasedAt());
+            if (record.purchasedAt().isBefore(summary.getLastPurchasedAt())) {
+                // 過去日付での登録は移動平均の順序が崩れるため再計算する
+                recompute(key);
+                continue;
+            }
+            fold(summary, record);
+            itemPriceSummaryRepository.save(summary);
+        }
+    }
+
+    // 明細（商品全体の場合は保持期間を過ぎた月次サマリーも含む）から1行を作り直す
+    private void recompute(SummaryKey key) {
+        List<PurchaseRecord> records = new ArrayList<>();
+        if (ItemPriceSummary.ALL_STORES.equals(key.storeId())) {
+            // 月次サマリーは月平均単価を月初日の1件の購入として扱う（明細より古いため先頭に並ぶ）
+            List<PurchaseHistorySummary> monthly = new ArrayList<>(
+                    purchaseHistorySummaryRepository.findByItemIdOrderByMonthDesc(key.itemId()));
+            monthly.sort(Comparator.comparing(PurchaseHistorySummary::getMonth));
+            for (PurchaseHistorySummary summary : monthly) {
+                if (summary.getPricedQuantity() > 0) {
+                    records.add(new PurchaseRecord(null, key.itemId(), null, null,
+                            Math.toIntExact(summary.getPricedQuantity()), Math.toIntExact(summary.getTotalPrice()),
+                            summary.getMonth().atStartOfDay()));
+                }
+            }
+            records.addAll(purchaseHistoryRepository.findPricedRecordsByItemId(key.itemId()));
+        } else {
+            records.addAll(purchaseHistoryRepository.findPricedRecordsByItemIdAndStoreId(key.itemId(), key.storeId()));
+        }
+
+        if (records.isEmpty()) {
+            itemPriceSummaryRepository.findForUpdate(key.itemId(), key.storeId())
+                    .ifPresent(itemPriceSummaryRepository::delete);
+            return;
+        }
+
+        ItemPriceSummary summary = lock(key, records.get(0).purchasedAt());
+        summary.setPurchaseCount(0);
+        for (PurchaseRecord record : records) {
+            fold(summary, record);
+        }
+        itemPriceSummaryRepository.save(summary);
+    }
+
+    private void fold(ItemPriceSummary summary, PurchaseRecord record) {
+        double unitPrice = record.unitPrice();
+        if (summary.getPurchaseCount() == 0) {
+            summary.setMinUnitPrice(unitPrice);
+            summary.setMovingAverage(unitPrice);
+            summary.setBaselineAverage(unitPrice);
+        } else {
+            summary.setMinUnitPrice(Math.min(summary.getMinUnitPrice(), unitPrice));
+            summary.setMovingAverage(shortAlpha * unitPrice + (1 - shortAlpha) * summary.getMovingAverage());
+            summary.setBaselineAverage(longAlpha * unitPrice + (1 - longAlpha) * summary.getBaselineAverage());
+        }
+        summary.setPurchaseCount(summary.getPurchaseCount() + 1);
+        summary.setLastUnitPrice(unitPrice);
+        summary.setLastPurchasedAt(record.purchasedAt());
+    }
+
+    // 行がなければ購入0件の行を作ってから、行ロックを取って読む
+    private ItemPriceSummary lock(SummaryKey key, LocalDateTime purchasedAt) {
+        itemPriceSummaryRepository.insertIfAbsent(key.itemId(), key.storeId(), purchasedAt, LocalDateTime.now());
+        return itemPriceSummaryRepository.findForUpdate(key.itemId(), key.storeId())
+                .orElseThrow(() -> new IllegalStateException("価格サマリーの行を取得できません: " + key));
+    }
+
+    // 購入が影響する行（商品全体 + 購入店舗）
+    private static List<SummaryKey> keysOf(PurchaseRecord record) {
+        if (record == null || !record.hasUnitPrice()) {
+            return List.of();
+        }
+        List<SummaryKey> keys = new ArrayList<>(2);
+        keys.add(new SummaryKey(record.itemId(), ItemPriceSummary.ALL_STORES));
+        if (record.storeId() != null) {
+            keys.add(new SummaryKey(record.itemId(), record.storeId()));
+        }
+        return keys;
+    }
+
+    private record SummaryKey(Long itemId, Long storeId) {
+    }
+
+    // ===== 再構築 =====
+
+    // 起動時、サマリーが未作成（または商品全体の行が store_id NULL の頃のまま）なら既存の購入履歴から作成する
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            if (itemPriceSummaryRepository.count() == 0 || itemPriceSummaryRepository.existsByStoreIdIsNull()) {
+                int rebuilt = rebuildAll();
+                if (rebuilt > 0) {
+                    log.info("価格サマリーを作成しました: {} 件", rebuilt);
+                }
+            }
+        } catch (DataAccessException e) {
+            log.warn("価格サマリーの作成に失敗しました", e);
+        }
+    }
+
+    // 全商品の価格サマリーを作り直す（商品1件ずつ別トランザクション）
+    public int rebuildAll() {
+        Set<SummaryKey> keys = new LinkedHashSet<>();
+        for (Object[] pair : purchaseHistoryRepository.findPricedItemStorePairs()) {
+            Long itemId = (Long) pair[0];
+            keys.add(new SummaryKey(itemId, ItemPriceSummary.ALL_STORES));
+            if (pair[1] != null) {
+                keys.add(new SummaryKey(itemId, (Long) pair[1]));
+            }
+        }
+        for (Long itemId : purchaseHistorySummaryRepository.findPricedItemIds()) {
+            keys.add(new SummaryKey(itemId, ItemPriceSummary.ALL_STORES));
+        }
+
+        transactionTemplate.executeWithoutResult(status -> itemPriceSummaryRepository.deleteAllInBatch());
+        Map<Long, List<SummaryKey>> byItem = keys.stream().collect(Collectors.groupingBy(SummaryKey::itemId));
+        byItem.values().forEach(itemKeys ->
+                transactionTemplate.executeWithoutResult(status -> itemKeys.forEach(this::recompute)));
+        return keys.size();
+    }
+}
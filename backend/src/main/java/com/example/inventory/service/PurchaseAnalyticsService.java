@@ -0,0 +1,164 @@
+package com.example.inventory.service;
+
+import com.example.inventory.config.DataSourceRouting;
+import com.example.inventory.dto.PurchaseGroupTotals;
+import com.example.inventory.event.ItemChangedEvent;
+import com.example.inventory.event.PurchaseHistoryChangedEvent;
+import com.example.inventory.repository.PurchaseAnalyticsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// 購入履歴の集計（期間・商品・カテゴリ・店舗で絞り込み、商品別・カテゴリ別・店舗別に合計する）
+// - 購入履歴を PurchaseColumnStore（プリミティブ配列の列）でメモリ上に持ち、集計は配列を1回走査するだけで行う
+//   エンティティ（購入日時・金額のボックス化・商品の参照）を作らないため、集計の負荷が GC に乗らない
+// - 起動時に1回だけ読み込み、購入履歴・商品の書き込み（コミット後のイベント）では該当商品の行を削除して読み直した行を末尾に追加する
+// - 対象は保持期間内の明細（月次サマリーへ集約された月は含まない）。商品が紐づいていない購入は対象外
+@Service
+public class PurchaseAnalyticsService {
+
+    public enum GroupBy {
+        NONE,
+        ITEM,
+        CATEGORY,
+        STORE
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(PurchaseAnalyticsService.class);
+
+    private final PurchaseAnalyticsRepository purchaseAnalyticsRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // 読み込み・読み直しは1つずつ実行する（後から読んだ内容が必ず後から反映されるように）
+    private final Object loadLock = new Object();
+    private volatile boolean loaded;
+
+    // 集計は読み取りロック、行の追加・削除は書き込みロックで行う
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private PurchaseColumnStore store = new PurchaseColumnStore();
+
+    public PurchaseAnalyticsService(PurchaseAnalyticsRepository purchaseAnalyticsRepository,
+                                    PlatformTransactionManager transactionManager) {
+        this.purchaseAnalyticsRepository = purchaseAnalyticsRepository;
+        // コミット直後のイベントからも呼ぶため、元のトランザクションとは別に実行する
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    // ===== 集計 =====
+
+    // from〜to（両端を含む）の購入を groupBy ごとに合計する（itemId / categoryId / storeId は null なら絞り込まない）
+    public List<PurchaseGroupTotals> aggregate(LocalDate from, LocalDate to, GroupBy groupBy,
+                                               Long itemId, Long categoryId, Long storeId) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new IllegalArgumentException("from には to 以前の日付を指定してください");
+        }
+        ensureLoaded();
+
+        lock.readLock().lock();
+        try {
+            return store.aggregate(toDay(from), toDay(to), groupBy != null ? groupBy : GroupBy.NONE,
+                    idOrZero(itemId), idOrZero(categoryId), idOrZero(storeId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int toDay(LocalDate date) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, date.toEpochDay()));
+    }
+
+    private static long idOrZero(Long id) {
+        return id != null ? id : 0L;
+    }
+
+    // ===== ストアの維持 =====
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            ensureLoaded();
+        } catch (DataAccessException | TransactionException e) {
+            // 読み込めなかった場合は最初の集計時に読み込む
+            log.warn("購入履歴の集計ストアの読み込みに失敗しました", e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPurchaseHistoryChanged(PurchaseHistoryChangedEvent event) {
+        reload(event.itemIds());
+    }
+
+    // 商品のカテゴリ変更と削除（購入履歴ごと削除される）
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        reload(event.itemIds());
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (loadLock) {
+            if (loaded) {
+                return;
+            }
+            PurchaseColumnStore loadedStore = new PurchaseColumnStore();
+            transactionTemplate.executeWithoutResult(status ->
+                    purchaseAnalyticsRepository.forEachPurchase(loadedStore::append));
+            lock.writeLock().lock();
+            try {
+                store = loadedStore;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            loaded = true;
+            log.info("購入履歴の集計ストアを読み込みました: {} 件", loadedStore.liveRows());
+        }
+    }
+
+    private void reload(Set<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        synchronized (loadLock) {
+            // 未読み込みなら最初の集計時にまとめて読み込む
+            if (!loaded) {
+                return;
+            }
+            try {
+                // 書き込み直後の状態を読むため、レプリカ構成でもプライマリから読む
+                PurchaseColumnStore reloaded = new PurchaseColumnStore();
+                DataSourceRouting.onPrimary(() -> transactionTemplate.execute(status -> {
+                    purchaseAnalyticsRepository.forEachPurchaseOfItems(itemIds, reloaded::append);
+                    return null;
+                }));
+                lock.writeLock().lock();
+                try {
+                    itemIds.forEach(store::removeItem);
+                    store.appendAll(reloaded);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } catch (DataAccessException | TransactionException e) {
+                // 古い行で集計しないよう、次の集計時に全体を読み込み直す
+                log.warn("購入履歴の集計ストアの更新に失敗しました: itemIds={}", itemIds, e);
+                loaded = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.PurchaseGroupTotals;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// 購入履歴の列指向ストア（PurchaseAnalyticsService が読み書きをロックして使う、スレッドセーフではない）
+// - 1購入 = 各列の同じ添字。購入日はエポック日、商品・カテゴリ・店舗は辞書の番号（0 は未設定）で持つ
+// - 金額が記録されていない購入は hasPrice のビットで表す（金額の列は 0）
+// - 行の削除は deleted のビットを立てるだけで、削除行が半分を超えたら詰め直す
+// - 商品の行は nextRowOfItem でつなぎ、商品単位の削除を行数ではなく商品の購入数で済ませる
+final class PurchaseColumnStore {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int NONE = 0;
+
+    private int size;
+    private int deletedCount;
+    private int[] days = new int[INITIAL_CAPACITY];
+    private int[] items = new int[INITIAL_CAPACITY];
+    private int[] stores = new int[INITIAL_CAPACITY];
+    private int[] quantities = new int[INITIAL_CAPACITY];
+    private int[] prices = new int[INITIAL_CAPACITY];
+    private long[] hasPrice = new long[INITIAL_CAPACITY / 64];
+    private long[] deleted = new long[INITIAL_CAPACITY / 64];
+    private int[] nextRowOfItem = new int[INITIAL_CAPACITY];
+
+    // 辞書（番号 → ID、番号 0 は未設定）。商品ごとにカテゴリと最後に追加した行を持つ
+    private final Dictionary itemDictionary = new Dictionary();
+    private final Dictionary categoryDictionary = new Dictionary();
+    private final Dictionary storeDictionary = new Dictionary();
+    private int[] categoryOfItem = new int[16];
+    private int[] lastRowOfItem = new int[16];
+
+    PurchaseColumnStore() {
+        Arrays.fill(lastRowOfItem, -1);
+    }
+
+    // ===== 書き込み =====
+
+    // カテゴリ・店舗が未設定なら 0。商品のカテゴリは最後に追加した行のもので置き換える
+    void append(long itemId, long categoryId, long storeId, int epochDay, int quantity, int totalPrice, boolean priced) {
+        int item = itemIndex(itemId);
+        categoryOfItem[item] = categoryDictionary.indexOf(categoryId);
+        if (size == days.length) {
+            grow();
+        }
+        int row = size++;
+        days[row] = epochDay;
+        items[row] = item;
+        stores[row] = storeDictionary.indexOf(storeId);
+        quantities[row] = quantity;
+        prices[row] = priced ? totalPrice : 0;
+        if (priced) {
+            hasPrice[row >>> 6] |= 1L << row;
+        }
+        nextRowOfItem[row] = lastRowOfItem[item];
+        lastRowOfItem[item] = row;
+    }
+
+    // other の有効な行をすべて追加する
+    void appendAll(PurchaseColumnStore other) {
+        for (int row = 0; row < other.size; row++) {
+            if (other.isDeleted(row)) {
+                continue;
+            }
+            int item = other.items[row];
+            append(other.itemDictionary.idOf(item),
+                    other.categoryDictionary.idOf(other.categoryOfItem[item]),
+                    other.storeDictionary.idOf(other.stores[row]),
+                    other.days[row], other.quantities[row], other.prices[row], other.isPriced(row));
+        }
+    }
+
+    // 商品の行をすべて削除する
+    void removeItem(long itemId) {
+        int item = itemDictionary.find(itemId);
+        if (item == NONE) {
+            return;
+        }
+        for (int row = lastRowOfItem[item]; row >= 0; row = nextRowOfItem[row]) {
+            if (!isDeleted(row)) {
+                deleted[row >>> 6] |= 1L << row;
+                deletedCount++;
+            }
+        }
+        lastRowOfItem[item] = -1;
+        if (deletedCount > INITIAL_CAPACITY && deletedCount * 2 > size) {
+            compact();
+        }
+    }
+
+    int liveRows() {
+        return size - deletedCount;
+    }
+
+    // ===== 集計 =====
+
+    // fromDay〜toDay（両端を含む）の購入を groupBy ごとに集計する（絞り込みの ID が 0 なら絞り込まない）
+    // 集計用の配列以外は確保しない
+    List<PurchaseGroupTotals> aggregate(int fromDay, int toDay, PurchaseAnalyticsService.GroupBy groupBy,
+                                        long itemId, long categoryId, long storeId) {
+        int itemFilter = itemId != 0 ? itemDictionary.find(itemId) : NONE;
+        int categoryFilter = categoryId != 0 ? categoryDictionary.find(categoryId) : NONE;
+        int storeFilter = storeId != 0 ? storeDictionary.find(storeId) : NONE;
+        if ((itemId != 0 && itemFilter == NONE) || (categoryId != 0 && categoryFilter == NONE)
+                || (storeId != 0 && storeFilter == NONE)) {
+            return List.of();
+        }
+
+        Dictionary dictionary = switch (groupBy) {
+            case ITEM -> itemDictionary;
+            case CATEGORY -> categoryDictionary;
+            case STORE -> storeDictionary;
+            case NONE -> null;
+        };
+        int groups = dictionary != null ? dictionary.size() : 1;
+        long[] counts = new long[groups];
+        long[] quantitySums = new long[groups];
+        long[] priceSums = new long[groups];
+        long[] pricedQuantitySums = new long[groups];
+
+        for (int row = 0; row < size; row++) {
+            int day = days[row];
+            if (day < fromDay || day > toDay || isDeleted(row)) {
+                continue;
+            }
+            int item = items[row];
+            int category = categoryOfItem[item];
+            int store = stores[row];
+            if ((itemFilter != NONE && item != itemFilter) || (categoryFilter != NONE && category != categoryFilter)
+                    || (storeFilter != NONE && store != storeFilter)) {
+                continue;
+            }
+            int group = switch (groupBy) {
+                case ITEM -> item;
+                case CATEGORY -> category;
+                case STORE -> store;
+                case NONE -> 0;
+            };
+            int quantity = quantities[row];
+            counts[group]++;
+            quantitySums[group] += quantity;
+            if (isPriced(row)) {
+                priceSums[group] += prices[row];
+                pricedQuantitySums[group] += quantity;
+            }
+        }
+
+        // ID 順（未設定は最後）
+        List<PurchaseGroupTotals> result = new ArrayList<>();
+        for (int group = dictionary != null ? 1 : 0; group < groups; group++) {
+            if (counts[group] > 0) {
+                result.add(new PurchaseGroupTotals(dictionary != null ? dictionary.idOf(group) : null,
+                        counts[group], quantitySums[group], priceSums[group], pricedQuantitySums[group]));
+            }
+        }
+        result.sort((a, b) -> Long.compare(a.id() != null ? a.id() : 0, b.id() != null ? b.id() : 0));
+        if (dictionary != null && counts[NONE] > 0) {
+            result.add(new PurchaseGroupTotals(null,
+                    counts[NONE], quantitySums[NONE], priceSums[NONE], pricedQuantitySums[NONE]));
+        }
+        return result;
+    }
+
+    // ===== 内部 =====
+
+    private boolean isDeleted(int row) {
+        return (deleted[row >>> 6] & (1L << row)) != 0;
+    }
+
+    private boolean isPriced(int row) {
+        return (hasPrice[row >>> 6] & (1L << row)) != 0;
+    }
+
+    private int itemIndex(long itemId) {
+        int item = itemDictionary.indexOf(itemId);
+        if (item >= categoryOfItem.length) {
+            int length = Math.max(item + 1, categoryOfItem.length * 2);
+            categoryOfItem = Arrays.copyOf(categoryOfItem, length);
+            int previous = lastRowOfItem.length;
+            lastRowOfItem = Arrays.copyOf(lastRowOfItem, length);
+            Arrays.fill(lastRowOfItem, previous, length, -1);
+        }
+        return item;
+    }
+
+    private void grow() {
+        int capacity = days.length * 2;
+        days = Arrays.copyOf(days, capacity);
+        items = Arrays.copyOf(items, capacity);
+        stores = Arrays.copyOf(stores, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        hasPrice = Arrays.copyOf(hasPrice, capacity / 64);
+        deleted = Arrays.copyOf(deleted, capacity / 64);
+        nextRowOfItem = Arrays.copyOf(nextRowOfItem, capacity);
+    }
+
+    // 削除されていない行を前へ詰め、商品ごとの行のつながりを作り直す
+    private void compact() {
+        Arrays.fill(lastRowOfItem, -1);
+        long[] compactedPriced = new long[hasPrice.length];
+        int live = 0;
+        for (int row = 0; row < size; row++) {
+            if (isDeleted(row)) {
+                continue;
+            }
+            days[live] = days[row];
+            items[live] = items[row];
+            stores[live] = stores[row];
+            quantities[live] = quantities[row];
+            prices[live] = prices[row];
+            if (isPriced(row)) {
+                compactedPriced[live >>> 6] |= 1L << live;
+            }
+            nextRowOfItem[live] = lastRowOfItem[items[live]];
+            lastRowOfItem[items[live]] = live;
+            live++;
+        }
+        hasPrice = compactedPriced;
+        Arrays.fill(deleted, 0L);
+        size = live;
+        deletedCount = 0;
+    }
+
+    // ID ⇔ 番号（番号 0 は ID 0 = 未設定）
+    private static final class Dictionary {
+
+        private final Map<Long, Integer> indexes = new HashMap<>();
+        private long[] ids = new long[16];
+        private int size = 1;
+
+        int indexOf(long id) {
+            if (id == 0) {
+                return NONE;
+            }
+            Integer index = indexes.get(id);
+            if (index != null) {
+                return index;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size] = id;
+            indexes.put(id, size);
+            return size++;
+        }
+
+        // 登録されていなければ 0
+        int find(long id) {
+            Integer index = indexes.get(id);
+            return index != null ? index : NONE;
+        }
+
+        long idOf(int index) {
+            return ids[index];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
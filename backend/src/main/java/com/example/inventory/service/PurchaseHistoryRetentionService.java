@@ -0,0 +1,147 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.MonthlyPurchaseAggregate;
+import com.example.inventory.entity.PurchaseHistorySummary;
+import com.example.inventory.event.PurchaseHistoryChangedEvent;
+import com.example.inventory.repository.PurchaseHistoryPartitionRepository;
+import com.example.inventory.repository.PurchaseHistoryRepository;
+import com.example.inventory.repository.PurchaseHistorySummaryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+// 購入履歴のパーティション管理と保持期間（バックグラウンドジョブ）
+// - 月別パーティションを先行作成する（purchase_histories がパーティション化されている場合のみ）
+// - 保持期間（retention-months）より古い月は商品別の月次サマリーへ集約し、明細を削除する（既定は 0 = 無効、有効にした環境のみ）
+//   パーティション化されていればパーティションごと DROP する
+@Service
+public class PurchaseHistoryRetentionService {
+
+    private static final Logger log = LoggerFactory.getLogger(PurchaseHistoryRetentionService.class);
+
+    private final PurchaseHistoryRepository purchaseHistoryRepository;
+    private final PurchaseHistorySummaryRepository purchaseHistorySummaryRepository;
+    private final PurchaseHistoryPartitionRepository partitionRepository;
+    private final TombstoneService tombstoneService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int retentionMonths;
+    private final int partitionMonthsAhead;
+
+    public PurchaseHistoryRetentionService(PurchaseHistoryRepository purchaseHistoryRepository,
+                                           PurchaseHistorySummaryRepository purchaseHistorySummaryRepository,
+                                           PurchaseHistoryPartitionRepository partitionRepository,
+                                           TombstoneService tombstoneService,
+                                           ApplicationEventPublisher eventPublisher,
+                                           PlatformTransactionManager transactionManager,
+                                           @Value("${inventory.purchase-history.retention-months:0}") int retentionMonths,
+                                           @Value("${inventory.purchase-history.partition-months-ahead:3}") int partitionMonthsAhead) {
+        this.purchaseHistoryRepository = purchaseHistoryRepository;
+        this.purchaseHistorySummaryRepository = purchaseHistorySummaryRepository;
+        this.partitionRepository = partitionRepository;
+        this.tombstoneService = tombstoneService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retentionMonths = retentionMonths;
+        this.partitionMonthsAhead = partitionMonthsAhead;
+    }
+
+    // 起動時と毎日深夜に実行
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${inventory.purchase-history.maintenance-cron:0 30 3 * * *}")
+    public void maintain() {
+        // メンテナンスの失敗でアプリを止めない（次回実行で再試行される）
+        boolean partitioned = false;
+        try {
+            partitioned = partitionRepository.isPartitioned();
+            if (partitioned) {
+                createUpcomingPartitions();
+            }
+        } catch (DataAccessException e) {
+            log.warn("購入履歴のパーティション作成に失敗しました", e);
+        }
+
+        try {
+            if (retentionMonths > 0) {
+                downsample(partitioned);
+            }
+        } catch (DataAccessException e) {
+            log.warn("購入履歴の月次サマリー集約に失敗しました", e);
+        }
+    }
+
+    // 保持期間の先頭月から partitionMonthsAhead ヶ月先までのパーティションを作成
+    private void createUpcomingPartitions() {
+        YearMonth current = YearMonth.now();
+        YearMonth from = retentionMonths > 0 ? current.minusMonths(retentionMonths) : current;
+        for (YearMonth month = from; !month.isAfter(current.plusMonths(partitionMonthsAhead)); month = month.plusMonths(1)) {
+            if (!partitionRepository.partitionExists(month)) {
+                YearMonth target = month;
+                transactionTemplate.executeWithoutResult(status -> partitionRepository.createPartition(target));
+                log.info("購入履歴のパーティションを作成しました: {}", target);
+            }
+        }
+    }
+
+    // 保持期間より古い月を1ヶ月ずつ（1トランザクションずつ）集約・削除
+    private void downsample(boolean partitioned) {
+        YearMonth horizon = YearMonth.now().minusMonths(retentionMonths);
+        LocalDateTime oldest = purchaseHistoryRepository.findOldestPurchasedAtBefore(horizon.atDay(1).atStartOfDay());
+        if (oldest == null) {
+            return;
+        }
+
+        for (YearMonth month = YearMonth.from(oldest); month.isBefore(horizon); month = month.plusMonths(1)) {
+            YearMonth target = month;
+            transactionTemplate.executeWithoutResult(status -> summarizeMonth(target, partitioned));
+        }
+    }
+
+    private void summarizeMonth(YearMonth month, boolean partitioned) {
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+
+        List<MonthlyPurchaseAggregate> aggregates = purchaseHistoryRepository.aggregateByItemBetween(from, to);
+        for (MonthlyPurchaseAggregate aggregate : aggregates) {
+            // 集約済みの月に遅れて登録された購入は既存サマリーへ加算する
+            PurchaseHistorySummary summary = purchaseHistorySummaryRepository
+                    .findByItemIdAndMonth(aggregate.itemId(), month.atDay(1))
+                    .orElseGet(() -> PurchaseHistorySummary.builder()
+                            .itemId(aggregate.itemId())
+                            .month(month.atDay(1))
+                            .build());
+            summary.setPurchaseCount(summary.getPurchaseCount() + aggregate.purchaseCount());
+            summary.setTotalQuantity(summary.getTotalQuantity() + nullToZero(aggregate.totalQuantity()));
+            summary.setTotalPrice(summary.getTotalPrice() + nullToZero(aggregate.totalPrice()));
+            summary.setPricedQuantity(summary.getPricedQuantity() + nullToZero(aggregate.pricedQuantity()));
+            purchaseHistorySummaryRepository.save(summary);
+        }
+
+        tombstoneService.recordPurchaseHistoryDeletionsBetween(from, to);
+        if (partitioned && partitionRepository.partitionExists(month)) {
+            partitionRepository.dropPartition(month);
+        }
+        // パーティション化されていない場合、またはデフォルトパーティションに残った行
+        int deleted = partitionRepository.deleteBetween(month.atDay(1), month.plusMonths(1).atDay(1));
+        if (!aggregates.isEmpty()) {
+            eventPublisher.publishEvent(PurchaseHistoryChangedEvent.of(
+                    aggregates.stream().map(MonthlyPurchaseAggregate::itemId).toList()));
+        }
+        log.info("購入履歴を月次サマリーへ集約しました: {} ({}商品, 明細削除 {}件)", month, aggregates.size(), deleted);
+    }
+
+    private static long nullToZero(Long value) {
+        return value != null ? value : 0L;
+    }
+}
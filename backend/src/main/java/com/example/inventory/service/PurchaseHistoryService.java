@@ -1,20 +1,53 @@
 package com.example.inventory.service;
 
+import com.example.inventory.dto.ItemPurchaseHistory;
+import com.example.inventory.dto.PurchaseRecord;
 import com.example.inventory.entity.PurchaseHistory;
+import com.example.inventory.entity.PurchaseHistorySummary;
+import com.example.inventory.event.PurchaseHistoryChangedEvent;
+import com.example.inventory.repository.ItemRepository;
 import com.example.inventory.repository.PurchaseHistoryRepository;
+import com.example.inventory.repository.PurchaseHistorySummaryRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Clock;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
+@Transactional(readOnly = true)
 public class PurchaseHistoryService {
 
     private final PurchaseHistoryRepository purchaseHistoryRepository;
+    private final PurchaseHistorySummaryRepository purchaseHistorySummaryRepository;
+    private final ItemRepository itemRepository;
+    private final TombstoneService tombstoneService;
+    private final PriceAnalyticsService priceAnalyticsService;
+    private final PurchasePatternService purchasePatternService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Clock clock;
 
-    public PurchaseHistoryService(PurchaseHistoryRepository purchaseHistoryRepository) {
+    public PurchaseHistoryService(PurchaseHistoryRepository purchaseHistoryRepository,
+                                  PurchaseHistorySummaryRepository purchaseHistorySummaryRepository,
+                                  ItemRepository itemRepository,
+                                  TombstoneService tombstoneService,
+                                  PriceAnalyticsService priceAnalyticsService,
+                                  PurchasePatternService purchasePatternService,
+                                  ApplicationEventPublisher eventPublisher,
+                                  Clock clock) {
         this.purchaseHistoryRepository = purchaseHistoryRepository;
+        this.purchaseHistorySummaryRepository = purchaseHistorySummaryRepository;
+        this.itemRepository = itemRepository;
+        this.tombstoneService = tombstoneService;
+        this.priceAnalyticsService = priceAnalyticsService;
+        this.purchasePatternService = purchasePatternService;
+        this.eventPublisher = eventPublisher;
+        this.clock = clock;
     }
 
     public List<PurchaseHistory> findAll() {
@@ -25,12 +58,66 @@ public class PurchaseHistoryService {
         return purchaseHistoryRepository.findById(id);
     }
 
+    // 登録・更新（購入店舗が未指定なら商品の店舗を使い、価格サマリーも同じトランザクションで更新する）
+    // 購入周期は定期ジョブが更新日時から分析し直す。更新時は変更前の商品も再分析待ちにする
+    @Transactional
     public PurchaseHistory save(PurchaseHistory purchaseHistory) {
-        return purchaseHistoryRepository.save(purchaseHistory);
+        PurchaseRecord before = purchaseHistory.getId() != null
+                ? purchaseHistoryRepository.findRecordById(purchaseHistory.getId()).orElse(null)
+                : null;
+        if (purchaseHistory.getStore() == null && purchaseHistory.getItem() != null
+                && purchaseHistory.getItem().getId() != null) {
+            itemRepository.findById(purchaseHistory.getItem().getId())
+                    .ifPresent(item -> purchaseHistory.setStore(item.getStore()));
+        }
+
+        PurchaseHistory saved = purchaseHistoryRepository.save(purchaseHistory);
+        priceAnalyticsService.onPurchaseSaved(before, toRecord(saved));
+        if (before != null) {
+            purchasePatternService.markStale(before.itemId());
+        }
+        publishChanged(before, toRecord(saved));
+        return saved;
     }
 
+    @Transactional
     public void delete(Long id) {
+        PurchaseRecord before = purchaseHistoryRepository.findRecordById(id).orElse(null);
+        tombstoneService.recordPurchaseHistoryDeletion(id);
         purchaseHistoryRepository.deleteById(id);
+        priceAnalyticsService.onPurchaseDeleted(before);
+        if (before != null) {
+            purchasePatternService.markStale(before.itemId());
+        }
+        publishChanged(before, null);
+    }
+
+    // 変更前後の商品（商品を付け替えた場合は両方）
+    private void publishChanged(PurchaseRecord before, PurchaseRecord after) {
+        Set<Long> itemIds = new HashSet<>();
+        if (before != null && before.itemId() != null) {
+            itemIds.add(before.itemId());
+        }
+        if (after != null && after.itemId() != null) {
+            itemIds.add(after.itemId());
+        }
+        if (!itemIds.isEmpty()) {
+            eventPublisher.publishEvent(PurchaseHistoryChangedEvent.of(itemIds));
+        }
+    }
+
+    // Store削除時の関連解除（店舗別の価格サマリーも削除する）
+    @Transactional
+    public int updateStoreToNull(Long storeId) {
+        priceAnalyticsService.deleteByStoreId(storeId);
+        return purchaseHistoryRepository.updateStoreToNull(storeId, LocalDateTime.now());
+    }
+
+    private static PurchaseRecord toRecord(PurchaseHistory purchaseHistory) {
+        Long itemId = purchaseHistory.getItem() != null ? purchaseHistory.getItem().getId() : null;
+        Long storeId = purchaseHistory.getStore() != null ? purchaseHistory.getStore().getId() : null;
+        return new PurchaseRecord(purchaseHistory.getId(), itemId, null, storeId, purchaseHistory.getQuantity(),
+                purchaseHistory.getTotalPrice(), purchaseHistory.getPurchasedAt());
     }
 
     // 基本的な検索メソッド
@@ -38,6 +125,24 @@ public class PurchaseHistoryService {
         return purchaseHistoryRepository.findByItemIdOrderByPurchasedAtDesc(itemId);
     }
 
+    // 直近の購入履歴（指定日数分、パーティションの絞り込みが効く）
+    public List<PurchaseHistory> findRecentByItemId(Long itemId, int days) {
+        return purchaseHistoryRepository.findByItemIdAndPurchasedAtGreaterThanEqualOrderByPurchasedAtDesc(
+                itemId, LocalDate.now(clock).minusDays(days).atStartOfDay());
+    }
+
+    // 全購入履歴（保持期間内の明細 + 保持期間を過ぎて集約された月次サマリー）
+    public ItemPurchaseHistory getFullHistory(Long itemId) {
+        return new ItemPurchaseHistory(itemId,
+                purchaseHistoryRepository.findByItemIdOrderByPurchasedAtDesc(itemId),
+                purchaseHistorySummaryRepository.findByItemIdOrderByMonthDesc(itemId));
+    }
+
+    // 期間別の月次サマリー（from / to は月初日）
+    public List<PurchaseHistorySummary> findSummariesBetween(LocalDate from, LocalDate to) {
+        return purchaseHistorySummaryRepository.findByMonthBetweenOrderByMonthAsc(from, to);
+    }
+
     // カスタムメソッド
     // 賞味期限付き商品の購入履歴
     public List<PurchaseHistory> findByItemIdAndExpiryDateIsNotNull(Long itemId) {
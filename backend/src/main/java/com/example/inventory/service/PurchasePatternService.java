@@ -0,0 +1,286 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.ExpectedPurchase;
+import com.example.inventory.entity.PurchasePattern;
+import com.example.inventory.repository.PurchaseHistoryRepository;
+import com.example.inventory.repository.PurchasePatternRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// 購入周期の検出（米・洗剤・牛乳など、決まった間隔で買う商品）
+// - 定期ジョブが、前回の実行以降に購入履歴が登録・更新された商品と、再分析待ちにした商品だけを分析し直す
+// - 購入日はまとめて1回のクエリで読み、周期の計算は商品ごとに fork/join で並列に行う
+// - 直近 max-intervals 回の購入間隔の平均と標準偏差から次回の購入予定日を出し、
+//   ばらつき（標準偏差 / 平均）が max-variation 以下なら定期購入とみなす
+@Service
+public class PurchasePatternService {
+
+    private static final Logger log = LoggerFactory.getLogger(PurchasePatternService.class);
+
+    // これ以下の商品数になるまで分割してから、1つのスレッドでまとめて計算する
+    private static final int SEQUENTIAL_THRESHOLD = 64;
+
+    private final PurchaseHistoryRepository purchaseHistoryRepository;
+    private final PurchasePatternRepository purchasePatternRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final ForkJoinPool pool;
+    private final int minPurchases;
+    private final int maxIntervals;
+    private final double maxVariation;
+    private final int batchSize;
+    private final int safetyLagSeconds;
+
+    // 前回の実行で反映した購入履歴の更新日時（起動後の最初の実行では purchase_patterns から読む）
+    private LocalDateTime watermark;
+
+    public PurchasePatternService(PurchaseHistoryRepository purchaseHistoryRepository,
+                                  PurchasePatternRepository purchasePatternRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  Clock clock,
+                                  @Value("${inventory.purchase-pattern.parallelism:4}") int parallelism,
+                                  @Value("${inventory.purchase-pattern.min-purchases:3}") int minPurchases,
+                                  @Value("${inventory.purchase-pattern.max-intervals:12}") int maxIntervals,
+                                  @Value("${inventory.purchase-pattern.max-variation:0.5}") double maxVariation,
+                                  @Value("${inventory.purchase-pattern.batch-size:500}") int batchSize,
+                                  @Value("${inventory.purchase-pattern.safety-lag-seconds:5}") int safetyLagSeconds) {
+        this.purchaseHistoryRepository = purchaseHistoryRepository;
+        this.purchasePatternRepository = purchasePatternRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+        this.pool = new ForkJoinPool(Math.max(1, parallelism), pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("purchase-pattern-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        // 間隔の標準偏差を出すため、購入日は最低3日分必要
+        this.minPurchases = Math.max(3, minPurchases);
+        this.maxIntervals = Math.max(2, maxIntervals);
+        this.maxVariation = maxVariation;
+        this.batchSize = Math.max(1, batchSize);
+        this.safetyLagSeconds = safetyLagSeconds;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // ===== 参照 =====
+
+    // 今週（今日から日曜日まで）に買う見込みの商品（予定日を過ぎてまだ買っていないものを含む）
+    // 予定日から1周期以上過ぎた商品は、買うのをやめた可能性が高いため含めない
+    @Transactional(readOnly = true)
+    public List<ExpectedPurchase> getExpectedThisWeek() {
+        LocalDate today = LocalDate.now(clock);
+        LocalDate weekEnd = today.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
+        return purchasePatternRepository.findExpectedUntil(weekEnd).stream()
+                .filter(expected -> !expected.nextExpectedOn()
+                        .isBefore(today.minusDays(Math.round(expected.meanIntervalDays()))))
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public List<PurchasePattern> findAll() {
+        return purchasePatternRepository.findAllByOrderByNextExpectedOnAscItemIdAsc();
+    }
+
+    // ===== 購入履歴の変更（PurchaseHistoryService から同一トランザクションで呼ばれる） =====
+
+    // 更新・削除された購入の変更前の商品（購入日時の変更や削除は、新しい更新日時の行が残らないため）
+    public void markStale(Long itemId) {
+        if (itemId != null) {
+            purchasePatternRepository.markStale(itemId);
+        }
+    }
+
+    // ===== 分析 =====
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${inventory.purchase-pattern.interval-ms:3600000}",
+               initialDelayString = "${inventory.purchase-pattern.interval-ms:3600000}")
+    public void analyze() {
+        try {
+            int items = run(false);
+            if (items > 0) {
+                log.info("購入周期を分析しました: {} 商品", items);
+            }
+        } catch (DataAccessException | TransactionException e) {
+            // 反映できなかった分は次回の実行で再処理される
+            log.warn("購入周期の分析に失敗しました", e);
+        }
+    }
+
+    // 全商品を分析し直す（分析した商品数を返す）
+    public int rebuild() {
+        int items = run(true);
+        log.info("購入周期を全商品分析し直しました: {} 商品", items);
+        return items;
+    }
+
+    // 1プロセス内では直列に実行する
+    private synchronized int run(boolean full) {
+        // 書き込み中のトランザクションがコミットされる前に通り過ぎないよう、少し前までを対象にする
+        LocalDateTime until = LocalDateTime.now(clock).minusSeconds(safetyLagSeconds);
+        if (watermark == null) {
+            watermark = purchasePatternRepository.findMaxAnalyzedThrough();
+        }
+
+        Set<Long> itemIds = new LinkedHashSet<>();
+        if (full || watermark == null) {
+            itemIds.addAll(purchaseHistoryRepository.findPurchasedItemIds());
+            itemIds.addAll(purchasePatternRepository.findItemIds());  // 購入履歴がなくなった商品の行を消す
+        } else {
+            itemIds.addAll(purchaseHistoryRepository.findItemIdsUpdatedBetween(watermark, until));
+        }
+        itemIds.addAll(purchasePatternRepository.findStaleItemIds());
+
+        List<Long> ids = List.copyOf(itemIds);
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            analyzeBatch(ids.subList(from, Math.min(ids.size(), from + batchSize)), until);
+        }
+        if (watermark == null || until.isAfter(watermark)) {
+            watermark = until;
+        }
+        return ids.size();
+    }
+
+    private void analyzeBatch(List<Long> itemIds, LocalDateTime until) {
+        Map<Long, List<LocalDate>> purchaseDays = toPurchaseDays(purchaseHistoryRepository.findPurchaseTimesByItemIdIn(itemIds));
+        Map<Long, Cycle> cycles = pool.invoke(new DetectTask(itemIds, purchaseDays, 0, itemIds.size()));
+        transactionTemplate.executeWithoutResult(status -> save(itemIds, cycles, until));
+    }
+
+    private void save(List<Long> itemIds, Map<Long, Cycle> cycles, LocalDateTime until) {
+        Map<Long, PurchasePattern> existing = purchasePatternRepository.findByItemIdIn(itemIds).stream()
+                .collect(Collectors.toMap(PurchasePattern::getItemId, Function.identity()));
+        List<PurchasePattern> saved = new ArrayList<>();
+        List<PurchasePattern> removed = new ArrayList<>();
+        for (Long itemId : itemIds) {
+            Cycle cycle = cycles.get(itemId);
+            PurchasePattern pattern = existing.get(itemId);
+            if (cycle == null) {
+                if (pattern != null) {
+                    removed.add(pattern);
+                }
+                continue;
+            }
+            if (pattern == null) {
+                pattern = PurchasePattern.builder().itemId(itemId).build();
+            }
+            pattern.setPurchaseCount(cycle.purchaseCount());
+            pattern.setMeanIntervalDays(cycle.meanIntervalDays());
+            pattern.setIntervalStdDevDays(cycle.intervalStdDevDays());
+            pattern.setLastPurchasedOn(cycle.lastPurchasedOn());
+            pattern.setNextExpectedOn(cycle.nextExpectedOn());
+            pattern.setRegular(cycle.regular());
+            pattern.setAnalyzedThrough(until);
+            saved.add(pattern);
+        }
+        purchasePatternRepository.saveAll(saved);
+        purchasePatternRepository.deleteAllInBatch(removed);
+    }
+
+    // 商品の範囲を半分ずつに分け、片方を fork してもう片方をこのスレッドで計算する
+    private final class DetectTask extends RecursiveTask<Map<Long, Cycle>> {
+
+        private final List<Long> itemIds;
+        private final Map<Long, List<LocalDate>> purchaseDays;
+        private final int from;
+        private final int to;
+
+        DetectTask(List<Long> itemIds, Map<Long, List<LocalDate>> purchaseDays, int from, int to) {
+            this.itemIds = itemIds;
+            this.purchaseDays = purchaseDays;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<Long, Cycle> compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                Map<Long, Cycle> cycles = new HashMap<>();
+                for (Long itemId : itemIds.subList(from, to)) {
+                    Cycle cycle = detect(purchaseDays.getOrDefault(itemId, List.of()), minPurchases, maxIntervals, maxVariation);
+                    if (cycle != null) {
+                        cycles.put(itemId, cycle);
+                    }
+                }
+                return cycles;
+            }
+            int middle = (from + to) >>> 1;
+            DetectTask left = new DetectTask(itemIds, purchaseDays, from, middle);
+            left.fork();
+            Map<Long, Cycle> cycles = new DetectTask(itemIds, purchaseDays, middle, to).compute();
+            cycles.putAll(left.join());
+            return cycles;
+        }
+    }
+
+    // [itemId, purchasedAt]（購入日時順）から商品ごとの購入日（昇順・重複なし）を作る
+    static Map<Long, List<LocalDate>> toPurchaseDays(List<Object[]> rows) {
+        Map<Long, List<LocalDate>> purchaseDays = new HashMap<>();
+        for (Object[] row : rows) {
+            List<LocalDate> days = purchaseDays.computeIfAbsent((Long) row[0], id -> new ArrayList<>());
+            LocalDate day = ((LocalDateTime) row[1]).toLocalDate();
+            if (days.isEmpty() || !days.get(days.size() - 1).equals(day)) {
+                days.add(day);  // 同じ日の購入は1回と数える（購入日時順に読むため直前とだけ比べればよい）
+            }
+        }
+        return purchaseDays;
+    }
+
+    // 購入日（昇順・重複なし）から購入周期を求める（購入日が minPurchases 日に満たなければ null）
+    static Cycle detect(List<LocalDate> days, int minPurchases, int maxIntervals, double maxVariation) {
+        if (days.size() < minPurchases) {
+            return null;
+        }
+        int first = Math.max(0, days.size() - 1 - maxIntervals);
+        int intervals = days.size() - 1 - first;
+        double sum = 0;
+        double sumOfSquares = 0;
+        for (int i = first + 1; i < days.size(); i++) {
+            long interval = ChronoUnit.DAYS.between(days.get(i - 1), days.get(i));
+            sum += interval;
+            sumOfSquares += (double) interval * interval;
+        }
+        double mean = sum / intervals;
+        double variance = intervals > 1 ? Math.max(0, (sumOfSquares - sum * sum / intervals) / (intervals - 1)) : 0;
+        double stdDev = Math.sqrt(variance);
+        LocalDate last = days.get(days.size() - 1);
+        return new Cycle(intervals + 1, mean, stdDev, last, last.plusDays(Math.round(mean)),
+                stdDev / mean <= maxVariation);
+    }
+
+    record Cycle(int purchaseCount, double meanIntervalDays, double intervalStdDevDays,
+                 LocalDate lastPurchasedOn, LocalDate nextExpectedOn, boolean regular) {
+    }
+}
@@ -0,0 +1,297 @@
+package com.example.inventory.service;
+
+import com.example.inventory.config.DataSourceRouting;
+import com.example.inventory.dto.PurchaseTotals;
+import com.example.inventory.dto.SpendingTotals;
+import com.example.inventory.event.ItemChangedEvent;
+import com.example.inventory.event.PurchaseHistoryChangedEvent;
+import com.example.inventory.repository.PurchaseHistoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// 日別の購入合計（件数・数量・金額）の索引。任意の期間の合計を O(log 日数) で返す
+// - 商品別・カテゴリ別・全体の日別合計を Fenwick 木（累積和）でメモリ上に持つ
+// - 起動時に購入履歴を日別に集計して構築し、購入履歴・商品の書き込み（コミット後のイベント）で該当商品だけ読み直す
+// - 対象は保持期間内の明細（月次サマリーへ集約された月は含まない）。商品が紐づいていない購入は対象外
+@Service
+public class PurchaseTotalsService {
+
+    private static final Logger log = LoggerFactory.getLogger(PurchaseTotalsService.class);
+
+    private final PurchaseHistoryRepository purchaseHistoryRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // 読み込み・読み直しは1つずつ実行する（後から読んだ内容が必ず後から反映されるように）
+    private final Object loadLock = new Object();
+    private volatile boolean loaded;
+
+    // 以下は this で同期する
+    private final Map<Long, ItemTotals> items = new HashMap<>();
+    private final Map<Long, DailyTotalsTree> categories = new HashMap<>();
+    private final DailyTotalsTree all = new DailyTotalsTree();
+
+    public PurchaseTotalsService(PurchaseHistoryRepository purchaseHistoryRepository,
+                                 PlatformTransactionManager transactionManager) {
+        this.purchaseHistoryRepository = purchaseHistoryRepository;
+        // コミット直後のイベントからも呼ぶため、元のトランザクションとは別に実行する
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    // ===== 参照 =====
+
+    // 商品別（itemId）・カテゴリ別（categoryId）・全体（どちらも未指定）の期間合計
+    public PurchaseTotals getTotals(LocalDate from, LocalDate to, Long itemId, Long categoryId) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new IllegalArgumentException("from には to 以前の日付を指定してください");
+        }
+        if (itemId != null && categoryId != null) {
+            throw new IllegalArgumentException("itemId と categoryId はどちらか一方だけ指定してください");
+        }
+        ensureLoaded();
+
+        SpendingTotals totals;
+        synchronized (this) {
+            DailyTotalsTree tree;
+            if (itemId != null) {
+                ItemTotals item = items.get(itemId);
+                tree = item != null ? item.tree() : null;
+            } else if (categoryId != null) {
+                tree = categories.get(categoryId);
+            } else {
+                tree = all;
+            }
+            totals = tree != null ? tree.sum(from.toEpochDay(), to.toEpochDay()) : SpendingTotals.ZERO;
+        }
+        return PurchaseTotals.of(from, to, itemId, categoryId, totals);
+    }
+
+    // ===== 索引の維持 =====
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            ensureLoaded();
+        } catch (DataAccessException | TransactionException e) {
+            // 読み込めなかった場合は最初の参照時に読み込む
+            log.warn("購入合計の索引の構築に失敗しました", e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPurchaseHistoryChanged(PurchaseHistoryChangedEvent event) {
+        reload(event.itemIds());
+    }
+
+    // 商品のカテゴリ変更と削除（購入履歴ごと削除される）
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        reload(event.itemIds());
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (loadLock) {
+            if (loaded) {
+                return;
+            }
+            Map<Long, ItemTotals> loadedItems = toItemTotals(
+                    transactionTemplate.execute(status -> purchaseHistoryRepository.aggregateDailyByItem()));
+            synchronized (this) {
+                for (Long itemId : List.copyOf(items.keySet())) {
+                    remove(itemId);
+                }
+                loadedItems.values().forEach(this::add);
+            }
+            loaded = true;
+            log.info("購入合計の索引を構築しました: {} 商品", loadedItems.size());
+        }
+    }
+
+    private void reload(Set<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        synchronized (loadLock) {
+            // 未構築なら最初の参照時にまとめて読み込む
+            if (!loaded) {
+                return;
+            }
+            try {
+                // 書き込み直後の状態を読むため、レプリカ構成でもプライマリから読む
+                Map<Long, ItemTotals> reloaded = toItemTotals(DataSourceRouting.onPrimary(() -> transactionTemplate.execute(
+                        status -> purchaseHistoryRepository.aggregateDailyByItemIdIn(itemIds))));
+                synchronized (this) {
+                    for (Long itemId : itemIds) {
+                        remove(itemId);
+                        ItemTotals item = reloaded.get(itemId);
+                        if (item != null) {
+                            add(item);
+                        }
+                    }
+                }
+            } catch (DataAccessException | TransactionException e) {
+                // 古い合計を返さないよう、次の参照時に全体を読み込み直す
+                log.warn("購入合計の索引の更新に失敗しました: itemIds={}", itemIds, e);
+                loaded = false;
+            }
+        }
+    }
+
+    // 行は [商品ID, カテゴリID, 購入日, 件数, 数量, 金額]（商品順）
+    private static Map<Long, ItemTotals> toItemTotals(List<Object[]> rows) {
+        Map<Long, ItemTotals> result = new HashMap<>();
+        int start = 0;
+        while (start < rows.size()) {
+            Long itemId = (Long) rows.get(start)[0];
+            int end = start;
+            while (end < rows.size() && itemId.equals(rows.get(end)[0])) {
+                end++;
+            }
+            long[] days = new long[end - start];
+            long[] values = new long[(end - start) * DailyTotalsTree.FIELDS];
+            DailyTotalsTree tree = new DailyTotalsTree();
+            for (int i = 0; i < days.length; i++) {
+                Object[] row = rows.get(start + i);
+                days[i] = ((LocalDate) row[2]).toEpochDay();
+                values[i * DailyTotalsTree.FIELDS] = ((Number) row[3]).longValue();
+                values[i * DailyTotalsTree.FIELDS + 1] = ((Number) row[4]).longValue();
+                values[i * DailyTotalsTree.FIELDS + 2] = ((Number) row[5]).longValue();
+                tree.add(days[i], values, i * DailyTotalsTree.FIELDS, 1);
+            }
+            result.put(itemId, new ItemTotals(itemId, (Long) rows.get(start)[1], days, values, tree));
+            start = end;
+        }
+        return result;
+    }
+
+    private void add(ItemTotals item) {
+        items.put(item.itemId(), item);
+        apply(item, 1);
+    }
+
+    private void remove(Long itemId) {
+        ItemTotals item = items.remove(itemId);
+        if (item != null) {
+            apply(item, -1);
+        }
+    }
+
+    // カテゴリ別・全体の木へ商品の日別合計を加える（sign = -1 なら差し引く）
+    private void apply(ItemTotals item, int sign) {
+        DailyTotalsTree category = item.categoryId() != null
+                ? categories.computeIfAbsent(item.categoryId(), id -> new DailyTotalsTree())
+                : null;
+        for (int i = 0; i < item.days().length; i++) {
+            if (category != null) {
+                category.add(item.days()[i], item.values(), i * DailyTotalsTree.FIELDS, sign);
+            }
+            all.add(item.days()[i], item.values(), i * DailyTotalsTree.FIELDS, sign);
+        }
+    }
+
+    // 商品ごとの日別合計（days は購入日のエポック日、values は日ごとに件数・数量・金額の順）
+    private record ItemTotals(Long itemId, Long categoryId, long[] days, long[] values, DailyTotalsTree tree) {
+    }
+
+    // 日別合計の Fenwick 木（添字 1 が base 日）。加算・期間合計とも O(log 日数)
+    // 大きさは2のべき乗に揃え、範囲外の日を加えるときは倍に広げる
+    static final class DailyTotalsTree {
+
+        static final int FIELDS = 3;
+
+        private long base;
+        private int capacity;
+        private long[] nodes = new long[0];
+
+        void add(long day, long[] values, int offset, int sign) {
+            include(day);
+            for (int i = (int) (day - base) + 1; i <= capacity; i += i & -i) {
+                for (int f = 0; f < FIELDS; f++) {
+                    nodes[i * FIELDS + f] += sign * values[offset + f];
+                }
+            }
+        }
+
+        // fromDay〜toDay（両端を含む）の合計
+        SpendingTotals sum(long fromDay, long toDay) {
+            long from = Math.max(fromDay, base);
+            long to = Math.min(toDay, base + capacity - 1);
+            if (from > to) {
+                return SpendingTotals.ZERO;
+            }
+            long[] upper = prefix((int) (to - base) + 1);
+            long[] lower = prefix((int) (from - base));
+            return new SpendingTotals(upper[0] - lower[0], upper[1] - lower[1], upper[2] - lower[2]);
+        }
+
+        // 添字 1〜index の合計
+        private long[] prefix(int index) {
+            long[] sum = new long[FIELDS];
+            for (int i = index; i > 0; i -= i & -i) {
+                for (int f = 0; f < FIELDS; f++) {
+                    sum[f] += nodes[i * FIELDS + f];
+                }
+            }
+            return sum;
+        }
+
+        private void include(long day) {
+            if (capacity == 0) {
+                base = day;
+                capacity = 1;
+                nodes = new long[FIELDS * 2];
+                return;
+            }
+            if (day < base) {
+                // 左へ広げるときは日ごとの値を取り出して作り直す（過去の日付の購入を後から登録した場合）
+                long end = base + capacity;
+                int size = capacity * 2;
+                while (end - size > day) {
+                    size *= 2;
+                }
+                long[] points = new long[capacity * FIELDS];
+                for (int i = 1; i <= capacity; i++) {
+                    long[] upper = prefix(i);
+                    long[] lower = prefix(i - 1);
+                    for (int f = 0; f < FIELDS; f++) {
+                        points[(i - 1) * FIELDS + f] = upper[f] - lower[f];
+                    }
+                }
+                long oldBase = base;
+                int oldCapacity = capacity;
+                base = end - size;
+                capacity = size;
+                nodes = new long[FIELDS * (size + 1)];
+                for (int i = 0; i < oldCapacity; i++) {
+                    add(oldBase + i, points, i * FIELDS, 1);
+                }
+            }
+            while (day >= base + capacity) {
+                // 右へ倍に広げる。増えた節点は新しい範囲（まだ 0）だけを持ち、最後の節点だけが全体の合計になる
+                long[] grown = Arrays.copyOf(nodes, FIELDS * (capacity * 2 + 1));
+                System.arraycopy(nodes, capacity * FIELDS, grown, capacity * 2 * FIELDS, FIELDS);
+                nodes = grown;
+                capacity *= 2;
+            }
+        }
+    }
+}
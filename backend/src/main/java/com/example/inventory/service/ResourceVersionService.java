@@ -0,0 +1,126 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.ResourceStamp;
+import com.example.inventory.dto.TableVersion;
+import com.example.inventory.repository.CategoryRepository;
+import com.example.inventory.repository.ItemRepository;
+import com.example.inventory.repository.PurchaseHistoryRepository;
+import com.example.inventory.repository.StockRepository;
+import com.example.inventory.repository.StoreRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+// 条件付きGET（ETag / Last-Modified）用のバージョン計算
+// エンティティはロードせず、COUNT / MAX(updatedAt) の集計クエリだけでバージョンを求める
+@Service
+@Transactional(readOnly = true)
+public class ResourceVersionService {
+
+    private final CategoryRepository categoryRepository;
+    private final StoreRepository storeRepository;
+    private final ItemRepository itemRepository;
+    private final StockRepository stockRepository;
+    private final PurchaseHistoryRepository purchaseHistoryRepository;
+
+    public ResourceVersionService(CategoryRepository categoryRepository,
+                                  StoreRepository storeRepository,
+                                  ItemRepository itemRepository,
+                                  StockRepository stockRepository,
+                                  PurchaseHistoryRepository purchaseHistoryRepository) {
+        this.categoryRepository = categoryRepository;
+        this.storeRepository = storeRepository;
+        this.itemRepository = itemRepository;
+        this.stockRepository = stockRepository;
+        this.purchaseHistoryRepository = purchaseHistoryRepository;
+    }
+
+    // ===== 一覧用 ETag =====
+    // JSONに埋め込まれる関連テーブルのバージョンも合成する（例: Item には category / store が含まれる）
+
+    public String categoriesETag() {
+        return etagOf(categoryRepository.getTableVersion());
+    }
+
+    public String storesETag() {
+        return etagOf(storeRepository.getTableVersion());
+    }
+
+    public String itemsETag() {
+        return etagOf(itemRepository.getTableVersion(),
+                categoryRepository.getTableVersion(),
+                storeRepository.getTableVersion());
+    }
+
+    // 在庫サマリー付きの商品一覧（在庫状況は日付で変わるため日付も合成する）
+    public String itemsWithStockSummaryETag(LocalDate today) {
+        return etagOf(today, itemRepository.getTableVersion(),
+                categoryRepository.getTableVersion(),
+                storeRepository.getTableVersion(),
+                stockRepository.getTableVersion());
+    }
+
+    public String stocksETag() {
+        return etagOf(stockRepository.getTableVersion(),
+                itemRepository.getTableVersion(),
+                categoryRepository.getTableVersion(),
+                storeRepository.getTableVersion());
+    }
+
+    public String purchaseHistoriesETag() {
+        return etagOf(purchaseHistoryRepository.getTableVersion(),
+                itemRepository.getTableVersion(),
+                categoryRepository.getTableVersion(),
+                storeRepository.getTableVersion());
+    }
+
+    // ===== 詳細用の更新日時 =====
+
+    public Optional<ResourceStamp> categoryStamp(Long id) {
+        return categoryRepository.findStampById(id);
+    }
+
+    public Optional<ResourceStamp> storeStamp(Long id) {
+        return storeRepository.findStampById(id);
+    }
+
+    public Optional<ResourceStamp> itemStamp(Long id) {
+        return itemRepository.findStampById(id);
+    }
+
+    public Optional<ResourceStamp> stockStamp(Long id) {
+        return stockRepository.findStampById(id);
+    }
+
+    public Optional<ResourceStamp> purchaseHistoryStamp(Long id) {
+        return purchaseHistoryRepository.findStampById(id);
+    }
+
+    // 詳細用 ETag（更新日時をマイクロ秒で表現した強いバリデータ）
+    public static String etagOf(LocalDateTime updatedAt) {
+        return "\"" + toMicros(updatedAt) + "\"";
+    }
+
+    private static String etagOf(TableVersion... versions) {
+        return Arrays.stream(versions)
+                .map(version -> version.count() + "-" + toMicros(version.maxUpdatedAt()))
+                .collect(Collectors.joining(".", "\"", "\""));
+    }
+
+    private static String etagOf(LocalDate date, TableVersion... versions) {
+        String tables = etagOf(versions);
+        return tables.substring(0, tables.length() - 1) + "." + date + "\"";
+    }
+
+    private static long toMicros(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return 0L;
+        }
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + dateTime.getNano() / 1_000;
+    }
+}
@@ -0,0 +1,487 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.SnapshotCounts;
+import com.example.inventory.event.ItemChangedEvent;
+import com.example.inventory.event.PurchaseHistoryChangedEvent;
+import com.example.inventory.event.StockChangedEvent;
+import com.example.inventory.repository.SnapshotRepository;
+import com.example.inventory.repository.SnapshotRepository.ColumnType;
+import com.example.inventory.repository.SnapshotRepository.Table;
+import com.example.inventory.repository.StockLedgerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+// 世帯データのスナップショット（カテゴリ・店舗・商品・在庫・購入履歴・月次サマリーをまとめたバイナリファイル）
+// 形式（ビッグエンディアン）
+//   ヘッダー   "OTSKSNAP" | 版(int) | 作成日時(long, エポックミリ秒) | セクション数(int)
+//   セクション テーブル名(文字列) | 列数(int) | 列の型(byte × 列数) | 行数(long) | 本体のバイト数(long) | 本体 | 本体の CRC32C(int)
+//   行        NULL の列のビット(int) | NULL でない列の値
+//   値        BIGINT=long, INTEGER=int, BOOLEAN=byte, VARCHAR=バイト数(int)+UTF-8, DATE=エポック日(int),
+//             TIMESTAMP=エポックマイクロ秒(long、タイムゾーンなしの日時をそのまま UTC として数える)
+// - 書き出し・読み込みともファイルを REGION_SIZE ずつメモリマップして読み書きする
+// - 書き出しは1つの読み取り専用トランザクション（REPEATABLE READ）で、全テーブルを同じ時点の内容で読む
+// - 復元は空の DB にだけ行う。全セクションのチェックサムを確かめてから、1トランザクションでバッチ INSERT する
+//   在庫状況・在庫履歴の期首残高・カテゴリの閉包テーブル・メモリ上の索引は同じトランザクションで（イベントで）、
+//   価格サマリー・購入周期はコミット後に作り直す
+// - 列を末尾に追加する前のスナップショットも復元できる（足りない列は NULL）
+@Service
+public class SnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotService.class);
+
+    private static final byte[] MAGIC = "OTSKSNAP".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final long REGION_SIZE = 64L << 20;
+
+    private final SnapshotRepository snapshotRepository;
+    private final StockLedgerRepository stockLedgerRepository;
+    private final PriceAnalyticsService priceAnalyticsService;
+    private final PurchasePatternService purchasePatternService;
+    private final CategoryTreeService categoryTreeService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate exportTemplate;
+    private final TransactionTemplate restoreTemplate;
+    private final int batchSize;
+
+    public SnapshotService(SnapshotRepository snapshotRepository,
+                           StockLedgerRepository stockLedgerRepository,
+                           PriceAnalyticsService priceAnalyticsService,
+                           PurchasePatternService purchasePatternService,
+                           CategoryTreeService categoryTreeService,
+                           ApplicationEventPublisher eventPublisher,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${inventory.snapshot.batch-size:1000}") int batchSize) {
+        this.snapshotRepository = snapshotRepository;
+        this.stockLedgerRepository = stockLedgerRepository;
+        this.priceAnalyticsService = priceAnalyticsService;
+        this.purchasePatternService = purchasePatternService;
+        this.categoryTreeService = categoryTreeService;
+        this.eventPublisher = eventPublisher;
+        this.exportTemplate = new TransactionTemplate(transactionManager);
+        this.exportTemplate.setReadOnly(true);
+        this.exportTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.restoreTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    // ===== 書き出し =====
+
+    public SnapshotCounts export(Path file) throws IOException {
+        Map<Table, Long> counts = new EnumMap<>(Table.class);
+        try (MappedOutput out = new MappedOutput(file)) {
+            out.putBytes(MAGIC);
+            out.putInt(VERSION);
+            out.putLong(System.currentTimeMillis());
+            out.putInt(Table.values().length);
+            exportTemplate.executeWithoutResult(status -> {
+                for (Table table : Table.values()) {
+                    counts.put(table, writeSection(out, table));
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        SnapshotCounts result = SnapshotCounts.of(counts);
+        log.info("スナップショットを書き出しました: {}", result);
+        return result;
+    }
+
+    private long writeSection(MappedOutput out, Table table) {
+        List<ColumnType> types = table.types();
+        out.putString(table.tableName());
+        out.putInt(types.size());
+        types.forEach(type -> out.putByte((byte) type.ordinal()));
+        long countPosition = out.position();
+        out.putLong(0);
+        out.putLong(0);
+
+        long payloadStart = out.position();
+        long[] rows = new long[1];
+        snapshotRepository.forEachRow(table, values -> {
+            writeRow(out, types, values);
+            rows[0]++;
+        });
+        long payloadEnd = out.position();
+
+        // 行数・バイト数は書き終えてから埋める
+        out.putLongAt(countPosition, rows[0]);
+        out.putLongAt(countPosition + Long.BYTES, payloadEnd - payloadStart);
+        out.putInt(out.crc32c(payloadStart, payloadEnd));
+        return rows[0];
+    }
+
+    private static void writeRow(MappedOutput out, List<ColumnType> types, Object[] values) {
+        int nulls = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                nulls |= 1 << i;
+            }
+        }
+        out.putInt(nulls);
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            switch (types.get(i)) {
+                case BIGINT -> out.putLong((Long) value);
+                case INTEGER -> out.putInt((Integer) value);
+                case BOOLEAN -> out.putByte((byte) ((Boolean) value ? 1 : 0));
+                case VARCHAR -> out.putString((String) value);
+                case DATE -> out.putInt((int) ((LocalDate) value).toEpochDay());
+                case TIMESTAMP -> out.putLong(toMicros((LocalDateTime) value));
+            }
+        }
+    }
+
+    // ===== 復元 =====
+
+    // 形式・チェックサムが正しくなければ IllegalArgumentException、DB が空でなければ IllegalStateException
+    public SnapshotCounts restore(Path file) throws IOException {
+        Map<Table, Long> counts = new EnumMap<>(Table.class);
+        try (MappedInput in = new MappedInput(file)) {
+            List<Section> sections = readSections(in);
+            List<Long> itemIds = new ArrayList<>();
+            restoreTemplate.executeWithoutResult(status -> {
+                for (Table table : Table.values()) {
+                    if (!snapshotRepository.isEmpty(table)) {
+                        throw new IllegalStateException("データが登録されているため復元できません: " + table.tableName());
+                    }
+                }
+                for (Section section : sections) {
+                    counts.put(section.table(), restoreSection(in, section,
+                            section.table() == Table.ITEMS ? itemIds : null));
+                    snapshotRepository.restartIdentity(section.table());
+                }
+                stockLedgerRepository.recordOpeningBalances(LocalDateTime.now());
+                categoryTreeService.rebuild();
+                if (!itemIds.isEmpty()) {
+                    eventPublisher.publishEvent(ItemChangedEvent.of(itemIds));
+                    eventPublisher.publishEvent(StockChangedEvent.of(itemIds));
+                    eventPublisher.publishEvent(PurchaseHistoryChangedEvent.of(itemIds));
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        SnapshotCounts result = SnapshotCounts.of(counts);
+        log.info("スナップショットを復元しました: {}", result);
+
+        try {
+            priceAnalyticsService.rebuildAll();
+            purchasePatternService.rebuild();
+        } catch (DataAccessException | TransactionException e) {
+            // 復元は完了している（/price-analytics/rebuild・/purchase-patterns/rebuild で作り直せる）
+            log.warn("復元後の価格サマリー・購入周期の作成に失敗しました", e);
+        }
+        return result;
+    }
+
+    // ヘッダーと全セクションのチェックサムを確かめる（本体はまだ読まない）
+    private static List<Section> readSections(MappedInput in) {
+        byte[] magic = in.getBytes(MAGIC.length);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IllegalArgumentException("スナップショットファイルではありません");
+        }
+        int version = in.getInt();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("対応していないスナップショットの版です: " + version);
+        }
+        in.getLong();
+        int sectionCount = in.getInt();
+        Table[] tables = Table.values();
+        if (sectionCount != tables.length) {
+            throw new IllegalArgumentException("スナップショットのテーブル数が違います: " + sectionCount);
+        }
+
+        List<Section> sections = new ArrayList<>(sectionCount);
+        for (Table table : tables) {
+            String name = in.getString();
+            int columnCount = in.getInt();
+            List<ColumnType> types = table.types();
+            // 列が少ないのは末尾に列を追加する前のスナップショット
+            boolean matches = name.equals(table.tableName()) && columnCount >= 1 && columnCount <= types.size();
+            for (int i = 0; i < columnCount; i++) {
+                int type = in.getByte();
+                matches &= i < types.size() && type == types.get(i).ordinal();
+            }
+            if (!matches) {
+                throw new IllegalArgumentException("スナップショットのテーブル定義が違います: " + name);
+            }
+            long rows = in.getLong();
+            long length = in.getLong();
+            long payloadStart = in.position();
+            if (rows < 0 || length < 0 || payloadStart + length > in.size()) {
+                throw new IllegalArgumentException("スナップショットファイルが途中で終わっています");
+            }
+            int expected = in.crc32c(payloadStart, payloadStart + length);
+            in.seek(payloadStart + length);
+            if (in.getInt() != expected) {
+                throw new IllegalArgumentException("スナップショットのチェックサムが一致しません: " + name);
+            }
+            sections.add(new Section(table, columnCount, rows, payloadStart, length));
+        }
+        return sections;
+    }
+
+    private long restoreSection(MappedInput in, Section section, List<Long> ids) {
+        List<ColumnType> types = section.table().types();
+        in.seek(section.payloadStart());
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        for (long row = 0; row < section.rows(); row++) {
+            Object[] values = readRow(in, types, section.columnCount());
+            if (ids != null) {
+                ids.add((Long) values[0]);
+            }
+            batch.add(values);
+            if (batch.size() == batchSize) {
+                snapshotRepository.insert(section.table(), batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            snapshotRepository.insert(section.table(), batch);
+        }
+        if (in.position() != section.payloadStart() + section.length()) {
+            throw new IllegalArgumentException("スナップショットの行数が違います: " + section.table().tableName());
+        }
+        return section.rows();
+    }
+
+    // columnCount より後ろの列は NULL
+    private static Object[] readRow(MappedInput in, List<ColumnType> types, int columnCount) {
+        int nulls = in.getInt();
+        Object[] values = new Object[types.size()];
+        for (int i = 0; i < columnCount; i++) {
+            if ((nulls & (1 << i)) != 0) {
+                continue;
+            }
+            values[i] = switch (types.get(i)) {
+                case BIGINT -> in.getLong();
+                case INTEGER -> in.getInt();
+                case BOOLEAN -> in.getByte() != 0;
+                case VARCHAR -> in.getString();
+                case DATE -> LocalDate.ofEpochDay(in.getInt());
+                case TIMESTAMP -> fromMicros(in.getLong());
+            };
+        }
+        return values;
+    }
+
+    private static long toMicros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + dateTime.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    private record Section(Table table, int columnCount, long rows, long payloadStart, long length) {
+    }
+
+    // ===== メモリマップ =====
+
+    private static int crc32c(FileChannel channel, long from, long to) throws IOException {
+        CRC32C crc = new CRC32C();
+        for (long position = from; position < to; position += REGION_SIZE) {
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(REGION_SIZE, to - position)));
+        }
+        return (int) crc.getValue();
+    }
+
+    // 書き込み用。残りが足りなくなったら現在位置から次の範囲をマップする（閉じるときに書いた長さへ切り詰める）
+    private static final class MappedOutput implements Closeable {
+
+        private final FileChannel channel;
+        private MappedByteBuffer buffer;
+        private long regionStart;
+
+        MappedOutput(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            map(0);
+        }
+
+        long position() {
+            return regionStart + buffer.position();
+        }
+
+        void putByte(byte value) {
+            ensure(Byte.BYTES).put(value);
+        }
+
+        void putInt(int value) {
+            ensure(Integer.BYTES).putInt(value);
+        }
+
+        void putLong(long value) {
+            ensure(Long.BYTES).putLong(value);
+        }
+
+        void putBytes(byte[] value) {
+            ensure(value.length).put(value);
+        }
+
+        void putString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            putBytes(bytes);
+        }
+
+        // 書き終えた位置に値を書く
+        void putLongAt(long position, long value) {
+            if (position >= regionStart && position + Long.BYTES <= regionStart + buffer.capacity()) {
+                buffer.putLong((int) (position - regionStart), value);
+                return;
+            }
+            try {
+                channel.map(FileChannel.MapMode.READ_WRITE, position, Long.BYTES).putLong(0, value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        int crc32c(long from, long to) {
+            try {
+                return SnapshotService.crc32c(channel, from, to);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private ByteBuffer ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                try {
+                    map(position());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return buffer;
+        }
+
+        private void map(long start) throws IOException {
+            regionStart = start;
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, start, REGION_SIZE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            long size = position();
+            buffer.force();
+            buffer = null;
+            try (channel) {
+                channel.truncate(size);
+            }
+        }
+    }
+
+    // 読み込み用。残りが足りなくなったら現在位置から次の範囲をマップする
+    private static final class MappedInput implements Closeable {
+
+        private final FileChannel channel;
+        private final long size;
+        private MappedByteBuffer buffer;
+        private long regionStart;
+
+        MappedInput(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.size = channel.size();
+            seek(0);
+        }
+
+        long size() {
+            return size;
+        }
+
+        long position() {
+            return regionStart + buffer.position();
+        }
+
+        void seek(long position) {
+            regionStart = position;
+            try {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(REGION_SIZE, size - position));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        byte getByte() {
+            return ensure(Byte.BYTES).get();
+        }
+
+        int getInt() {
+            return ensure(Integer.BYTES).getInt();
+        }
+
+        long getLong() {
+            return ensure(Long.BYTES).getLong();
+        }
+
+        byte[] getBytes(int length) {
+            byte[] bytes = new byte[length];
+            ensure(length).get(bytes);
+            return bytes;
+        }
+
+        String getString() {
+            int length = getInt();
+            if (length < 0 || length > REGION_SIZE) {
+                throw new IllegalArgumentException("スナップショットの文字列の長さが正しくありません: " + length);
+            }
+            return new String(getBytes(length), StandardCharsets.UTF_8);
+        }
+
+        int crc32c(long from, long to) {
+            try {
+                return SnapshotService.crc32c(channel, from, to);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private ByteBuffer ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                if (position() + bytes > size) {
+                    throw new IllegalArgumentException("スナップショットファイルが途中で終わっています");
+                }
+                seek(position());
+            }
+            return buffer;
+        }
+
+        @Override
+        public void close() throws IOException {
+            buffer = null;
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.ExpiryNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// 期限の通知を接続中のクライアントへ Server-Sent Events で送る（GET /notifications/expiry）
+// 切断されたクライアントは送信に失敗した時点で外す
+@Component
+public class SseExpiryNotificationSink implements ExpiryNotificationSink {
+
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final long timeoutMillis;
+
+    public SseExpiryNotificationSink(@Value("${inventory.expiry.notify.sse-timeout-ms:1800000}") long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public SseEmitter connect() {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        emitters.add(emitter);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+        return emitter;
+    }
+
+    @Override
+    public void send(ExpiryNotification notification) {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event()
+                        .name("expiry")
+                        .id(notification.stockId() + "-" + notification.daysBefore())
+                        .data(notification));
+            } catch (IOException | IllegalStateException e) {
+                emitters.remove(emitter);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.inventory.service;
+
+import com.example.inventory.config.DataSourceRouting;
+import com.example.inventory.entity.Stock;
+import com.example.inventory.event.ItemChangedEvent;
+import com.example.inventory.event.StockChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.time.Clock;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// 在庫アラート（全在庫を走査する計算）の同時リクエストをまとめる
+// - 同じアラートの計算が実行中なら、新しく計算せずその結果を待って共有する
+// - 計算済みの結果は ttl-ms の間使い回し、在庫・商品の書き込み（コミット後のイベント）で破棄する
+// - 計算した回数・共有した回数を inventory.stock.alerts.requests（result=computed/joined/cached）で出す
+@Service
+public class StockAlertService {
+
+    private final StockService stockService;
+    private final Clock clock;
+    private final long ttlMillis;
+    private final Counter computed;
+    private final Counter joined;
+    private final Counter cached;
+
+    // 書き込みのたびに進める。書き込み前に始まった計算は、書き込み後のリクエストと共有しない
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+
+    public StockAlertService(StockService stockService,
+                             Clock clock,
+                             MeterRegistry meterRegistry,
+                             @Value("${inventory.stock.alerts.ttl-ms:5000}") long ttlMillis) {
+        this.stockService = stockService;
+        this.clock = clock;
+        this.ttlMillis = ttlMillis;
+        this.computed = counter(meterRegistry, "computed");
+        this.joined = counter(meterRegistry, "joined");
+        this.cached = counter(meterRegistry, "cached");
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("inventory.stock.alerts.requests")
+                .description("在庫アラートのリクエスト数（computed 以外は計算を省略できた分）")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    // ===== 参照 =====
+
+    public List<Stock> getLowStockAlerts() {
+        return get("low-stock", stockService::getLowStockAlerts);
+    }
+
+    public List<Stock> getExpiringStocks(int daysAhead) {
+        return get("expiring:" + daysAhead, () -> stockService.getExpiringStocks(daysAhead));
+    }
+
+    // 日付の切り替わり直後も、ttl-ms の間は前日に計算した結果を返すことがある
+    public List<Stock> getExpiredStocks() {
+        return get("expired", stockService::getExpiredStocks);
+    }
+
+    private List<Stock> get(String key, Supplier<List<Stock>> compute) {
+        while (true) {
+            long currentGeneration = generation.get();
+            Flight current = flights.get(key);
+            if (current != null && current.generation() == currentGeneration && !current.isExpired(clock.millis())) {
+                (current.isDone() ? cached : joined).increment();
+                return current.join();
+            }
+
+            Flight flight = new Flight(currentGeneration, new CompletableFuture<>());
+            boolean owner = current == null
+                    ? flights.putIfAbsent(key, flight) == null
+                    : flights.replace(key, current, flight);
+            if (owner) {
+                computed.increment();
+                return flight.run(compute);
+            }
+            // 他のリクエストが先に計算を始めた
+        }
+    }
+
+    // ===== 破棄 =====
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        invalidate();
+    }
+
+    // 商品の閾値・期限有無の変更
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        invalidate();
+    }
+
+    private void invalidate() {
+        generation.incrementAndGet();
+        flights.clear();
+    }
+
+    // 1回分の計算（完了前は実行中、完了後は completedAt から ttl-ms の間有効）
+    private final class Flight {
+
+        private final long generation;
+        private final CompletableFuture<List<Stock>> result;
+        private volatile long completedAt = -1;
+
+        Flight(long generation, CompletableFuture<List<Stock>> result) {
+            this.generation = generation;
+            this.result = result;
+        }
+
+        long generation() {
+            return generation;
+        }
+
+        boolean isDone() {
+            return completedAt >= 0;
+        }
+
+        boolean isExpired(long now) {
+            return isDone() && now - completedAt >= ttlMillis;
+        }
+
+        // 共有する結果なので、書き込み直後のクライアントにも古い値を返さないようプライマリで計算する
+        List<Stock> run(Supplier<List<Stock>> compute) {
+            List<Stock> stocks;
+            try {
+                stocks = List.copyOf(DataSourceRouting.onPrimary(compute));
+            } catch (RuntimeException | Error e) {
+                // 失敗は共有しない（待っていたリクエストには同じ例外を返し、次のリクエストで計算し直す）
+                flights.values().remove(this);
+                result.completeExceptionally(e);
+                throw e;
+            }
+            completedAt = clock.millis();
+            result.complete(stocks);
+            return stocks;
+        }
+
+        List<Stock> join() {
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+    }
+}
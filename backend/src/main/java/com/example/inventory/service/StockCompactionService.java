@@ -0,0 +1,176 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.StockCompactionResult;
+import com.example.inventory.entity.Stock;
+import com.example.inventory.entity.StockArchive;
+import com.example.inventory.entity.StockMovement;
+import com.example.inventory.event.StockChangedEvent;
+import com.example.inventory.repository.StockArchiveRepository;
+import com.example.inventory.repository.StockRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+// 在庫コンパクション（バックグラウンドジョブ）
+// - 在庫0のロット、期限切れから一定期間経過したロットを stock_archives へ移動する
+// - 同一商品・同一期限の有効ロットを1つに統合する（要件定義「同名でも期限が異なるものは別IDで管理」の裏返し）
+// ロックを長時間保持しないよう、小さなバッチ単位でトランザクションを分ける
+@Service
+public class StockCompactionService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockCompactionService.class);
+
+    private final StockRepository stockRepository;
+    private final StockArchiveRepository stockArchiveRepository;
+    private final TombstoneService tombstoneService;
+    private final StockLedgerService stockLedgerService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final int expiredRetentionDays;
+
+    public StockCompactionService(StockRepository stockRepository,
+                                  StockArchiveRepository stockArchiveRepository,
+                                  TombstoneService tombstoneService,
+                                  StockLedgerService stockLedgerService,
+                                  ApplicationEventPublisher eventPublisher,
+                                  PlatformTransactionManager transactionManager,
+                                  Clock clock,
+                                  @Value("${inventory.stock.compaction.batch-size:100}") int batchSize,
+                                  @Value("${inventory.stock.compaction.max-batches-per-run:50}") int maxBatchesPerRun,
+                                  @Value("${inventory.stock.compaction.expired-retention-days:30}") int expiredRetentionDays) {
+        this.stockRepository = stockRepository;
+        this.stockArchiveRepository = stockArchiveRepository;
+        this.tombstoneService = tombstoneService;
+        this.stockLedgerService = stockLedgerService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.expiredRetentionDays = expiredRetentionDays;
+    }
+
+    @Scheduled(initialDelayString = "${inventory.stock.compaction.initial-delay-ms:60000}",
+               fixedDelayString = "${inventory.stock.compaction.interval-ms:600000}")
+    public StockCompactionResult compact() {
+        // 在庫状況の日付の切り替わり（StockStatusService）と同じ時計で判定する
+        LocalDate cutoff = LocalDate.now(clock).minusDays(expiredRetentionDays);
+
+        int depleted = drain(() -> archiveDepletedBatch(
+                stockRepository.findDepletedForUpdate(PageRequest.of(0, batchSize))));
+        int expired = drain(() -> archiveBatch(
+                stockRepository.findExpiredBeforeForUpdate(cutoff, PageRequest.of(0, batchSize)),
+                StockArchive.Reason.EXPIRED));
+        int merged = drain(this::mergeBatch);
+
+        StockCompactionResult result = new StockCompactionResult(depleted, expired, merged);
+        if (depleted + expired + merged > 0) {
+            log.info("在庫コンパクション完了: {}", result);
+        }
+        return result;
+    }
+
+    // バッチを1件ずつ別トランザクションで実行し、処理件数がバッチサイズ未満になったら終了
+    private int drain(IntSupplier batch) {
+        int total = 0;
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            Integer processed = transactionTemplate.execute(status -> batch.getAsInt());
+            total += processed != null ? processed : 0;
+            if (processed == null || processed < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    // 在庫0のロットのうち、ロック後に履歴から計算した在庫数も 0 のものだけをアーカイブする
+    // （検索からロックまでの間に追記された増減があるロットは残し、次回以降のスナップショット後に判定する）
+    private int archiveDepletedBatch(List<Stock> stocks) {
+        if (stocks.isEmpty()) {
+            return 0;
+        }
+        Map<Long, Integer> quantities = stockLedgerService.getQuantities(stocks.stream().map(Stock::getId).toList());
+        return archiveBatch(stocks.stream()
+                .filter(stock -> quantities.getOrDefault(stock.getId(), stock.getQuantity()) == 0)
+                .toList(), StockArchive.Reason.DEPLETED);
+    }
+
+    // ロック済みの在庫をアーカイブへコピーして削除
+    private int archiveBatch(List<Stock> stocks, StockArchive.Reason reason) {
+        if (stocks.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = stocks.stream().map(Stock::getId).toList();
+
+        // 残っていた在庫数（履歴から計算した値）は廃棄として記録する
+        Map<Long, Integer> remaining = stockLedgerService.getQuantities(ids);
+        stockLedgerService.record(stocks.stream()
+                .map(stock -> StockLedgerService.movement(StockMovement.Type.DISCARD, stock.getItem().getId(),
+                        stock.getId(), -remaining.getOrDefault(stock.getId(), stock.getQuantity())))
+                .toList());
+
+        stockArchiveRepository.archiveStocks(ids, reason.name(), null, LocalDateTime.now(clock));
+        tombstoneService.recordStockDeletions(ids);
+        stockRepository.deleteAllByIdIn(ids);
+        eventPublisher.publishEvent(StockChangedEvent.of(
+                stocks.stream().map(stock -> stock.getItem().getId()).distinct().toList()));
+        return ids.size();
+    }
+
+    // 同一商品・同一期限のロットを、最も古いID（最初に登録されたロット）へ統合
+    // 戻り値は処理したグループ数
+    private int mergeBatch() {
+        List<Object[]> groups = stockRepository.findDuplicateLotGroups(PageRequest.of(0, batchSize));
+        for (Object[] group : groups) {
+            Long itemId = (Long) group[0];
+            LocalDate expiryDate = (LocalDate) group[1];
+            List<Stock> lots = expiryDate != null
+                    ? stockRepository.findActiveLotsForUpdate(itemId, expiryDate)
+                    : stockRepository.findActiveLotsWithoutExpiryForUpdate(itemId);
+            if (lots.size() < 2) {
+                continue;  // 他の処理で既に統合・更新済み
+            }
+
+            Stock survivor = lots.get(0);
+            List<Stock> others = lots.subList(1, lots.size());
+            List<Long> otherIds = others.stream().map(Stock::getId).toList();
+
+            // 統合は「統合元の減少 + 統合先の増加」として履歴に記録する（商品全体の在庫数は変わらない）
+            Map<Long, Integer> quantities = stockLedgerService.getQuantities(
+                    lots.stream().map(Stock::getId).toList());
+            List<StockMovement> movements = new ArrayList<>();
+            int mergedQuantity = 0;
+            for (Stock other : others) {
+                int quantity = quantities.getOrDefault(other.getId(), other.getQuantity());
+                movements.add(StockLedgerService.movement(StockMovement.Type.ADJUST, itemId, other.getId(), -quantity));
+                mergedQuantity += quantity;
+            }
+            movements.add(StockLedgerService.movement(StockMovement.Type.ADJUST, itemId, survivor.getId(), mergedQuantity));
+            stockLedgerService.record(movements);
+
+            stockArchiveRepository.archiveStocks(otherIds, StockArchive.Reason.MERGED.name(),
+                    survivor.getId(), LocalDateTime.now(clock));
+            tombstoneService.recordStockDeletions(otherIds);
+            survivor.setQuantity(quantities.getOrDefault(survivor.getId(), survivor.getQuantity()) + mergedQuantity);
+            stockRepository.deleteAllByIdIn(otherIds);
+            eventPublisher.publishEvent(StockChangedEvent.of(itemId));
+        }
+        return groups.size();
+    }
+}
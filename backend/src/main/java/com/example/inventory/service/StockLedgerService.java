@@ -0,0 +1,265 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.StockMovementRequest;
+import com.example.inventory.entity.StockMovement;
+import com.example.inventory.event.StockChangedEvent;
+import com.example.inventory.repository.StockLedgerRepository;
+import com.example.inventory.repository.StockMovementRepository;
+import com.example.inventory.repository.StockSnapshotRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 在庫の増減履歴（追記のみ）とスナップショット
+// - 在庫の書き込み（StockService / StockCompactionService）は stocks の更新と同じトランザクションで履歴を追記する
+// - 追記API（append）は対象の stocks の行をロックし、履歴から計算した在庫数がマイナスにならない増減だけを INSERT する
+//   （stocks.quantity は更新しない。定期ジョブが反映する）
+// - 定期ジョブは未反映の履歴がある商品ごとに、並列にスナップショットを更新して stocks.quantity を再計算する
+@Service
+public class StockLedgerService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockLedgerService.class);
+
+    private final StockLedgerRepository stockLedgerRepository;
+    private final StockMovementRepository stockMovementRepository;
+    private final StockSnapshotRepository stockSnapshotRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+    private final int safetyLagSeconds;
+
+    public StockLedgerService(StockLedgerRepository stockLedgerRepository,
+                              StockMovementRepository stockMovementRepository,
+                              StockSnapshotRepository stockSnapshotRepository,
+                              ApplicationEventPublisher eventPublisher,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${inventory.stock.ledger.parallelism:4}") int parallelism,
+                              @Value("${inventory.stock.ledger.safety-lag-seconds:5}") int safetyLagSeconds) {
+        this.stockLedgerRepository = stockLedgerRepository;
+        this.stockMovementRepository = stockMovementRepository;
+        this.stockSnapshotRepository = stockSnapshotRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, "stock-ledger-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.safetyLagSeconds = safetyLagSeconds;
+    }
+
+    // 履歴の導入前から存在するロットの期首残高を、リクエストを受け付ける前に記録する
+    // （期首残高より先に増減が追記されると、履歴から計算した在庫数が合わなくなるため）
+    @PostConstruct
+    public void initialize() {
+        try {
+            int recorded = transactionTemplate.execute(
+                    status -> stockLedgerRepository.recordOpeningBalances(LocalDateTime.now()));
+            if (recorded > 0) {
+                log.info("在庫履歴の期首残高を記録しました: {} ロット", recorded);
+            }
+        } catch (DataAccessException | TransactionException e) {
+            // DB に接続できない状態（AppCDS の学習実行など）でも起動は続ける。未記録分は次回のスナップショットで記録される
+            log.warn("在庫履歴の期首残高の記録に失敗しました", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // ===== 追記 =====
+
+    // 在庫の書き込みと同じトランザクションで呼ぶ（増減 0 は記録しない）
+    @Transactional
+    public void record(List<StockMovement> movements) {
+        LocalDateTime now = LocalDateTime.now();
+        List<StockMovement> nonZero = movements.stream()
+                .filter(movement -> movement.getQuantityDelta() != 0)
+                .toList();
+        if (nonZero.isEmpty()) {
+            return;
+        }
+        nonZero.forEach(movement -> {
+            if (movement.getRecordedAt() == null) {
+                movement.setRecordedAt(now);
+            }
+        });
+        stockLedgerRepository.append(nonZero);
+    }
+
+    public static StockMovement movement(StockMovement.Type type, Long itemId, Long stockId, int quantityDelta) {
+        return StockMovement.builder()
+                .type(type)
+                .itemId(itemId)
+                .stockId(stockId)
+                .quantityDelta(quantityDelta)
+                .build();
+    }
+
+    // 追記API（消費・廃棄などをまとめて登録、stocks.quantity には次回のスナップショットで反映される）
+    // quantity は PURCHASE / CONSUME / DISCARD では正の数、ADJUST では符号付きの増減数
+    // 履歴から計算した在庫数がリクエストの順に適用した途中でマイナスになるロットがあれば、全体を IllegalArgumentException で拒否する
+    // （StockBatchRepository の quantity + ? >= 0 と同じ基準。ロックはスナップショット更新との直列化も兼ねる）
+    @Transactional
+    public List<StockMovement> append(List<StockMovementRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("増減を指定してください");
+        }
+        for (StockMovementRequest request : requests) {
+            if (request.stockId() == null || request.type() == null || request.quantity() == 0) {
+                throw new IllegalArgumentException("stockId, type, quantity（0以外）を指定してください");
+            }
+            if (request.type() != StockMovement.Type.ADJUST && request.quantity() < 0) {
+                throw new IllegalArgumentException(request.type() + " の quantity は正の数で指定してください");
+            }
+        }
+
+        Map<Long, Long> itemIds = stockLedgerRepository.lockStocks(
+                requests.stream().map(StockMovementRequest::stockId).distinct().toList());
+        List<Long> missing = requests.stream()
+                .map(StockMovementRequest::stockId)
+                .filter(stockId -> !itemIds.containsKey(stockId))
+                .distinct()
+                .toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("在庫が見つかりません: " + missing);
+        }
+
+        Map<Long, Integer> quantities = new HashMap<>(stockLedgerRepository.findQuantities(itemIds.keySet()));
+        for (StockMovementRequest request : requests) {
+            int quantity = quantities.merge(request.stockId(), request.signedDelta(), Integer::sum);
+            if (quantity < 0) {
+                throw new IllegalArgumentException("在庫数がマイナスになります: stockId=" + request.stockId()
+                        + ", quantity=" + (quantity - request.signedDelta()) + ", delta=" + request.signedDelta());
+            }
+        }
+
+        List<StockMovement> movements = requests.stream()
+                .map(request -> movement(request.type(), itemIds.get(request.stockId()), request.stockId(),
+                        request.signedDelta()))
+                .toList();
+        record(movements);
+        // 在庫数はスナップショットで反映されるが、消費ペースはこの時点で変わる
+        eventPublisher.publishEvent(StockChangedEvent.of(itemIds.values()));
+        return movements;
+    }
+
+    // ===== 参照 =====
+
+    // 履歴から計算した現在の在庫数（ロットID → 在庫数、存在するロットのみ）
+    @Transactional(readOnly = true)
+    public Map<Long, Integer> getQuantities(Collection<Long> stockIds) {
+        if (stockIds == null || stockIds.isEmpty()) {
+            return Map.of();
+        }
+        return stockLedgerRepository.findQuantities(stockIds);
+    }
+
+    @Transactional(readOnly = true)
+    public List<StockMovement> findMovements(Long stockId, int limit) {
+        return stockMovementRepository.findByStockIdOrderByIdDesc(stockId, PageRequest.of(0, Math.max(1, limit)));
+    }
+
+    // ===== スナップショット =====
+
+    // 起動時と定期的に、未反映の履歴をスナップショットへ反映する
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${inventory.stock.ledger.snapshot-interval-ms:60000}",
+               initialDelayString = "${inventory.stock.ledger.snapshot-interval-ms:60000}")
+    public void snapshot() {
+        try {
+            int items = run(false);
+            if (items > 0) {
+                log.debug("在庫スナップショットを更新しました: {} 商品", items);
+            }
+        } catch (DataAccessException e) {
+            log.warn("在庫スナップショットの更新に失敗しました", e);
+        }
+    }
+
+    // スナップショットを破棄して履歴から全商品の在庫数を作り直す
+    public int rebuild() {
+        int items = run(true);
+        log.info("在庫数を履歴から再構築しました: {} 商品", items);
+        return items;
+    }
+
+    // 同時に実行すると同じ増減を二重に加算するため、1プロセス内では直列に実行する
+    private synchronized int run(boolean full) {
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> stockLedgerRepository.recordOpeningBalances(now));
+
+        long upToId = stockLedgerRepository.findMaxMovementIdRecordedBefore(now.minusSeconds(safetyLagSeconds));
+        List<Long> itemIds = full
+                ? stockLedgerRepository.findItemIdsWithStocks()
+                : stockLedgerRepository.findItemIdsWithPendingMovements(upToId);
+
+        // 商品ごとに別トランザクションで並列実行（同じロットを複数のスレッドが扱うことはない）
+        List<CompletableFuture<Void>> futures = new ArrayList<>(itemIds.size());
+        for (Long itemId : itemIds) {
+            futures.add(CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(
+                    status -> snapshotItem(itemId, upToId, full, now)), executor)
+                    .exceptionally(e -> {
+                        // 失敗した商品は次回の実行で再処理される
+                        log.warn("在庫スナップショットの更新に失敗しました: itemId={}", itemId, e);
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+        transactionTemplate.executeWithoutResult(status -> stockLedgerRepository.deleteOrphanSnapshots());
+        return itemIds.size();
+    }
+
+    private void snapshotItem(Long itemId, long upToId, boolean full, LocalDateTime now) {
+        stockLedgerRepository.lockStocksOfItem(itemId);
+        if (full) {
+            stockLedgerRepository.deleteSnapshotsOfItem(itemId);
+        }
+        stockLedgerRepository.foldPendingMovements(itemId, upToId, now);
+        if (stockLedgerRepository.materializeQuantities(itemId, now) > 0) {
+            eventPublisher.publishEvent(StockChangedEvent.of(itemId));
+        }
+    }
+
+    // ===== 削除 =====
+
+    // 商品・カテゴリ削除時（ItemService / CategoryService の一括削除から呼ぶ）
+    @Transactional
+    public void deleteByItemId(Long itemId) {
+        stockSnapshotRepository.deleteByItemId(itemId);
+        stockMovementRepository.deleteByItemId(itemId);
+    }
+
+    @Transactional
+    public void deleteByCategoryId(Long categoryId) {
+        stockSnapshotRepository.deleteByCategoryId(categoryId);
+        stockMovementRepository.deleteByCategoryId(categoryId);
+    }
+}
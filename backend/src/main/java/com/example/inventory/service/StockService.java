@@ -1,38 +1,159 @@
 package com.example.inventory.service;
 
+import com.example.inventory.dto.StockChange;
+import com.example.inventory.dto.StockPatch;
+import com.example.inventory.dto.StockPatchResult;
 import com.example.inventory.entity.Stock;
+import com.example.inventory.entity.StockMovement;
+import com.example.inventory.event.StockChangedEvent;
+import com.example.inventory.repository.StockBatchRepository;
 import com.example.inventory.repository.StockRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.Clock;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
+@Transactional(readOnly = true)
 public class StockService {
 
     private final StockRepository stockRepository;
+    private final StockBatchRepository stockBatchRepository;
+    private final StockLedgerService stockLedgerService;
+    private final TombstoneService tombstoneService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Clock clock;
 
-    public StockService(StockRepository stockRepository) {
+    public StockService(StockRepository stockRepository,
+                        StockBatchRepository stockBatchRepository,
+                        StockLedgerService stockLedgerService,
+                        TombstoneService tombstoneService,
+                        ApplicationEventPublisher eventPublisher,
+                        Clock clock) {
         this.stockRepository = stockRepository;
+        this.stockBatchRepository = stockBatchRepository;
+        this.stockLedgerService = stockLedgerService;
+        this.tombstoneService = tombstoneService;
+        this.eventPublisher = eventPublisher;
+        this.clock = clock;
     }
 
+    // 有効な在庫（在庫数 > 0）のみ返す
+    // 在庫0のロットはコンパクションジョブがアーカイブへ移動する（StockCompactionService）
     public List<Stock> findAll() {
-        return stockRepository.findAll();
+        return stockRepository.findByQuantityGreaterThan(0);
     }
 
     public Optional<Stock> findById(Long id) {
         return stockRepository.findById(id);
     }
 
+    // 登録・更新（在庫の増減履歴も記録する）
+    // 更新時の増減は、履歴から計算した在庫数（未反映の追記を含む）との差分にする
+    // 減少は消費として記録する（patchAll と同じ。使い切り優先ランキングの消費ペースに含める）
+    @Transactional
     public Stock save(Stock stock) {
-        return stockRepository.save(stock);
+        Integer previous = stock.getId() != null
+                ? stockLedgerService.getQuantities(List.of(stock.getId())).get(stock.getId())
+                : null;
+        Stock saved = stockRepository.save(stock);
+        Long itemId = saved.getItem() != null ? saved.getItem().getId() : null;
+        if (itemId != null) {
+            StockMovement movement;
+            if (previous == null) {
+                movement = StockLedgerService.movement(StockMovement.Type.PURCHASE, itemId, saved.getId(), saved.getQuantity());
+            } else {
+                int delta = saved.getQuantity() - previous;
+                StockMovement.Type type = delta < 0 ? StockMovement.Type.CONSUME : StockMovement.Type.ADJUST;
+                movement = StockLedgerService.movement(type, itemId, saved.getId(), delta);
+            }
+            stockLedgerService.record(List.of(movement));
+            eventPublisher.publishEvent(StockChangedEvent.of(itemId));
+            // 応答にも判定後の在庫状況を含める（status 列はコミット直前に StockStatusService が同じ基準で更新する）
+            saved.setStatus(getStockStatus(saved));
+        }
+        return saved;
     }
 
+    // 削除（残っていた在庫数は廃棄として記録する）
+    @Transactional
     public void delete(Long id) {
+        for (StockChange stock : stockRepository.findChangesByIdIn(List.of(id))) {
+            int remaining = stockLedgerService.getQuantities(List.of(id)).getOrDefault(id, stock.quantity());
+            stockLedgerService.record(List.of(
+                    StockLedgerService.movement(StockMovement.Type.DISCARD, stock.itemId(), id, -remaining)));
+            eventPublisher.publishEvent(StockChangedEvent.of(stock.itemId()));
+        }
+        tombstoneService.recordStockDeletion(id);
         stockRepository.deleteById(id);
     }
 
+    // 一括部分更新（冷蔵庫チェック後などに、複数在庫の増減・期限変更を1トランザクションで適用）
+    // JDBCバッチで更新し、結果は patches と同じ順序で1行ずつ返す
+    @Transactional
+    public List<StockPatchResult> patchAll(List<StockPatch> patches) {
+        List<StockPatch> applicable = patches.stream()
+                .filter(patch -> patch.id() != null && patch.hasChanges())
+                .toList();
+        int[] updateCounts = applicable.isEmpty()
+                ? new int[0]
+                : stockBatchRepository.applyPatches(applicable, LocalDateTime.now(clock));
+
+        List<Long> ids = patches.stream().map(StockPatch::id).filter(Objects::nonNull).distinct().toList();
+        Map<Long, StockChange> current = ids.isEmpty()
+                ? Map.of()
+                : stockRepository.findChangesByIdIn(ids).stream()
+                        .collect(Collectors.toMap(StockChange::id, Function.identity()));
+
+        List<StockPatchResult> results = new ArrayList<>(patches.size());
+        List<StockMovement> movements = new ArrayList<>();
+        List<Long> changedItemIds = new ArrayList<>();
+        int applied = 0;
+        for (StockPatch patch : patches) {
+            boolean updated = false;
+            if (patch.id() != null && patch.hasChanges()) {
+                updated = updateCounts[applied++] != 0;
+            }
+            if (updated && patch.delta() != 0 && current.containsKey(patch.id())) {
+                StockMovement.Type type = patch.delta() < 0 ? StockMovement.Type.CONSUME : StockMovement.Type.ADJUST;
+                movements.add(StockLedgerService.movement(type, current.get(patch.id()).itemId(), patch.id(), patch.delta()));
+            }
+            if (updated && current.containsKey(patch.id())) {
+                changedItemIds.add(current.get(patch.id()).itemId());
+            }
+
+            StockChange state = patch.id() != null ? current.get(patch.id()) : null;
+            if (state == null) {
+                results.add(new StockPatchResult(patch.id(), StockPatchResult.Status.NOT_FOUND, null, null));
+            } else {
+                StockPatchResult.Status status = updated
+                        ? StockPatchResult.Status.UPDATED
+                        : StockPatchResult.Status.REJECTED;
+                results.add(new StockPatchResult(state.id(), status, state.quantity(), state.expiryDate()));
+            }
+        }
+        stockLedgerService.record(movements);
+        if (!changedItemIds.isEmpty()) {
+            eventPublisher.publishEvent(StockChangedEvent.of(changedItemIds));
+        }
+        return results;
+    }
+
     // 基本的な検索メソッド
+    // 在庫状況での絞り込み（status 列のインデックスを使う）
+    public List<Stock> findByStatus(StockStatus status) {
+        return stockRepository.findByStatusAndQuantityGreaterThanOrderByExpiryDateAscIdAsc(status, 0);
+    }
+
     public List<Stock> findByItemId(Long itemId) {
         return stockRepository.findByItemId(itemId);
     }
@@ -110,7 +231,7 @@ public class StockService {
 
     // 2. 期限切れチェック機能
     public List<Stock> getExpiringStocks(int daysAhead) {
-        LocalDate targetDate = LocalDate.now().plusDays(daysAhead);
+        LocalDate targetDate = LocalDate.now(clock).plusDays(daysAhead);
         return findAll().stream()
                 .filter(stock -> stock.getExpiryDate() != null)
                 .filter(stock -> !stock.getExpiryDate().isAfter(targetDate))
@@ -119,7 +240,7 @@ public class StockService {
     }
 
     public List<Stock> getExpiredStocks() {
-        LocalDate today = LocalDate.now();
+        LocalDate today = LocalDate.now(clock);
         return findAll().stream()
                 .filter(stock -> stock.getExpiryDate() != null)
                 .filter(stock -> stock.getExpiryDate().isBefore(today))
@@ -135,14 +256,23 @@ public class StockService {
         EXPIRED      // 期限切れ
     }
 
+    // 期限近とみなす日数（今日から数えてこの日数未満に期限が来る在庫、ダッシュボードの集計も同じ基準）
+    public static final int EXPIRING_DAYS = 3;
+
+    // 保存済みの在庫状況（未判定のロットはその場で判定する）
+    public StockStatus getStatus(Stock stock) {
+        return stock.getStatus() != null ? stock.getStatus() : getStockStatus(stock);
+    }
+
+    // 在庫状況の判定（status 列の更新は StockStatusService が同じ基準の SQL で行う）
     public StockStatus getStockStatus(Stock stock) {
         if (stock.getExpiryDate() != null) {
-            LocalDate today = LocalDate.now();
+            LocalDate today = LocalDate.now(clock);
             LocalDate expiryDate = stock.getExpiryDate();
             
             if (expiryDate.isBefore(today)) {
                 return StockStatus.EXPIRED;
-            } else if (expiryDate.isBefore(today.plusDays(3))) {
+            } else if (expiryDate.isBefore(today.plusDays(EXPIRING_DAYS))) {
                 return StockStatus.EXPIRING;
             }
         }
@@ -0,0 +1,104 @@
+package com.example.inventory.service;
+
+import com.example.inventory.event.ItemChangedEvent;
+import com.example.inventory.event.StockChangedEvent;
+import com.example.inventory.event.StockStatusRefreshedEvent;
+import com.example.inventory.repository.StockRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+// 在庫状況（stocks.status）の維持
+// - 在庫・商品の書き込み（StockChangedEvent / ItemChangedEvent）のコミット直前に、同じトランザクションで該当商品のロットを判定し直す
+// - 期限による状況は日付だけで変わるため、日付の切り替わりでは境界をまたいだロット（期限近・期限切れになったもの）だけ判定し直し、
+//   コミット後に StockStatusRefreshedEvent を発行する（保存済みの在庫状況を保持している側が読み直す）
+// - 判定は StockRepository.STATUS_EXPRESSION（StockService.getStockStatus と同じ基準）
+@Service
+public class StockStatusService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockStatusService.class);
+
+    private final StockRepository stockRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+
+    public StockStatusService(StockRepository stockRepository,
+                              ApplicationEventPublisher eventPublisher,
+                              PlatformTransactionManager transactionManager,
+                              Clock clock) {
+        this.stockRepository = stockRepository;
+        this.eventPublisher = eventPublisher;
+        // 書き込み中のトランザクションがあればそれに参加する（なければ新しく開始する）
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+    }
+
+    // ===== 書き込み時 =====
+
+    // 失敗した場合は書き込みごとロールバックする
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        refresh(event.itemIds());
+    }
+
+    // 閾値の変更
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        refresh(event.itemIds());
+    }
+
+    public int refresh(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return 0;
+        }
+        LocalDate today = LocalDate.now(clock);
+        return transactionTemplate.execute(status -> stockRepository.refreshStatusByItemIdIn(
+                itemIds, today, today.plusDays(StockService.EXPIRING_DAYS), LocalDateTime.now(clock)));
+    }
+
+    // ===== 日付の切り替わり =====
+
+    // 起動時は停止中に切り替わった分と、未判定のロット（列の追加前に登録されたもの）を判定する
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            int updated = refreshStale();
+            log.info("在庫状況を更新しました: {} 件", updated);
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("在庫状況の初期化に失敗しました", e);
+        }
+    }
+
+    @Scheduled(cron = "${inventory.stock.status.rollover-cron:0 0 0 * * *}")
+    public void rollover() {
+        try {
+            int updated = refreshStale();
+            log.info("在庫状況を日次更新しました: {} 件", updated);
+        } catch (DataAccessException e) {
+            log.warn("在庫状況の日次更新に失敗しました", e);
+        }
+    }
+
+    public int refreshStale() {
+        LocalDate today = LocalDate.now(clock);
+        int updated = transactionTemplate.execute(status -> stockRepository.refreshStaleStatus(
+                today, today.plusDays(StockService.EXPIRING_DAYS), LocalDateTime.now(clock)));
+        eventPublisher.publishEvent(new StockStatusRefreshedEvent(today, updated));
+        return updated;
+    }
+}
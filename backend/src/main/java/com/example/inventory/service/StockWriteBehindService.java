@@ -0,0 +1,313 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.StockPatch;
+import com.example.inventory.dto.StockPatchResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// 在庫数の増減（画面のタップごとの +1 / -1）をまとめて書き込む
+// - enabled=false（既定）では1回ごとに StockService.patchAll で書き込む
+// - enabled=true では増減をメモリ上のキューに受け付けて応答し、ロットごとにまとめて max-latency-ms ごと
+//   （または batch-size 回分たまった時点）に1トランザクションで書き込む
+// - 増加と減少は打ち消し合わせない。合計が 0 以上なら合計を1回で、マイナスなら増加の合計 → 減少の合計の順に書き込み、
+//   減少の合計が拒否されたロットは減少を1回ずつ書き込み直す（受け付けた増加や在庫の範囲内の減少を、後の減少の巻き添えにしない）
+// - 受け付けた増減が失われるのはプロセスが異常終了した場合のみで、最大 max-latency-ms 分
+//   （正常終了時は停止前に書き込む。書き込みに失敗した分はキューに戻して次回に再試行する）
+// - キューに入る増減は capacity 回分まで。あふれた場合は受け付けた側のスレッドでその場で書き込む
+// - 在庫数がマイナスになる減少・存在しないロットへの増減は書き込まず、rejected として数える
+// - メトリクス: inventory.stock.write-behind.batch-size（1回に書き込んだロット数）、
+//   inventory.stock.write-behind.flush（書き込み時間）、inventory.stock.write-behind.operations（result=queued/rejected/retried）
+@Service
+public class StockWriteBehindService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockWriteBehindService.class);
+
+    private final StockService stockService;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int capacity;
+    private final ScheduledExecutorService flusher;
+
+    private final DistributionSummary batchSizes;
+    private final Timer flushTimer;
+    private final Counter queued;
+    private final Counter rejected;
+    private final Counter retried;
+
+    // ロットID → 未書き込みの増減（受け付けた順）。pendingOperations は受け付けた回数
+    private final Object queueLock = new Object();
+    private Map<Long, Pending> pending = new LinkedHashMap<>();
+    private int pendingOperations;
+    private boolean stopped;
+
+    // 書き込みは1つずつ実行する（同じロットの増減が前後して書き込まれないように）
+    private final Object flushLock = new Object();
+
+    public StockWriteBehindService(StockService stockService,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${inventory.stock.write-behind.enabled:false}") boolean enabled,
+                                   @Value("${inventory.stock.write-behind.max-latency-ms:20}") long maxLatencyMillis,
+                                   @Value("${inventory.stock.write-behind.batch-size:100}") int batchSize,
+                                   @Value("${inventory.stock.write-behind.capacity:10000}") int capacity) {
+        this.stockService = stockService;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.capacity = Math.max(this.batchSize, capacity);
+        this.batchSizes = DistributionSummary.builder("inventory.stock.write-behind.batch-size")
+                .description("1回の書き込みで更新したロット数")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("inventory.stock.write-behind.flush")
+                .description("キューの書き込み（1トランザクション）にかかった時間")
+                .register(meterRegistry);
+        this.queued = counter(meterRegistry, "queued");
+        this.rejected = counter(meterRegistry, "rejected");
+        this.retried = counter(meterRegistry, "retried");
+
+        if (enabled) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "stock-write-behind");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = Math.max(1, maxLatencyMillis);
+            this.flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("inventory.stock.write-behind.operations")
+                .description("在庫数の増減の件数（queued=受け付け、rejected=書き込めなかった、retried=失敗して再試行）")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    // ===== 受け付け =====
+
+    // キューに受け付けた場合は空、その場で書き込んだ場合はその結果
+    public Optional<StockPatchResult> adjust(Long stockId, int delta) {
+        if (stockId == null || delta == 0) {
+            throw new IllegalArgumentException("在庫IDと0以外の増減を指定してください");
+        }
+        if (!enabled) {
+            return Optional.of(writeNow(stockId, delta));
+        }
+
+        boolean accepting;
+        boolean full = false;
+        boolean signal = false;
+        synchronized (queueLock) {
+            accepting = !stopped;
+            if (accepting) {
+                full = pendingOperations >= capacity;
+                if (!full) {
+                    pending.computeIfAbsent(stockId, id -> new Pending()).add(delta);
+                    pendingOperations++;
+                    signal = pendingOperations == batchSize;
+                }
+            }
+        }
+        if (!accepting) {
+            // 停止処理の後（最後の書き込みより後）に届いた増減
+            return Optional.of(writeNow(stockId, delta));
+        }
+        if (full) {
+            // あふれた場合は待たずに書き込み、空いたキューに入れ直す
+            flush();
+            return adjust(stockId, delta);
+        }
+        queued.increment();
+        if (signal) {
+            flusher.execute(this::flushQuietly);
+        }
+        return Optional.empty();
+    }
+
+    // ===== 書き込み =====
+
+    private StockPatchResult writeNow(Long stockId, int delta) {
+        return stockService.patchAll(List.of(new StockPatch(stockId, delta, null))).get(0);
+    }
+
+    // 未書き込みの増減をすべて書き込む（書き込んだロット数）
+    public int flush() {
+        synchronized (flushLock) {
+            Map<Long, Pending> batch;
+            int operations;
+            synchronized (queueLock) {
+                if (pending.isEmpty()) {
+                    return 0;
+                }
+                batch = pending;
+                operations = pendingOperations;
+                pending = new LinkedHashMap<>();
+                pendingOperations = 0;
+            }
+
+            List<StockPatch> patches = new ArrayList<>(batch.size());
+            batch.forEach((stockId, lot) -> {
+                int net = lot.increase + lot.decrease();
+                if (net >= 0) {
+                    // 増加を先に書けば減少はすべて在庫の範囲内になるため、合計を1回で書く
+                    if (net != 0) {
+                        patches.add(new StockPatch(stockId, net, null));
+                    }
+                    return;
+                }
+                if (lot.increase > 0) {
+                    patches.add(new StockPatch(stockId, lot.increase, null));
+                }
+                patches.add(new StockPatch(stockId, lot.decrease(), null));
+            });
+            if (patches.isEmpty()) {
+                return 0;
+            }
+            List<StockPatchResult> results = write(patches, batch, operations);
+
+            // 減少の合計が拒否されたロットは、減少を1回ずつ書き込み直す
+            Map<Long, Pending> retries = new LinkedHashMap<>();
+            List<StockPatch> retryPatches = new ArrayList<>();
+            for (int i = 0; i < results.size(); i++) {
+                StockPatch patch = patches.get(i);
+                StockPatchResult.Status status = results.get(i).status();
+                Pending lot = batch.get(patch.id());
+                if (status == StockPatchResult.Status.REJECTED && patch.delta() < 0 && lot.decreases.size() > 1) {
+                    Pending retry = new Pending();
+                    lot.decreases.forEach(delta -> {
+                        retry.add(delta);
+                        retryPatches.add(new StockPatch(patch.id(), delta, null));
+                    });
+                    retries.put(patch.id(), retry);
+                } else if (status != StockPatchResult.Status.UPDATED) {
+                    reject(patch, status);
+                }
+            }
+            if (!retryPatches.isEmpty()) {
+                List<StockPatchResult> retried = write(retryPatches, retries, retryPatches.size());
+                for (int i = 0; i < retried.size(); i++) {
+                    if (retried.get(i).status() != StockPatchResult.Status.UPDATED) {
+                        reject(retryPatches.get(i), retried.get(i).status());
+                    }
+                }
+            }
+            return lots(patches);
+        }
+    }
+
+    // 1トランザクションで書き込む。失敗した場合は batch をキューに戻す
+    private List<StockPatchResult> write(List<StockPatch> patches, Map<Long, Pending> batch, int operations) {
+        long startedAt = System.nanoTime();
+        List<StockPatchResult> results;
+        try {
+            results = stockService.patchAll(patches);
+        } catch (DataAccessException | TransactionException e) {
+            requeue(batch, operations);
+            retried.increment(operations);
+            throw e;
+        }
+        flushTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        batchSizes.record(lots(patches));
+        return results;
+    }
+
+    private static int lots(List<StockPatch> patches) {
+        return (int) patches.stream().map(StockPatch::id).distinct().count();
+    }
+
+    private void reject(StockPatch patch, StockPatchResult.Status status) {
+        rejected.increment();
+        log.warn("在庫数の増減を書き込めませんでした: stockId={}, delta={}, status={}", patch.id(), patch.delta(), status);
+    }
+
+    // 書き込めなかった増減を、その後に受け付けた増減より前に戻す
+    private void requeue(Map<Long, Pending> batch, int operations) {
+        synchronized (queueLock) {
+            Map<Long, Pending> merged = new LinkedHashMap<>(batch);
+            pending.forEach((stockId, lot) -> merged.computeIfAbsent(stockId, id -> new Pending()).addAll(lot));
+            pending = merged;
+            pendingOperations += operations;
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("在庫数の増減の書き込みに失敗しました（次回に再試行します）", e);
+        }
+    }
+
+    // 停止前に残りを書き込む（以降の増減はその場で書き込む）
+    @PreDestroy
+    public void shutdown() {
+        if (flusher == null) {
+            return;
+        }
+        synchronized (queueLock) {
+            stopped = true;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            int written = flush();
+            if (written > 0) {
+                log.info("停止前に在庫数の増減を書き込みました: {} ロット", written);
+            }
+        } catch (DataAccessException | TransactionException e) {
+            synchronized (queueLock) {
+                log.error("停止前の在庫数の増減の書き込みに失敗しました。書き込めなかった増減: {}", pending, e);
+            }
+        }
+    }
+
+    // ロットごとの未書き込みの増減（増加は合計、減少は受け付けた順に1回ずつ）
+    private static final class Pending {
+
+        private int increase;
+        private final List<Integer> decreases = new ArrayList<>();
+
+        void add(int delta) {
+            if (delta > 0) {
+                increase += delta;
+            } else {
+                decreases.add(delta);
+            }
+        }
+
+        void addAll(Pending other) {
+            increase += other.increase;
+            decreases.addAll(other.decreases);
+        }
+
+        int decrease() {
+            return decreases.stream().mapToInt(Integer::intValue).sum();
+        }
+
+        @Override
+        public String toString() {
+            return "+" + increase + " " + decreases;
+        }
+    }
+}
@@ -9,14 +9,20 @@ import java.util.List;
 import java.util.Optional;
 
 @Service
+@Transactional(readOnly = true)
 public class StoreService {
 
     private final StoreRepository storeRepository;
     private final ItemService itemService;
+    private final PurchaseHistoryService purchaseHistoryService;
+    private final TombstoneService tombstoneService;
 
-    public StoreService(StoreRepository storeRepository, ItemService itemService) {
+    public StoreService(StoreRepository storeRepository, ItemService itemService,
+                        PurchaseHistoryService purchaseHistoryService, TombstoneService tombstoneService) {
         this.storeRepository = storeRepository;
         this.itemService = itemService;
+        this.purchaseHistoryService = purchaseHistoryService;
+        this.tombstoneService = tombstoneService;
     }
 
     public List<Store> findAll() {
@@ -27,17 +33,22 @@ public class StoreService {
         return storeRepository.findById(id);
     }
 
+    @Transactional
     public Store save(Store store) {
         return storeRepository.save(store);
     }
 
-    // 安全なStore削除（関連するItemのstore_idをNULLに設定してから削除）
+    // 安全なStore削除（関連するItem・購入履歴のstore_idをNULLに設定してから削除）
     @Transactional
     public void delete(Long id) {
-        // 1. 関連するItemのstore_idをNULLに設定
+        // 1. 関連するItem・購入履歴のstore_idをNULLに設定
         int updatedItems = itemService.updateStoreToNull(id);
-        
-        // 2. Storeを削除
+        int updatedPurchaseHistories = purchaseHistoryService.updateStoreToNull(id);
+
+        // 2. 差分同期用の削除記録
+        tombstoneService.recordStoreDeletion(id);
+
+        // 3. Storeを削除
         storeRepository.deleteById(id);
     }
 
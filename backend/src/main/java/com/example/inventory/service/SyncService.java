@@ -0,0 +1,163 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.CategoryChange;
+import com.example.inventory.dto.DeletedEntity;
+import com.example.inventory.dto.ItemChange;
+import com.example.inventory.dto.PurchaseHistoryChange;
+import com.example.inventory.dto.StockChange;
+import com.example.inventory.dto.StoreChange;
+import com.example.inventory.dto.SyncChange;
+import com.example.inventory.dto.SyncPage;
+import com.example.inventory.repository.CategoryRepository;
+import com.example.inventory.repository.ItemRepository;
+import com.example.inventory.repository.PurchaseHistoryRepository;
+import com.example.inventory.repository.StockRepository;
+import com.example.inventory.repository.StoreRepository;
+import com.example.inventory.repository.TombstoneRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+// 差分同期（モバイルクライアント向け）
+// 指定された watermark 以降に作成・更新・削除された行だけを返す
+//
+// - 上限時刻 until を最初のページで固定し、全ページ・全テーブルで同じ範囲を返す
+// - テーブルは親 → 子の順（categories, stores, items, stocks, purchaseHistories, deleted）で返す
+// - 各テーブル内は (updatedAt, id) のキーセットでページングする
+// - 未コミットのトランザクションを取りこぼさないよう、until は現在時刻から safetyLag だけ遡らせる
+@Service
+public class SyncService {
+
+    // テーブルの処理順
+    private static final int CATEGORIES = 0;
+    private static final int STORES = 1;
+    private static final int ITEMS = 2;
+    private static final int STOCKS = 3;
+    private static final int PURCHASE_HISTORIES = 4;
+    private static final int TOMBSTONES = 5;
+    private static final int TABLE_COUNT = 6;
+
+    // 初回同期（since 未指定）の下限
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final CategoryRepository categoryRepository;
+    private final StoreRepository storeRepository;
+    private final ItemRepository itemRepository;
+    private final StockRepository stockRepository;
+    private final PurchaseHistoryRepository purchaseHistoryRepository;
+    private final TombstoneRepository tombstoneRepository;
+    private final long safetyLagSeconds;
+    private final int maxPageSize;
+
+    public SyncService(CategoryRepository categoryRepository,
+                       StoreRepository storeRepository,
+                       ItemRepository itemRepository,
+                       StockRepository stockRepository,
+                       PurchaseHistoryRepository purchaseHistoryRepository,
+                       TombstoneRepository tombstoneRepository,
+                       @Value("${inventory.sync.safety-lag-seconds:5}") long safetyLagSeconds,
+                       @Value("${inventory.sync.max-page-size:1000}") int maxPageSize) {
+        this.categoryRepository = categoryRepository;
+        this.storeRepository = storeRepository;
+        this.itemRepository = itemRepository;
+        this.stockRepository = stockRepository;
+        this.purchaseHistoryRepository = purchaseHistoryRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.safetyLagSeconds = safetyLagSeconds;
+        this.maxPageSize = maxPageSize;
+    }
+
+    // 差分取得
+    // since: 前回同期の watermark（null なら全件）、cursor: 前ページの続き（指定時は since より優先）
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public SyncPage getChanges(LocalDateTime since, String cursor, int limit) {
+        Cursor position = cursor != null
+                ? Cursor.decode(cursor)
+                : Cursor.start(since != null ? since : BEGINNING, LocalDateTime.now().minusSeconds(safetyLagSeconds));
+
+        List<CategoryChange> categories = new ArrayList<>();
+        List<StoreChange> stores = new ArrayList<>();
+        List<ItemChange> items = new ArrayList<>();
+        List<StockChange> stocks = new ArrayList<>();
+        List<PurchaseHistoryChange> purchaseHistories = new ArrayList<>();
+        List<DeletedEntity> deleted = new ArrayList<>();
+
+        int remaining = Math.max(1, Math.min(limit, maxPageSize));
+        while (position.table() < TABLE_COUNT && remaining > 0) {
+            PageRequest page = PageRequest.of(0, remaining);
+            List<? extends SyncChange> rows = switch (position.table()) {
+                case CATEGORIES -> addAll(categories, categoryRepository.findChangesAfter(
+                        position.afterTs(), position.afterId(), position.until(), page));
+                case STORES -> addAll(stores, storeRepository.findChangesAfter(
+                        position.afterTs(), position.afterId(), position.until(), page));
+                case ITEMS -> addAll(items, itemRepository.findChangesAfter(
+                        position.afterTs(), position.afterId(), position.until(), page));
+                case STOCKS -> addAll(stocks, stockRepository.findChangesAfter(
+                        position.afterTs(), position.afterId(), position.until(), page));
+                case PURCHASE_HISTORIES -> addAll(purchaseHistories, purchaseHistoryRepository.findChangesAfter(
+                        position.afterTs(), position.afterId(), position.until(), page));
+                default -> addAll(deleted, tombstoneRepository.findChangesAfter(
+                        position.afterTs(), position.afterId(), position.until(), page));
+            };
+
+            if (rows.size() < remaining) {
+                // このテーブルは読み切ったので次のテーブルへ
+                position = position.nextTable();
+            } else {
+                SyncChange last = rows.get(rows.size() - 1);
+                position = position.after(last.updatedAt(), last.id());
+            }
+            remaining -= rows.size();
+        }
+
+        boolean hasMore = position.table() < TABLE_COUNT;
+        return new SyncPage(position.until(), hasMore ? position.encode() : null, hasMore,
+                categories, stores, items, stocks, purchaseHistories, deleted);
+    }
+
+    private static <T extends SyncChange> List<T> addAll(List<T> target, List<T> rows) {
+        target.addAll(rows);
+        return rows;
+    }
+
+    // ページング位置
+    // afterId の初期値を Long.MAX_VALUE にすることで、テーブル先頭では「updatedAt > since」と同じ条件になる
+    private record Cursor(LocalDateTime since, LocalDateTime until, int table, LocalDateTime afterTs, Long afterId) {
+
+        static Cursor start(LocalDateTime since, LocalDateTime until) {
+            return new Cursor(since, until, CATEGORIES, since, Long.MAX_VALUE);
+        }
+
+        Cursor nextTable() {
+            return new Cursor(since, until, table + 1, since, Long.MAX_VALUE);
+        }
+
+        Cursor after(LocalDateTime updatedAt, Long id) {
+            return new Cursor(since, until, table, updatedAt, id);
+        }
+
+        String encode() {
+            String raw = String.join("|", since.toString(), until.toString(),
+                    String.valueOf(table), afterTs.toString(), String.valueOf(afterId));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String value) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+                String[] parts = raw.split("\\|");
+                return new Cursor(LocalDateTime.parse(parts[0]), LocalDateTime.parse(parts[1]),
+                        Integer.parseInt(parts[2]), LocalDateTime.parse(parts[3]), Long.parseLong(parts[4]));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("不正なカーソルです: " + value, e);
+            }
+        }
+    }
+}
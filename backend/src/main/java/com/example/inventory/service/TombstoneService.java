@@ -0,0 +1,66 @@
+package com.example.inventory.service;
+
+import com.example.inventory.repository.TombstoneRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+// 削除記録（差分同期用）
+// 各サービスの削除処理から、実際の削除より前に同じトランザクション内で呼び出す
+@Service
+public class TombstoneService {
+
+    private final TombstoneRepository tombstoneRepository;
+
+    public TombstoneService(TombstoneRepository tombstoneRepository) {
+        this.tombstoneRepository = tombstoneRepository;
+    }
+
+    // カテゴリ削除（カスケードで消える商品・在庫・購入履歴も記録）
+    @Transactional
+    public void recordCategoryDeletion(Long categoryId) {
+        LocalDateTime now = LocalDateTime.now();
+        tombstoneRepository.recordPurchaseHistoriesOfCategory(categoryId, now);
+        tombstoneRepository.recordStocksOfCategory(categoryId, now);
+        tombstoneRepository.recordItemsOfCategory(categoryId, now);
+        tombstoneRepository.recordCategory(categoryId, now);
+    }
+
+    // 保持期間を過ぎた購入履歴（月次サマリーへ集約して削除する分）
+    @Transactional
+    public void recordPurchaseHistoryDeletionsBetween(LocalDateTime from, LocalDateTime to) {
+        tombstoneRepository.recordPurchaseHistoriesBetween(from, to, LocalDateTime.now());
+    }
+
+    // 商品削除（カスケードで消える在庫・購入履歴も記録）
+    @Transactional
+    public void recordItemDeletion(Long itemId) {
+        LocalDateTime now = LocalDateTime.now();
+        tombstoneRepository.recordPurchaseHistoriesOfItem(itemId, now);
+        tombstoneRepository.recordStocksOfItem(itemId, now);
+        tombstoneRepository.recordItem(itemId, now);
+    }
+
+    @Transactional
+    public void recordStoreDeletion(Long storeId) {
+        tombstoneRepository.recordStore(storeId, LocalDateTime.now());
+    }
+
+    @Transactional
+    public void recordStockDeletion(Long stockId) {
+        tombstoneRepository.recordStock(stockId, LocalDateTime.now());
+    }
+
+    @Transactional
+    public void recordStockDeletions(Collection<Long> stockIds) {
+        if (!stockIds.isEmpty()) {
+            tombstoneRepository.recordStocks(stockIds, LocalDateTime.now());
+        }
+    }
+
+    @Transactional
+    public void recordPurchaseHistoryDeletion(Long purchaseHistoryId) {
+        tombstoneRepository.recordPurchaseHistory(purchaseHistoryId, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.inventory.service;
+
+import com.example.inventory.config.DataSourceRouting;
+import com.example.inventory.dto.ExpiringLot;
+import com.example.inventory.dto.UseFirstStock;
+import com.example.inventory.event.ItemChangedEvent;
+import com.example.inventory.event.StockChangedEvent;
+import com.example.inventory.repository.StockLedgerRepository;
+import com.example.inventory.repository.StockRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+// 使い切り優先ランキング（「先に使うべき在庫」の上位N件）
+// - 期限のある有効ロットをスコア順の TreeSet で保持し、在庫の書き込み（StockChangedEvent）ごとに該当商品のロットだけ入れ替える
+// - 期限までの日数はすべてのロットで同時に変わるため、日付の切り替わりで全体を作り直す
+// - 上位 max-size 件は変更のたびにリストへ確定させておき、参照は切り出すだけにする
+@Service
+public class UseFirstRankingService {
+
+    private static final Logger log = LoggerFactory.getLogger(UseFirstRankingService.class);
+
+    // スコアの高い順、同点なら期限の早い順
+    private static final Comparator<UseFirstStock> RANKING_ORDER = Comparator
+            .comparingDouble(UseFirstStock::score).reversed()
+            .thenComparing(UseFirstStock::expiryDate)
+            .thenComparing(UseFirstStock::stockId);
+
+    private final StockRepository stockRepository;
+    private final StockLedgerRepository stockLedgerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final int maxSize;
+    private final int consumptionWindowDays;
+
+    private final TreeSet<UseFirstStock> ranking = new TreeSet<>(RANKING_ORDER);
+    private final Map<Long, UseFirstStock> entries = new HashMap<>();         // ロットID → 順位表の行
+    private final Map<Long, Set<Long>> stockIdsByItem = new HashMap<>();      // 商品ID → ロットID
+    private volatile List<UseFirstStock> top = List.of();
+    private volatile LocalDate rankedOn;
+
+    public UseFirstRankingService(StockRepository stockRepository,
+                                  StockLedgerRepository stockLedgerRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  Clock clock,
+                                  @Value("${inventory.stock.use-first.max-size:50}") int maxSize,
+                                  @Value("${inventory.stock.use-first.consumption-window-days:28}") int consumptionWindowDays) {
+        this.stockRepository = stockRepository;
+        this.stockLedgerRepository = stockLedgerRepository;
+        // コミット直後のイベントからも呼ぶため、元のトランザクションとは別に実行する
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate.setReadOnly(true);
+        this.clock = clock;
+        this.maxSize = Math.max(1, maxSize);
+        this.consumptionWindowDays = Math.max(1, consumptionWindowDays);
+    }
+
+    // ===== 参照 =====
+
+    public List<UseFirstStock> getTop(int limit) {
+        if (!LocalDate.now(clock).equals(rankedOn)) {
+            rebuild();  // 日付の切り替わり後、定期ジョブより先に参照された場合
+        }
+        List<UseFirstStock> current = top;
+        return current.subList(0, Math.min(Math.max(0, limit), current.size()));
+    }
+
+    // ===== 全体の再構築 =====
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            rebuild();
+        } catch (DataAccessException e) {
+            log.warn("使い切り優先ランキングの初期化に失敗しました", e);
+        }
+    }
+
+    // 日付の切り替わり（期限までの日数が全ロットで1日減る）
+    @Scheduled(cron = "${inventory.stock.use-first.rollover-cron:0 0 0 * * *}")
+    public void rollover() {
+        try {
+            rebuild();
+        } catch (DataAccessException e) {
+            log.warn("使い切り優先ランキングの日次更新に失敗しました", e);
+        }
+    }
+
+    public synchronized void rebuild() {
+        LocalDate today = LocalDate.now(clock);
+        List<UseFirstStock> rows = load(today, null);
+        ranking.clear();
+        entries.clear();
+        stockIdsByItem.clear();
+        rows.forEach(this::add);
+        rankedOn = today;
+        publishTop();
+    }
+
+    // ===== 差分更新 =====
+
+    // 書き込みのコミット後に、変わった商品のロットだけを読み直して入れ替える
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        if (event.itemIds().isEmpty()) {
+            return;
+        }
+        try {
+            refresh(event.itemIds());
+        } catch (DataAccessException e) {
+            // 順位表は次回の日次更新で作り直される
+            log.warn("使い切り優先ランキングの更新に失敗しました: itemIds={}", event.itemIds(), e);
+        }
+    }
+
+    // 商品名の変更
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        onStockChanged(new StockChangedEvent(event.itemIds()));
+    }
+
+    private synchronized void refresh(Set<Long> itemIds) {
+        LocalDate today = LocalDate.now(clock);
+        if (!today.equals(rankedOn)) {
+            rebuild();
+            return;
+        }
+        List<UseFirstStock> rows = load(today, itemIds);
+        for (Long itemId : itemIds) {
+            Set<Long> stockIds = stockIdsByItem.remove(itemId);
+            if (stockIds != null) {
+                stockIds.forEach(stockId -> ranking.remove(entries.remove(stockId)));
+            }
+        }
+        rows.forEach(this::add);
+        publishTop();
+    }
+
+    private void add(UseFirstStock row) {
+        ranking.add(row);
+        entries.put(row.stockId(), row);
+        stockIdsByItem.computeIfAbsent(row.itemId(), id -> new HashSet<>()).add(row.stockId());
+    }
+
+    private void publishTop() {
+        List<UseFirstStock> head = new ArrayList<>(Math.min(maxSize, ranking.size()));
+        for (UseFirstStock row : ranking) {
+            if (head.size() >= maxSize) {
+                break;
+            }
+            head.add(row);
+        }
+        top = List.copyOf(head);
+    }
+
+    // ===== スコア計算 =====
+
+    // 書き込み直後の状態を読むため、レプリカ構成でもプライマリから読む（itemIds が null なら全商品）
+    private List<UseFirstStock> load(LocalDate today, Collection<Long> itemIds) {
+        return DataSourceRouting.onPrimary(() -> transactionTemplate.execute(status -> {
+            List<ExpiringLot> lots = itemIds == null
+                    ? stockRepository.findExpiringLots(today)
+                    : stockRepository.findExpiringLotsByItemIdIn(today, itemIds);
+            Map<Long, Long> consumed = stockLedgerRepository.findConsumedQuantities(
+                    today.minusDays(consumptionWindowDays).atStartOfDay(), itemIds);
+            return lots.stream()
+                    .map(lot -> toRow(lot, today, (double) consumed.getOrDefault(lot.itemId(), 0L) / consumptionWindowDays))
+                    .toList();
+        }));
+    }
+
+    private UseFirstStock toRow(ExpiringLot lot, LocalDate today, double dailyConsumption) {
+        long daysToExpiry = ChronoUnit.DAYS.between(today, lot.expiryDate());
+        double leftover = expectedLeftover(lot.quantity(), daysToExpiry, dailyConsumption);
+        return new UseFirstStock(lot.stockId(), lot.itemId(), lot.itemName(), lot.quantity(), lot.expiryDate(),
+                daysToExpiry, dailyConsumption, leftover, score(leftover, daysToExpiry));
+    }
+
+    // 今の消費ペースで期限日（当日を含む）までに使い切れない見込み数（消費の記録がない商品は全数）
+    static double expectedLeftover(int quantity, long daysToExpiry, double dailyConsumption) {
+        if (dailyConsumption <= 0) {
+            return quantity;
+        }
+        return Math.max(0, quantity - dailyConsumption * (daysToExpiry + 1));
+    }
+
+    // 期限が近いほど、使い切れない見込み数が多いほど高い（期限当日で余りなしなら 1.0）
+    static double score(double expectedLeftover, long daysToExpiry) {
+        return (1 + expectedLeftover) / (daysToExpiry + 1);
+    }
+}
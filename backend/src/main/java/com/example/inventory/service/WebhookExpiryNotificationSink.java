@@ -0,0 +1,37 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.ExpiryNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+// 期限の通知を JSON で POST する（inventory.expiry.notify.webhook-url を設定した場合のみ）
+// 失敗した通知は再送しない（ExpiryNotificationService がログに残す）
+@Component
+@ConditionalOnProperty(prefix = "inventory.expiry.notify", name = "webhook-url")
+public class WebhookExpiryNotificationSink implements ExpiryNotificationSink {
+
+    private final RestClient client;
+
+    public WebhookExpiryNotificationSink(RestClient.Builder builder,
+                                         @Value("${inventory.expiry.notify.webhook-url}") String url,
+                                         @Value("${inventory.expiry.notify.webhook-timeout-ms:3000}") int timeoutMillis) {
+        // 通知のスレッドを長く止めないよう、接続・応答とも待つ時間を区切る
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeoutMillis);
+        requestFactory.setReadTimeout(timeoutMillis);
+        this.client = builder.baseUrl(url).requestFactory(requestFactory).build();
+    }
+
+    @Override
+    public void send(ExpiryNotification notification) {
+        client.post()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(notification)
+                .retrieve()
+                .toBodilessEntity();
+    }
+}
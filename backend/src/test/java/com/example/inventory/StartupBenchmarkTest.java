@@ -0,0 +1,117 @@
+package com.example.inventory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 起動時間の計測（mvn -Pbenchmark test、DB が必要）
+// アプリケーションを別プロセスで起動し、readiness が UP になるまでと、最初のアラートAPIの応答までの時間を出力する
+// 同じ JVM 内で続けて起動するとクラスのロード済み分だけ速く見えるため、設定ごとに新しい JVM で計測する
+@Tag("benchmark")
+class StartupBenchmarkTest {
+
+    private static final String ALERT_PATH = "/stocks/alerts/low-stock";
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(200))
+            .build();
+
+    @Test
+    @DisplayName("起動_計測_readinessと最初のリクエストまでの時間を出力する")
+    void startup_計測_readinessと最初のリクエストまでの時間を出力する(TestReporter reporter) throws Exception {
+        // When（デフォルト設定を先に起動し、ddl-auto=update でスキーマを揃えてから prod を計測する）
+        Result defaults = measure("default");
+        Result prod = measure("prod");
+
+        // Then
+        for (Result result : List.of(defaults, prod)) {
+            assertThat(result.firstRequestStatus()).isEqualTo(200);
+            // 結果はテストレポート（コンソール・surefire のレポート）に出力する
+            reporter.publishEntry("起動時間 " + result.profile(), String.format(
+                    "ready=%6d ms  first-request=%6d ms (latency %5d ms)",
+                    result.readyMillis(), result.firstResponseMillis(), result.firstRequestLatencyMillis()));
+        }
+    }
+
+    private Result measure(String profile) throws Exception {
+        int port = freePort();
+        Path log = Files.createTempFile("startup-" + profile + "-", ".log");
+        List<String> command = new ArrayList<>(List.of(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                InventoryApplication.class.getName(),
+                "--server.port=" + port,
+                "--spring.jpa.show-sql=false"));
+        if (!profile.equals("default")) {
+            command.add("--spring.profiles.active=" + profile);
+        }
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            // readiness が UP（ウォームアップ完了後）になるまで待つ
+            long deadline = start + STARTUP_TIMEOUT.toNanos();
+            while (status(port, "/actuator/health/readiness") != 200) {
+                if (!process.isAlive() || System.nanoTime() > deadline) {
+                    throw new IllegalStateException(profile + " の起動に失敗しました。ログ: " + log);
+                }
+                Thread.sleep(20);
+            }
+            long ready = System.nanoTime();
+
+            int firstStatus = status(port, ALERT_PATH);
+            long firstResponse = System.nanoTime();
+
+            return new Result(profile, millis(start, ready), millis(start, firstResponse),
+                    millis(ready, firstResponse), firstStatus);
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private int status(int port, String path) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            return -1;  // まだ待ち受けていない
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long millis(long fromNanos, long toNanos) {
+        return (toNanos - fromNanos) / 1_000_000;
+    }
+
+    private record Result(String profile, long readyMillis, long firstResponseMillis,
+                          long firstRequestLatencyMillis, int firstRequestStatus) {
+    }
+}
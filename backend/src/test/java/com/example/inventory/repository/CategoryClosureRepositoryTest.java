@@ -0,0 +1,180 @@
+package com.example.inventory.repository;
+
+import com.example.inventory.entity.Category;
+import com.example.inventory.service.CategoryTreeService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 閉包テーブルの差分更新（登録・移動・削除）の結果が、parent_id からの作り直し（rebuild）と一致することを組み込み DB で確認する
+// カテゴリの更新と閉包テーブルの更新は CategoryService と同じ順で行う
+@DataJpaTest
+@Import(CategoryTreeService.class)
+class CategoryClosureRepositoryTest {
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private CategoryClosureRepository categoryClosureRepository;
+
+    @Autowired
+    private CategoryTreeService categoryTreeService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    @DisplayName("登録_正常系_親の祖先すべてとの組が作り直しと一致する")
+    void insert_正常系_親の祖先すべてとの組が作り直しと一致する() {
+        // Given / When（A > B > C、A > D、E）
+        Long a = create("A", null);
+        Long b = create("B", a);
+        Long c = create("C", b);
+        create("D", a);
+        create("E", null);
+
+        // Then
+        assertThat(rows()).contains(new Row(a, c, 2), new Row(b, c, 1), new Row(c, c, 0));
+        assertMatchesRebuild();
+    }
+
+    @Test
+    @DisplayName("移動_正常系_配下ごと移した組が作り直しと一致する")
+    void move_正常系_配下ごと移した組が作り直しと一致する() {
+        // Given（A > B > C > D、E > F）
+        Long a = create("A", null);
+        Long b = create("B", a);
+        Long c = create("C", b);
+        Long d = create("D", c);
+        Long e = create("E", null);
+        Long f = create("F", e);
+
+        // When / Then（別の木の深い位置へ → 最上位へ → 元の木の中で付け替え）
+        move(b, f);
+        assertThat(rows()).contains(new Row(e, d, 4)).doesNotContain(new Row(a, d, 3));
+        assertMatchesRebuild();
+        move(c, null);
+        assertMatchesRebuild();
+        move(a, d);
+        assertMatchesRebuild();
+    }
+
+    @Test
+    @DisplayName("移動_異常系_自分自身や配下の下には移せない")
+    void validateParent_異常系_自分自身や配下の下には移せない() {
+        // Given
+        Long a = create("A", null);
+        Long b = create("B", a);
+
+        // When / Then
+        assertThatThrownBy(() -> categoryTreeService.validateParent(a, b)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> categoryTreeService.validateParent(a, a)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("削除_正常系_子を親へ繰り上げた組が作り直しと一致する")
+    void remove_正常系_子を親へ繰り上げた組が作り直しと一致する() {
+        // Given（A > B > C > D、B > E）
+        Long a = create("A", null);
+        Long b = create("B", a);
+        Long c = create("C", b);
+        Long d = create("D", c);
+        create("E", b);
+
+        // When / Then（中間 → 最上位のカテゴリを削除する）
+        remove(b);
+        assertThat(rows()).contains(new Row(a, c, 1), new Row(a, d, 2));
+        assertThat(categoryTreeService.findParentId(c)).isEqualTo(a);
+        assertMatchesRebuild();
+        remove(a);
+        assertThat(categoryTreeService.findParentId(c)).isNull();
+        assertMatchesRebuild();
+    }
+
+    @Test
+    @DisplayName("差分更新_正常系_登録・移動・削除を無作為に繰り返しても作り直しと一致する")
+    void 差分更新_正常系_登録移動削除を無作為に繰り返しても作り直しと一致する() {
+        Random random = new Random(42);
+        List<Long> ids = new ArrayList<>();
+        for (int step = 0; step < 60; step++) {
+            int operation = ids.size() < 3 ? 0 : random.nextInt(3);
+            if (operation == 0) {
+                ids.add(create("C" + step, pick(random, ids)));
+            } else if (operation == 1) {
+                // 自分自身・配下以外の親（または最上位）へ移す
+                Long id = ids.get(random.nextInt(ids.size()));
+                Set<Long> subtree = descendants(id);
+                List<Long> candidates = ids.stream().filter(other -> !subtree.contains(other)).toList();
+                move(id, pick(random, candidates));
+            } else {
+                remove(ids.remove(random.nextInt(ids.size())));
+            }
+            assertMatchesRebuild();
+        }
+    }
+
+    // ===== ヘルパー（CategoryService と同じ順で更新する） =====
+
+    private Long create(String name, Long parentId) {
+        Long id = categoryRepository.saveAndFlush(Category.builder().name(name).parentId(parentId).build()).getId();
+        categoryTreeService.insert(id, parentId);
+        return id;
+    }
+
+    private void move(Long id, Long parentId) {
+        Category category = categoryRepository.findById(id).orElseThrow();
+        category.setParentId(parentId);
+        categoryRepository.saveAndFlush(category);
+        categoryTreeService.move(id, parentId);
+    }
+
+    private void remove(Long id) {
+        categoryTreeService.remove(id);
+        categoryRepository.deleteCategoryById(id);
+    }
+
+    // 4回に1回は最上位（null）
+    private static Long pick(Random random, List<Long> candidates) {
+        if (candidates.isEmpty() || random.nextInt(4) == 0) {
+            return null;
+        }
+        return candidates.get(random.nextInt(candidates.size()));
+    }
+
+    private Set<Long> descendants(Long id) {
+        return rows().stream().filter(row -> row.ancestorId().equals(id)).map(Row::descendantId)
+                .collect(Collectors.toSet());
+    }
+
+    // 差分更新の結果を、同じ parent_id から作り直した結果と比べる
+    private void assertMatchesRebuild() {
+        Set<Row> incremental = rows();
+        categoryTreeService.rebuild();
+        assertThat(incremental).isEqualTo(rows());
+    }
+
+    // ネイティブクエリで更新した段数を読むため、永続化コンテキストを捨ててから読む
+    private Set<Row> rows() {
+        entityManager.flush();
+        entityManager.clear();
+        return categoryClosureRepository.findAll().stream()
+                .map(row -> new Row(row.getAncestorId(), row.getDescendantId(), row.getDepth()))
+                .collect(Collectors.toSet());
+    }
+
+    private record Row(Long ancestorId, Long descendantId, int depth) {
+    }
+}
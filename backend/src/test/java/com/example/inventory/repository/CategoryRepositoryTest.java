@@ -0,0 +1,92 @@
+package com.example.inventory.repository;
+
+import com.example.inventory.dto.CategoryChange;
+import com.example.inventory.entity.Category;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 差分同期のキーセット（updatedAt, id）の境界を組み込み DB で確認する
+@DataJpaTest
+class CategoryRepositoryTest {
+
+    private static final LocalDateTime SINCE = LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final LocalDateTime UPDATED_AT = LocalDateTime.of(2026, 1, 2, 10, 0, 0, 123456000);
+    private static final LocalDateTime UNTIL = LocalDateTime.of(2026, 1, 3, 0, 0);
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private List<Long> ids;
+
+    @BeforeEach
+    void setUp() {
+        ids = List.of(save("A"), save("B"), save("C"), save("D"), save("E"));
+        // 全件を同じ更新日時にする（@UpdateTimestamp を通さない）
+        entityManager.createNativeQuery("UPDATE categories SET updated_at = :updatedAt")
+                .setParameter("updatedAt", UPDATED_AT)
+                .executeUpdate();
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("差分同期_正常系_同じ更新日時の行をIDで区切って重複・欠落なく読む")
+    void findChangesAfter_正常系_同じ更新日時の行をIDで区切って重複や欠落なく読む() {
+        // When（1ページ2件で最後まで読む）
+        List<Long> read = new ArrayList<>();
+        LocalDateTime afterTs = SINCE;
+        Long afterId = Long.MAX_VALUE;
+        while (true) {
+            List<CategoryChange> page = categoryRepository.findChangesAfter(afterTs, afterId, UNTIL, PageRequest.of(0, 2));
+            page.forEach(change -> read.add(change.id()));
+            if (page.size() < 2) {
+                break;
+            }
+            CategoryChange last = page.get(page.size() - 1);
+            afterTs = last.updatedAt();
+            afterId = last.id();
+        }
+
+        // Then
+        assertThat(read).containsExactlyElementsOf(ids);
+    }
+
+    @Test
+    @DisplayName("差分同期_正常系_境界の行そのものは含めない")
+    void findChangesAfter_正常系_境界の行そのものは含めない() {
+        // When（2件目の (updatedAt, id) の直後から）
+        List<CategoryChange> page = categoryRepository.findChangesAfter(UPDATED_AT, ids.get(1), UNTIL, PageRequest.of(0, 10));
+
+        // Then
+        assertThat(page).extracting(CategoryChange::id).containsExactlyElementsOf(ids.subList(2, 5));
+        assertThat(page).extracting(CategoryChange::updatedAt).containsOnly(UPDATED_AT);
+    }
+
+    @Test
+    @DisplayName("差分同期_正常系_上限時刻より後の行は含めない")
+    void findChangesAfter_正常系_上限時刻より後の行は含めない() {
+        // When（上限時刻が更新日時より前）
+        List<CategoryChange> page = categoryRepository.findChangesAfter(SINCE, Long.MAX_VALUE,
+                UPDATED_AT.minusNanos(1000), PageRequest.of(0, 10));
+
+        // Then
+        assertThat(page).isEmpty();
+    }
+
+    private Long save(String name) {
+        return categoryRepository.saveAndFlush(Category.builder().name(name).build()).getId();
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.AlertChange;
+import com.example.inventory.dto.AlertChangePage;
+import com.example.inventory.event.StockChangedEvent;
+import com.example.inventory.event.StockStatusRefreshedEvent;
+import com.example.inventory.repository.AlertStateRepository;
+import com.example.inventory.repository.AlertStateRepository.StockAlertRow;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AlertStateServiceTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-01-15T03:00:00Z"), ZoneId.of("Asia/Tokyo"));
+
+    private static final AlertChange STOCK_10_EXPIRING = raised(AlertChange.Target.STOCK, 10L, 1L,
+            StockService.StockStatus.EXPIRING);
+    private static final AlertChange STOCK_10_EXPIRED = raised(AlertChange.Target.STOCK, 10L, 1L,
+            StockService.StockStatus.EXPIRED);
+    private static final AlertChange STOCK_20_EXPIRED = raised(AlertChange.Target.STOCK, 20L, 2L,
+            StockService.StockStatus.EXPIRED);
+    private static final AlertChange ITEM_3_LOW_STOCK = raised(AlertChange.Target.ITEM, 3L, 3L,
+            StockService.StockStatus.LOW_STOCK);
+
+    @Mock
+    private AlertStateRepository alertStateRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    // ===== 差分 =====
+
+    @Test
+    @DisplayName("差分_正常系_トークン以降の発生・解消を発生順に返す")
+    void getChangesSince_正常系_トークン以降の発生解消を発生順に返す() {
+        // Given（起動時は在庫10が期限近）
+        AlertStateService service = service(10000);
+        when(alertStateRepository.findStockAlerts(isNull())).thenReturn(List.of(row(STOCK_10_EXPIRING)));
+        service.rebuild();
+        AlertChangePage first = service.getChangesSince(null);
+
+        // When（在庫10が期限切れになり、商品3が在庫少になる）
+        when(alertStateRepository.findStockAlerts(eq(Set.of(1L)))).thenReturn(List.of(row(STOCK_10_EXPIRED)));
+        service.onStockChanged(StockChangedEvent.of(1L));
+        when(alertStateRepository.findLowStockItemIds(eq(Set.of(3L)))).thenReturn(List.of(3L));
+        service.onStockChanged(StockChangedEvent.of(3L));
+        AlertChangePage delta = service.getChangesSince(first.token());
+
+        // Then（状況の変化は解消と発生の2件）
+        assertThat(first.reset()).isTrue();
+        assertThat(first.changes()).containsExactly(STOCK_10_EXPIRING);
+        assertThat(delta.reset()).isFalse();
+        assertThat(delta.changes()).containsExactly(
+                cleared(STOCK_10_EXPIRING), STOCK_10_EXPIRED, ITEM_3_LOW_STOCK);
+        assertThat(service.getChangesSince(delta.token()).changes()).isEmpty();
+        assertThat(requests("delta")).isEqualTo(2);
+        assertThat(requests("reset")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("差分_正常系_別のプロセスのトークンなら現在のアラートすべてを返す")
+    void getChangesSince_正常系_別のプロセスのトークンなら現在のアラートすべてを返す() {
+        // Given（再起動前のプロセスが発行したトークン）
+        AlertStateService before = new AlertStateService(alertStateRepository, transactionManager,
+                Clock.offset(CLOCK, Duration.ofHours(-1)), meterRegistry, 10000);
+        when(alertStateRepository.findStockAlerts(isNull())).thenReturn(List.of(row(STOCK_20_EXPIRED)));
+        String token = before.getChangesSince(null).token();
+        AlertStateService service = service(10000);
+
+        // When
+        AlertChangePage page = service.getChangesSince(token);
+
+        // Then
+        assertThat(page.reset()).isTrue();
+        assertThat(page.changes()).containsExactly(STOCK_20_EXPIRED);
+        assertThat(page.token()).isNotEqualTo(token);
+    }
+
+    @Test
+    @DisplayName("差分_正常系_保持件数を超えて古い分が捨てられたトークンなら現在のアラートすべてを返す")
+    void getChangesSince_正常系_保持件数を超えて古い分が捨てられたトークンなら現在のアラートすべてを返す() {
+        // Given（保持は2件。発生を1件ずつ3回記録する）
+        AlertStateService service = service(2);
+        String beforeAll = service.getChangesSince(null).token();
+        when(alertStateRepository.findStockAlerts(eq(Set.of(1L)))).thenReturn(List.of(row(STOCK_10_EXPIRING)));
+        service.onStockChanged(StockChangedEvent.of(1L));
+        String afterFirst = service.getChangesSince(beforeAll).token();
+        when(alertStateRepository.findStockAlerts(eq(Set.of(2L)))).thenReturn(List.of(row(STOCK_20_EXPIRED)));
+        service.onStockChanged(StockChangedEvent.of(2L));
+        when(alertStateRepository.findLowStockItemIds(eq(Set.of(3L)))).thenReturn(List.of(3L));
+        service.onStockChanged(StockChangedEvent.of(3L));
+
+        // When
+        AlertChangePage trimmed = service.getChangesSince(beforeAll);
+        AlertChangePage retained = service.getChangesSince(afterFirst);
+
+        // Then（1件目が捨てられたので最初のトークンは reset、1件目の後のトークンは残っている2件を返す）
+        assertThat(trimmed.reset()).isTrue();
+        assertThat(trimmed.changes()).containsExactly(STOCK_10_EXPIRING, STOCK_20_EXPIRED, ITEM_3_LOW_STOCK);
+        assertThat(retained.reset()).isFalse();
+        assertThat(retained.changes()).containsExactly(STOCK_20_EXPIRED, ITEM_3_LOW_STOCK);
+        assertThat(retained.token()).isEqualTo(trimmed.token());
+    }
+
+    @Test
+    @DisplayName("差分_正常系_発行していない通し番号のトークンなら現在のアラートすべてを返す")
+    void getChangesSince_正常系_発行していない通し番号のトークンなら現在のアラートすべてを返す() {
+        // Given（別のインスタンスで通し番号を進めたトークン。同じ時計なので発行元は同じになる）
+        AlertStateService ahead = service(10000);
+        when(alertStateRepository.findStockAlerts(isNull())).thenReturn(List.of(row(STOCK_10_EXPIRING)));
+        String token = ahead.getChangesSince(null).token();
+        when(alertStateRepository.findStockAlerts(isNull())).thenReturn(List.of());
+        AlertStateService service = service(10000);
+
+        // When
+        AlertChangePage page = service.getChangesSince(token);
+
+        // Then
+        assertThat(page.reset()).isTrue();
+        assertThat(page.changes()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("差分_異常系_不正なトークンはIllegalArgumentException")
+    void getChangesSince_異常系_不正なトークンはIllegalArgumentException() {
+        AlertStateService service = service(10000);
+
+        assertThatThrownBy(() -> service.getChangesSince("!!not-a-token"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // ===== 読み直し =====
+
+    @Test
+    @DisplayName("読み直し_正常系_在庫状況の判定し直しの後に全体を読み直す")
+    void onStockStatusRefreshed_正常系_在庫状況の判定し直しの後に全体を読み直す() {
+        // Given
+        AlertStateService service = service(10000);
+        when(alertStateRepository.findStockAlerts(isNull()))
+                .thenReturn(List.of(row(STOCK_10_EXPIRING)))
+                .thenReturn(List.of(row(STOCK_10_EXPIRED)));
+        service.rebuild();
+        String token = service.getChangesSince(null).token();
+
+        // When
+        service.onStockStatusRefreshed(new StockStatusRefreshedEvent(LocalDate.now(CLOCK), 1));
+
+        // Then
+        assertThat(service.getChangesSince(token).changes())
+                .containsExactly(cleared(STOCK_10_EXPIRING), STOCK_10_EXPIRED);
+    }
+
+    @Test
+    @DisplayName("読み直し_異常系_失敗したら次の参照で全体を読み直して差分を返す")
+    void onStockChanged_異常系_失敗したら次の参照で全体を読み直して差分を返す() {
+        // Given
+        AlertStateService service = service(10000);
+        when(alertStateRepository.findStockAlerts(isNull()))
+                .thenReturn(List.of())
+                .thenReturn(List.of(row(STOCK_10_EXPIRING)));
+        String token = service.getChangesSince(null).token();
+        when(alertStateRepository.findStockAlerts(eq(Set.of(1L)))).thenThrow(new QueryTimeoutException("timeout"));
+
+        // When（イベントからの読み直しは例外を投げない）
+        service.onStockChanged(StockChangedEvent.of(1L));
+        AlertChangePage page = service.getChangesSince(token);
+
+        // Then（読み直した結果の差分が返る）
+        verify(alertStateRepository, times(2)).findStockAlerts(isNull());
+        assertThat(page.reset()).isFalse();
+        assertThat(page.changes()).containsExactly(STOCK_10_EXPIRING);
+    }
+
+    // ===== ヘルパー =====
+
+    private AlertStateService service(int capacity) {
+        return new AlertStateService(alertStateRepository, transactionManager, CLOCK, meterRegistry, capacity);
+    }
+
+    private double requests(String result) {
+        return meterRegistry.counter("inventory.alerts.changes.requests", "result", result).count();
+    }
+
+    private static StockAlertRow row(AlertChange alert) {
+        return new StockAlertRow(alert.id(), alert.itemId(), alert.status());
+    }
+
+    private static AlertChange raised(AlertChange.Target target, Long id, Long itemId,
+                                      StockService.StockStatus status) {
+        return new AlertChange(target, id, itemId, status, AlertChange.Action.RAISED);
+    }
+
+    private static AlertChange cleared(AlertChange alert) {
+        return new AlertChange(alert.target(), alert.id(), alert.itemId(), alert.status(), AlertChange.Action.CLEARED);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.SpendingTotals;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 日別合計の Fenwick 木（PurchaseTotalsService.DailyTotalsTree）
+// 加算・減算のたびに、日ごとの値を素直に持った合計と全区間で比べる
+class DailyTotalsTreeTest {
+
+    private static final long FIRST_DAY = 20_000;  // エポック日（2024年10月ごろ）
+
+    private final PurchaseTotalsService.DailyTotalsTree tree = new PurchaseTotalsService.DailyTotalsTree();
+    private final TreeMap<Long, long[]> expected = new TreeMap<>();
+
+    @Test
+    @DisplayName("日別合計_正常系_空の木は0")
+    void sum_正常系_空の木は0() {
+        assertThat(tree.sum(FIRST_DAY, FIRST_DAY + 10)).isEqualTo(SpendingTotals.ZERO);
+    }
+
+    @Test
+    @DisplayName("日別合計_正常系_過去の日付を後から加えると左へ広げて作り直す")
+    void sum_正常系_過去の日付を後から加えると左へ広げて作り直す() {
+        // Given（新しい日から順に、範囲の左端より前の日を加えていく）
+        add(FIRST_DAY + 100, 1, 3, 300, 1);
+        add(FIRST_DAY + 101, 1, 1, 120, 1);
+        add(FIRST_DAY + 99, 1, 2, 200, 1);
+        add(FIRST_DAY + 40, 2, 5, 550, 1);
+        add(FIRST_DAY + 3, 1, 1, 80, 1);
+        add(FIRST_DAY, 1, 4, 400, 1);
+
+        // Then
+        assertMatches(FIRST_DAY - 5, FIRST_DAY + 110);
+    }
+
+    @Test
+    @DisplayName("日別合計_正常系_先の日付を加えると右へ何度も倍に広げる")
+    void sum_正常系_先の日付を加えると右へ何度も倍に広げる() {
+        // Given（1日ずつ、ときどき大きく先の日を加えて倍化を繰り返す）
+        for (int day = 0; day < 20; day++) {
+            add(FIRST_DAY + day, 1, day + 1, 100L * (day + 1), 1);
+        }
+        add(FIRST_DAY + 500, 1, 1, 999, 1);
+        add(FIRST_DAY + 1_030, 3, 6, 1_500, 1);
+
+        // Then
+        assertMatches(FIRST_DAY - 1, FIRST_DAY + 1_040);
+    }
+
+    @Test
+    @DisplayName("日別合計_正常系_符号-1で取り消すと元の合計に戻る")
+    void sum_正常系_符号マイナス1で取り消すと元の合計に戻る() {
+        // Given
+        add(FIRST_DAY + 10, 1, 2, 200, 1);
+        add(FIRST_DAY + 12, 2, 3, 330, 1);
+        add(FIRST_DAY + 2, 1, 1, 90, 1);
+
+        // When（取り消し。左へ広げた後の日も含む）
+        add(FIRST_DAY + 12, 1, 1, 110, -1);
+        add(FIRST_DAY + 2, 1, 1, 90, -1);
+
+        // Then
+        assertMatches(FIRST_DAY, FIRST_DAY + 20);
+        assertThat(tree.sum(FIRST_DAY + 2, FIRST_DAY + 2)).isEqualTo(SpendingTotals.ZERO);
+        assertThat(tree.sum(FIRST_DAY + 12, FIRST_DAY + 12)).isEqualTo(new SpendingTotals(1, 2, 220));
+    }
+
+    @Test
+    @DisplayName("日別合計_正常系_ランダムな加算・減算で素直な合計と一致する")
+    void sum_正常系_ランダムな加算減算で素直な合計と一致する() {
+        // Given（範囲の左右どちらにも広がる順序で加え、ときどき取り消す）
+        Random random = new Random(42);
+        for (int i = 0; i < 300; i++) {
+            long day = FIRST_DAY + random.nextInt(400) - 200;
+            int sign = i > 10 && random.nextInt(4) == 0 ? -1 : 1;
+            add(day, 1, 1 + random.nextInt(5), random.nextInt(1_000), sign);
+        }
+
+        // Then
+        assertMatches(FIRST_DAY - 210, FIRST_DAY + 210);
+    }
+
+    private void add(long day, long count, long quantity, long price, int sign) {
+        tree.add(day, new long[]{count, quantity, price}, 0, sign);
+        long[] totals = expected.computeIfAbsent(day, d -> new long[3]);
+        totals[0] += sign * count;
+        totals[1] += sign * quantity;
+        totals[2] += sign * price;
+    }
+
+    // from〜to の中のすべての区間（範囲外の日を含む）で合計が一致すること
+    private void assertMatches(long from, long to) {
+        for (long start = from; start <= to; start += 7) {
+            for (long end = start; end <= to; end += 5) {
+                assertThat(tree.sum(start, end)).as("%d〜%d", start, end).isEqualTo(naiveSum(start, end));
+            }
+        }
+        assertThat(tree.sum(from, to)).isEqualTo(naiveSum(from, to));
+        assertThat(tree.sum(to, from)).isEqualTo(SpendingTotals.ZERO);
+    }
+
+    private SpendingTotals naiveSum(long from, long to) {
+        long[] sum = new long[3];
+        expected.subMap(from, true, to, true).values().forEach(totals -> {
+            for (int f = 0; f < 3; f++) {
+                sum[f] += totals[f];
+            }
+        });
+        return new SpendingTotals(sum[0], sum[1], sum[2]);
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.inventory.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpiryTimingWheelTest {
+
+    private static final long TICK_MILLIS = 1000;
+
+    // 段の境界の前後（64 = 1段目、4096 = 2段目、262144 = 3段目の始まり）
+    private static final List<Long> BOUNDARY_DELTAS = List.of(
+            1L, 63L, 64L, 65L, 127L, 128L, 4095L, 4096L, 4097L, 262143L, 262144L, 262145L);
+
+    // ===== 発火の時刻 =====
+
+    @Test
+    @DisplayName("時刻を進める_正常系_段の境界の前後でも期限の tick ちょうどに発火する")
+    void advance_正常系_段の境界の前後でも期限のtickちょうどに発火する() {
+        // 開始位置が段の境界に揃っている場合と、途中（現在のスロットを一部過ぎている）場合
+        for (long startTick : List.of(0L, 1L, 63L, 70L, 4095L, 5000L)) {
+            ExpiryTimingWheel<Long> wheel = new ExpiryTimingWheel<>(TICK_MILLIS, startTick * TICK_MILLIS);
+            BOUNDARY_DELTAS.forEach(delta -> wheel.schedule((startTick + delta) * TICK_MILLIS, delta));
+
+            Map<Long, Long> firedAt = tickUntil(wheel, startTick, startTick + 262145L + 10);
+
+            assertThat(firedAt).as("startTick=%d", startTick).hasSize(BOUNDARY_DELTAS.size());
+            BOUNDARY_DELTAS.forEach(delta -> assertThat(firedAt.get(delta))
+                    .as("startTick=%d, delta=%d", startTick, delta)
+                    .isEqualTo(startTick + delta));
+            assertThat(wheel.size()).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("時刻を進める_正常系_まとめて進めても期限順に発火する")
+    void advance_正常系_まとめて進めても期限順に発火する() {
+        // Given
+        ExpiryTimingWheel<Long> wheel = new ExpiryTimingWheel<>(TICK_MILLIS, 0);
+        List.of(4096L, 63L, 64L, 1L, 4095L).forEach(delta -> wheel.schedule(delta * TICK_MILLIS, delta));
+
+        // When（期限の直前まで → 境界をまとめて越える）
+        List<Long> first = new ArrayList<>();
+        wheel.advance(62 * TICK_MILLIS, first);
+        List<Long> second = new ArrayList<>();
+        wheel.advance(5000 * TICK_MILLIS, second);
+
+        // Then
+        assertThat(first).containsExactly(1L);
+        assertThat(second).containsExactly(63L, 64L, 4095L, 4096L);
+    }
+
+    @Test
+    @DisplayName("登録_正常系_tick の途中の期限はその tick の終わりに発火する")
+    void schedule_正常系_tickの途中の期限はそのtickの終わりに発火する() {
+        // Given
+        ExpiryTimingWheel<String> wheel = new ExpiryTimingWheel<>(TICK_MILLIS, 0);
+        wheel.schedule(1500, "a");
+
+        // When / Then
+        List<String> due = new ArrayList<>();
+        wheel.advance(1999, due);
+        assertThat(due).isEmpty();
+        wheel.advance(2000, due);
+        assertThat(due).containsExactly("a");
+    }
+
+    // ===== 過ぎた期限 =====
+
+    @Test
+    @DisplayName("登録_正常系_過ぎた期限は時刻が進まなくても次の advance で発火する")
+    void schedule_正常系_過ぎた期限は時刻が進まなくても次のadvanceで発火する() {
+        // Given（現在の tick ちょうどと、それより前）
+        ExpiryTimingWheel<String> wheel = new ExpiryTimingWheel<>(TICK_MILLIS, 10 * TICK_MILLIS);
+        wheel.schedule(10 * TICK_MILLIS, "now");
+        wheel.schedule(-5 * TICK_MILLIS, "past");
+        assertThat(wheel.size()).isEqualTo(2);
+
+        // When
+        List<String> due = new ArrayList<>();
+        wheel.advance(10 * TICK_MILLIS, due);
+
+        // Then（登録順に発火し、2回目の advance では発火しない）
+        assertThat(due).containsExactly("now", "past");
+        List<String> again = new ArrayList<>();
+        wheel.advance(11 * TICK_MILLIS, again);
+        assertThat(again).isEmpty();
+        assertThat(wheel.size()).isZero();
+    }
+
+    // ===== 取り消し =====
+
+    @Test
+    @DisplayName("取り消し_正常系_どの段にある登録も発火しない")
+    void cancel_正常系_どの段にある登録も発火しない() {
+        // Given（0段目・1段目・2段目と、過ぎた期限）
+        ExpiryTimingWheel<Long> wheel = new ExpiryTimingWheel<>(TICK_MILLIS, 0);
+        List<ExpiryTimingWheel.Entry<Long>> cancelled = new ArrayList<>();
+        for (long delta : List.of(10L, 100L, 5000L, 0L)) {
+            cancelled.add(wheel.schedule(delta * TICK_MILLIS, delta));
+        }
+        ExpiryTimingWheel.Entry<Long> kept = wheel.schedule(100 * TICK_MILLIS, -1L);
+
+        // When
+        cancelled.forEach(wheel::cancel);
+        cancelled.forEach(wheel::cancel);  // 2回目は何もしない
+
+        // Then
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(cancelled).noneMatch(ExpiryTimingWheel.Entry::isPending);
+        Map<Long, Long> firedAt = tickUntil(wheel, 0, 6000);
+        assertThat(firedAt).containsOnlyKeys(-1L);
+        assertThat(kept.isPending()).isFalse();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("取り消し_正常系_発火後の取り消しは件数を変えない")
+    void cancel_正常系_発火後の取り消しは件数を変えない() {
+        // Given
+        ExpiryTimingWheel<String> wheel = new ExpiryTimingWheel<>(TICK_MILLIS, 0);
+        ExpiryTimingWheel.Entry<String> fired = wheel.schedule(TICK_MILLIS, "fired");
+        wheel.schedule(2 * TICK_MILLIS, "pending");
+        wheel.advance(TICK_MILLIS, new ArrayList<>());
+
+        // When
+        wheel.cancel(fired);
+
+        // Then
+        assertThat(wheel.size()).isEqualTo(1);
+    }
+
+    // ===== ヘルパー =====
+
+    // 1 tick ずつ進め、値 → 発火した tick を返す（同じ値が2回発火したら失敗）
+    private static Map<Long, Long> tickUntil(ExpiryTimingWheel<Long> wheel, long fromTick, long toTick) {
+        Map<Long, Long> firedAt = new HashMap<>();
+        List<Long> due = new ArrayList<>();
+        for (long tick = fromTick + 1; tick <= toTick; tick++) {
+            wheel.advance(tick * TICK_MILLIS, due);
+            for (Long value : due) {
+                assertThat(firedAt.put(value, tick)).as("value=%d", value).isNull();
+            }
+            due.clear();
+        }
+        return firedAt;
+    }
+}
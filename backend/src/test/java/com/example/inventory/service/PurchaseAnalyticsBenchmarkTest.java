@@ -0,0 +1,140 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.PurchaseGroupTotals;
+import com.example.inventory.entity.Category;
+import com.example.inventory.entity.Item;
+import com.example.inventory.entity.PurchaseHistory;
+import com.example.inventory.entity.Store;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 購入履歴の集計の計測（mvn -Pbenchmark test -Dtest=PurchaseAnalyticsBenchmarkTest、DB は不要）
+// 同じ購入を JPA のエンティティ（findByPurchasedAtBetween が返すリスト）と PurchaseColumnStore に持たせ、
+// 期間で絞り込んだカテゴリ別集計の1回あたりの時間と確保したメモリ量を出力する
+@Tag("benchmark")
+class PurchaseAnalyticsBenchmarkTest {
+
+    private static final int PURCHASES = 1_000_000;
+    private static final int ITEMS = 500;
+    private static final int CATEGORIES = 20;
+    private static final int STORES = 8;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 11, 1);
+    private static final int DAYS = 730;
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 50;
+
+    @Test
+    @DisplayName("集計_計測_エンティティと列指向ストアの時間と確保量を出力する")
+    void aggregate_計測_エンティティと列指向ストアの時間と確保量を出力する(TestReporter reporter) {
+        // Given
+        List<PurchaseHistory> entities = createPurchases();
+        PurchaseColumnStore store = new PurchaseColumnStore();
+        for (PurchaseHistory purchase : entities) {
+            store.append(purchase.getItem().getId(), purchase.getItem().getCategory().getId(),
+                    purchase.getStore().getId(), (int) purchase.getPurchasedAt().toLocalDate().toEpochDay(),
+                    purchase.getQuantity(), purchase.getTotalPrice() != null ? purchase.getTotalPrice() : 0,
+                    purchase.getTotalPrice() != null);
+        }
+        LocalDate from = FIRST_DAY.plusDays(DAYS / 2);
+        LocalDate to = FIRST_DAY.plusDays(DAYS - 1);
+
+        // When
+        Result jpa = measure("entities", () -> aggregateEntities(entities, from, to));
+        Result columns = measure("columns", () -> store.aggregate((int) from.toEpochDay(), (int) to.toEpochDay(),
+                PurchaseAnalyticsService.GroupBy.CATEGORY, 0, 0, 0));
+
+        // Then
+        assertThat(columns.totals()).isEqualTo(jpa.totals());
+        // 結果はテストレポート（コンソール・surefire のレポート）に出力する
+        for (Result result : List.of(jpa, columns)) {
+            reporter.publishEntry("購入履歴の集計（" + PURCHASES + " 件、カテゴリ別） " + result.name(),
+                    String.format("%8.2f ms/query  %,14d bytes/query",
+                            result.nanosPerQuery() / 1_000_000.0, result.bytesPerQuery()));
+        }
+    }
+
+    // エンティティのリストからの集計（サービスで Stream を使って集計する場合）
+    private static List<PurchaseGroupTotals> aggregateEntities(List<PurchaseHistory> entities, LocalDate from, LocalDate to) {
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        Map<Long, List<PurchaseHistory>> byCategory = entities.stream()
+                .filter(p -> !p.getPurchasedAt().isBefore(start) && p.getPurchasedAt().isBefore(end))
+                .collect(Collectors.groupingBy(p -> p.getItem().getCategory().getId()));
+        return byCategory.entrySet().stream()
+                .map(entry -> new PurchaseGroupTotals(entry.getKey(),
+                        entry.getValue().size(),
+                        entry.getValue().stream().mapToLong(PurchaseHistory::getQuantity).sum(),
+                        entry.getValue().stream().filter(p -> p.getTotalPrice() != null)
+                                .mapToLong(PurchaseHistory::getTotalPrice).sum(),
+                        entry.getValue().stream().filter(p -> p.getTotalPrice() != null)
+                                .mapToLong(PurchaseHistory::getQuantity).sum()))
+                .sorted(Comparator.comparing(PurchaseGroupTotals::id))
+                .toList();
+    }
+
+    private static Result measure(String name, Supplier<List<PurchaseGroupTotals>> query) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        List<PurchaseGroupTotals> totals = null;
+        for (int i = 0; i < WARMUP; i++) {
+            totals = query.get();
+        }
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            totals = query.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        return new Result(name, elapsed / ITERATIONS, allocated / ITERATIONS, totals);
+    }
+
+    // 2年分の購入（1割は金額なし）
+    private static List<PurchaseHistory> createPurchases() {
+        Random random = new Random(42);
+        List<Category> categories = new ArrayList<>();
+        for (long id = 1; id <= CATEGORIES; id++) {
+            categories.add(Category.builder().id(id).name("category-" + id).build());
+        }
+        List<Store> stores = new ArrayList<>();
+        for (long id = 1; id <= STORES; id++) {
+            stores.add(Store.builder().id(id).name("store-" + id).build());
+        }
+        List<Item> items = new ArrayList<>();
+        for (long id = 1; id <= ITEMS; id++) {
+            items.add(Item.builder().id(id).name("item-" + id)
+                    .category(categories.get((int) (id % CATEGORIES))).build());
+        }
+
+        List<PurchaseHistory> purchases = new ArrayList<>(PURCHASES);
+        for (long id = 1; id <= PURCHASES; id++) {
+            int quantity = 1 + random.nextInt(5);
+            purchases.add(PurchaseHistory.builder()
+                    .id(id)
+                    .item(items.get(random.nextInt(ITEMS)))
+                    .store(stores.get(random.nextInt(STORES)))
+                    .quantity(quantity)
+                    .totalPrice(random.nextInt(10) == 0 ? null : quantity * (100 + random.nextInt(400)))
+                    .purchasedAt(FIRST_DAY.plusDays(random.nextInt(DAYS)).atTime(10, 0))
+                    .build());
+        }
+        return purchases;
+    }
+
+    private record Result(String name, long nanosPerQuery, long bytesPerQuery, List<PurchaseGroupTotals> totals) {
+    }
+}
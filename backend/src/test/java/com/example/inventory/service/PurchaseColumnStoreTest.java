@@ -0,0 +1,205 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.PurchaseGroupTotals;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ToLongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 購入履歴の列指向ストア（PurchaseColumnStore）
+// 追加した購入をリストにも持ち、集計結果をリストからの素直な集計と比べる
+class PurchaseColumnStoreTest {
+
+    private static final int FIRST_DAY = 20_000;
+
+    private final PurchaseColumnStore store = new PurchaseColumnStore();
+    private final List<Row> rows = new ArrayList<>();
+
+    @Test
+    @DisplayName("集計_正常系_未設定のグループは最後に並ぶ")
+    void aggregate_正常系_未設定のグループは最後に並ぶ() {
+        // Given（カテゴリ 20・10・未設定、店舗 未設定・5）
+        append(1, 20, 0, FIRST_DAY, 2, 300, true);
+        append(2, 0, 5, FIRST_DAY, 1, 0, false);
+        append(3, 10, 5, FIRST_DAY + 1, 4, 400, true);
+
+        // When
+        List<PurchaseGroupTotals> byCategory = aggregate(PurchaseAnalyticsService.GroupBy.CATEGORY, 0, 0, 0);
+        List<PurchaseGroupTotals> byStore = aggregate(PurchaseAnalyticsService.GroupBy.STORE, 0, 0, 0);
+        List<PurchaseGroupTotals> overall = aggregate(PurchaseAnalyticsService.GroupBy.NONE, 0, 0, 0);
+
+        // Then（ID 順、未設定は id null で最後）
+        assertThat(byCategory).extracting(PurchaseGroupTotals::id).containsExactly(10L, 20L, null);
+        assertThat(byStore).extracting(PurchaseGroupTotals::id).containsExactly(5L, null);
+        assertThat(byStore.get(0)).isEqualTo(new PurchaseGroupTotals(5L, 2, 5, 400, 4));
+        // 全体は1行（id null）
+        assertThat(overall).containsExactly(new PurchaseGroupTotals(null, 3, 7, 700, 6));
+    }
+
+    @Test
+    @DisplayName("集計_正常系_商品・カテゴリ・店舗で絞り込む")
+    void aggregate_正常系_商品カテゴリ店舗で絞り込む() {
+        // Given
+        appendMany(200);
+
+        // Then（絞り込み・グループ化の組み合わせで素直な集計と一致する）
+        for (PurchaseAnalyticsService.GroupBy groupBy : PurchaseAnalyticsService.GroupBy.values()) {
+            assertMatches(groupBy, 0, 0, 0);
+            assertMatches(groupBy, 3, 0, 0);
+            assertMatches(groupBy, 0, 2, 0);
+            assertMatches(groupBy, 0, 0, 1);
+            assertMatches(groupBy, 0, 2, 1);
+        }
+        // 登録されていない ID での絞り込みは空
+        assertThat(aggregate(PurchaseAnalyticsService.GroupBy.NONE, 999, 0, 0)).isEmpty();
+        assertThat(aggregate(PurchaseAnalyticsService.GroupBy.NONE, 0, 999, 0)).isEmpty();
+        assertThat(aggregate(PurchaseAnalyticsService.GroupBy.NONE, 0, 0, 999)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("商品の削除_正常系_削除した商品の行を集計から除く")
+    void removeItem_正常系_削除した商品の行を集計から除く() {
+        // Given
+        appendMany(300);
+
+        // When
+        remove(3);
+        remove(7);
+        remove(999);  // 登録されていない商品は何もしない
+
+        // Then
+        assertThat(store.liveRows()).isEqualTo(rows.size());
+        assertThat(aggregate(PurchaseAnalyticsService.GroupBy.ITEM, 3, 0, 0)).isEmpty();
+        for (PurchaseAnalyticsService.GroupBy groupBy : PurchaseAnalyticsService.GroupBy.values()) {
+            assertMatches(groupBy, 0, 0, 0);
+        }
+    }
+
+    @Test
+    @DisplayName("商品の削除_正常系_詰め直した後も金額の有無と商品の行のつながりを保つ")
+    void removeItem_正常系_詰め直した後も金額の有無と商品の行のつながりを保つ() {
+        // Given（削除行が 1024 件かつ半分を超えると詰め直す）
+        appendMany(3_000);
+        int before = rows.size();
+
+        // When（商品 1〜7 を削除して、全 3000 行のうち 1750 行を消す）
+        for (long itemId = 1; itemId <= 7; itemId++) {
+            remove(itemId);
+        }
+
+        // Then（詰め直しで行の位置が変わっても、金額のない購入は金額のないまま）
+        assertThat((before - rows.size()) * 2).isGreaterThan(before);
+        assertThat(store.liveRows()).isEqualTo(rows.size());
+        for (PurchaseAnalyticsService.GroupBy groupBy : PurchaseAnalyticsService.GroupBy.values()) {
+            assertMatches(groupBy, 0, 0, 0);
+        }
+
+        // When（詰め直した後の追加・削除）
+        append(8, 2, 1, FIRST_DAY + 5, 3, 0, false);
+        remove(9);
+
+        // Then
+        assertThat(store.liveRows()).isEqualTo(rows.size());
+        assertThat(aggregate(PurchaseAnalyticsService.GroupBy.ITEM, 9, 0, 0)).isEmpty();
+        for (PurchaseAnalyticsService.GroupBy groupBy : PurchaseAnalyticsService.GroupBy.values()) {
+            assertMatches(groupBy, 0, 0, 0);
+        }
+    }
+
+    @Test
+    @DisplayName("追加_正常系_別のストアの有効な行だけを取り込む")
+    void appendAll_正常系_別のストアの有効な行だけを取り込む() {
+        // Given
+        appendMany(500);
+        remove(4);
+        PurchaseColumnStore copy = new PurchaseColumnStore();
+
+        // When
+        copy.appendAll(store);
+
+        // Then
+        assertThat(copy.liveRows()).isEqualTo(rows.size());
+        for (PurchaseAnalyticsService.GroupBy groupBy : PurchaseAnalyticsService.GroupBy.values()) {
+            assertThat(copy.aggregate(FIRST_DAY, FIRST_DAY + 30, groupBy, 0, 0, 0))
+                    .isEqualTo(naive(groupBy, FIRST_DAY, FIRST_DAY + 30, 0, 0, 0));
+        }
+    }
+
+    // 商品 1〜12、カテゴリ（商品 % 3、0 は未設定）、店舗（行 % 4、0 は未設定）、3件に1件は金額なし
+    private void appendMany(int count) {
+        for (int i = 0; i < count; i++) {
+            long itemId = 1 + i % 12;
+            append(itemId, itemId % 3, i % 4, FIRST_DAY + i % 60, 1 + i % 5, 100 + i, i % 3 != 0);
+        }
+    }
+
+    private void append(long itemId, long categoryId, long storeId, int day, int quantity, int price, boolean priced) {
+        store.append(itemId, categoryId, storeId, day, quantity, price, priced);
+        rows.add(new Row(itemId, categoryId, storeId, day, quantity, price, priced));
+    }
+
+    private void remove(long itemId) {
+        store.removeItem(itemId);
+        rows.removeIf(row -> row.itemId() == itemId);
+    }
+
+    private List<PurchaseGroupTotals> aggregate(PurchaseAnalyticsService.GroupBy groupBy,
+                                                long itemId, long categoryId, long storeId) {
+        return store.aggregate(FIRST_DAY, FIRST_DAY + 59, groupBy, itemId, categoryId, storeId);
+    }
+
+    // 期間を変えながら素直な集計と比べる
+    private void assertMatches(PurchaseAnalyticsService.GroupBy groupBy, long itemId, long categoryId, long storeId) {
+        for (int from = FIRST_DAY - 1; from <= FIRST_DAY + 60; from += 13) {
+            int to = from + 20;
+            assertThat(store.aggregate(from, to, groupBy, itemId, categoryId, storeId))
+                    .as("%s item=%d category=%d store=%d %d〜%d", groupBy, itemId, categoryId, storeId, from, to)
+                    .isEqualTo(naive(groupBy, from, to, itemId, categoryId, storeId));
+        }
+    }
+
+    private List<PurchaseGroupTotals> naive(PurchaseAnalyticsService.GroupBy groupBy, int from, int to,
+                                            long itemId, long categoryId, long storeId) {
+        // 商品のカテゴリは最後に追加した行のもの
+        Map<Long, Long> categoryOfItem = new TreeMap<>();
+        rows.forEach(row -> categoryOfItem.put(row.itemId(), row.categoryId()));
+        ToLongFunction<Row> key = switch (groupBy) {
+            case ITEM -> Row::itemId;
+            case CATEGORY -> row -> categoryOfItem.get(row.itemId());
+            case STORE -> Row::storeId;
+            case NONE -> row -> 0L;
+        };
+
+        Map<Long, long[]> totals = new TreeMap<>();
+        for (Row row : rows) {
+            long category = categoryOfItem.get(row.itemId());
+            if (row.day() < from || row.day() > to || (itemId != 0 && row.itemId() != itemId)
+                    || (categoryId != 0 && category != categoryId) || (storeId != 0 && row.storeId() != storeId)) {
+                continue;
+            }
+            long[] sums = totals.computeIfAbsent(key.applyAsLong(row), k -> new long[4]);
+            sums[0]++;
+            sums[1] += row.quantity();
+            if (row.priced()) {
+                sums[2] += row.price();
+                sums[3] += row.quantity();
+            }
+        }
+        // ID 順、未設定（0）は id null で最後
+        return totals.entrySet().stream()
+                .sorted(Comparator.comparing((Map.Entry<Long, long[]> e) -> e.getKey() == 0 ? Long.MAX_VALUE : e.getKey()))
+                .map(e -> new PurchaseGroupTotals(e.getKey() == 0 ? null : e.getKey(),
+                        e.getValue()[0], e.getValue()[1], e.getValue()[2], e.getValue()[3]))
+                .toList();
+    }
+
+    private record Row(long itemId, long categoryId, long storeId, int day, int quantity, int price, boolean priced) {
+    }
+}
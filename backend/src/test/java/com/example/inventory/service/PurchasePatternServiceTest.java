@@ -0,0 +1,125 @@
+package com.example.inventory.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+// 購入周期の判定（PurchasePatternService.detect / toPurchaseDays）
+class PurchasePatternServiceTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2026, 1, 1);
+
+    // ===== 購入日の作成 =====
+
+    @Test
+    @DisplayName("購入日_正常系_同じ日の購入は1日と数える")
+    void toPurchaseDays_正常系_同じ日の購入は1日と数える() {
+        // Given（購入日時順、商品1は1月1日に2回）
+        List<Object[]> rows = List.of(
+                new Object[]{1L, LocalDateTime.of(2026, 1, 1, 9, 0)},
+                new Object[]{1L, LocalDateTime.of(2026, 1, 1, 18, 30)},
+                new Object[]{1L, LocalDateTime.of(2026, 1, 8, 9, 0)},
+                new Object[]{2L, LocalDateTime.of(2026, 1, 1, 23, 59)},
+                new Object[]{2L, LocalDateTime.of(2026, 1, 2, 0, 0)});
+
+        // When
+        Map<Long, List<LocalDate>> days = PurchasePatternService.toPurchaseDays(rows);
+
+        // Then
+        assertThat(days.get(1L)).containsExactly(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 8));
+        assertThat(days.get(2L)).containsExactly(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 2));
+    }
+
+    @Test
+    @DisplayName("購入周期_正常系_同じ日の購入で購入日が足りなければ判定しない")
+    void detect_正常系_同じ日の購入で購入日が足りなければ判定しない() {
+        // Given（購入は3回だが購入日は2日）
+        List<Object[]> rows = List.of(
+                new Object[]{1L, LocalDateTime.of(2026, 1, 1, 9, 0)},
+                new Object[]{1L, LocalDateTime.of(2026, 1, 1, 18, 0)},
+                new Object[]{1L, LocalDateTime.of(2026, 1, 8, 9, 0)});
+
+        // When
+        PurchasePatternService.Cycle cycle = PurchasePatternService.detect(
+                PurchasePatternService.toPurchaseDays(rows).get(1L), 3, 12, 0.5);
+
+        // Then
+        assertThat(cycle).isNull();
+    }
+
+    // ===== 購入周期の判定 =====
+
+    @Test
+    @DisplayName("購入周期_正常系_購入日がminPurchases日未満なら判定しない")
+    void detect_正常系_購入日がminPurchases日未満なら判定しない() {
+        assertThat(PurchasePatternService.detect(days(0, 7), 3, 12, 0.5)).isNull();
+        assertThat(PurchasePatternService.detect(List.of(), 3, 12, 0.5)).isNull();
+    }
+
+    @Test
+    @DisplayName("購入周期_正常系_購入日がminPurchases日なら平均間隔から次回を予測する")
+    void detect_正常系_購入日がminPurchases日なら平均間隔から次回を予測する() {
+        // When（間隔 7日・8日）
+        PurchasePatternService.Cycle cycle = PurchasePatternService.detect(days(0, 7, 15), 3, 12, 0.5);
+
+        // Then
+        assertThat(cycle).isNotNull();
+        assertThat(cycle.purchaseCount()).isEqualTo(3);
+        assertThat(cycle.meanIntervalDays()).isEqualTo(7.5);
+        assertThat(cycle.intervalStdDevDays()).isCloseTo(Math.sqrt(0.5), within(1e-9));
+        assertThat(cycle.lastPurchasedOn()).isEqualTo(FIRST_DAY.plusDays(15));
+        assertThat(cycle.nextExpectedOn()).isEqualTo(FIRST_DAY.plusDays(15 + 8));  // 7.5 日は四捨五入で 8 日
+        assertThat(cycle.regular()).isTrue();
+    }
+
+    @Test
+    @DisplayName("購入周期_正常系_直近maxIntervals個の間隔だけを使う")
+    void detect_正常系_直近maxIntervals個の間隔だけを使う() {
+        // Given（間隔 30, 1, 7, 7, 7）
+        List<LocalDate> days = days(0, 30, 31, 38, 45, 52);
+
+        // When
+        PurchasePatternService.Cycle recent = PurchasePatternService.detect(days, 3, 3, 0.5);
+        PurchasePatternService.Cycle all = PurchasePatternService.detect(days, 3, 12, 0.5);
+
+        // Then（直近3個の間隔は 7, 7, 7）
+        assertThat(recent.purchaseCount()).isEqualTo(4);
+        assertThat(recent.meanIntervalDays()).isEqualTo(7.0);
+        assertThat(recent.intervalStdDevDays()).isZero();
+        assertThat(recent.regular()).isTrue();
+        // 全期間では古い間隔のばらつきで不定期になる
+        assertThat(all.purchaseCount()).isEqualTo(6);
+        assertThat(all.meanIntervalDays()).isEqualTo(52 / 5.0);
+        assertThat(all.regular()).isFalse();
+    }
+
+    @Test
+    @DisplayName("購入周期_正常系_ばらつきがmaxVariation以下なら定期購入")
+    void detect_正常系_ばらつきがmaxVariation以下なら定期購入() {
+        // Given（間隔 6, 10, 14 → 平均 10、標準偏差 4、ばらつき 0.4）
+        List<LocalDate> days = days(0, 6, 16, 30);
+
+        // When
+        PurchasePatternService.Cycle atLimit = PurchasePatternService.detect(days, 3, 12, 0.4);
+        PurchasePatternService.Cycle belowLimit = PurchasePatternService.detect(days, 3, 12, 0.39);
+
+        // Then
+        assertThat(atLimit.meanIntervalDays()).isEqualTo(10.0);
+        assertThat(atLimit.intervalStdDevDays()).isEqualTo(4.0);
+        assertThat(atLimit.regular()).isTrue();
+        assertThat(belowLimit.regular()).isFalse();
+    }
+
+    // FIRST_DAY から offsets 日後の購入日
+    private static List<LocalDate> days(int... offsets) {
+        return Arrays.stream(offsets).mapToObj(FIRST_DAY::plusDays).toList();
+    }
+}
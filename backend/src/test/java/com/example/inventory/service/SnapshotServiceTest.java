@@ -0,0 +1,342 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.SnapshotCounts;
+import com.example.inventory.event.ItemChangedEvent;
+import com.example.inventory.repository.SnapshotRepository;
+import com.example.inventory.repository.SnapshotRepository.ColumnType;
+import com.example.inventory.repository.SnapshotRepository.Table;
+import com.example.inventory.repository.StockLedgerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// スナップショットの書き出し・復元（SnapshotRepository はモック、ファイルは一時ディレクトリに書く）
+@ExtendWith(MockitoExtension.class)
+class SnapshotServiceTest {
+
+    // マイクロ秒未満は切り捨てて保存する
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2026, 1, 2, 3, 4, 5, 123_456_789);
+    private static final LocalDateTime CREATED_AT_MICROS = LocalDateTime.of(2026, 1, 2, 3, 4, 5, 123_456_000);
+    // エポックより前（マイクロ秒が負）
+    private static final LocalDateTime BEFORE_EPOCH = LocalDateTime.of(1969, 12, 31, 23, 59, 59, 500_000_000);
+
+    @Mock
+    private SnapshotRepository snapshotRepository;
+
+    @Mock
+    private StockLedgerRepository stockLedgerRepository;
+
+    @Mock
+    private PriceAnalyticsService priceAnalyticsService;
+
+    @Mock
+    private PurchasePatternService purchasePatternService;
+
+    @Mock
+    private CategoryTreeService categoryTreeService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    private Path tempDir;
+
+    private SnapshotService snapshotService;
+
+    // 復元で INSERT された行（テーブルごと）
+    private final Map<Table, List<Object[]>> inserted = new EnumMap<>(Table.class);
+
+    @BeforeEach
+    void setUp() {
+        snapshotService = new SnapshotService(snapshotRepository, stockLedgerRepository, priceAnalyticsService,
+                purchasePatternService, categoryTreeService, eventPublisher, transactionManager, 2);
+        // 復元はバッチごとに渡したリストを使い回すため、行をコピーして残す
+        lenient().doAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            rows.forEach(row -> inserted.computeIfAbsent(invocation.getArgument(0), t -> new ArrayList<>())
+                    .add(row.clone()));
+            return null;
+        }).when(snapshotRepository).insert(any(), anyList());
+    }
+
+    // ===== 書き出し → 復元 =====
+
+    @Test
+    @DisplayName("スナップショット_正常系_書き出した内容をそのまま復元する")
+    void restore_正常系_書き出した内容をそのまま復元する() throws IOException {
+        // Given（NULL・マルチバイト文字・マイクロ秒の日時を含む）
+        Map<Table, List<Object[]>> rows = new EnumMap<>(Table.class);
+        rows.put(Table.CATEGORIES, List.of(
+                new Object[]{1L, "野菜・果物🍎", CREATED_AT, CREATED_AT, null},
+                new Object[]{2L, "葉物", BEFORE_EPOCH, CREATED_AT, 1L}));
+        rows.put(Table.STORES, List.<Object[]>of(new Object[]{1L, "駅前スーパー", null, CREATED_AT, CREATED_AT}));
+        rows.put(Table.ITEMS, List.of(
+                new Object[]{10L, "ほうれん草", null, "4901234567894", 2L, 1L, 2, true, CREATED_AT, CREATED_AT},
+                new Object[]{11L, "", "メモ", null, null, null, 0, false, CREATED_AT, CREATED_AT},
+                new Object[]{12L, "牛乳", null, null, 1L, null, 1, true, CREATED_AT, CREATED_AT}));
+        rows.put(Table.STOCKS, List.<Object[]>of(
+                new Object[]{100L, 10L, 3, LocalDate.of(2026, 1, 5), CREATED_AT, CREATED_AT}));
+        rows.put(Table.PURCHASE_HISTORIES, List.<Object[]>of(
+                new Object[]{1000L, 10L, null, 3, null, CREATED_AT, null, CREATED_AT, CREATED_AT}));
+        rows.put(Table.PURCHASE_HISTORY_SUMMARIES, List.of());
+        stubRows(rows);
+        when(snapshotRepository.isEmpty(any())).thenReturn(true);
+        Path file = tempDir.resolve("snapshot.bin");
+
+        // When
+        SnapshotCounts exported = snapshotService.export(file);
+        SnapshotCounts restored = snapshotService.restore(file);
+
+        // Then（行数）
+        assertThat(exported).isEqualTo(new SnapshotCounts(2, 1, 3, 1, 1, 0));
+        assertThat(restored).isEqualTo(exported);
+        // 値（日時はマイクロ秒まで）
+        for (Table table : Table.values()) {
+            List<Object[]> expected = rows.get(table).stream().map(SnapshotServiceTest::truncateToMicros).toList();
+            assertThat(inserted.getOrDefault(table, List.of())).as(table.tableName())
+                    .usingElementComparator(SnapshotServiceTest::compareRows)
+                    .containsExactlyElementsOf(expected);
+            verify(snapshotRepository).restartIdentity(table);
+        }
+        assertThat(inserted.get(Table.CATEGORIES).get(0)[2]).isEqualTo(CREATED_AT_MICROS);
+        assertThat(inserted.get(Table.CATEGORIES).get(1)[2]).isEqualTo(BEFORE_EPOCH);
+        // 復元後の作り直し
+        verify(categoryTreeService).rebuild();
+        verify(eventPublisher).publishEvent(ItemChangedEvent.of(List.of(10L, 11L, 12L)));
+        verify(priceAnalyticsService).rebuildAll();
+        verify(purchasePatternService).rebuild();
+    }
+
+    @Test
+    @DisplayName("スナップショット_正常系_列を追加する前のスナップショットは足りない列をNULLで復元する")
+    void restore_正常系_列を追加する前のスナップショットは足りない列をNULLで復元する() throws IOException {
+        // Given（categories に parent_id がなかった頃の4列のスナップショット）
+        Path file = tempDir.resolve("old.bin");
+        Map<Table, Integer> columnCounts = new EnumMap<>(Table.class);
+        columnCounts.put(Table.CATEGORIES, 4);
+        Map<Table, List<Object[]>> rows = new EnumMap<>(Table.class);
+        rows.put(Table.CATEGORIES, List.<Object[]>of(new Object[]{1L, "調味料", CREATED_AT_MICROS, CREATED_AT_MICROS}));
+        Files.write(file, buildSnapshot(columnCounts, rows));
+        when(snapshotRepository.isEmpty(any())).thenReturn(true);
+
+        // When
+        SnapshotCounts restored = snapshotService.restore(file);
+
+        // Then
+        assertThat(restored.categories()).isEqualTo(1);
+        assertThat(inserted.get(Table.CATEGORIES)).singleElement()
+                .satisfies(row -> assertThat(row).containsExactly(1L, "調味料", CREATED_AT_MICROS, CREATED_AT_MICROS, null));
+        verify(categoryTreeService).rebuild();
+    }
+
+    // ===== 壊れたファイル =====
+
+    @Test
+    @DisplayName("スナップショット_異常系_先頭が違うファイルは復元しない")
+    void restore_異常系_先頭が違うファイルは復元しない() throws IOException {
+        // Given
+        Path file = tempDir.resolve("bad-magic.bin");
+        byte[] bytes = buildSnapshot(Map.of(), Map.of());
+        bytes[0] = 'X';
+        Files.write(file, bytes);
+
+        // When / Then
+        assertThatThrownBy(() -> snapshotService.restore(file))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("スナップショットファイルではありません");
+        verify(snapshotRepository, never()).insert(any(), anyList());
+    }
+
+    @Test
+    @DisplayName("スナップショット_異常系_チェックサムが一致しなければ復元しない")
+    void restore_異常系_チェックサムが一致しなければ復元しない() throws IOException {
+        // Given（書き出したファイルの商品名の1バイトを書き換える）
+        Map<Table, List<Object[]>> rows = new EnumMap<>(Table.class);
+        rows.put(Table.ITEMS, List.<Object[]>of(
+                new Object[]{10L, "ほうれん草", null, null, null, null, 2, true, CREATED_AT, CREATED_AT}));
+        stubRows(rows);
+        Path file = tempDir.resolve("bad-crc.bin");
+        snapshotService.export(file);
+        byte[] bytes = Files.readAllBytes(file);
+        int position = indexOf(bytes, "ほうれん草".getBytes(StandardCharsets.UTF_8));
+        bytes[position] ^= 0x01;
+        Files.write(file, bytes);
+
+        // When / Then（全セクションを確かめてから INSERT するため、1行も書き込まない）
+        assertThatThrownBy(() -> snapshotService.restore(file))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("チェックサムが一致しません: items");
+        verify(snapshotRepository, never()).insert(any(), anyList());
+        verify(snapshotRepository, never()).isEmpty(any());
+    }
+
+    @Test
+    @DisplayName("スナップショット_異常系_途中で終わっているファイルは復元しない")
+    void restore_異常系_途中で終わっているファイルは復元しない() throws IOException {
+        // Given（書き出したファイルの末尾を切り詰める）
+        Map<Table, List<Object[]>> rows = new EnumMap<>(Table.class);
+        rows.put(Table.STORES, List.<Object[]>of(new Object[]{1L, "駅前スーパー", "駅前", CREATED_AT, CREATED_AT}));
+        stubRows(rows);
+        Path file = tempDir.resolve("truncated.bin");
+        snapshotService.export(file);
+        byte[] bytes = Files.readAllBytes(file);
+
+        for (int length : new int[]{bytes.length - 1, bytes.length / 2, 10}) {
+            Files.write(file, Arrays.copyOf(bytes, length));
+
+            // When / Then
+            assertThatThrownBy(() -> snapshotService.restore(file))
+                    .as("%d バイト", length)
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+        verify(snapshotRepository, never()).insert(any(), anyList());
+    }
+
+    @Test
+    @DisplayName("スナップショット_異常系_データが登録されていれば復元しない")
+    void restore_異常系_データが登録されていれば復元しない() throws IOException {
+        // Given
+        Path file = tempDir.resolve("snapshot.bin");
+        Files.write(file, buildSnapshot(Map.of(), Map.of()));
+        when(snapshotRepository.isEmpty(any())).thenReturn(false);
+
+        // When / Then
+        assertThatThrownBy(() -> snapshotService.restore(file))
+                .isInstanceOf(IllegalStateException.class);
+        verify(snapshotRepository, never()).insert(any(), anyList());
+    }
+
+    // ===== ヘルパー =====
+
+    // forEachRow が渡す行（指定のないテーブルは0行）
+    private void stubRows(Map<Table, List<Object[]>> rows) {
+        doAnswer(invocation -> {
+            Consumer<Object[]> handler = invocation.getArgument(1);
+            rows.getOrDefault(invocation.<Table>getArgument(0), List.of()).forEach(handler);
+            return null;
+        }).when(snapshotRepository).forEachRow(any(), any());
+    }
+
+    // 形式どおりのファイルを組み立てる（columnCounts に指定のないテーブルは現在の列数）
+    private static byte[] buildSnapshot(Map<Table, Integer> columnCounts, Map<Table, List<Object[]>> rows)
+            throws IOException {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(file);
+        out.write("OTSKSNAP".getBytes(StandardCharsets.US_ASCII));
+        out.writeInt(1);
+        out.writeLong(0);
+        out.writeInt(Table.values().length);
+        for (Table table : Table.values()) {
+            int columnCount = columnCounts.getOrDefault(table, table.types().size());
+            writeString(out, table.tableName());
+            out.writeInt(columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                out.writeByte(table.types().get(i).ordinal());
+            }
+            ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            DataOutputStream payloadOut = new DataOutputStream(payload);
+            List<Object[]> tableRows = rows.getOrDefault(table, List.of());
+            for (Object[] row : tableRows) {
+                writeRow(payloadOut, table.types(), row);
+            }
+            out.writeLong(tableRows.size());
+            out.writeLong(payload.size());
+            out.write(payload.toByteArray());
+            CRC32C crc = new CRC32C();
+            crc.update(payload.toByteArray());
+            out.writeInt((int) crc.getValue());
+        }
+        return file.toByteArray();
+    }
+
+    private static void writeRow(DataOutputStream out, List<ColumnType> types, Object[] values) throws IOException {
+        int nulls = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                nulls |= 1 << i;
+            }
+        }
+        out.writeInt(nulls);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                continue;
+            }
+            switch (types.get(i)) {
+                case BIGINT -> out.writeLong((Long) values[i]);
+                case INTEGER -> out.writeInt((Integer) values[i]);
+                case BOOLEAN -> out.writeByte((Boolean) values[i] ? 1 : 0);
+                case VARCHAR -> writeString(out, (String) values[i]);
+                case DATE -> out.writeInt((int) ((LocalDate) values[i]).toEpochDay());
+                case TIMESTAMP -> {
+                    LocalDateTime dateTime = (LocalDateTime) values[i];
+                    out.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + dateTime.getNano() / 1_000);
+                }
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static Object[] truncateToMicros(Object[] row) {
+        Object[] copy = row.clone();
+        for (int i = 0; i < copy.length; i++) {
+            if (copy[i] instanceof LocalDateTime dateTime) {
+                copy[i] = dateTime.withNano(dateTime.getNano() / 1_000 * 1_000);
+            }
+        }
+        return copy;
+    }
+
+    private static int compareRows(Object[] a, Object[] b) {
+        return Arrays.equals(a, b) ? 0 : 1;
+    }
+
+    private static int indexOf(byte[] bytes, byte[] target) {
+        for (int i = 0; i + target.length <= bytes.length; i++) {
+            if (Arrays.equals(bytes, i, i + target.length, target, 0, target.length)) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("見つかりません");
+    }
+}
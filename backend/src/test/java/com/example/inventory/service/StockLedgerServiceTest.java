@@ -0,0 +1,128 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.StockMovementRequest;
+import com.example.inventory.entity.StockMovement;
+import com.example.inventory.event.StockChangedEvent;
+import com.example.inventory.repository.StockLedgerRepository;
+import com.example.inventory.repository.StockMovementRepository;
+import com.example.inventory.repository.StockSnapshotRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StockLedgerServiceTest {
+
+    private static final Long ITEM_ID = 1L;
+    private static final Long STOCK_A = 10L;
+    private static final Long STOCK_B = 20L;
+
+    @Mock
+    private StockLedgerRepository stockLedgerRepository;
+
+    @Mock
+    private StockMovementRepository stockMovementRepository;
+
+    @Mock
+    private StockSnapshotRepository stockSnapshotRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private StockLedgerService stockLedgerService;
+
+    @BeforeEach
+    void setUp() {
+        stockLedgerService = new StockLedgerService(stockLedgerRepository, stockMovementRepository,
+                stockSnapshotRepository, eventPublisher, transactionManager, 1, 5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stockLedgerService.shutdown();
+    }
+
+    // ===== 追記 =====
+
+    @Test
+    @DisplayName("追記_正常系_ロットをロックして在庫数の範囲内の増減を記録する")
+    void append_正常系_ロットをロックして在庫数の範囲内の増減を記録する() {
+        // Given（A は 3 個、B は 0 個）
+        when(stockLedgerRepository.lockStocks(List.of(STOCK_A, STOCK_B)))
+                .thenReturn(Map.of(STOCK_A, ITEM_ID, STOCK_B, ITEM_ID));
+        when(stockLedgerRepository.findQuantities(Set.of(STOCK_A, STOCK_B)))
+                .thenReturn(Map.of(STOCK_A, 3, STOCK_B, 0));
+
+        // When（A は使い切り、B は追加してから同じ数だけ消費する）
+        List<StockMovement> movements = stockLedgerService.append(List.of(
+                new StockMovementRequest(STOCK_A, StockMovement.Type.CONSUME, 3),
+                new StockMovementRequest(STOCK_B, StockMovement.Type.ADJUST, 2),
+                new StockMovementRequest(STOCK_B, StockMovement.Type.DISCARD, 2)));
+
+        // Then
+        assertThat(movements).extracting(StockMovement::getQuantityDelta).containsExactly(-3, 2, -2);
+        verify(stockLedgerRepository).append(movements);
+        verify(eventPublisher).publishEvent(any(StockChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("追記_異常系_在庫数がマイナスになる増減があれば何も記録しない")
+    void append_異常系_在庫数がマイナスになる増減があれば何も記録しない() {
+        // Given（A は 3 個）
+        when(stockLedgerRepository.lockStocks(List.of(STOCK_A))).thenReturn(Map.of(STOCK_A, ITEM_ID));
+        when(stockLedgerRepository.findQuantities(Set.of(STOCK_A))).thenReturn(Map.of(STOCK_A, 3));
+
+        // When / Then（合計では 0 以上でも、途中でマイナスになる順序は拒否する）
+        assertThatThrownBy(() -> stockLedgerService.append(List.of(
+                new StockMovementRequest(STOCK_A, StockMovement.Type.CONSUME, 4),
+                new StockMovementRequest(STOCK_A, StockMovement.Type.PURCHASE, 5))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("stockId=" + STOCK_A);
+        verify(stockLedgerRepository, never()).append(anyList());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    @DisplayName("追記_異常系_存在しないロットはIllegalArgumentException")
+    void append_異常系_存在しないロットはIllegalArgumentException() {
+        // Given
+        when(stockLedgerRepository.lockStocks(List.of(STOCK_A))).thenReturn(Map.of());
+
+        // When / Then
+        assertThatThrownBy(() -> stockLedgerService.append(List.of(
+                new StockMovementRequest(STOCK_A, StockMovement.Type.PURCHASE, 1))))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(stockLedgerRepository, never()).append(anyList());
+    }
+
+    @Test
+    @DisplayName("追記_異常系_負の数の消費はIllegalArgumentException")
+    void append_異常系_負の数の消費はIllegalArgumentException() {
+        assertThatThrownBy(() -> stockLedgerService.append(List.of(
+                new StockMovementRequest(STOCK_A, StockMovement.Type.CONSUME, -1))))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(stockLedgerRepository, never()).lockStocks(anyCollection());
+    }
+}
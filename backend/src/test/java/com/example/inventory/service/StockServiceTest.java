@@ -1,21 +1,38 @@
 package com.example.inventory.service;
 
+import com.example.inventory.dto.StockChange;
+import com.example.inventory.dto.StockPatch;
+import com.example.inventory.dto.StockPatchResult;
+import com.example.inventory.entity.Item;
 import com.example.inventory.entity.Stock;
+import com.example.inventory.entity.StockMovement;
+import com.example.inventory.event.StockChangedEvent;
+import com.example.inventory.repository.StockBatchRepository;
 import com.example.inventory.repository.StockRepository;
 import com.example.inventory.util.TestConstants;
 import com.example.inventory.util.TestDataFactory;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.time.Clock;
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,6 +41,20 @@ class StockServiceTest {
     @Mock
     private StockRepository stockRepository;
 
+    @Mock
+    private StockBatchRepository stockBatchRepository;
+
+    @Mock
+    private StockLedgerService stockLedgerService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    // 期限の判定は TestConstants.TODAY を今日とする
+    @Spy
+    private Clock clock = Clock.fixed(TestConstants.TODAY.atStartOfDay(ZoneId.systemDefault()).toInstant(),
+            ZoneId.systemDefault());
+
     @InjectMocks
     private StockService stockService;
 
@@ -44,7 +75,7 @@ class StockServiceTest {
         );
 
         // 3. Mockの動作を設定（when().thenReturn()で偽の動作を定義）
-        when(stockRepository.findAll()).thenReturn(allStocks);  // findAll()が呼ばれたらallStocksを返す
+        when(stockRepository.findByQuantityGreaterThan(0)).thenReturn(allStocks);  // 在庫のある（数量 > 0）ロットの取得でallStocksを返す
         when(stockRepository.getTotalQuantityByItemId(lowStockSet.item.getId())).thenReturn(2);    // 閾値以下
         when(stockRepository.getTotalQuantityByItemId(normalStockSet.item.getId())).thenReturn(5);  // 閾値以上
 
@@ -72,7 +103,7 @@ class StockServiceTest {
         
         List<Stock> allStocks = Arrays.asList(lowStockSet.stock, zeroStock);
 
-        when(stockRepository.findAll()).thenReturn(allStocks);
+        when(stockRepository.findByQuantityGreaterThan(0)).thenReturn(allStocks);
         when(stockRepository.getTotalQuantityByItemId(lowStockSet.item.getId())).thenReturn(2);
 
         // When
@@ -90,7 +121,7 @@ class StockServiceTest {
         TestDataFactory.CategoryItemStockSet normalStockSet = TestDataFactory.createNormalStockSet();
         List<Stock> allStocks = Arrays.asList(normalStockSet.stock);
 
-        when(stockRepository.findAll()).thenReturn(allStocks);
+        when(stockRepository.findByQuantityGreaterThan(0)).thenReturn(allStocks);
         when(stockRepository.getTotalQuantityByItemId(normalStockSet.item.getId())).thenReturn(5);  // 閾値以上
 
         // When
@@ -114,7 +145,7 @@ class StockServiceTest {
                 normalSet.stock     // 30日後に期限切れ → 対象外
         );
 
-        when(stockRepository.findAll()).thenReturn(allStocks);
+        when(stockRepository.findByQuantityGreaterThan(0)).thenReturn(allStocks);
 
         // When
         List<Stock> expiringStocks = stockService.getExpiringStocks(3);
@@ -138,7 +169,7 @@ class StockServiceTest {
         
         List<Stock> allStocks = Arrays.asList(expiringSet.stock, zeroStock);
 
-        when(stockRepository.findAll()).thenReturn(allStocks);
+        when(stockRepository.findByQuantityGreaterThan(0)).thenReturn(allStocks);
 
         // When
         List<Stock> expiringStocks = stockService.getExpiringStocks(3);
@@ -157,7 +188,7 @@ class StockServiceTest {
         
         List<Stock> allStocks = Arrays.asList(noExpirySet.stock, expiringSet.stock);
 
-        when(stockRepository.findAll()).thenReturn(allStocks);
+        when(stockRepository.findByQuantityGreaterThan(0)).thenReturn(allStocks);
 
         // When
         List<Stock> expiringStocks = stockService.getExpiringStocks(3);
@@ -232,4 +263,160 @@ class StockServiceTest {
         // Then
         assertThat(status).isEqualTo(StockService.StockStatus.NORMAL);
     }
-}
\ No newline at end of file
+
+    // ===== 一括部分更新機能のテスト =====
+
+    @Test
+    @DisplayName("一括部分更新_正常系_結果を入力順に返す")
+    void patchAll_正常系_結果を入力順に返す() {
+        // Given
+        List<StockPatch> patches = Arrays.asList(
+                new StockPatch(TestConstants.STOCK_ID_1, -1, null),   // 更新成功
+                new StockPatch(TestConstants.STOCK_ID_2, -10, null),  // マイナスになるため更新されない
+                new StockPatch(99L, 1, null)                          // 存在しない在庫
+        );
+
+        when(stockBatchRepository.applyPatches(anyList(), any())).thenReturn(new int[]{1, 0, 0});
+        when(stockRepository.findChangesByIdIn(anyList())).thenReturn(Arrays.asList(
+                new StockChange(TestConstants.STOCK_ID_1, TestConstants.ITEM_ID_1, TestConstants.QUANTITY_LOW,
+                        TestConstants.EXPIRING_LATER, TestConstants.NOW),
+                new StockChange(TestConstants.STOCK_ID_2, TestConstants.ITEM_ID_2, TestConstants.QUANTITY_HIGH,
+                        TestConstants.EXPIRING_LATER, TestConstants.ONE_HOUR_AGO)
+        ));
+
+        // When
+        List<StockPatchResult> results = stockService.patchAll(patches);
+
+        // Then
+        assertThat(results).extracting(StockPatchResult::status).containsExactly(
+                StockPatchResult.Status.UPDATED,
+                StockPatchResult.Status.REJECTED,
+                StockPatchResult.Status.NOT_FOUND);
+        assertThat(results.get(0).quantity()).isEqualTo(TestConstants.QUANTITY_LOW);  // 更新後の在庫数
+        assertThat(results.get(1).quantity()).isEqualTo(TestConstants.QUANTITY_HIGH); // 更新されず元のまま
+    }
+
+    @Test
+    @DisplayName("一括部分更新_正常系_変更内容なしは更新しない")
+    void patchAll_正常系_変更内容なしは更新しない() {
+        // Given
+        List<StockPatch> patches = Arrays.asList(new StockPatch(TestConstants.STOCK_ID_1, null, null));
+
+        when(stockRepository.findChangesByIdIn(anyList())).thenReturn(Arrays.asList(
+                new StockChange(TestConstants.STOCK_ID_1, TestConstants.ITEM_ID_1, TestConstants.QUANTITY_LOW,
+                        null, TestConstants.NOW)
+        ));
+
+        // When
+        List<StockPatchResult> results = stockService.patchAll(patches);
+
+        // Then
+        assertThat(results).hasSize(1);
+        assertThat(results.get(0).status()).isEqualTo(StockPatchResult.Status.REJECTED);
+        verify(stockBatchRepository, never()).applyPatches(anyList(), any());
+    }
+
+    // ===== 在庫の増減履歴のテスト =====
+
+    @Test
+    @DisplayName("一括部分更新_正常系_更新できた減少だけを消費として記録する")
+    void patchAll_正常系_更新できた減少だけを消費として記録する() {
+        // Given
+        List<StockPatch> patches = Arrays.asList(
+                new StockPatch(TestConstants.STOCK_ID_1, -1, null),   // 更新成功
+                new StockPatch(TestConstants.STOCK_ID_2, -10, null)   // マイナスになるため更新されない
+        );
+
+        when(stockBatchRepository.applyPatches(anyList(), any())).thenReturn(new int[]{1, 0});
+        when(stockRepository.findChangesByIdIn(anyList())).thenReturn(Arrays.asList(
+                new StockChange(TestConstants.STOCK_ID_1, TestConstants.ITEM_ID_1, TestConstants.QUANTITY_LOW,
+                        null, TestConstants.NOW),
+                new StockChange(TestConstants.STOCK_ID_2, TestConstants.ITEM_ID_2, TestConstants.QUANTITY_HIGH,
+                        null, TestConstants.NOW)
+        ));
+
+        // When
+        stockService.patchAll(patches);
+
+        // Then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<StockMovement>> captor = ArgumentCaptor.forClass(List.class);
+        verify(stockLedgerService).record(captor.capture());
+        assertThat(captor.getValue()).hasSize(1);
+        assertThat(captor.getValue().get(0).getType()).isEqualTo(StockMovement.Type.CONSUME);
+        assertThat(captor.getValue().get(0).getStockId()).isEqualTo(TestConstants.STOCK_ID_1);
+        assertThat(captor.getValue().get(0).getQuantityDelta()).isEqualTo(-1);
+    }
+
+    @Test
+    @DisplayName("更新_正常系_履歴上の在庫数との差分を調整として記録する")
+    void save_正常系_履歴上の在庫数との差分を調整として記録する() {
+        // Given
+        Item item = TestDataFactory.createItem(TestConstants.ITEM_ID_1, "牛乳", null, 2, true);
+        Stock stock = TestDataFactory.createStock(item, 5, null);
+        stock.setId(TestConstants.STOCK_ID_1);
+
+        when(stockLedgerService.getQuantities(anyList())).thenReturn(Map.of(TestConstants.STOCK_ID_1, 3));
+        when(stockRepository.save(stock)).thenReturn(stock);
+        when(stockRepository.getTotalQuantityByItemId(TestConstants.ITEM_ID_1)).thenReturn(5);
+
+        // When
+        stockService.save(stock);
+
+        // Then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<StockMovement>> captor = ArgumentCaptor.forClass(List.class);
+        verify(stockLedgerService).record(captor.capture());
+        assertThat(captor.getValue()).singleElement().satisfies(movement -> {
+            assertThat(movement.getType()).isEqualTo(StockMovement.Type.ADJUST);
+            assertThat(movement.getQuantityDelta()).isEqualTo(2);
+        });
+        // 応答の在庫状況はその場で判定する（status 列の更新はコミット直前のイベントに任せる）
+        assertThat(stock.getStatus()).isEqualTo(StockService.StockStatus.NORMAL);
+        verify(eventPublisher).publishEvent(any(StockChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("更新_正常系_履歴上の在庫数からの減少は消費として記録する")
+    void save_正常系_履歴上の在庫数からの減少は消費として記録する() {
+        // Given
+        Item item = TestDataFactory.createItem(TestConstants.ITEM_ID_1, "牛乳", null, 2, true);
+        Stock stock = TestDataFactory.createStock(item, 3, null);
+        stock.setId(TestConstants.STOCK_ID_1);
+
+        when(stockLedgerService.getQuantities(anyList())).thenReturn(Map.of(TestConstants.STOCK_ID_1, 5));
+        when(stockRepository.save(stock)).thenReturn(stock);
+        when(stockRepository.getTotalQuantityByItemId(TestConstants.ITEM_ID_1)).thenReturn(3);
+
+        // When
+        stockService.save(stock);
+
+        // Then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<StockMovement>> captor = ArgumentCaptor.forClass(List.class);
+        verify(stockLedgerService).record(captor.capture());
+        assertThat(captor.getValue()).singleElement().satisfies(movement -> {
+            assertThat(movement.getType()).isEqualTo(StockMovement.Type.CONSUME);
+            assertThat(movement.getQuantityDelta()).isEqualTo(-2);
+        });
+    }
+
+    @Test
+    @DisplayName("一括部分更新_正常系_期限だけの変更も在庫変更として通知する")
+    void patchAll_正常系_期限だけの変更も在庫変更として通知する() {
+        // Given
+        List<StockPatch> patches = List.of(
+                new StockPatch(TestConstants.STOCK_ID_1, null, LocalDate.of(2030, 1, 1)));
+
+        when(stockBatchRepository.applyPatches(anyList(), any())).thenReturn(new int[]{1});
+        when(stockRepository.findChangesByIdIn(anyList())).thenReturn(List.of(
+                new StockChange(TestConstants.STOCK_ID_1, TestConstants.ITEM_ID_1, TestConstants.QUANTITY_LOW,
+                        LocalDate.of(2030, 1, 1), TestConstants.NOW)));
+
+        // When
+        stockService.patchAll(patches);
+
+        // Then
+        verify(eventPublisher).publishEvent(StockChangedEvent.of(TestConstants.ITEM_ID_1));
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.StockPatch;
+import com.example.inventory.dto.StockPatchResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StockWriteBehindServiceTest {
+
+    // 定期の書き込みが走らないよう十分長くする（書き込みはテストから flush・shutdown で行う）
+    private static final long MAX_LATENCY_MILLIS = 3_600_000;
+
+    @Mock
+    private StockService stockService;
+
+    private MeterRegistry meterRegistry;
+    private StockWriteBehindService writeBehindService;
+
+    // patchAll に渡された内容（呼ばれた順）
+    private final List<List<StockPatch>> written = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writeBehindService != null) {
+            writeBehindService.shutdown();
+        }
+    }
+
+    // ===== 合算 =====
+
+    @Test
+    @DisplayName("在庫数の増減_正常系_ロットごとにまとめて書き込む")
+    void adjust_正常系_ロットごとにまとめて書き込む() {
+        // Given
+        writeBehindService = enabled(100, 10000);
+        stubPatchAll();
+
+        // When（ロット1は合計がプラス、ロット3は打ち消し合って 0、ロット4は合計がマイナス）
+        assertThat(writeBehindService.adjust(1L, 1)).isEmpty();
+        writeBehindService.adjust(2L, -1);
+        writeBehindService.adjust(1L, 1);
+        writeBehindService.adjust(3L, 1);
+        writeBehindService.adjust(1L, -1);
+        writeBehindService.adjust(3L, -1);
+        writeBehindService.adjust(4L, 2);
+        writeBehindService.adjust(4L, -3);
+        int lots = writeBehindService.flush();
+
+        // Then（合計が 0 以上なら合計を1回で、マイナスなら増加 → 減少の順に書く。0 のロットは書き込まない）
+        assertThat(lots).isEqualTo(3);
+        assertThat(written).containsExactly(List.of(patch(1L, 1), patch(2L, -1), patch(4L, 2), patch(4L, -3)));
+        assertThat(queued()).isEqualTo(8);
+    }
+
+    @Test
+    @DisplayName("書き込み_正常系_受け付けた増加は後の減少が拒否されても書き込まれる")
+    void flush_正常系_受け付けた増加は後の減少が拒否されても書き込まれる() {
+        // Given（在庫 3 のロットに +1 → -5）
+        writeBehindService = enabled(100, 10000);
+        Map<Long, Integer> quantities = stubLots(Map.of(1L, 3));
+        writeBehindService.adjust(1L, 1);
+        writeBehindService.adjust(1L, -5);
+
+        // When
+        writeBehindService.flush();
+
+        // Then（+1 は書き込まれ、在庫を超える -5 だけが拒否される）
+        assertThat(written).containsExactly(List.of(patch(1L, 1), patch(1L, -5)));
+        assertThat(quantities).containsEntry(1L, 4);
+        assertThat(rejected()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("書き込み_正常系_減少の合計が拒否されたら1回ずつ書き込み直す")
+    void flush_正常系_減少の合計が拒否されたら1回ずつ書き込み直す() {
+        // Given（在庫 3 のロットに +1 → -2 → -5）
+        writeBehindService = enabled(100, 10000);
+        Map<Long, Integer> quantities = stubLots(Map.of(1L, 3));
+        writeBehindService.adjust(1L, 1);
+        writeBehindService.adjust(1L, -2);
+        writeBehindService.adjust(1L, -5);
+
+        // When
+        int lots = writeBehindService.flush();
+
+        // Then（合計の -7 は拒否され、1回ずつでは -2 だけが在庫の範囲内）
+        assertThat(lots).isEqualTo(1);
+        assertThat(written).containsExactly(
+                List.of(patch(1L, 1), patch(1L, -7)),
+                List.of(patch(1L, -2), patch(1L, -5)));
+        assertThat(quantities).containsEntry(1L, 2);
+        assertThat(rejected()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("在庫数の増減_正常系_無効ならその場で1回ずつ書き込む")
+    void adjust_正常系_無効ならその場で1回ずつ書き込む() {
+        // Given
+        writeBehindService = new StockWriteBehindService(stockService, meterRegistry, false, MAX_LATENCY_MILLIS, 100, 10000);
+        stubPatchAll();
+
+        // When
+        Optional<StockPatchResult> result = writeBehindService.adjust(1L, 1);
+
+        // Then
+        assertThat(result).map(StockPatchResult::status).contains(StockPatchResult.Status.UPDATED);
+        assertThat(written).containsExactly(List.of(patch(1L, 1)));
+        assertThat(writeBehindService.flush()).isZero();
+    }
+
+    @Test
+    @DisplayName("在庫数の増減_異常系_在庫IDがないか増減が0ならIllegalArgumentException")
+    void adjust_異常系_在庫IDがないか増減が0ならIllegalArgumentException() {
+        writeBehindService = enabled(100, 10000);
+
+        assertThatThrownBy(() -> writeBehindService.adjust(null, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> writeBehindService.adjust(1L, 0)).isInstanceOf(IllegalArgumentException.class);
+        verify(stockService, never()).patchAll(anyList());
+    }
+
+    // ===== 書き込みの失敗 =====
+
+    @Test
+    @DisplayName("書き込み_異常系_失敗した増減は書き込み中に受け付けた増減より前に戻して再試行する")
+    void flush_異常系_失敗した増減は書き込み中に受け付けた増減より前に戻して再試行する() {
+        // Given（1回目の書き込み中にロット3・ロット1の増減が届き、その後に失敗する）
+        writeBehindService = enabled(100, 10000);
+        writeBehindService.adjust(1L, 1);
+        writeBehindService.adjust(2L, 1);
+        when(stockService.patchAll(anyList()))
+                .thenAnswer(invocation -> {
+                    written.add(List.copyOf(invocation.getArgument(0)));
+                    writeBehindService.adjust(3L, 1);
+                    writeBehindService.adjust(1L, 2);
+                    throw new QueryTimeoutException("timeout");
+                })
+                .thenAnswer(invocation -> updated(invocation.getArgument(0)));
+
+        // When
+        assertThatThrownBy(() -> writeBehindService.flush()).isInstanceOf(QueryTimeoutException.class);
+        int lots = writeBehindService.flush();
+
+        // Then（戻した増減（ロット1・2）が先で、後から届いたロット1の増減は合算される）
+        assertThat(lots).isEqualTo(3);
+        assertThat(written).containsExactly(
+                List.of(patch(1L, 1), patch(2L, 1)),
+                List.of(patch(1L, 3), patch(2L, 1), patch(3L, 1)));
+        assertThat(meterRegistry.counter("inventory.stock.write-behind.operations", "result", "retried").count())
+                .isEqualTo(2);
+    }
+
+    // ===== キューの上限 =====
+
+    @Test
+    @DisplayName("在庫数の増減_正常系_キューがあふれたら受け付けた側で書き込んでから入れ直す")
+    void adjust_正常系_キューがあふれたら受け付けた側で書き込んでから入れ直す() {
+        // Given（上限 3 回分。書き込み中に1回分届いてから失敗し、戻した分と合わせてちょうど上限になる）
+        // （上限に達するまで1回ずつ積むと書き込みの合図で別スレッドが書き込むため、失敗からの戻しで上限に合わせる）
+        writeBehindService = enabled(3, 3);
+        writeBehindService.adjust(1L, 1);
+        writeBehindService.adjust(2L, 1);
+        when(stockService.patchAll(anyList()))
+                .thenAnswer(invocation -> {
+                    written.add(List.copyOf(invocation.getArgument(0)));
+                    writeBehindService.adjust(3L, 1);
+                    throw new QueryTimeoutException("timeout");
+                })
+                .thenAnswer(invocation -> updated(invocation.getArgument(0)));
+        assertThatThrownBy(() -> writeBehindService.flush()).isInstanceOf(QueryTimeoutException.class);
+
+        // When（上限の状態でロット4の増減が届く）
+        Optional<StockPatchResult> result = writeBehindService.adjust(4L, 1);
+
+        // Then（受け付けた側のスレッドでキューの3ロットを書き込み、ロット4は空いたキューに入る）
+        assertThat(result).isEmpty();
+        assertThat(written).containsExactly(
+                List.of(patch(1L, 1), patch(2L, 1)),
+                List.of(patch(1L, 1), patch(2L, 1), patch(3L, 1)));
+        assertThat(writeBehindService.flush()).isEqualTo(1);
+        assertThat(written.get(2)).containsExactly(patch(4L, 1));
+    }
+
+    // ===== 停止 =====
+
+    @Test
+    @DisplayName("停止_正常系_残りを書き込み以降の増減はその場で書き込む")
+    void shutdown_正常系_残りを書き込み以降の増減はその場で書き込む() {
+        // Given
+        writeBehindService = enabled(100, 10000);
+        stubPatchAll();
+        writeBehindService.adjust(1L, 1);
+        writeBehindService.adjust(2L, -1);
+
+        // When
+        writeBehindService.shutdown();
+        Optional<StockPatchResult> afterStop = writeBehindService.adjust(1L, 1);
+
+        // Then
+        assertThat(written).containsExactly(
+                List.of(patch(1L, 1), patch(2L, -1)),
+                List.of(patch(1L, 1)));
+        assertThat(afterStop).map(StockPatchResult::status).contains(StockPatchResult.Status.UPDATED);
+        assertThat(writeBehindService.flush()).isZero();
+    }
+
+    // ===== ヘルパー =====
+
+    private StockWriteBehindService enabled(int batchSize, int capacity) {
+        return new StockWriteBehindService(stockService, meterRegistry, true, MAX_LATENCY_MILLIS, batchSize, capacity);
+    }
+
+    private void stubPatchAll() {
+        when(stockService.patchAll(anyList())).thenAnswer(invocation -> updated(invocation.getArgument(0)));
+    }
+
+    private List<StockPatchResult> updated(List<StockPatch> patches) {
+        written.add(List.copyOf(patches));
+        return patches.stream()
+                .map(patch -> new StockPatchResult(patch.id(), StockPatchResult.Status.UPDATED, 10, null))
+                .toList();
+    }
+
+    // 在庫数を持つロットを模して、StockBatchRepository と同じ基準（quantity + delta >= 0）で順に適用する
+    private Map<Long, Integer> stubLots(Map<Long, Integer> initial) {
+        Map<Long, Integer> quantities = new HashMap<>(initial);
+        when(stockService.patchAll(anyList())).thenAnswer(invocation -> {
+            List<StockPatch> patches = invocation.getArgument(0);
+            written.add(List.copyOf(patches));
+            List<StockPatchResult> results = new ArrayList<>();
+            for (StockPatch patch : patches) {
+                int next = quantities.get(patch.id()) + patch.delta();
+                StockPatchResult.Status status = StockPatchResult.Status.REJECTED;
+                if (next >= 0) {
+                    quantities.put(patch.id(), next);
+                    status = StockPatchResult.Status.UPDATED;
+                }
+                results.add(new StockPatchResult(patch.id(), status, quantities.get(patch.id()), null));
+            }
+            return results;
+        });
+        return quantities;
+    }
+
+    private double rejected() {
+        return meterRegistry.counter("inventory.stock.write-behind.operations", "result", "rejected").count();
+    }
+
+    private double queued() {
+        return meterRegistry.counter("inventory.stock.write-behind.operations", "result", "queued").count();
+    }
+
+    private static StockPatch patch(Long stockId, int delta) {
+        return new StockPatch(stockId, delta, null);
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.inventory.service;
+
+import com.example.inventory.dto.CategoryChange;
+import com.example.inventory.dto.StoreChange;
+import com.example.inventory.dto.SyncPage;
+import com.example.inventory.repository.CategoryRepository;
+import com.example.inventory.repository.ItemRepository;
+import com.example.inventory.repository.PurchaseHistoryRepository;
+import com.example.inventory.repository.StockRepository;
+import com.example.inventory.repository.StoreRepository;
+import com.example.inventory.repository.TombstoneRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SyncServiceTest {
+
+    private static final LocalDateTime SINCE = LocalDateTime.of(2026, 1, 1, 0, 0);
+    private static final LocalDateTime UPDATED_AT = LocalDateTime.of(2026, 1, 2, 10, 0);
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private StoreRepository storeRepository;
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    @Mock
+    private StockRepository stockRepository;
+
+    @Mock
+    private PurchaseHistoryRepository purchaseHistoryRepository;
+
+    @Mock
+    private TombstoneRepository tombstoneRepository;
+
+    private SyncService syncService;
+
+    @BeforeEach
+    void setUp() {
+        syncService = new SyncService(categoryRepository, storeRepository, itemRepository, stockRepository,
+                purchaseHistoryRepository, tombstoneRepository, 5, 1000);
+    }
+
+    // ===== カーソル =====
+
+    @Test
+    @DisplayName("差分同期_正常系_ページの最後の行の更新日時とIDから続きを読む")
+    void getChanges_正常系_ページの最後の行の更新日時とIDから続きを読む() {
+        // Given（同じ更新日時のカテゴリが3件あり、1ページ2件で読む）
+        when(categoryRepository.findChangesAfter(eq(SINCE), eq(Long.MAX_VALUE), any(), any()))
+                .thenReturn(List.of(category(1L), category(2L)));
+
+        // When
+        SyncPage first = syncService.getChanges(SINCE, null, 2);
+
+        // Then（読み切っていないのでカーソルが返る）
+        assertThat(first.hasMore()).isTrue();
+        assertThat(first.cursor()).isNotNull();
+        assertThat(first.categories()).extracting(CategoryChange::id).containsExactly(1L, 2L);
+
+        // Given（2ページ目は (更新日時, ID) = (UPDATED_AT, 2) より後から読む）
+        when(categoryRepository.findChangesAfter(eq(UPDATED_AT), eq(2L), eq(first.watermark()), any()))
+                .thenReturn(List.of(category(3L)));
+
+        // When
+        SyncPage second = syncService.getChanges(null, first.cursor(), 2);
+
+        // Then（同じ更新日時の3件目を取りこぼさず、次のテーブルへ進む。上限時刻は1ページ目と同じ）
+        assertThat(second.categories()).extracting(CategoryChange::id).containsExactly(3L);
+        assertThat(second.watermark()).isEqualTo(first.watermark());
+        ArgumentCaptor<LocalDateTime> afterTs = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<Long> afterId = ArgumentCaptor.forClass(Long.class);
+        verify(storeRepository).findChangesAfter(afterTs.capture(), afterId.capture(), eq(first.watermark()), any(Pageable.class));
+        assertThat(afterTs.getValue()).isEqualTo(SINCE);  // 次のテーブルの先頭は since から
+        assertThat(afterId.getValue()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    @DisplayName("差分同期_正常系_テーブルをまたいでページを埋める")
+    void getChanges_正常系_テーブルをまたいでページを埋める() {
+        // Given（カテゴリ1件で読み切り、残り1件分を店舗から読む）
+        when(categoryRepository.findChangesAfter(any(), any(), any(), any())).thenReturn(List.of(category(1L)));
+        when(storeRepository.findChangesAfter(any(), any(), any(), any()))
+                .thenReturn(List.of(new StoreChange(7L, "store", null, UPDATED_AT)));
+
+        // When
+        SyncPage page = syncService.getChanges(SINCE, null, 2);
+
+        // Then（店舗の途中で止まったので、店舗の (UPDATED_AT, 7) から続くカーソルが返る）
+        assertThat(page.categories()).hasSize(1);
+        assertThat(page.stores()).hasSize(1);
+        assertThat(page.hasMore()).isTrue();
+
+        // When（続きは店舗から読み、カテゴリは読み直さない）
+        SyncPage next = syncService.getChanges(null, page.cursor(), 2);
+
+        // Then
+        verify(storeRepository).findChangesAfter(eq(UPDATED_AT), eq(7L), eq(page.watermark()), any());
+        verify(categoryRepository).findChangesAfter(any(), any(), any(), any());
+        assertThat(next.categories()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("差分同期_正常系_全テーブルを読み切るとカーソルなし")
+    void getChanges_正常系_全テーブルを読み切るとカーソルなし() {
+        // When（リポジトリはすべて空）
+        SyncPage page = syncService.getChanges(null, null, 100);
+
+        // Then
+        assertThat(page.hasMore()).isFalse();
+        assertThat(page.cursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("差分同期_異常系_不正なカーソル")
+    void getChanges_異常系_不正なカーソル() {
+        assertThatThrownBy(() -> syncService.getChanges(null, "not-a-cursor", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static CategoryChange category(Long id) {
+        return new CategoryChange(id, "category" + id, null, UPDATED_AT);
+    }
+}
@@ -0,0 +1,21 @@
+-- 初期化スクリプト（DBボリューム作成時に一度だけ実行される）
+-- その他のテーブルは Spring Boot（JPA）が起動時に作成する
+
+-- 購入履歴は購入日時（purchased_at）の月単位でパーティション分割する
+-- 月別パーティションはアプリ（PurchaseHistoryRetentionService）が先行作成し、保持期間を過ぎたものは削除する
+-- パーティションキーを含める必要があるため、主キーは (id, purchased_at)
+CREATE TABLE IF NOT EXISTS purchase_histories (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    quantity     INTEGER      NOT NULL,
+    total_price  INTEGER,
+    item_id      BIGINT,
+    store_id     BIGINT,
+    created_at   TIMESTAMP(6) NOT NULL,
+    purchased_at TIMESTAMP(6) NOT NULL,
+    updated_at   TIMESTAMP(6) NOT NULL,
+    expiry_date  DATE,
+    PRIMARY KEY (id, purchased_at)
+) PARTITION BY RANGE (purchased_at);
+
+-- 月別パーティションが無い期間の受け皿
+CREATE TABLE IF NOT EXISTS purchase_histories_default PARTITION OF purchase_histories DEFAULT;
@@ -0,0 +1,10 @@
+#!/bin/bash
+# ストリーミングレプリケーション用のロールと接続許可（docker-compose.replica.yml 使用時）
+# docker-entrypoint-initdb.d の処理なので、db のデータボリュームの初回初期化時のみ実行される
+set -e
+
+psql -v ON_ERROR_STOP=1 --username "$POSTGRES_USER" --dbname "$POSTGRES_DB" <<-SQL
+    CREATE ROLE replicator WITH REPLICATION LOGIN PASSWORD '${REPLICATION_PASSWORD}';
+SQL
+
+echo "host replication replicator all scram-sha-256" >> "$PGDATA/pg_hba.conf"